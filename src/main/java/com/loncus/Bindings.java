@@ -0,0 +1,214 @@
+package com.loncus;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.SlotDataAccessorIfc;
+import com.loncus.data.VariableSlots;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Getter;
+
+/**
+ * The variable values for one evaluation of a {@link CompiledExpression}. Bindings are created by
+ * {@link CompiledExpression#newBindings()} and are meant to be short-lived and cheap to create.
+ * They are not thread safe, but a compiled expression can be evaluated concurrently with different
+ * bindings.
+ *
+ * <p>The values of the variables used in the expression are stored in an array. They can be bound
+ * by name, or faster by their slot, see {@link CompiledExpression#getVariableSlot(String)}:
+ *
+ * <pre>
+ *   int a = compiled.getVariableSlot("a");
+ *   EvaluationValue result = compiled.evaluate(compiled.newBindings().set(a, 2));
+ * </pre>
+ *
+ * Variables with a declared data type, see {@link CompiledExpression#compile(String,
+ * ExpressionConfiguration, Map)}, only accept values of that type.
+ */
+public final class Bindings implements SlotDataAccessorIfc {
+
+  private static final EvaluationValue ANY_NUMBER = EvaluationValue.numberValue(BigDecimal.ZERO);
+
+  private final ExpressionConfiguration configuration;
+
+  private final Map<String, EvaluationValue> constants;
+
+  @Getter private final VariableSlots variableSlots;
+
+  private final EvaluationValue[] slotValues;
+
+  /**
+   * The number values by slot as primitive doubles, in the {@link NumericMode#DOUBLE} numeric mode,
+   * else <code>null</code>.
+   */
+  private final double[] doubleValues;
+
+  /** Whether the double value of a slot is set, <code>null</code> if there are no double values. */
+  private final boolean[] hasDoubleValues;
+
+  /** Values of variables without a slot, created on demand. */
+  private Map<String, EvaluationValue> values;
+
+  Bindings(
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    this.configuration = configuration;
+    this.constants = constants;
+    this.variableSlots = variableSlots;
+    this.slotValues = new EvaluationValue[variableSlots.size()];
+    if (configuration.getNumericMode() == NumericMode.DOUBLE) {
+      this.doubleValues = new double[variableSlots.size()];
+      this.hasDoubleValues = new boolean[variableSlots.size()];
+    } else {
+      this.doubleValues = null;
+      this.hasDoubleValues = null;
+    }
+  }
+
+  /**
+   * Binds a variable value. If a value with the same name already exists, it is overridden. The
+   * data type will be determined by examining the passed value object.
+   *
+   * @param variable The variable name.
+   * @param value The variable value.
+   * @return The bindings, to allow chaining of methods.
+   * @throws UnsupportedOperationException If the variable name is the name of a constant.
+   * @throws IllegalArgumentException If the value is not of the declared type of the variable.
+   */
+  public Bindings with(String variable, Object value) {
+    setData(variable, new EvaluationValue(value, configuration));
+    return this;
+  }
+
+  /**
+   * Binds a variable value, same as {@link #with(String, Object)}.
+   *
+   * @param variable The variable name.
+   * @param value The variable value.
+   * @return The bindings, to allow chaining of methods.
+   */
+  public Bindings and(String variable, Object value) {
+    return with(variable, value);
+  }
+
+  /**
+   * Binds all variables values defined in the map with their name (key) and value.
+   *
+   * @param values A map with variable values.
+   * @return The bindings, to allow chaining of methods.
+   */
+  public Bindings withValues(Map<String, ?> values) {
+    for (Map.Entry<String, ?> entry : values.entrySet()) {
+      with(entry.getKey(), entry.getValue());
+    }
+    return this;
+  }
+
+  /**
+   * Binds a variable value by its slot. If a value is already bound, it is overridden. The data
+   * type will be determined by examining the passed value object.
+   *
+   * @param slot The variable slot, see {@link CompiledExpression#getVariableSlot(String)}.
+   * @param value The variable value.
+   * @return The bindings, to allow chaining of methods.
+   * @throws IndexOutOfBoundsException If the slot does not exist.
+   * @throws IllegalArgumentException If the value is not of the declared type of the variable.
+   */
+  public Bindings set(int slot, Object value) {
+    setSlot(slot, variableSlots.checkType(slot, new EvaluationValue(value, configuration)));
+    return this;
+  }
+
+  /**
+   * Binds a number by its slot. In the {@link NumericMode#DOUBLE} numeric mode, the number is kept
+   * as primitive double, so binding and reading it does not allocate.
+   *
+   * @param slot The variable slot, see {@link CompiledExpression#getVariableSlot(String)}.
+   * @param value The number.
+   * @return The bindings, to allow chaining of methods.
+   * @throws IndexOutOfBoundsException If the slot does not exist.
+   * @throws IllegalArgumentException If the variable is declared with another type than number.
+   */
+  public Bindings set(int slot, double value) {
+    if (doubleValues == null) {
+      return set(slot, (Object) value);
+    }
+    // the number is not converted, only its type is checked
+    variableSlots.checkType(slot, ANY_NUMBER);
+    slotValues[slot] = null;
+    doubleValues[slot] = value;
+    hasDoubleValues[slot] = true;
+    return this;
+  }
+
+  /**
+   * Checks if a number is bound to a slot, that can be read as primitive double with {@link
+   * #getDouble(int)}. This is only the case in the {@link NumericMode#DOUBLE} numeric mode.
+   *
+   * @param slot The variable slot.
+   * @return <code>true</code> if a number is bound.
+   */
+  public boolean hasDouble(int slot) {
+    return hasDoubleValues != null && hasDoubleValues[slot];
+  }
+
+  /**
+   * Returns the number bound to a slot as primitive double.
+   *
+   * @param slot The variable slot.
+   * @return The number, only valid if {@link #hasDouble(int)} returns <code>true</code>.
+   */
+  public double getDouble(int slot) {
+    return doubleValues[slot];
+  }
+
+  @Override
+  public EvaluationValue getData(int slot) {
+    EvaluationValue value = slotValues[slot];
+    if (value == null && hasDouble(slot)) {
+      value = new EvaluationValue(doubleValues[slot], configuration);
+      slotValues[slot] = value;
+    }
+    return value;
+  }
+
+  @Override
+  public EvaluationValue getData(String variable) {
+    int slot = variableSlots.getSlot(variable);
+    if (slot >= 0) {
+      return getData(slot);
+    }
+    return values != null ? values.get(variable) : null;
+  }
+
+  @Override
+  public void setData(String variable, EvaluationValue value) {
+    int slot = variableSlots.getSlot(variable);
+    if (slot >= 0) {
+      // variables with a slot are never constants
+      setSlot(slot, variableSlots.checkType(slot, value));
+      return;
+    }
+    if (constants.containsKey(variable)) {
+      throw new UnsupportedOperationException(
+          String.format("Can't set value for constant '%s'", variable));
+    }
+    if (values == null) {
+      values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+    values.put(variable, value);
+  }
+
+  private void setSlot(int slot, EvaluationValue value) {
+    slotValues[slot] = value;
+    if (hasDoubleValues != null) {
+      hasDoubleValues[slot] = value.isNumberValue();
+      if (hasDoubleValues[slot]) {
+        doubleValues[slot] = value.getNumberValue().doubleValue();
+      }
+    }
+  }
+}
@@ -0,0 +1,452 @@
+package com.loncus;
+
+import com.loncus.compiler.BatchProgram;
+import com.loncus.compiler.CompiledProgram;
+import com.loncus.compiler.DoubleProgram;
+import com.loncus.compiler.ExpressionCompiler;
+import com.loncus.compiler.FixedPointProgram;
+import com.loncus.compiler.InferredTypes;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.Column;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.data.VariableSlots;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ExpressionParser;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.SymbolTable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.Getter;
+
+/**
+ * An immutable, parsed expression that can be evaluated concurrently from many threads. In contrast
+ * to {@link Expression}, a compiled expression does not hold any variable values. They are passed
+ * to each evaluation in form of {@link Bindings}, which are cheap to create:
+ *
+ * <pre>
+ *   CompiledExpression compiled = CompiledExpression.compile("a * (b + 1)");
+ *   EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 2).and("b", 3));
+ * </pre>
+ *
+ * The constants of the configuration are fixed when the expression is compiled, variables with the
+ * name of a constant can not be bound. Each used variable is assigned a slot, so that compiled
+ * programs read the variable values from an array instead of looking them up by name.
+ *
+ * <p>Variables can be declared with a data type. The types of the tree nodes are then inferred when
+ * the expression is compiled, see {@link InferredTypes}: operations on operands of unsupported
+ * types are reported as parse errors, and compiled programs call operators that are specialized for
+ * the operand types.
+ *
+ * <p>To evaluate the expression for many rows of data, the variable values can be passed as
+ * columns, see {@link #evaluateBatch(Map)}. If only some of the variables change between
+ * evaluations, an {@link IncrementalEvaluator} evaluates only the changed subtrees. If some of the
+ * variables change rarely, the expression can be specialized for their values, see {@link
+ * #specialize(Map)}.
+ *
+ * <p>With the {@link ExpressionConfiguration.NumericMode#DOUBLE} numeric mode, expressions on
+ * numbers and booleans are evaluated with primitive values, see {@link DoubleProgram}. Variables
+ * can then be bound as primitive doubles with {@link Bindings#set(int, double)}, and the result can
+ * be read as primitive double with {@link #evaluateDouble(Bindings)}.
+ *
+ * <p>With the {@link ExpressionConfiguration.NumericMode#FIXED_POINT} numeric mode, numbers are
+ * evaluated as longs with a fixed scale, see {@link FixedPointProgram}. If an intermediate result
+ * can not be represented exactly, the expression is evaluated with big decimals, so the results do
+ * not depend on the numeric mode.
+ */
+public final class CompiledExpression {
+
+  @Getter private final ExpressionConfiguration configuration;
+
+  @Getter private final String expressionString;
+
+  @Getter private final ASTNode abstractSyntaxTree;
+
+  /** Unmodifiable, case-insensitive copy of the configuration constants. */
+  @Getter private final Map<String, EvaluationValue> constants;
+
+  @Getter private final Set<String> usedVariables;
+
+  /** The slots of the used variables, in the order of {@link #getUsedVariables()}. */
+  @Getter private final VariableSlots variableSlots;
+
+  /** The compiled program, <code>null</code> if the expression is interpreted. */
+  private final CompiledProgram compiledProgram;
+
+  private final InferredTypes types;
+
+  /**
+   * The program for the double numeric mode, <code>null</code> if numbers are big decimals or the
+   * expression can not be evaluated with primitive values.
+   */
+  private final DoubleProgram doubleProgram;
+
+  /**
+   * The program for the fixed point numeric mode, <code>null</code> if numbers are not fixed point
+   * numbers or the expression can not be evaluated with them.
+   */
+  private final FixedPointProgram fixedPointProgram;
+
+  /** The program for batch evaluations, created on first use. */
+  private volatile BatchProgram batchProgram;
+
+  private CompiledExpression(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      Map<String, EvaluationValue> constants,
+      Map<String, DataType> variableTypes)
+      throws ParseException {
+    this.expressionString = expressionString;
+    this.configuration = configuration;
+    this.abstractSyntaxTree = abstractSyntaxTree;
+    this.constants = constants;
+
+    this.usedVariables =
+        Collections.unmodifiableSet(createEvaluationExpression(null).getUsedVariables());
+    this.variableSlots = new VariableSlots(usedVariables, variableTypes);
+
+    this.types = InferredTypes.infer(abstractSyntaxTree, constants, variableSlots);
+    this.compiledProgram =
+        configuration.getEvaluationMode() == ExpressionConfiguration.EvaluationMode.INTERPRETER
+            ? null
+            : ExpressionCompiler.compile(
+                abstractSyntaxTree, configuration, constants, variableSlots, types);
+    this.doubleProgram =
+        configuration.getNumericMode() == ExpressionConfiguration.NumericMode.DOUBLE
+            ? ExpressionCompiler.compileDouble(
+                abstractSyntaxTree, configuration, constants, variableSlots)
+            : null;
+    this.fixedPointProgram =
+        configuration.getNumericMode() == ExpressionConfiguration.NumericMode.FIXED_POINT
+            ? ExpressionCompiler.compileFixedPoint(
+                abstractSyntaxTree, configuration, constants, variableSlots)
+            : null;
+  }
+
+  /**
+   * Parses and compiles an expression with the default configuration.
+   *
+   * @param expressionString A string holding an expression.
+   * @return The compiled expression.
+   * @throws ParseException If there were problems while parsing the expression.
+   */
+  public static CompiledExpression compile(String expressionString) throws ParseException {
+    return compile(expressionString, ExpressionConfiguration.defaultConfiguration());
+  }
+
+  /**
+   * Parses and compiles an expression with a custom configuration. If the configuration has an
+   * expression cache, the parsed tree is taken from the cache.
+   *
+   * @param expressionString A string holding an expression.
+   * @param configuration The configuration to use.
+   * @return The compiled expression.
+   * @throws ParseException If there were problems while parsing the expression.
+   */
+  public static CompiledExpression compile(
+      String expressionString, ExpressionConfiguration configuration) throws ParseException {
+    return compile(expressionString, configuration, Collections.emptyMap());
+  }
+
+  /**
+   * Parses and compiles an expression with a custom configuration and declared variable types. Only
+   * values of the declared type can be bound to a variable, see {@link Bindings}. Variables without
+   * a declared type accept any value.
+   *
+   * @param expressionString A string holding an expression.
+   * @param configuration The configuration to use.
+   * @param variableTypes The declared types by variable name.
+   * @return The compiled expression.
+   * @throws ParseException If there were problems while parsing the expression, or an operation is
+   *     applied to operands of unsupported types.
+   */
+  public static CompiledExpression compile(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      Map<String, DataType> variableTypes)
+      throws ParseException {
+    return compile(
+        expressionString, configuration, copyConstants(configuration), null, variableTypes);
+  }
+
+  /**
+   * Parses and compiles an expression with constants and a symbol table that are shared with other
+   * expressions.
+   *
+   * @param expressionString A string holding an expression.
+   * @param configuration The configuration to use.
+   * @param constants The constants, see {@link #copyConstants(ExpressionConfiguration)}.
+   * @param symbolTable The table to intern the tokens in, <code>null</code> to not intern them. Not
+   *     used, if the tree is taken from the expression cache.
+   * @param variableTypes The declared types by variable name.
+   * @return The compiled expression.
+   * @throws ParseException If there were problems while parsing the expression.
+   */
+  static CompiledExpression compile(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      SymbolTable symbolTable,
+      Map<String, DataType> variableTypes)
+      throws ParseException {
+    ASTNode abstractSyntaxTree;
+    if (configuration.getExpressionCache() != null) {
+      abstractSyntaxTree =
+          configuration.getExpressionCache().getAbstractSyntaxTree(expressionString, configuration);
+    } else {
+      abstractSyntaxTree = ExpressionParser.parse(expressionString, configuration, symbolTable);
+    }
+    return new CompiledExpression(
+        expressionString, configuration, abstractSyntaxTree, constants, variableTypes);
+  }
+
+  /**
+   * Creates the unmodifiable, case-insensitive copy of the configuration constants.
+   *
+   * @param configuration The configuration.
+   * @return The constants.
+   */
+  static Map<String, EvaluationValue> copyConstants(ExpressionConfiguration configuration) {
+    Map<String, EvaluationValue> constants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    constants.putAll(configuration.getDefaultConstants());
+    return Collections.unmodifiableMap(constants);
+  }
+
+  /**
+   * Creates a new, empty set of variable bindings for this expression. Bindings are not thread
+   * safe, each thread should use its own instance.
+   *
+   * @return New bindings.
+   */
+  public Bindings newBindings() {
+    return new Bindings(configuration, constants, variableSlots);
+  }
+
+  /**
+   * Creates a new evaluator that remembers the values of the subtrees between evaluations, for
+   * repeated evaluations where only some of the variables change, see {@link IncrementalEvaluator}.
+   *
+   * @return A new evaluator, without any variable values.
+   */
+  public IncrementalEvaluator newIncrementalEvaluator() {
+    return new IncrementalEvaluator(this);
+  }
+
+  /**
+   * Specializes the expression for known values of some of its variables, like parameters that
+   * rarely change. The known variables are substituted, the subtrees that depend only on constants
+   * and known variables are evaluated, and <code>IF</code> functions with a decided condition are
+   * replaced by the selected branch. The result is a smaller, residual expression over the
+   * remaining variables:
+   *
+   * <pre>
+   *   CompiledExpression compiled = CompiledExpression.compile("IF(rate > 1, amount * rate, amount)");
+   *   CompiledExpression residual = compiled.specialize(Collections.singletonMap("rate", 1.5));
+   *   EvaluationValue result = residual.evaluate(residual.newBindings().with("amount", 10));
+   * </pre>
+   *
+   * In the residual expression, the known variables are constants, they can not be bound anymore.
+   * Known values of variables that are not used in the expression are ignored.
+   *
+   * @param knownValues The known variable values by variable name.
+   * @return The residual expression, with the same configuration.
+   * @throws UnsupportedOperationException If a known value has the name of a constant.
+   * @throws IllegalArgumentException If a known value is not of the declared type of its variable.
+   * @throws ParseException If an operation in the residual expression is applied to operands of
+   *     unsupported types, like a known string value in an arithmetic operation.
+   */
+  public CompiledExpression specialize(Map<String, ?> knownValues) throws ParseException {
+    Map<String, EvaluationValue> residualConstants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    residualConstants.putAll(constants);
+    for (Map.Entry<String, ?> entry : knownValues.entrySet()) {
+      String variable = entry.getKey();
+      if (constants.containsKey(variable)) {
+        throw new UnsupportedOperationException(
+            String.format("Can't set value for constant '%s'", variable));
+      }
+      int slot = variableSlots.getSlot(variable);
+      if (slot >= 0) {
+        residualConstants.put(
+            variable,
+            variableSlots.checkType(slot, new EvaluationValue(entry.getValue(), configuration)));
+      }
+    }
+
+    ASTNode residualTree =
+        ExpressionCompiler.specialize(abstractSyntaxTree, configuration, residualConstants);
+    Map<String, DataType> residualTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (int slot = 0; slot < variableSlots.size(); slot++) {
+      if (variableSlots.getType(slot) != null) {
+        residualTypes.put(variableSlots.getName(slot), variableSlots.getType(slot));
+      }
+    }
+    return new CompiledExpression(
+        expressionString,
+        configuration,
+        residualTree,
+        Collections.unmodifiableMap(residualConstants),
+        residualTypes);
+  }
+
+  /**
+   * Returns the slot of a used variable. Binding values by slot with {@link Bindings#set(int,
+   * Object)} avoids the lookup of the variable name on each evaluation.
+   *
+   * @param variable The variable name.
+   * @return The slot of the variable.
+   * @throws IllegalArgumentException If the variable is not used in the expression.
+   */
+  public int getVariableSlot(String variable) {
+    int slot = variableSlots.getSlot(variable);
+    if (slot < 0) {
+      throw new IllegalArgumentException(
+          String.format("Variable '%s' is not used in the expression", variable));
+    }
+    return slot;
+  }
+
+  /**
+   * Evaluates the expression with the given variable values. This method can be called
+   * concurrently, as long as each thread passes its own bindings.
+   *
+   * @param bindings The variable values to use.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  public EvaluationValue evaluate(Bindings bindings) throws EvaluationException {
+    if (doubleProgram != null) {
+      EvaluationValue result = doubleProgram.evaluate(bindings, configuration);
+      // intermediate results are doubles, only the final result can be rounded
+      return configuration.getRoundingPolicy() == ExpressionConfiguration.RoundingPolicy.NEVER
+          ? result
+          : Expression.roundAndStripZeros(configuration, result);
+    }
+    if (fixedPointProgram != null) {
+      EvaluationValue result = fixedPointProgram.evaluate(bindings);
+      if (result != null) {
+        // the program is only compiled, if the result is rounded or stripped
+        return Expression.roundAndStripZeros(configuration, result);
+      }
+    }
+    EvaluationValue result =
+        compiledProgram != null
+            ? compiledProgram.evaluate(
+                expressionString, configuration, abstractSyntaxTree, bindings, constants)
+            : createEvaluationExpression(bindings).evaluateSubtree(abstractSyntaxTree);
+    return Expression.roundResultIfNeeded(configuration, result);
+  }
+
+  /**
+   * Evaluates the expression with the given variable values and returns the result as primitive
+   * double. In {@link ExpressionConfiguration.NumericMode#DOUBLE} mode, the result is neither
+   * converted nor rounded, boolean results are returned as <code>1</code> or <code>0</code>.
+   *
+   * @param bindings The variable values to use.
+   * @return The evaluation result.
+   * @throws EvaluationException If there were problems while evaluating the expression, or the
+   *     result is not a number.
+   */
+  public double evaluateDouble(Bindings bindings) throws EvaluationException {
+    if (doubleProgram != null) {
+      return doubleProgram.evaluateDouble(bindings);
+    }
+    EvaluationValue result = evaluate(bindings);
+    if (!result.isNumberValue()) {
+      throw new EvaluationException(
+          abstractSyntaxTree.getToken(), "Result is not a number: " + result.getValue());
+    }
+    return result.getNumberValue().doubleValue();
+  }
+
+  /**
+   * Evaluates the expression without any variable values.
+   *
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  public EvaluationValue evaluate() throws EvaluationException {
+    return evaluate(newBindings());
+  }
+
+  /**
+   * Evaluates the expression for a batch of rows, with the variable values passed as columns. The
+   * expression is evaluated vector at a time: each operator and function is applied to all rows
+   * before the next one, see {@link BatchProgram}. The result is the same as evaluating the
+   * expression for each row with its own bindings:
+   *
+   * <pre>
+   *   Map&lt;String, Column&gt; columns = new HashMap&lt;&gt;();
+   *   columns.put("price", Column.of(prices));
+   *   columns.put("quantity", Column.of(quantities).withValidity(validQuantities));
+   *   Column totals = compiled.evaluateBatch(columns);
+   * </pre>
+   *
+   * NULL rows of a column are passed to the operators and functions as NULL values. The NULL rows
+   * of the result are marked in its validity bitmap.
+   *
+   * @param columns The variable values by variable name, all columns must have the same size.
+   * @return The result column, with one value per row.
+   * @throws EvaluationException If there were problems while evaluating the expression for any of
+   *     the rows.
+   * @throws IllegalArgumentException If no column is passed, the columns have different sizes, or a
+   *     column contains a value that is not of the declared type of its variable.
+   * @throws UnsupportedOperationException If a column has the name of a constant.
+   */
+  public Column evaluateBatch(Map<String, Column> columns) throws EvaluationException {
+    if (columns.isEmpty()) {
+      throw new IllegalArgumentException("At least one column is required");
+    }
+    int rowCount = columns.values().iterator().next().size();
+    EvaluationValue[][] values = new EvaluationValue[variableSlots.size()][];
+    for (Map.Entry<String, Column> entry : columns.entrySet()) {
+      String variable = entry.getKey();
+      Column column = entry.getValue();
+      if (column.size() != rowCount) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Column '%s' has %d rows, but other columns have %d rows",
+                variable, column.size(), rowCount));
+      }
+      int slot = variableSlots.getSlot(variable);
+      if (slot >= 0) {
+        values[slot] = column.toValues(configuration);
+        for (EvaluationValue value : values[slot]) {
+          // NULL rows are allowed for variables of any type
+          if (!value.isNullValue()) {
+            variableSlots.checkType(slot, value);
+          }
+        }
+      } else if (constants.containsKey(variable)) {
+        throw new UnsupportedOperationException(
+            String.format("Can't set value for constant '%s'", variable));
+      }
+    }
+
+    EvaluationValue[] result =
+        getBatchProgram()
+            .evaluate(
+                expressionString, configuration, abstractSyntaxTree, constants, values, rowCount);
+    for (int row = 0; row < rowCount; row++) {
+      result[row] = Expression.roundResultIfNeeded(configuration, result[row]);
+    }
+    return Column.of(result);
+  }
+
+  private BatchProgram getBatchProgram() {
+    BatchProgram program = batchProgram;
+    if (program == null) {
+      // a race creates equivalent programs, any of them can be used
+      program =
+          BatchProgram.compile(abstractSyntaxTree, configuration, constants, variableSlots, types);
+      batchProgram = program;
+    }
+    return program;
+  }
+
+  private Expression createEvaluationExpression(Bindings bindings) {
+    return new Expression(expressionString, configuration, abstractSyntaxTree, bindings, constants);
+  }
+}
@@ -0,0 +1,212 @@
+package com.loncus;
+
+import com.loncus.EvaluationCancelledException.Reason;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+import java.time.Duration;
+
+/**
+ * The budget of a single evaluation, as configured by {@link
+ * ExpressionConfiguration#getMaximumNodeEvaluations()}, {@link
+ * ExpressionConfiguration#getMaximumDigits()} and {@link
+ * ExpressionConfiguration#getEvaluationTimeout()}. Each evaluated operator, function, variable and
+ * array access is charged to the budget. If the budget is exceeded, the evaluation is aborted with
+ * an {@link EvaluationCancelledException}. Literals are not charged, and neither are the constant
+ * subtrees that compiled expressions evaluate once at compile time.
+ *
+ * <p>The budget also serves as cancellation token for long-running functions and operators: they
+ * call {@link #checkCancelled(Token)} in their loops and {@link #checkDigits(Token, long)} before
+ * they calculate large numbers. A budget with limits also aborts the evaluation, if the evaluating
+ * thread is interrupted.
+ *
+ * <p>The budget of the current evaluation is available through {@link
+ * Expression#getEvaluationBudget()}. A budget is not thread safe, it belongs to one evaluation.
+ */
+public final class EvaluationBudget {
+
+  /** The budget of evaluations without limits. It has no state, so it is shared. */
+  static final EvaluationBudget UNLIMITED = new EvaluationBudget(-1, -1, null);
+
+  /** The number of node evaluations between two checks of the clock. */
+  private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+  private final long maximumNodeEvaluations;
+
+  private final int maximumDigits;
+
+  private final Duration timeout;
+
+  /** The deadline in {@link System#nanoTime()}, only valid if there is a timeout. */
+  private final long deadline;
+
+  private final boolean limited;
+
+  private long nodeEvaluations;
+
+  private EvaluationBudget(long maximumNodeEvaluations, int maximumDigits, Duration timeout) {
+    this.maximumNodeEvaluations = maximumNodeEvaluations;
+    this.maximumDigits = maximumDigits;
+    this.timeout = timeout;
+    this.deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+    this.limited =
+        maximumNodeEvaluations != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+            || maximumDigits != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+            || timeout != null;
+  }
+
+  /**
+   * Starts the budget of a new evaluation. The timeout starts now.
+   *
+   * @param configuration The configuration with the limits.
+   * @param repetitions The number of times the expression is evaluated with this budget, e.g. the
+   *     rows of a batch. The maximum number of node evaluations is multiplied by it.
+   * @return The budget, a shared instance if the configuration has no limits.
+   */
+  public static EvaluationBudget start(ExpressionConfiguration configuration, int repetitions) {
+    long maximumNodeEvaluations = configuration.getMaximumNodeEvaluations();
+    if (maximumNodeEvaluations == ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        && configuration.getMaximumDigits() == ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        && configuration.getEvaluationTimeout() == null) {
+      return UNLIMITED;
+    }
+    if (maximumNodeEvaluations != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED) {
+      maximumNodeEvaluations = multiplySaturated(maximumNodeEvaluations, Math.max(repetitions, 1));
+    }
+    return new EvaluationBudget(
+        maximumNodeEvaluations,
+        configuration.getMaximumDigits(),
+        configuration.getEvaluationTimeout());
+  }
+
+  /**
+   * Starts a budget that only checks the maximum digits of the configuration. The nodes are not
+   * charged and there is no timeout.
+   *
+   * @param configuration The configuration with the limits.
+   * @return The budget, a shared instance if the configuration has no digit limit.
+   */
+  static EvaluationBudget startUncharged(ExpressionConfiguration configuration) {
+    if (configuration.getMaximumDigits() == ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED) {
+      return UNLIMITED;
+    }
+    return new EvaluationBudget(
+        ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED,
+        configuration.getMaximumDigits(),
+        null);
+  }
+
+  /**
+   * Checks if the configuration limits the number of node evaluations or the evaluation time, so
+   * that each evaluated node must be charged. Programs can skip charging their nodes, if not.
+   *
+   * @param configuration The configuration with the limits.
+   * @return <code>true</code> if each evaluated node must be charged.
+   */
+  public static boolean isChargedPerNode(ExpressionConfiguration configuration) {
+    return configuration.getMaximumNodeEvaluations()
+            != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        || configuration.getEvaluationTimeout() != null;
+  }
+
+  private static long multiplySaturated(long value, int factor) {
+    long product = value * factor;
+    return product / factor == value ? product : Long.MAX_VALUE;
+  }
+
+  /**
+   * Checks if the budget has any limits. Functions can skip expensive estimations, if not.
+   *
+   * @return <code>true</code> if any limit is configured.
+   */
+  public boolean isLimited() {
+    return limited;
+  }
+
+  /**
+   * Charges an evaluated node to the budget.
+   *
+   * @param token The token of the node.
+   * @param value The value of the node, its digits are checked.
+   * @throws EvaluationCancelledException If the budget is exceeded.
+   */
+  void chargeNode(Token token, EvaluationValue value) throws EvaluationCancelledException {
+    if (!limited) {
+      return;
+    }
+    chargeNode(token);
+    if (maximumDigits != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        && value.isNumberValue()) {
+      checkDigits(token, value.getNumberValue().precision());
+    }
+  }
+
+  /**
+   * Charges an evaluated node with a primitive value to the budget, e.g. in the numeric modes
+   * {@code DOUBLE} and {@code FIXED_POINT}. Primitive values have a fixed size, so their digits are
+   * not checked.
+   *
+   * @param token The token of the node.
+   * @throws EvaluationCancelledException If the budget is exceeded.
+   */
+  public void chargeNode(Token token) throws EvaluationCancelledException {
+    if (!limited) {
+      return;
+    }
+    nodeEvaluations++;
+    if (maximumNodeEvaluations != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        && nodeEvaluations > maximumNodeEvaluations) {
+      throw new EvaluationCancelledException(
+          token,
+          Reason.NODE_EVALUATIONS,
+          String.format(
+              "Evaluation exceeded the maximum of %d node evaluations", maximumNodeEvaluations));
+    }
+    if (nodeEvaluations % DEADLINE_CHECK_INTERVAL == 0) {
+      checkCancelled(token);
+    }
+  }
+
+  /**
+   * Checks if a number of the given size may be calculated. Functions and operators call this
+   * before they calculate a number whose size depends on their parameters.
+   *
+   * @param token The token of the function or operator.
+   * @param digits The (estimated) number of digits of the number.
+   * @throws EvaluationCancelledException If the number has more digits than allowed.
+   */
+  public void checkDigits(Token token, long digits) throws EvaluationCancelledException {
+    if (maximumDigits != ExpressionConfiguration.EVALUATION_BUDGET_UNLIMITED
+        && digits > maximumDigits) {
+      throw new EvaluationCancelledException(
+          token,
+          Reason.DIGITS,
+          String.format(
+              "Number with %d digits exceeds the maximum of %d digits", digits, maximumDigits));
+    }
+  }
+
+  /**
+   * Checks if the evaluation should be aborted, because the timeout elapsed or the thread was
+   * interrupted. Long-running functions and operators call this in their loops. Does nothing, if
+   * the budget has no limits.
+   *
+   * @param token The token of the function or operator.
+   * @throws EvaluationCancelledException If the evaluation should be aborted.
+   */
+  public void checkCancelled(Token token) throws EvaluationCancelledException {
+    if (!limited) {
+      return;
+    }
+    if (timeout != null && System.nanoTime() - deadline > 0) {
+      throw new EvaluationCancelledException(
+          token,
+          Reason.TIMEOUT,
+          String.format("Evaluation exceeded the timeout of %d ms", timeout.toMillis()));
+    }
+    if (Thread.currentThread().isInterrupted()) {
+      throw new EvaluationCancelledException(
+          token, Reason.INTERRUPTED, "Evaluation was interrupted");
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.loncus;
+
+import com.loncus.parser.Token;
+import lombok.Getter;
+
+/**
+ * Exception when an evaluation was aborted, because it exceeded its {@link EvaluationBudget} or the
+ * evaluating thread was interrupted.
+ */
+public class EvaluationCancelledException extends EvaluationException {
+
+  /** The reasons for aborting an evaluation. */
+  public enum Reason {
+    /** More operators, functions, variables and array accesses were evaluated than allowed. */
+    NODE_EVALUATIONS,
+    /** A number had more digits than allowed. */
+    DIGITS,
+    /** The evaluation took longer than allowed. */
+    TIMEOUT,
+    /** The evaluating thread was interrupted. */
+    INTERRUPTED
+  }
+
+  @Getter private final Reason reason;
+
+  public EvaluationCancelledException(Token token, Reason reason, String message) {
+    super(token, message);
+    this.reason = reason;
+  }
+}
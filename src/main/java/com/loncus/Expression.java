@@ -1,9 +1,14 @@
 package com.loncus;
 
+import com.loncus.compiler.CompiledProgram;
+import com.loncus.compiler.ExpressionCompiler;
 import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.DataAccessorIfc;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
 import com.loncus.functions.FunctionIfc;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
 import com.loncus.parser.*;
 import java.math.BigDecimal;
 import java.util.*;
@@ -19,12 +24,15 @@ public class Expression {
 
   @Getter private final DataAccessorIfc dataAccessor;
 
-  @Getter
-  private final Map<String, EvaluationValue> constants =
-      new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  @Getter private final Map<String, EvaluationValue> constants;
 
   private ASTNode abstractSyntaxTree;
 
+  private CompiledProgram compiledProgram;
+
+  /** The budget of the current evaluation. */
+  @Getter private EvaluationBudget evaluationBudget;
+
   /**
    * Creates a new expression with the default configuration. The expression is not parsed until it
    * is first evaluated or validated.
@@ -45,37 +53,177 @@ public class Expression {
     this.expressionString = expressionString;
     this.configuration = configuration;
     this.dataAccessor = configuration.getDataAccessorSupplier().get();
+    this.constants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     this.constants.putAll(configuration.getDefaultConstants());
+    this.evaluationBudget = EvaluationBudget.UNLIMITED;
   }
 
   /**
-   * Evaluates the expression by parsing it (if not done before) and the evaluating it.
+   * Creates a lightweight expression that shares an already parsed abstract syntax tree and the
+   * constants with other instances. Nothing is copied, so the caller is responsible that the shared
+   * objects are not modified while in use, e.g. by passing an unmodifiable constants map.
+   *
+   * @param expressionString The expression string the tree was parsed from.
+   * @param configuration The configuration that was used for parsing.
+   * @param abstractSyntaxTree The parsed abstract syntax tree.
+   * @param dataAccessor The data accessor to use for variable values.
+   * @param constants The constants, with case-insensitive keys.
+   */
+  protected Expression(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants) {
+    this.expressionString = expressionString;
+    this.configuration = configuration;
+    this.abstractSyntaxTree = abstractSyntaxTree;
+    this.dataAccessor = dataAccessor;
+    this.constants = constants;
+    this.evaluationBudget = EvaluationBudget.start(configuration, 1);
+  }
+
+  /**
+   * Evaluates the expression by parsing it (if not done before) and the evaluating it. Depending on
+   * the configured {@link ExpressionConfiguration.EvaluationMode}, the parsed expression is also
+   * compiled (if not done before).
    *
    * @return The evaluation result value.
    * @throws EvaluationException If there were problems while evaluating the expression.
    * @throws ParseException If there were problems while parsing the expression.
    */
   public EvaluationValue evaluate() throws EvaluationException, ParseException {
-    return evaluateSubtree(getAbstractSyntaxTree());
+    if (configuration.getEvaluationMode() == ExpressionConfiguration.EvaluationMode.INTERPRETER) {
+      startEvaluationBudget(1);
+      return roundResultIfNeeded(configuration, evaluateSubtree(getAbstractSyntaxTree()));
+    }
+    if (compiledProgram == null) {
+      compiledProgram =
+          ExpressionCompiler.compile(
+              getAbstractSyntaxTree(),
+              configuration,
+              constants,
+              new VariableSlots(getUsedVariables()));
+    }
+    return roundResultIfNeeded(
+        configuration,
+        compiledProgram.evaluate(
+            expressionString, configuration, abstractSyntaxTree, dataAccessor, constants));
   }
 
   /**
-   * Evaluates only a subtree of the abstract syntax tree.
+   * Evaluates only a subtree of the abstract syntax tree. The tree is traversed with explicit
+   * stacks instead of recursion, so that also very deep trees, like long operator chains, can be
+   * evaluated.
    *
    * @param startNode The {@link ASTNode} to start evaluation from.
    * @return The evaluation result value.
    * @throws EvaluationException If there were problems while evaluating the expression.
    */
   public EvaluationValue evaluateSubtree(ASTNode startNode) throws EvaluationException {
-    Token token = startNode.getToken();
+    if (startNode.getParameters().isEmpty()) {
+      return evaluateNode(startNode, Collections.emptyList());
+    }
+    List<ASTNode> nodes = new ArrayList<>();
+    int[] nextParameterIndexes = new int[16];
+    List<EvaluationValue> values = new ArrayList<>();
+    nodes.add(startNode);
+    while (!nodes.isEmpty()) {
+      int top = nodes.size() - 1;
+      ASTNode node = nodes.get(top);
+      List<ASTNode> parameters = node.getParameters();
+      int parameterIndex = nextParameterIndexes[top];
+      if (parameterIndex < parameters.size()) {
+        if (parameterIndex == 1 && isShortCircuit(node.getToken())) {
+          // the left operand on top of the value stack may already determine the result
+          boolean determiningValue = isOr(node.getToken());
+          if (values.get(values.size() - 1).getBooleanValue() == determiningValue) {
+            nodes.remove(top);
+            values.set(
+                values.size() - 1,
+                completeNodeEvaluation(
+                    node.getToken(), EvaluationValue.booleanValue(determiningValue)));
+            continue;
+          }
+        }
+        nextParameterIndexes[top]++;
+        ASTNode parameter = parameters.get(parameterIndex);
+        if (isLazyParameter(node.getToken(), parameterIndex)) {
+          values.add(convertValue(parameter));
+        } else if (parameter.getParameters().isEmpty()) {
+          values.add(evaluateNode(parameter, Collections.emptyList()));
+        } else {
+          if (nodes.size() == nextParameterIndexes.length) {
+            nextParameterIndexes = Arrays.copyOf(nextParameterIndexes, nodes.size() * 2);
+          }
+          nextParameterIndexes[nodes.size()] = 0;
+          nodes.add(parameter);
+        }
+      } else {
+        // all parameter values are on top of the value stack, replace them by the result
+        nodes.remove(top);
+        List<EvaluationValue> parameterValues =
+            values.subList(values.size() - parameters.size(), values.size());
+        EvaluationValue result =
+            isShortCircuit(node.getToken())
+                ? completeNodeEvaluation(
+                    node.getToken(),
+                    EvaluationValue.booleanValue(parameterValues.get(1).getBooleanValue()))
+                : evaluateNode(node, parameterValues);
+        parameterValues.clear();
+        values.add(result);
+      }
+    }
+    return values.get(0);
+  }
+
+  private static boolean isLazyParameter(Token token, int parameterIndex) {
+    switch (token.getType()) {
+      case FUNCTION:
+        return token.getFunctionDefinition().isParameterLazy(parameterIndex);
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition().isOperandLazy() && !isShortCircuit(token);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Checks for the built-in <code>&amp;&amp;</code> and <code>||</code> operators. Their operands
+   * are evaluated on the stacks, and the right operand is skipped if the left one determines the
+   * result, so that long chains of them do not recurse.
+   */
+  private static boolean isShortCircuit(Token token) {
+    if (token.getType() != Token.TokenType.INFIX_OPERATOR) {
+      return false;
+    }
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    return operatorClass == InfixAndOperator.class || isOr(token);
+  }
+
+  private static boolean isOr(Token token) {
+    return token.getOperatorDefinition().getClass() == InfixOrOperator.class;
+  }
+
+  /**
+   * Evaluates a single node of the abstract syntax tree, from the values of its parameters.
+   *
+   * @param node The node to evaluate.
+   * @param parameterValues The parameter values, lazy parameters as expression node values.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the node.
+   */
+  protected EvaluationValue evaluateNode(ASTNode node, List<EvaluationValue> parameterValues)
+      throws EvaluationException {
+    Token token = node.getToken();
     EvaluationValue result;
     switch (token.getType()) {
       case NUMBER_LITERAL:
-        result = EvaluationValue.numberOfString(token.getValue(), configuration.getMathContext());
-        break;
+        // literals are not charged, the compiled modes fold them before the evaluation
+        return roundNodeValueIfNeeded(
+            EvaluationValue.numberOfString(token.getValue(), configuration.getMathContext()));
       case STRING_LITERAL:
-        result = EvaluationValue.stringValue(token.getValue());
-        break;
+        return EvaluationValue.stringValue(token.getValue());
       case VARIABLE_OR_CONSTANT:
         result = getVariableOrConstant(token);
         if (result.isExpressionNode()) {
@@ -84,35 +232,35 @@ public class Expression {
         break;
       case PREFIX_OPERATOR:
       case POSTFIX_OPERATOR:
-        result =
-            token
-                .getOperatorDefinition()
-                .evaluate(this, token, evaluateSubtree(startNode.getParameters().get(0)));
+        result = token.getOperatorDefinition().evaluate(this, token, parameterValues.get(0));
         break;
       case INFIX_OPERATOR:
         result =
             token
                 .getOperatorDefinition()
-                .evaluate(
-                    this,
-                    token,
-                    evaluateSubtree(startNode.getParameters().get(0)),
-                    evaluateSubtree(startNode.getParameters().get(1)));
+                .evaluate(this, token, parameterValues.get(0), parameterValues.get(1));
         break;
       case ARRAY_INDEX:
-        result = evaluateArrayIndex(startNode);
+        result = evaluateArrayIndex(token, parameterValues.get(0), parameterValues.get(1));
         break;
       case FUNCTION:
-        result = evaluateFunction(startNode, token);
+        result = evaluateFunction(token, parameterValues.toArray(new EvaluationValue[0]));
         break;
       default:
         throw new EvaluationException(token, "Unexpected evaluation token: " + token);
     }
 
-    return result.isNumberValue() ? roundAndStripZerosIfNeeded(result) : result;
+    return completeNodeEvaluation(token, result);
   }
 
-  private EvaluationValue getVariableOrConstant(Token token) throws EvaluationException {
+  /**
+   * Looks up the value of a variable or constant. Constants take precedence over variables.
+   *
+   * @param token The variable or constant token.
+   * @return The value, never <code>null</code>.
+   * @throws EvaluationException If no value was found.
+   */
+  public EvaluationValue getVariableOrConstant(Token token) throws EvaluationException {
     EvaluationValue result = constants.get(token.getValue());
     if (result == null) {
       result = getDataAccessor().getData(token.getValue());
@@ -124,19 +272,8 @@ public class Expression {
     return result;
   }
 
-  private EvaluationValue evaluateFunction(ASTNode startNode, Token token)
+  private EvaluationValue evaluateFunction(Token token, EvaluationValue[] parameters)
       throws EvaluationException {
-    List<EvaluationValue> parameterResults = new ArrayList<>();
-    for (int i = 0; i < startNode.getParameters().size(); i++) {
-      if (token.getFunctionDefinition().isParameterLazy(i)) {
-        parameterResults.add(convertValue(startNode.getParameters().get(i)));
-      } else {
-        parameterResults.add(evaluateSubtree(startNode.getParameters().get(i)));
-      }
-    }
-
-    EvaluationValue[] parameters = parameterResults.toArray(new EvaluationValue[0]);
-
     FunctionIfc function = token.getFunctionDefinition();
 
     function.validatePreEvaluation(token, parameters);
@@ -144,37 +281,125 @@ public class Expression {
     return function.evaluate(this, token, parameters);
   }
 
-  private EvaluationValue evaluateArrayIndex(ASTNode startNode) throws EvaluationException {
-    EvaluationValue array = evaluateSubtree(startNode.getParameters().get(0));
-    EvaluationValue index = evaluateSubtree(startNode.getParameters().get(1));
-
+  private EvaluationValue evaluateArrayIndex(
+      Token token, EvaluationValue array, EvaluationValue index) throws EvaluationException {
     if (array.isArrayValue() && index.isNumberValue()) {
       return array.getArrayValue().get(index.getNumberValue().intValue());
     } else {
-      throw EvaluationException.ofUnsupportedDataTypeInOperation(startNode.getToken());
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
     }
   }
 
   /**
    * Rounds the given value, if the decimal places are configured. Also strips trailing decimal
-   * zeros, if configured.
+   * zeros, if configured. Values that are not numbers are returned unchanged.
    *
    * @param value The input value.
    * @return The rounded value, or the input value if rounding is not configured or possible.
    */
-  private EvaluationValue roundAndStripZerosIfNeeded(EvaluationValue value) {
-    BigDecimal bigDecimal = value.getNumberValue();
-    if (configuration.getDecimalPlacesRounding()
-        != ExpressionConfiguration.DECIMAL_PLACES_ROUNDING_UNLIMITED) {
+  public EvaluationValue roundAndStripZerosIfNeeded(EvaluationValue value) {
+    return roundAndStripZeros(configuration, value);
+  }
+
+  /**
+   * Rounds the value of an evaluated operator, function, variable or array access, if the rounding
+   * policy is {@link ExpressionConfiguration.RoundingPolicy#EACH_NODE}.
+   *
+   * @param value The node value.
+   * @return The rounded value, or the node value if it is not rounded.
+   */
+  public EvaluationValue roundNodeValueIfNeeded(EvaluationValue value) {
+    if (configuration.getRoundingPolicy() != ExpressionConfiguration.RoundingPolicy.EACH_NODE) {
+      return value;
+    }
+    return roundAndStripZeros(configuration, value);
+  }
+
+  /**
+   * Completes the evaluation of an operator, function, variable or array access: the node is
+   * charged to the evaluation budget, and its value is rounded if needed, see {@link
+   * #roundNodeValueIfNeeded(EvaluationValue)}.
+   *
+   * @param token The token of the node.
+   * @param value The node value.
+   * @return The rounded value, or the node value if it is not rounded.
+   * @throws EvaluationCancelledException If the evaluation budget is exceeded.
+   */
+  public EvaluationValue completeNodeEvaluation(Token token, EvaluationValue value)
+      throws EvaluationCancelledException {
+    evaluationBudget.chargeNode(token, value);
+    return roundNodeValueIfNeeded(value);
+  }
+
+  /**
+   * Starts a new evaluation budget, with the limits of the configuration.
+   *
+   * @param repetitions The number of times the expression is evaluated with the budget.
+   */
+  protected void startEvaluationBudget(int repetitions) {
+    evaluationBudget = EvaluationBudget.start(configuration, repetitions);
+  }
+
+  /**
+   * Starts an evaluation budget that does not charge nodes and has no timeout, only the maximum
+   * digits of the configuration are checked. Constant subtrees are evaluated with it while the
+   * expression is compiled, so that the limits of the later evaluations are not used up.
+   */
+  protected void startUnchargedEvaluationBudget() {
+    evaluationBudget = EvaluationBudget.startUncharged(configuration);
+  }
+
+  /**
+   * Rounds the final result of an evaluation, if the rounding policy is {@link
+   * ExpressionConfiguration.RoundingPolicy#ROOT_ONLY}. With the other policies, the result is
+   * either already rounded or not rounded at all.
+   */
+  static EvaluationValue roundResultIfNeeded(
+      ExpressionConfiguration configuration, EvaluationValue result) {
+    if (configuration.getRoundingPolicy() != ExpressionConfiguration.RoundingPolicy.ROOT_ONLY) {
+      return result;
+    }
+    return roundAndStripZeros(configuration, result);
+  }
+
+  static EvaluationValue roundAndStripZeros(
+      ExpressionConfiguration configuration, EvaluationValue value) {
+    boolean rounding =
+        configuration.getDecimalPlacesRounding()
+            != ExpressionConfiguration.DECIMAL_PLACES_ROUNDING_UNLIMITED;
+    if (!value.isNumberValue() || (!rounding && !configuration.isStripTrailingZeros())) {
+      return value;
+    }
+    if (value.hasLongValue()
+        && configuration.isStripTrailingZeros()
+        && configuration.getDecimalPlacesRounding()
+            >= ExpressionConfiguration.DECIMAL_PLACES_ROUNDING_UNLIMITED
+        && value.getLongValue() % 10 != 0) {
+      // an integer without trailing zeros is neither rounded nor stripped
+      return value;
+    }
+    BigDecimal number = value.getNumberValue();
+    BigDecimal bigDecimal = number;
+    if (rounding) {
       bigDecimal =
           bigDecimal.setScale(
               configuration.getDecimalPlacesRounding(),
               configuration.getMathContext().getRoundingMode());
     }
-    if (configuration.isStripTrailingZeros()) {
+    if (configuration.isStripTrailingZeros() && mayHaveTrailingZeros(bigDecimal)) {
       bigDecimal = bigDecimal.stripTrailingZeros();
     }
-    return EvaluationValue.numberValue(bigDecimal);
+    // most values are already rounded, keep them instead of allocating an equal value
+    return bigDecimal.equals(number) ? value : EvaluationValue.numberValue(bigDecimal);
+  }
+
+  /**
+   * Checks without allocating, whether stripping the trailing zeros may change the number.
+   * Stripping always allocates a new BigDecimal, even if there is nothing to strip.
+   */
+  private static boolean mayHaveTrailingZeros(BigDecimal number) {
+    // the long value of an integer with up to 18 digits is exact and read without allocation
+    return number.scale() != 0 || number.precision() > 18 || number.longValue() % 10 == 0;
   }
 
   /**
@@ -184,11 +409,11 @@ public class Expression {
    * @throws ParseException If there were problems while parsing the expression.
    */
   public ASTNode getAbstractSyntaxTree() throws ParseException {
-    if (abstractSyntaxTree == null) {
-      Tokenizer tokenizer = new Tokenizer(expressionString, configuration);
-      ShuntingYardConverter converter =
-          new ShuntingYardConverter(expressionString, tokenizer.parse(), configuration);
-      abstractSyntaxTree = converter.toAbstractSyntaxTree();
+    if (abstractSyntaxTree == null && configuration.getExpressionCache() != null) {
+      abstractSyntaxTree =
+          configuration.getExpressionCache().getAbstractSyntaxTree(expressionString, configuration);
+    } else if (abstractSyntaxTree == null) {
+      abstractSyntaxTree = ExpressionParser.parse(expressionString, configuration);
     }
 
     return abstractSyntaxTree;
@@ -216,6 +441,8 @@ public class Expression {
     if (constants.containsKey(variable)) {
       if (configuration.isAllowOverwriteConstants()) {
         constants.remove(variable);
+        // the compiled program may have folded the constant value
+        compiledProgram = null;
       } else {
         throw new UnsupportedOperationException(
             String.format("Can't set value for constant '%s'", variable));
@@ -263,10 +490,7 @@ public class Expression {
    * @throws ParseException On any parsing error.
    */
   public ASTNode createExpressionNode(String expression) throws ParseException {
-    Tokenizer tokenizer = new Tokenizer(expression, configuration);
-    ShuntingYardConverter converter =
-        new ShuntingYardConverter(expression, tokenizer.parse(), configuration);
-    return converter.toAbstractSyntaxTree();
+    return ExpressionParser.parse(expression, configuration);
   }
 
   /**
@@ -288,7 +512,7 @@ public class Expression {
    * @return An {@link EvaluationValue} of the detected type and value.
    */
   public EvaluationValue convertValue(Object value) {
-    return new EvaluationValue(value, configuration);
+    return configuration.getEvaluationValueConverter().convertObject(value, configuration);
   }
 
   /**
@@ -302,10 +526,17 @@ public class Expression {
   }
 
   private List<ASTNode> getAllASTNodesForNode(ASTNode node) {
+    // depth-first, in the order of the parameters, without recursion
     List<ASTNode> nodes = new ArrayList<>();
-    nodes.add(node);
-    for (ASTNode child : node.getParameters()) {
-      nodes.addAll(getAllASTNodesForNode(child));
+    Deque<ASTNode> pendingNodes = new ArrayDeque<>();
+    pendingNodes.push(node);
+    while (!pendingNodes.isEmpty()) {
+      ASTNode current = pendingNodes.pop();
+      nodes.add(current);
+      List<ASTNode> parameters = current.getParameters();
+      for (int i = parameters.size() - 1; i >= 0; i--) {
+        pendingNodes.push(parameters.get(i));
+      }
     }
     return nodes;
   }
@@ -0,0 +1,116 @@
+package com.loncus;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.SymbolTable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import lombok.Getter;
+
+/**
+ * A collection of named formulas, compiled in bulk. The formulas are parsed and compiled in
+ * parallel, using all available cores:
+ *
+ * <pre>
+ *   FormulaLibrary library = FormulaLibrary.compile(formulas, configuration);
+ *   library.getParseExceptions().forEach((name, e) -&gt; report(name, e));
+ *   CompiledExpression total = library.getCompiledExpression("total");
+ * </pre>
+ *
+ * All formulas share one copy of the configuration constants, and the tokens of all formulas are
+ * interned in one {@link SymbolTable}, so that equal identifiers, literals and operators are stored
+ * only once. A formula that can't be parsed does not stop the compilation, all parse exceptions are
+ * collected.
+ */
+public final class FormulaLibrary {
+
+  @Getter private final ExpressionConfiguration configuration;
+
+  /** The compiled formulas by name, in the order they were passed. */
+  @Getter private final Map<String, CompiledExpression> compiledExpressions;
+
+  /** The exceptions of the formulas that could not be parsed, by name. */
+  @Getter private final Map<String, ParseException> parseExceptions;
+
+  @Getter private final SymbolTable symbolTable;
+
+  private FormulaLibrary(
+      ExpressionConfiguration configuration,
+      Map<String, CompiledExpression> compiledExpressions,
+      Map<String, ParseException> parseExceptions,
+      SymbolTable symbolTable) {
+    this.configuration = configuration;
+    this.compiledExpressions = Collections.unmodifiableMap(compiledExpressions);
+    this.parseExceptions = Collections.unmodifiableMap(parseExceptions);
+    this.symbolTable = symbolTable;
+  }
+
+  /**
+   * Compiles the formulas with the default configuration.
+   *
+   * @param formulas The expression strings by formula name.
+   * @return The library with all compiled formulas.
+   */
+  public static FormulaLibrary compile(Map<String, String> formulas) {
+    return compile(formulas, ExpressionConfiguration.defaultConfiguration());
+  }
+
+  /**
+   * Compiles the formulas with a custom configuration. If the configuration has an expression
+   * cache, the parsed trees are taken from the cache.
+   *
+   * @param formulas The expression strings by formula name.
+   * @param configuration The configuration to use.
+   * @return The library with all compiled formulas.
+   */
+  public static FormulaLibrary compile(
+      Map<String, String> formulas, ExpressionConfiguration configuration) {
+    Map<String, EvaluationValue> constants = CompiledExpression.copyConstants(configuration);
+    SymbolTable symbolTable = new SymbolTable();
+    List<Map.Entry<String, String>> entries = new ArrayList<>(formulas.entrySet());
+    Object[] results = new Object[entries.size()];
+    IntStream.range(0, entries.size())
+        .parallel()
+        .forEach(
+            i -> {
+              try {
+                results[i] =
+                    CompiledExpression.compile(
+                        entries.get(i).getValue(),
+                        configuration,
+                        constants,
+                        symbolTable,
+                        Collections.emptyMap());
+              } catch (ParseException e) {
+                results[i] = e;
+              }
+            });
+
+    Map<String, CompiledExpression> compiledExpressions = new LinkedHashMap<>();
+    Map<String, ParseException> parseExceptions = new LinkedHashMap<>();
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] instanceof ParseException) {
+        parseExceptions.put(entries.get(i).getKey(), (ParseException) results[i]);
+      } else {
+        compiledExpressions.put(entries.get(i).getKey(), (CompiledExpression) results[i]);
+      }
+    }
+    return new FormulaLibrary(configuration, compiledExpressions, parseExceptions, symbolTable);
+  }
+
+  /**
+   * Returns a compiled formula.
+   *
+   * @param name The formula name.
+   * @return The compiled formula, or <code>null</code> if there is no formula with this name, or it
+   *     could not be parsed.
+   */
+  public CompiledExpression getCompiledExpression(String name) {
+    return compiledExpressions.get(name);
+  }
+}
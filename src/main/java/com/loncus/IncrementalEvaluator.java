@@ -0,0 +1,407 @@
+package com.loncus;
+
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A stateful evaluator of a {@link CompiledExpression}, for repeated evaluations where only some of
+ * the variables change in between. The value of each subtree is remembered, together with the
+ * variables it depends on. When a variable changes, only the subtrees on the path from the variable
+ * to the root are marked as changed, and only these are evaluated again:
+ *
+ * <pre>
+ *   IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator();
+ *   evaluator.withValues(allInputs).evaluate();
+ *   EvaluationValue updated = evaluator.with("price", 12.5).evaluate();
+ * </pre>
+ *
+ * The variables of a subtree are found like in {@link Expression#getUsedVariables()}. Subtrees with
+ * functions or operators that are not {@link FunctionIfc#isDeterministic() deterministic} are
+ * evaluated on each evaluation. The branches of <code>IF</code>, <code>&amp;&amp;</code> and <code>
+ * ||</code> are only evaluated when they are used. The lazy parameters of other functions and
+ * operators are evaluated by them, as a whole. Trees deeper than {@link #MAXIMUM_TRACKED_DEPTH} are
+ * evaluated as a whole on each evaluation.
+ *
+ * <p>An evaluator is not thread safe, each thread should use its own instance.
+ */
+public final class IncrementalEvaluator {
+
+  /** The maximum depth of trees whose subtree values are remembered. */
+  static final int MAXIMUM_TRACKED_DEPTH = 1_000;
+
+  private final CompiledExpression compiledExpression;
+
+  private final Bindings bindings;
+
+  /** The evaluation context, it resolves the remembered subtrees of lazy parameters. */
+  private final TrackingExpression expression;
+
+  /** The tracked nodes, parents before their parameters. Empty if the tree is too deep. */
+  private final ASTNode[] nodes;
+
+  /** The indexes of the tracked nodes. */
+  private final Map<ASTNode, Integer> nodeIndexes = new IdentityHashMap<>();
+
+  private final int[] parents;
+
+  /** The node indexes of the parameters, -1 for lazy parameters that are not tracked. */
+  private final int[][] parameterIndexes;
+
+  /** The nodes that directly depend on a variable, by variable slot. */
+  private final int[][] dependentNodes;
+
+  /** Nodes that are not deterministic, or have such descendants, and are always evaluated. */
+  private final boolean[] volatileNodes;
+
+  private final boolean[] changed;
+
+  private final EvaluationValue[] values;
+
+  IncrementalEvaluator(CompiledExpression compiledExpression) {
+    this.compiledExpression = compiledExpression;
+    this.bindings = compiledExpression.newBindings();
+    this.expression = new TrackingExpression(compiledExpression, bindings);
+
+    List<ASTNode> trackedNodes = new ArrayList<>();
+    List<Integer> trackedParents = new ArrayList<>();
+    List<List<Integer>> dependents = new ArrayList<>();
+    for (int slot = 0; slot < compiledExpression.getVariableSlots().size(); slot++) {
+      dependents.add(new ArrayList<>());
+    }
+    List<Boolean> deterministic = new ArrayList<>();
+    boolean tooDeep = collectNodes(trackedNodes, trackedParents, dependents, deterministic);
+    if (tooDeep) {
+      trackedNodes.clear();
+      dependents.forEach(List::clear);
+    }
+
+    int nodeCount = trackedNodes.size();
+    this.nodes = trackedNodes.toArray(new ASTNode[0]);
+    this.parents = new int[nodeCount];
+    this.parameterIndexes = new int[nodeCount][];
+    this.volatileNodes = new boolean[nodeCount];
+    this.changed = new boolean[nodeCount];
+    this.values = new EvaluationValue[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      nodeIndexes.put(nodes[i], i);
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      parents[i] = trackedParents.get(i);
+      List<ASTNode> parameters = nodes[i].getParameters();
+      parameterIndexes[i] = new int[parameters.size()];
+      for (int p = 0; p < parameters.size(); p++) {
+        Integer index = nodeIndexes.get(parameters.get(p));
+        parameterIndexes[i][p] = index != null ? index : -1;
+      }
+      changed[i] = true;
+    }
+    // parents come first, so walking backwards reaches all descendants before their ancestors
+    for (int i = nodeCount - 1; i >= 0; i--) {
+      if (!deterministic.get(i) || volatileNodes[i]) {
+        volatileNodes[i] = true;
+        if (parents[i] >= 0) {
+          volatileNodes[parents[i]] = true;
+        }
+      }
+    }
+    this.dependentNodes = new int[dependents.size()][];
+    for (int slot = 0; slot < dependents.size(); slot++) {
+      dependentNodes[slot] = dependents.get(slot).stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * Collects the tracked nodes and the dependencies of the variables, without recursion.
+   *
+   * @return <code>true</code> if the tree is too deep to be tracked.
+   */
+  private boolean collectNodes(
+      List<ASTNode> trackedNodes,
+      List<Integer> trackedParents,
+      List<List<Integer>> dependents,
+      List<Boolean> deterministic) {
+    Deque<ASTNode> pending = new ArrayDeque<>();
+    Deque<Integer> pendingParents = new ArrayDeque<>();
+    Deque<Integer> pendingDepths = new ArrayDeque<>();
+    pending.push(compiledExpression.getAbstractSyntaxTree());
+    pendingParents.push(-1);
+    pendingDepths.push(1);
+    while (!pending.isEmpty()) {
+      ASTNode node = pending.pop();
+      int parent = pendingParents.pop();
+      int depth = pendingDepths.pop();
+      if (depth > MAXIMUM_TRACKED_DEPTH) {
+        return true;
+      }
+      int index = trackedNodes.size();
+      trackedNodes.add(node);
+      trackedParents.add(parent);
+      deterministic.add(isDeterministic(node.getToken()));
+      addDependency(node, index, dependents);
+      List<ASTNode> parameters = node.getParameters();
+      for (int i = 0; i < parameters.size(); i++) {
+        if (isUntrackedParameter(node.getToken(), i)) {
+          // the function or operator evaluates the whole parameter, it depends on all its nodes
+          if (!collectUntrackedNodes(parameters.get(i), index, dependents)) {
+            deterministic.set(index, false);
+          }
+        } else {
+          pending.push(parameters.get(i));
+          pendingParents.push(index);
+          pendingDepths.push(depth + 1);
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the dependencies of the nodes of an untracked subtree to a tracked node.
+   *
+   * @return <code>true</code> if all nodes of the subtree are deterministic.
+   */
+  private boolean collectUntrackedNodes(
+      ASTNode subtree, int dependentIndex, List<List<Integer>> dependents) {
+    boolean deterministic = true;
+    Deque<ASTNode> pending = new ArrayDeque<>();
+    pending.push(subtree);
+    while (!pending.isEmpty()) {
+      ASTNode node = pending.pop();
+      deterministic &= isDeterministic(node.getToken());
+      addDependency(node, dependentIndex, dependents);
+      node.getParameters().forEach(pending::push);
+    }
+    return deterministic;
+  }
+
+  private void addDependency(ASTNode node, int dependentIndex, List<List<Integer>> dependents) {
+    Token token = node.getToken();
+    if (token.getType() != Token.TokenType.VARIABLE_OR_CONSTANT) {
+      return;
+    }
+    int slot = compiledExpression.getVariableSlots().getSlot(token.getValue());
+    if (slot >= 0 && !dependents.get(slot).contains(dependentIndex)) {
+      dependents.get(slot).add(dependentIndex);
+    }
+  }
+
+  /**
+   * Binds a variable value and marks the subtrees that depend on it as changed. Binding an equal
+   * value does not change anything.
+   *
+   * @param variable The variable name.
+   * @param value The variable value.
+   * @return The evaluator, to allow chaining of methods.
+   * @throws UnsupportedOperationException If the variable name is the name of a constant.
+   * @throws IllegalArgumentException If the value is not of the declared type of the variable.
+   */
+  public IncrementalEvaluator with(String variable, Object value) {
+    int slot = compiledExpression.getVariableSlots().getSlot(variable);
+    if (slot < 0) {
+      // not used in the expression, nothing depends on it
+      bindings.with(variable, value);
+      return this;
+    }
+    return set(slot, value);
+  }
+
+  /**
+   * Binds a variable value, same as {@link #with(String, Object)}.
+   *
+   * @param variable The variable name.
+   * @param value The variable value.
+   * @return The evaluator, to allow chaining of methods.
+   */
+  public IncrementalEvaluator and(String variable, Object value) {
+    return with(variable, value);
+  }
+
+  /**
+   * Binds all variables values defined in the map with their name (key) and value.
+   *
+   * @param values A map with variable values.
+   * @return The evaluator, to allow chaining of methods.
+   */
+  public IncrementalEvaluator withValues(Map<String, ?> values) {
+    for (Map.Entry<String, ?> entry : values.entrySet()) {
+      with(entry.getKey(), entry.getValue());
+    }
+    return this;
+  }
+
+  /**
+   * Binds a variable value by its slot and marks the subtrees that depend on it as changed.
+   *
+   * @param slot The variable slot, see {@link CompiledExpression#getVariableSlot(String)}.
+   * @param value The variable value.
+   * @return The evaluator, to allow chaining of methods.
+   * @throws IndexOutOfBoundsException If the slot does not exist.
+   * @throws IllegalArgumentException If the value is not of the declared type of the variable.
+   */
+  public IncrementalEvaluator set(int slot, Object value) {
+    EvaluationValue previous = bindings.getData(slot);
+    bindings.set(slot, value);
+    if (!Objects.equals(previous, bindings.getData(slot))) {
+      for (int node : dependentNodes[slot]) {
+        markChanged(node);
+      }
+    }
+    return this;
+  }
+
+  /** Marks a node and its ancestors, up to the first node that is already marked. */
+  private void markChanged(int node) {
+    while (node >= 0 && !changed[node]) {
+      changed[node] = true;
+      node = parents[node];
+    }
+  }
+
+  /**
+   * Evaluates the expression with the current variable values. Only the subtrees that changed since
+   * the last evaluation are evaluated, the values of all other subtrees are reused.
+   *
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  public EvaluationValue evaluate() throws EvaluationException {
+    if (nodes.length == 0) {
+      return compiledExpression.evaluate(bindings);
+    }
+    expression.startEvaluationBudget(1);
+    return Expression.roundResultIfNeeded(compiledExpression.getConfiguration(), evaluateNode(0));
+  }
+
+  private EvaluationValue evaluateNode(int index) throws EvaluationException {
+    if (!changed[index]) {
+      return values[index];
+    }
+    EvaluationValue value = computeNode(index);
+    values[index] = value;
+    changed[index] = volatileNodes[index];
+    return value;
+  }
+
+  private EvaluationValue computeNode(int index) throws EvaluationException {
+    ASTNode node = nodes[index];
+    Token token = node.getToken();
+    List<ASTNode> parameters = node.getParameters();
+    if (parameters.isEmpty()) {
+      return expression.evaluateLeaf(node);
+    }
+    EvaluationValue[] parameterValues = new EvaluationValue[parameters.size()];
+    for (int i = 0; i < parameterValues.length; i++) {
+      parameterValues[i] =
+          isLazyParameter(token, i)
+              ? EvaluationValue.expressionNodeValue(parameters.get(i))
+              : evaluateNode(parameterIndexes[index][i]);
+    }
+    EvaluationValue result;
+    switch (token.getType()) {
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+        result = token.getOperatorDefinition().evaluate(expression, token, parameterValues[0]);
+        break;
+      case INFIX_OPERATOR:
+        result =
+            token
+                .getOperatorDefinition()
+                .evaluate(expression, token, parameterValues[0], parameterValues[1]);
+        break;
+      case ARRAY_INDEX:
+        EvaluationValue array = parameterValues[0];
+        EvaluationValue arrayIndex = parameterValues[1];
+        if (!array.isArrayValue() || !arrayIndex.isNumberValue()) {
+          throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+        }
+        result = array.getArrayValue().get(arrayIndex.getNumberValue().intValue());
+        break;
+      case FUNCTION:
+        FunctionIfc function = token.getFunctionDefinition();
+        function.validatePreEvaluation(token, parameterValues);
+        result = function.evaluate(expression, token, parameterValues);
+        break;
+      default:
+        throw new EvaluationException(token, "Unexpected evaluation token: " + token);
+    }
+    return expression.completeNodeEvaluation(token, result);
+  }
+
+  private static boolean isLazyParameter(Token token, int parameterIndex) {
+    switch (token.getType()) {
+      case FUNCTION:
+        return token.getFunctionDefinition().isParameterLazy(parameterIndex);
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition().isOperandLazy();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Checks for lazy parameters that are not tracked. The built-in <code>IF</code> function and the
+   * built-in <code>&amp;&amp;</code> and <code>||</code> operators evaluate each lazy parameter at
+   * most once, with the current variable values, so their values can be remembered. Other functions
+   * and operators may evaluate them differently.
+   */
+  private static boolean isUntrackedParameter(Token token, int parameterIndex) {
+    if (!isLazyParameter(token, parameterIndex)) {
+      return false;
+    }
+    if (token.getType() == Token.TokenType.FUNCTION) {
+      return token.getFunctionDefinition().getClass() != IfFunction.class;
+    }
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    return operatorClass != InfixAndOperator.class && operatorClass != InfixOrOperator.class;
+  }
+
+  private static boolean isDeterministic(Token token) {
+    switch (token.getType()) {
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition().isDeterministic();
+      case FUNCTION:
+        return token.getFunctionDefinition().isDeterministic();
+      default:
+        return true;
+    }
+  }
+
+  /** The evaluation context, it takes the values of tracked subtrees from the evaluator. */
+  private final class TrackingExpression extends Expression {
+
+    TrackingExpression(CompiledExpression compiledExpression, Bindings bindings) {
+      super(
+          compiledExpression.getExpressionString(),
+          compiledExpression.getConfiguration(),
+          compiledExpression.getAbstractSyntaxTree(),
+          bindings,
+          compiledExpression.getConstants());
+    }
+
+    @Override
+    public EvaluationValue evaluateSubtree(ASTNode startNode) throws EvaluationException {
+      Integer index = nodeIndexes.get(startNode);
+      return index != null
+          ? IncrementalEvaluator.this.evaluateNode(index)
+          : super.evaluateSubtree(startNode);
+    }
+
+    EvaluationValue evaluateLeaf(ASTNode node) throws EvaluationException {
+      return super.evaluateSubtree(node);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+
+/** Access to an array element by index. */
+final class ArrayIndexNode extends EvaluatorNode {
+
+  private final EvaluatorNode array;
+
+  private final EvaluatorNode index;
+
+  ArrayIndexNode(Token token, EvaluatorNode array, EvaluatorNode index) {
+    super(token);
+    this.array = array;
+    this.index = index;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    EvaluationValue arrayValue = array.evaluate(context);
+    EvaluationValue indexValue = index.evaluate(context);
+
+    if (arrayValue.isArrayValue() && indexValue.isNumberValue()) {
+      return context.completeNodeEvaluation(
+          getToken(), arrayValue.getArrayValue().get(indexValue.getNumberValue().intValue()));
+    } else {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(getToken());
+    }
+  }
+}
@@ -0,0 +1,389 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates an expression for a batch of rows, vector at a time. The tree is walked once per batch:
+ * each node is evaluated for all rows at once, in a loop that calls the same operator or function
+ * for each row. Token types, operator and function definitions are therefore dispatched once per
+ * batch and not once per row. Constant subtrees are folded, see {@link ConstantFolder}, and
+ * operators with operands of known types are specialized, see {@link InferredTypes}.
+ *
+ * <p>The built-in <code>&amp;&amp;</code> and <code>||</code> operators and the <code>IF</code>
+ * function evaluate their lazy operands only for the rows that need them, by passing a selection of
+ * rows down the tree. NULL operands of <code>&amp;&amp;</code> and <code>||</code> count as false.
+ * Lazy parameters of all other functions and operators are evaluated row by row, by interpreting
+ * the subtree. Trees deeper than {@link ExpressionCompiler#MAXIMUM_COMPILED_DEPTH} are interpreted
+ * row by row.
+ */
+public final class BatchProgram {
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final InferredTypes types;
+
+  /** Whether the tree is interpreted row by row, because it is too deep. */
+  private final boolean interpreted;
+
+  private BatchProgram(
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      InferredTypes types,
+      boolean interpreted) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.types = types;
+    this.interpreted = interpreted;
+  }
+
+  /**
+   * Prepares the abstract syntax tree for batch evaluation. The constants are fixed at compile
+   * time, the program must not be evaluated with other constant values.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables, the columns are passed by slot.
+   * @param types The inferred types of the tree nodes.
+   * @return The batch program.
+   */
+  public static BatchProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    if (ExpressionCompiler.exceedsDepth(
+        abstractSyntaxTree, ExpressionCompiler.MAXIMUM_COMPILED_DEPTH)) {
+      return new BatchProgram(Collections.emptyMap(), variableSlots, types, true);
+    }
+    return new BatchProgram(
+        ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+        variableSlots,
+        types,
+        false);
+  }
+
+  /**
+   * Evaluates the program for all rows of a batch. The result values are rounded like node values,
+   * the final rounding of the result is left to the caller.
+   *
+   * @param expressionString The expression string the program was compiled from.
+   * @param configuration The expression configuration.
+   * @param abstractSyntaxTree The tree the program was compiled from.
+   * @param constants The constants to use.
+   * @param columns The variable values by slot and row, <code>null</code> for variables without
+   *     values.
+   * @param rowCount The number of rows.
+   * @return The result values by row.
+   * @throws EvaluationException If there were problems while evaluating the expression for any of
+   *     the rows.
+   */
+  public EvaluationValue[] evaluate(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      Map<String, EvaluationValue> constants,
+      EvaluationValue[][] columns,
+      int rowCount)
+      throws EvaluationException {
+    RowDataAccessor currentRow = new RowDataAccessor(variableSlots, columns);
+    Batch batch =
+        new Batch(
+            new EvaluationContext(
+                expressionString, configuration, abstractSyntaxTree, currentRow, constants, null),
+            currentRow,
+            columns,
+            rowCount);
+    batch.context.startEvaluationBudget(rowCount);
+    if (interpreted) {
+      EvaluationValue[] result = new EvaluationValue[rowCount];
+      for (int row = 0; row < rowCount; row++) {
+        currentRow.row = row;
+        result[row] = batch.context.evaluateSubtree(abstractSyntaxTree);
+      }
+      return result;
+    }
+    int[] rows = new int[rowCount];
+    for (int row = 0; row < rowCount; row++) {
+      rows[row] = row;
+    }
+    return batch.evaluate(abstractSyntaxTree, rows, rowCount);
+  }
+
+  /** The state of one batch evaluation. */
+  private final class Batch {
+
+    /**
+     * The context passed to all operators and functions. It interprets lazy parameters for the
+     * current row.
+     */
+    final EvaluationContext context;
+
+    final RowDataAccessor currentRow;
+
+    final EvaluationValue[][] columns;
+
+    final int rowCount;
+
+    Batch(
+        EvaluationContext context,
+        RowDataAccessor currentRow,
+        EvaluationValue[][] columns,
+        int rowCount) {
+      this.context = context;
+      this.currentRow = currentRow;
+      this.columns = columns;
+      this.rowCount = rowCount;
+    }
+
+    /**
+     * Evaluates a node for a selection of rows.
+     *
+     * @param node The node.
+     * @param rows The indices of the selected rows, in ascending order.
+     * @param count The number of selected rows.
+     * @return The values by row, only the elements of the selected rows are set.
+     */
+    EvaluationValue[] evaluate(ASTNode node, int[] rows, int count) throws EvaluationException {
+      EvaluationValue[] result = new EvaluationValue[rowCount];
+      if (count == 0) {
+        return result;
+      }
+      Token token = node.getToken();
+      EvaluationValue foldedValue = foldedValues.get(node);
+      if (foldedValue != null) {
+        // all literals end up here
+        for (int i = 0; i < count; i++) {
+          result[rows[i]] = foldedValue;
+        }
+        return result;
+      }
+      List<ASTNode> parameters = node.getParameters();
+      switch (token.getType()) {
+        case VARIABLE_OR_CONSTANT:
+          evaluateVariable(token, rows, count, result);
+          break;
+        case PREFIX_OPERATOR:
+        case POSTFIX_OPERATOR:
+          OperatorIfc operator = types.getOperator(node);
+          EvaluationValue[] operands = evaluate(parameters.get(0), rows, count);
+          for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            result[row] =
+                context.completeNodeEvaluation(
+                    token, operator.evaluate(context, token, operands[row]));
+          }
+          break;
+        case INFIX_OPERATOR:
+          evaluateInfixOperator(node, rows, count, result);
+          break;
+        case ARRAY_INDEX:
+          EvaluationValue[] arrays = evaluate(parameters.get(0), rows, count);
+          EvaluationValue[] indices = evaluate(parameters.get(1), rows, count);
+          for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            if (!arrays[row].isArrayValue() || !indices[row].isNumberValue()) {
+              throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+            }
+            result[row] =
+                context.completeNodeEvaluation(
+                    token,
+                    arrays[row].getArrayValue().get(indices[row].getNumberValue().intValue()));
+          }
+          break;
+        case FUNCTION:
+          evaluateFunction(node, rows, count, result);
+          break;
+        default:
+          throw new EvaluationException(token, "Unexpected evaluation token: " + token);
+      }
+      return result;
+    }
+
+    private void evaluateVariable(Token token, int[] rows, int count, EvaluationValue[] result)
+        throws EvaluationException {
+      int slot = variableSlots.getSlot(token.getValue());
+      EvaluationValue[] column = slot >= 0 ? columns[slot] : null;
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        currentRow.row = row;
+        EvaluationValue value = column != null ? column[row] : context.getVariableOrConstant(token);
+        if (value.isExpressionNode()) {
+          value = context.evaluateSubtree(value.getExpressionNode());
+        }
+        result[row] = context.completeNodeEvaluation(token, value);
+      }
+    }
+
+    private void evaluateInfixOperator(
+        ASTNode node, int[] rows, int count, EvaluationValue[] result) throws EvaluationException {
+      Token token = node.getToken();
+      List<ASTNode> parameters = node.getParameters();
+      OperatorIfc operator = types.getOperator(node);
+      if (!operator.isOperandLazy()) {
+        EvaluationValue[] left = evaluate(parameters.get(0), rows, count);
+        EvaluationValue[] right = evaluate(parameters.get(1), rows, count);
+        for (int i = 0; i < count; i++) {
+          int row = rows[i];
+          result[row] =
+              context.completeNodeEvaluation(
+                  token, operator.evaluate(context, token, left[row], right[row]));
+        }
+        return;
+      }
+      Class<?> operatorClass = token.getOperatorDefinition().getClass();
+      if (operatorClass == InfixAndOperator.class) {
+        evaluateShortCircuit(node, false, rows, count, result);
+      } else if (operatorClass == InfixOrOperator.class) {
+        evaluateShortCircuit(node, true, rows, count, result);
+      } else {
+        EvaluationValue left = EvaluationValue.expressionNodeValue(parameters.get(0));
+        EvaluationValue right = EvaluationValue.expressionNodeValue(parameters.get(1));
+        for (int i = 0; i < count; i++) {
+          int row = rows[i];
+          currentRow.row = row;
+          result[row] =
+              context.completeNodeEvaluation(token, operator.evaluate(context, token, left, right));
+        }
+      }
+    }
+
+    /**
+     * Evaluates the built-in AND or OR operator. The right operand is only evaluated for the rows,
+     * where the left operand does not determine the result. NULL operands count as false, like a
+     * NULL condition of <code>IF</code>.
+     */
+    private void evaluateShortCircuit(
+        ASTNode node, boolean determiningValue, int[] rows, int count, EvaluationValue[] result)
+        throws EvaluationException {
+      Token token = node.getToken();
+      EvaluationValue[] left = evaluate(node.getParameters().get(0), rows, count);
+      int[] remainingRows = new int[count];
+      int remainingCount = 0;
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        if (Boolean.TRUE.equals(left[row].getBooleanValue()) == determiningValue) {
+          result[row] =
+              context.completeNodeEvaluation(token, EvaluationValue.booleanValue(determiningValue));
+        } else {
+          remainingRows[remainingCount++] = row;
+        }
+      }
+      EvaluationValue[] right =
+          evaluate(node.getParameters().get(1), remainingRows, remainingCount);
+      for (int i = 0; i < remainingCount; i++) {
+        int row = remainingRows[i];
+        result[row] =
+            context.completeNodeEvaluation(
+                token,
+                EvaluationValue.booleanValue(Boolean.TRUE.equals(right[row].getBooleanValue())));
+      }
+    }
+
+    private void evaluateFunction(ASTNode node, int[] rows, int count, EvaluationValue[] result)
+        throws EvaluationException {
+      Token token = node.getToken();
+      FunctionIfc function = token.getFunctionDefinition();
+      List<ASTNode> parameters = node.getParameters();
+      if (function.getClass() == IfFunction.class) {
+        evaluateIf(token, parameters, rows, count, result);
+        return;
+      }
+      int size = parameters.size();
+      EvaluationValue[][] parameterColumns = new EvaluationValue[size][];
+      EvaluationValue[] lazyValues = new EvaluationValue[size];
+      for (int j = 0; j < size; j++) {
+        if (function.isParameterLazy(j)) {
+          lazyValues[j] = EvaluationValue.expressionNodeValue(parameters.get(j));
+        } else {
+          parameterColumns[j] = evaluate(parameters.get(j), rows, count);
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        currentRow.row = row;
+        EvaluationValue[] parameterValues = new EvaluationValue[size];
+        for (int j = 0; j < size; j++) {
+          parameterValues[j] = lazyValues[j] != null ? lazyValues[j] : parameterColumns[j][row];
+        }
+        function.validatePreEvaluation(token, parameterValues);
+        result[row] =
+            context.completeNodeEvaluation(
+                token, function.evaluate(context, token, parameterValues));
+      }
+    }
+
+    /**
+     * Evaluates the built-in <code>IF</code> function. Each branch is only evaluated for the rows
+     * that select it.
+     */
+    private void evaluateIf(
+        Token token, List<ASTNode> parameters, int[] rows, int count, EvaluationValue[] result)
+        throws EvaluationException {
+      EvaluationValue[] conditions = evaluate(parameters.get(0), rows, count);
+      int[] trueRows = new int[count];
+      int trueCount = 0;
+      int[] falseRows = new int[count];
+      int falseCount = 0;
+      for (int i = 0; i < count; i++) {
+        int row = rows[i];
+        if (Boolean.TRUE.equals(conditions[row].getBooleanValue())) {
+          trueRows[trueCount++] = row;
+        } else {
+          falseRows[falseCount++] = row;
+        }
+      }
+      EvaluationValue[] trueValues = evaluate(parameters.get(1), trueRows, trueCount);
+      EvaluationValue[] falseValues = evaluate(parameters.get(2), falseRows, falseCount);
+      for (int i = 0; i < trueCount; i++) {
+        result[trueRows[i]] = context.completeNodeEvaluation(token, trueValues[trueRows[i]]);
+      }
+      for (int i = 0; i < falseCount; i++) {
+        result[falseRows[i]] = context.completeNodeEvaluation(token, falseValues[falseRows[i]]);
+      }
+    }
+  }
+
+  /** Reads the variable values of the current row, for the interpreted parts of the tree. */
+  private static final class RowDataAccessor implements DataAccessorIfc {
+
+    private final VariableSlots variableSlots;
+
+    private final EvaluationValue[][] columns;
+
+    int row;
+
+    RowDataAccessor(VariableSlots variableSlots, EvaluationValue[][] columns) {
+      this.variableSlots = variableSlots;
+      this.columns = columns;
+    }
+
+    @Override
+    public EvaluationValue getData(String variable) {
+      int slot = variableSlots.getSlot(variable);
+      return slot >= 0 && columns[slot] != null ? columns[slot][row] : null;
+    }
+
+    @Override
+    public void setData(String variable, EvaluationValue value) {
+      throw new UnsupportedOperationException("Variable values of a batch can't be changed");
+    }
+  }
+}
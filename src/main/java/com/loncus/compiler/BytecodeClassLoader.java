@@ -0,0 +1,42 @@
+package com.loncus.compiler;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class loader for the classes generated from one abstract syntax tree. It also holds the call
+ * site targets of the generated code. Using an own class loader per tree allows the generated
+ * classes to be garbage collected, together with the compiled expression.
+ */
+final class BytecodeClassLoader extends ClassLoader {
+
+  private final List<MethodHandle> callSiteTargets = new ArrayList<>();
+
+  BytecodeClassLoader() {
+    super(BytecodeClassLoader.class.getClassLoader());
+  }
+
+  /**
+   * Registers a call site target.
+   *
+   * @param target The target method handle.
+   * @return The index of the target, to be passed to {@link BytecodeSupport#bootstrap}.
+   */
+  int addCallSiteTarget(MethodHandle target) {
+    synchronized (callSiteTargets) {
+      callSiteTargets.add(target);
+      return callSiteTargets.size() - 1;
+    }
+  }
+
+  MethodHandle getCallSiteTarget(int index) {
+    synchronized (callSiteTargets) {
+      return callSiteTargets.get(index);
+    }
+  }
+
+  Class<?> defineClass(String name, byte[] classFile) {
+    return defineClass(name, classFile, 0, classFile.length);
+  }
+}
@@ -0,0 +1,297 @@
+package com.loncus.compiler;
+
+import static com.loncus.compiler.ClassFileWriter.AASTORE;
+import static com.loncus.compiler.ClassFileWriter.ALOAD_0;
+import static com.loncus.compiler.ClassFileWriter.ALOAD_1;
+import static com.loncus.compiler.ClassFileWriter.ANEWARRAY;
+import static com.loncus.compiler.ClassFileWriter.ARETURN;
+import static com.loncus.compiler.ClassFileWriter.DUP;
+import static com.loncus.compiler.ClassFileWriter.INVOKESPECIAL;
+import static com.loncus.compiler.ClassFileWriter.RETURN;
+
+import com.loncus.compiler.ClassFileWriter.Code;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles an abstract syntax tree into JVM classes. The tree is translated into one generated
+ * {@link EvaluatorNode} subclass, whose <code>evaluate()</code> method evaluates the whole tree
+ * with straight-line code. Lazy function parameters and operator operands get their own generated
+ * class each. Constant subtrees are folded, see {@link ConstantFolder}, and variables are read by
+ * their slot. Common subexpressions get their own generated class each, which is shared by all
+ * occurrences, see {@link CommonSubexpressions}. Operators with operands of known types are
+ * specialized, see {@link InferredTypes}.
+ *
+ * <p>Operators and functions are called through <code>invokedynamic</code> instructions that are
+ * linked to constant call sites, see {@link BytecodeSupport}.
+ */
+final class BytecodeCompiler {
+
+  private static final String EVALUATOR_NODE = "com/loncus/compiler/EvaluatorNode";
+
+  private static final String BYTECODE_SUPPORT = "com/loncus/compiler/BytecodeSupport";
+
+  private static final String EVALUATION_VALUE = "com/loncus/data/EvaluationValue";
+
+  private static final String CONSTRUCTOR_DESCRIPTOR = "(Lcom/loncus/parser/Token;)V";
+
+  private static final String EVALUATE_DESCRIPTOR =
+      "(Lcom/loncus/compiler/EvaluationContext;)Lcom/loncus/data/EvaluationValue;";
+
+  private static final String BOOTSTRAP_DESCRIPTOR =
+      "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;I)"
+          + "Ljava/lang/invoke/CallSite;";
+
+  private static final String CONSTANT_DESCRIPTOR = "()Lcom/loncus/data/EvaluationValue;";
+
+  private static final String UNARY_DESCRIPTOR =
+      "(Lcom/loncus/compiler/EvaluationContext;Lcom/loncus/data/EvaluationValue;)"
+          + "Lcom/loncus/data/EvaluationValue;";
+
+  private static final String BINARY_DESCRIPTOR =
+      "(Lcom/loncus/compiler/EvaluationContext;Lcom/loncus/data/EvaluationValue;"
+          + "Lcom/loncus/data/EvaluationValue;)Lcom/loncus/data/EvaluationValue;";
+
+  private static final String FUNCTION_DESCRIPTOR =
+      "(Lcom/loncus/compiler/EvaluationContext;[Lcom/loncus/data/EvaluationValue;)"
+          + "Lcom/loncus/data/EvaluationValue;";
+
+  private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final InferredTypes types;
+
+  private final CommonSubexpressions commonSubexpressions;
+
+  /** The compiled common subexpressions, by their index. */
+  private final EvaluatorNode[] commonSubexpressionNodes;
+
+  private final BytecodeClassLoader classLoader = new BytecodeClassLoader();
+
+  private final IdentityHashMap<ASTNode, EvaluatorNode> compiledNodes = new IdentityHashMap<>();
+
+  private final Deque<ASTNode> pendingLazyParameters = new ArrayDeque<>();
+
+  private BytecodeCompiler(
+      ASTNode abstractSyntaxTree,
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.types = types;
+    this.commonSubexpressions = CommonSubexpressions.find(abstractSyntaxTree, foldedValues);
+    this.commonSubexpressionNodes = new EvaluatorNode[commonSubexpressions.getCount()];
+  }
+
+  /**
+   * Compiles the abstract syntax tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @param types The inferred types of the tree nodes.
+   * @return The compiled program.
+   * @throws UnsupportedOperationException If the tree can not be compiled, e.g. because the
+   *     generated code exceeds the JVM limits.
+   */
+  static ClosureProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    BytecodeCompiler compiler =
+        new BytecodeCompiler(
+            abstractSyntaxTree,
+            ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+            variableSlots,
+            types);
+    EvaluatorNode root = compiler.compileClass(abstractSyntaxTree);
+    compiler.compiledNodes.put(abstractSyntaxTree, root);
+    while (!compiler.pendingLazyParameters.isEmpty()) {
+      ASTNode parameter = compiler.pendingLazyParameters.poll();
+      int index = compiler.commonSubexpressions.getIndex(parameter);
+      compiler.compiledNodes.put(
+          parameter,
+          index < 0
+              ? compiler.compileClass(parameter)
+              : compiler.compileCommonSubexpression(index, parameter));
+    }
+    return new ClosureProgram(
+        root, compiler.compiledNodes, variableSlots, compiler.commonSubexpressions.getCount());
+  }
+
+  private EvaluatorNode compileCommonSubexpression(int index, ASTNode node) {
+    if (commonSubexpressionNodes[index] == null) {
+      commonSubexpressionNodes[index] = new CommonSubexpressionNode(index, compileClass(node));
+    }
+    return commonSubexpressionNodes[index];
+  }
+
+  private EvaluatorNode compileClass(ASTNode node) {
+    String className = "com/loncus/compiler/GeneratedEvaluator" + CLASS_COUNTER.incrementAndGet();
+    ClassFileWriter writer = new ClassFileWriter(className, EVALUATOR_NODE);
+
+    Code constructor =
+        new Code(2)
+            .op(ALOAD_0, 1)
+            .op(ALOAD_1, 1)
+            .op(
+                INVOKESPECIAL,
+                writer.methodConstant(EVALUATOR_NODE, "<init>", CONSTRUCTOR_DESCRIPTOR),
+                -2)
+            .op(RETURN, 0);
+    writer.addMethod("<init>", CONSTRUCTOR_DESCRIPTOR, constructor);
+
+    Code code = new Code(2);
+    new MethodEmitter(writer, code, node).emit(node);
+    code.op(ARETURN, -1);
+    writer.addMethod("evaluate", EVALUATE_DESCRIPTOR, code);
+
+    Class<?> generatedClass =
+        classLoader.defineClass(className.replace('/', '.'), writer.toByteArray());
+    try {
+      return (EvaluatorNode)
+          generatedClass.getConstructor(Token.class).newInstance(node.getToken());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Emits the code for a tree into the <code>evaluate()</code> method of one generated class. */
+  private final class MethodEmitter {
+
+    private final ClassFileWriter writer;
+
+    private final Code code;
+
+    private final int bootstrapMethod;
+
+    /** The root node of the generated class. */
+    private final ASTNode root;
+
+    private MethodEmitter(ClassFileWriter writer, Code code, ASTNode root) {
+      this.writer = writer;
+      this.code = code;
+      this.root = root;
+      this.bootstrapMethod =
+          writer.methodConstant(BYTECODE_SUPPORT, "bootstrap", BOOTSTRAP_DESCRIPTOR);
+    }
+
+    /** Emits code that leaves the evaluation result of the node on the operand stack. */
+    private void emit(ASTNode node) {
+      Token token = node.getToken();
+      EvaluationValue foldedValue = foldedValues.get(node);
+      if (foldedValue != null) {
+        // all literals end up here
+        invoke(BytecodeSupport.constant(foldedValue), CONSTANT_DESCRIPTOR, 0);
+        return;
+      }
+      int index = commonSubexpressions.getIndex(node);
+      if (index >= 0 && node != root) {
+        code.op(ALOAD_1, 1);
+        invoke(
+            BytecodeSupport.evaluatorNode(compileCommonSubexpression(index, node)),
+            EVALUATE_DESCRIPTOR,
+            1);
+        return;
+      }
+      List<ASTNode> parameters = node.getParameters();
+      switch (token.getType()) {
+        case VARIABLE_OR_CONSTANT:
+          code.op(ALOAD_1, 1);
+          invoke(
+              BytecodeSupport.variable(token, variableSlots.getSlot(token.getValue())),
+              EVALUATE_DESCRIPTOR,
+              1);
+          break;
+        case PREFIX_OPERATOR:
+        case POSTFIX_OPERATOR:
+          code.op(ALOAD_1, 1);
+          emit(parameters.get(0));
+          invoke(
+              BytecodeSupport.unaryOperator(token, types.getOperator(node)), UNARY_DESCRIPTOR, 2);
+          break;
+        case INFIX_OPERATOR:
+          code.op(ALOAD_1, 1);
+          if (token.getOperatorDefinition().isOperandLazy()) {
+            emitLazy(parameters.get(0));
+            emitLazy(parameters.get(1));
+          } else {
+            emit(parameters.get(0));
+            emit(parameters.get(1));
+          }
+          invoke(
+              BytecodeSupport.infixOperator(token, types.getOperator(node)), BINARY_DESCRIPTOR, 3);
+          break;
+        case ARRAY_INDEX:
+          code.op(ALOAD_1, 1);
+          emit(parameters.get(0));
+          emit(parameters.get(1));
+          invoke(BytecodeSupport.arrayIndex(token), BINARY_DESCRIPTOR, 3);
+          break;
+        case FUNCTION:
+          emitFunction(node);
+          break;
+        default:
+          code.op(ALOAD_1, 1);
+          invoke(BytecodeSupport.unexpectedToken(token), EVALUATE_DESCRIPTOR, 1);
+      }
+    }
+
+    private void emitFunction(ASTNode node) {
+      Token token = node.getToken();
+      FunctionIfc function = token.getFunctionDefinition();
+      List<ASTNode> parameters = node.getParameters();
+
+      code.op(ALOAD_1, 1);
+      code.pushInt(parameters.size());
+      code.op(ANEWARRAY, writer.classConstant(EVALUATION_VALUE), 0);
+      for (int i = 0; i < parameters.size(); i++) {
+        ASTNode parameter = parameters.get(i);
+        code.op(DUP, 1);
+        code.pushInt(i);
+        if (function.isParameterLazy(i)) {
+          emitLazy(parameter);
+        } else {
+          emit(parameter);
+        }
+        code.op(AASTORE, -3);
+      }
+      invoke(BytecodeSupport.function(token), FUNCTION_DESCRIPTOR, 2);
+    }
+
+    /** Emits code that leaves the parameter as expression node value on the operand stack. */
+    private void emitLazy(ASTNode parameter) {
+      // the operator or function evaluates the parameter on demand, through the evaluation context
+      invoke(
+          BytecodeSupport.constant(EvaluationValue.expressionNodeValue(parameter)),
+          CONSTANT_DESCRIPTOR,
+          0);
+      pendingLazyParameters.add(parameter);
+    }
+
+    private void invoke(MethodHandle target, String descriptor, int argumentCount) {
+      int index = classLoader.addCallSiteTarget(target);
+      code.invokeDynamic(
+          writer.invokeDynamicConstant(bootstrapMethod, index, "evaluate", descriptor),
+          argumentCount);
+    }
+  }
+}
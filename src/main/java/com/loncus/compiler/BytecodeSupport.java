@@ -0,0 +1,181 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.Token;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Runtime support for classes generated by the {@link BytecodeCompiler}. The generated code calls
+ * all operators and functions through <code>invokedynamic</code> instructions, which are linked by
+ * {@link #bootstrap} to constant call sites. Each call site target has the operator or function
+ * definition and the token already bound, so the JIT compiler can inline the call.
+ *
+ * <p>This class is public only because the generated classes live in their own class loader. It is
+ * not meant to be used directly.
+ */
+public final class BytecodeSupport {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodHandle VARIABLE =
+      findStatic("variable", Token.class, int.class, EvaluationContext.class);
+
+  private static final MethodHandle EVALUATOR_NODE =
+      findStatic("evaluatorNode", EvaluatorNode.class, EvaluationContext.class);
+
+  private static final MethodHandle UNARY_OPERATOR =
+      findStatic(
+          "unaryOperator",
+          OperatorIfc.class,
+          Token.class,
+          EvaluationContext.class,
+          EvaluationValue.class);
+
+  private static final MethodHandle INFIX_OPERATOR =
+      findStatic(
+          "infixOperator",
+          OperatorIfc.class,
+          Token.class,
+          EvaluationContext.class,
+          EvaluationValue.class,
+          EvaluationValue.class);
+
+  private static final MethodHandle FUNCTION =
+      findStatic(
+          "function",
+          FunctionIfc.class,
+          Token.class,
+          EvaluationContext.class,
+          EvaluationValue[].class);
+
+  private static final MethodHandle ARRAY_INDEX =
+      findStatic(
+          "arrayIndex",
+          Token.class,
+          EvaluationContext.class,
+          EvaluationValue.class,
+          EvaluationValue.class);
+
+  private static final MethodHandle UNEXPECTED_TOKEN =
+      findStatic("unexpectedToken", Token.class, EvaluationContext.class);
+
+  private BytecodeSupport() {}
+
+  /**
+   * Links an <code>invokedynamic</code> instruction of a generated class to its target.
+   *
+   * @param lookup The lookup of the generated class.
+   * @param name The call site name, not used.
+   * @param type The call site type.
+   * @param index The index of the call site target in the class loader of the generated class.
+   * @return A constant call site.
+   */
+  public static CallSite bootstrap(
+      MethodHandles.Lookup lookup, String name, MethodType type, int index) {
+    BytecodeClassLoader classLoader = (BytecodeClassLoader) lookup.lookupClass().getClassLoader();
+    return new ConstantCallSite(classLoader.getCallSiteTarget(index).asType(type));
+  }
+
+  static MethodHandle constant(EvaluationValue value) {
+    return MethodHandles.constant(EvaluationValue.class, value);
+  }
+
+  static MethodHandle variable(Token token, int slot) {
+    return MethodHandles.insertArguments(VARIABLE, 0, token, slot);
+  }
+
+  static MethodHandle evaluatorNode(EvaluatorNode node) {
+    return MethodHandles.insertArguments(EVALUATOR_NODE, 0, node);
+  }
+
+  static MethodHandle unaryOperator(Token token, OperatorIfc operator) {
+    return MethodHandles.insertArguments(UNARY_OPERATOR, 0, operator, token);
+  }
+
+  static MethodHandle infixOperator(Token token, OperatorIfc operator) {
+    return MethodHandles.insertArguments(INFIX_OPERATOR, 0, operator, token);
+  }
+
+  static MethodHandle function(Token token) {
+    return MethodHandles.insertArguments(FUNCTION, 0, token.getFunctionDefinition(), token);
+  }
+
+  static MethodHandle arrayIndex(Token token) {
+    return MethodHandles.insertArguments(ARRAY_INDEX, 0, token);
+  }
+
+  static MethodHandle unexpectedToken(Token token) {
+    return MethodHandles.insertArguments(UNEXPECTED_TOKEN, 0, token);
+  }
+
+  private static EvaluationValue variable(Token token, int slot, EvaluationContext context)
+      throws EvaluationException {
+    EvaluationValue result = context.getVariableOrConstant(token, slot);
+    if (result.isExpressionNode()) {
+      result = context.evaluateSubtree(result.getExpressionNode());
+    }
+    return context.completeNodeEvaluation(token, result);
+  }
+
+  private static EvaluationValue evaluatorNode(EvaluatorNode node, EvaluationContext context)
+      throws EvaluationException {
+    return node.evaluate(context);
+  }
+
+  private static EvaluationValue unaryOperator(
+      OperatorIfc operator, Token token, EvaluationContext context, EvaluationValue operand)
+      throws EvaluationException {
+    return context.completeNodeEvaluation(token, operator.evaluate(context, token, operand));
+  }
+
+  private static EvaluationValue infixOperator(
+      OperatorIfc operator,
+      Token token,
+      EvaluationContext context,
+      EvaluationValue left,
+      EvaluationValue right)
+      throws EvaluationException {
+    return context.completeNodeEvaluation(token, operator.evaluate(context, token, left, right));
+  }
+
+  private static EvaluationValue function(
+      FunctionIfc function, Token token, EvaluationContext context, EvaluationValue[] parameters)
+      throws EvaluationException {
+    function.validatePreEvaluation(token, parameters);
+    return context.completeNodeEvaluation(token, function.evaluate(context, token, parameters));
+  }
+
+  private static EvaluationValue arrayIndex(
+      Token token, EvaluationContext context, EvaluationValue array, EvaluationValue index)
+      throws EvaluationException {
+    if (array.isArrayValue() && index.isNumberValue()) {
+      return context.completeNodeEvaluation(
+          token, array.getArrayValue().get(index.getNumberValue().intValue()));
+    } else {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+    }
+  }
+
+  private static EvaluationValue unexpectedToken(Token token, EvaluationContext context)
+      throws EvaluationException {
+    throw new EvaluationException(token, "Unexpected evaluation token: " + token);
+  }
+
+  private static MethodHandle findStatic(String name, Class<?>... parameterTypes) {
+    try {
+      return LOOKUP.findStatic(
+          BytecodeSupport.class,
+          name,
+          MethodType.methodType(EvaluationValue.class, parameterTypes));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
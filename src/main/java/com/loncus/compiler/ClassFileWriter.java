@@ -0,0 +1,336 @@
+package com.loncus.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for JVM class files, supporting just what the {@link BytecodeCompiler} needs: a
+ * class with public methods, whose code is straight-line (no branches and no exception handlers)
+ * and calls other code only through <code>invokespecial</code> and <code>invokedynamic</code>.
+ *
+ * <p>Without branches, no <code>StackMapTable</code> attribute is needed for class file version 52
+ * (Java 8), which keeps the writer small.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html">The class File
+ *     Format</a>
+ */
+final class ClassFileWriter {
+
+  static final int ACC_PUBLIC = 0x0001;
+  static final int ACC_FINAL = 0x0010;
+  static final int ACC_SUPER = 0x0020;
+
+  static final int ALOAD_0 = 0x2a;
+  static final int ALOAD_1 = 0x2b;
+  static final int ICONST_0 = 0x03;
+  static final int BIPUSH = 0x10;
+  static final int SIPUSH = 0x11;
+  static final int AASTORE = 0x53;
+  static final int DUP = 0x59;
+  static final int ARETURN = 0xb0;
+  static final int RETURN = 0xb1;
+  static final int INVOKESPECIAL = 0xb7;
+  static final int INVOKEDYNAMIC = 0xba;
+  static final int ANEWARRAY = 0xbd;
+
+  /** The maximum length of the code of a single method. */
+  static final int MAX_CODE_LENGTH = 65535;
+
+  private static final int CLASS_FILE_VERSION = 52;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+
+  private static final int REF_INVOKE_STATIC = 6;
+
+  private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+  private final Map<String, Integer> constantIndexes = new HashMap<>();
+  private int constantCount = 1;
+
+  private final List<byte[]> methods = new ArrayList<>();
+
+  private final ByteArrayOutputStream bootstrapMethodBytes = new ByteArrayOutputStream();
+  private final DataOutputStream bootstrapMethods = new DataOutputStream(bootstrapMethodBytes);
+  private int bootstrapMethodCount;
+
+  private final int thisClass;
+  private final int superClass;
+
+  /**
+   * Creates a writer for a public final class.
+   *
+   * @param className The internal name of the class, like <code>com/loncus/Example</code>.
+   * @param superClassName The internal name of the super class.
+   */
+  ClassFileWriter(String className, String superClassName) {
+    this.thisClass = classConstant(className);
+    this.superClass = classConstant(superClassName);
+  }
+
+  /**
+   * Adds a public method.
+   *
+   * @param name The method name.
+   * @param descriptor The method descriptor.
+   * @param code The method code.
+   */
+  void addMethod(String name, String descriptor, Code code) {
+    if (code.bytes.size() > MAX_CODE_LENGTH) {
+      throw new UnsupportedOperationException("Method code too large: " + code.bytes.size());
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeShort(ACC_PUBLIC);
+      out.writeShort(utf8Constant(name));
+      out.writeShort(utf8Constant(descriptor));
+      out.writeShort(1);
+      out.writeShort(utf8Constant("Code"));
+      out.writeInt(12 + code.bytes.size());
+      out.writeShort(code.maxStack);
+      out.writeShort(code.maxLocals);
+      out.writeInt(code.bytes.size());
+      code.bytes.writeTo(out);
+      out.writeShort(0); // exception table length
+      out.writeShort(0); // attributes count
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    methods.add(bytes.toByteArray());
+  }
+
+  /**
+   * Returns the complete class file.
+   *
+   * @return The class file bytes.
+   */
+  byte[] toByteArray() {
+    int bootstrapMethodsName = bootstrapMethodCount > 0 ? utf8Constant("BootstrapMethods") : 0;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(CLASS_FILE_VERSION);
+      out.writeShort(constantCount);
+      constantPoolBytes.writeTo(out);
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(0); // interfaces
+      out.writeShort(0); // fields
+      out.writeShort(methods.size());
+      for (byte[] method : methods) {
+        out.write(method);
+      }
+      if (bootstrapMethodCount > 0) {
+        out.writeShort(1);
+        out.writeShort(bootstrapMethodsName);
+        out.writeInt(2 + bootstrapMethodBytes.size());
+        out.writeShort(bootstrapMethodCount);
+        bootstrapMethodBytes.writeTo(out);
+      } else {
+        out.writeShort(0);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  int classConstant(String internalName) {
+    int name = utf8Constant(internalName);
+    return constant("C:" + internalName, CONSTANT_CLASS, name, -1);
+  }
+
+  int methodConstant(String owner, String name, String descriptor) {
+    int ownerClass = classConstant(owner);
+    int nameAndType = nameAndTypeConstant(name, descriptor);
+    return constant(
+        "M:" + owner + "." + name + descriptor, CONSTANT_METHODREF, ownerClass, nameAndType);
+  }
+
+  /**
+   * Adds an <code>invokedynamic</code> constant, bootstrapped by a static method with a single
+   * additional <code>int</code> argument.
+   *
+   * @param bootstrapMethod The static bootstrap method reference, see {@link #methodConstant}.
+   * @param argument The static argument, passed to the bootstrap method.
+   * @param name The call site name.
+   * @param descriptor The call site descriptor.
+   * @return The constant pool index.
+   */
+  int invokeDynamicConstant(int bootstrapMethod, int argument, String name, String descriptor) {
+    int handle = constant("H:" + bootstrapMethod, CONSTANT_METHOD_HANDLE, -1, bootstrapMethod);
+    int argumentIndex = constant("I:" + argument, CONSTANT_INTEGER, argument, -1);
+    int nameAndType = nameAndTypeConstant(name, descriptor);
+    try {
+      bootstrapMethods.writeShort(handle);
+      bootstrapMethods.writeShort(1);
+      bootstrapMethods.writeShort(argumentIndex);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    int bootstrapIndex = bootstrapMethodCount++;
+    return constant(
+        "D:" + bootstrapIndex + ":" + name + descriptor,
+        CONSTANT_INVOKE_DYNAMIC,
+        bootstrapIndex,
+        nameAndType);
+  }
+
+  private int nameAndTypeConstant(String name, String descriptor) {
+    int nameIndex = utf8Constant(name);
+    int descriptorIndex = utf8Constant(descriptor);
+    return constant(
+        "N:" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+  }
+
+  private int utf8Constant(String value) {
+    Integer index = constantIndexes.get("U:" + value);
+    if (index != null) {
+      return index;
+    }
+    try {
+      constantPool.writeByte(CONSTANT_UTF8);
+      constantPool.writeUTF(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return register("U:" + value);
+  }
+
+  /**
+   * Adds a constant with up to two fields, if it was not added before. The method handle constant
+   * has a one byte kind and a two byte reference, the integer constant a four byte value, all
+   * others have one or two fields of two bytes. A field value of -1 is not written.
+   */
+  private int constant(String key, int tag, int first, int second) {
+    Integer index = constantIndexes.get(key);
+    if (index != null) {
+      return index;
+    }
+    try {
+      constantPool.writeByte(tag);
+      if (tag == CONSTANT_METHOD_HANDLE) {
+        constantPool.writeByte(REF_INVOKE_STATIC);
+        constantPool.writeShort(second);
+      } else if (tag == CONSTANT_INTEGER) {
+        constantPool.writeInt(first);
+      } else {
+        constantPool.writeShort(first);
+        if (second != -1) {
+          constantPool.writeShort(second);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return register(key);
+  }
+
+  private int register(String key) {
+    if (constantCount > 0xffff) {
+      throw new UnsupportedOperationException("Too many constants");
+    }
+    int index = constantCount++;
+    constantIndexes.put(key, index);
+    return index;
+  }
+
+  /** The code of one method, keeps track of the operand stack size. */
+  static final class Code {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final int maxLocals;
+
+    private int stack;
+
+    private int maxStack;
+
+    Code(int maxLocals) {
+      this.maxLocals = maxLocals;
+    }
+
+    /**
+     * Appends an instruction without operands.
+     *
+     * @param opcode The instruction.
+     * @param stackChange The change of the operand stack size caused by the instruction.
+     */
+    Code op(int opcode, int stackChange) {
+      bytes.write(opcode);
+      return adjustStack(stackChange);
+    }
+
+    /**
+     * Appends an instruction with a two byte operand.
+     *
+     * @param opcode The instruction.
+     * @param operand The operand, like a constant pool index.
+     * @param stackChange The change of the operand stack size caused by the instruction.
+     */
+    Code op(int opcode, int operand, int stackChange) {
+      bytes.write(opcode);
+      writeShort(operand);
+      return adjustStack(stackChange);
+    }
+
+    /**
+     * Appends an <code>invokedynamic</code> instruction.
+     *
+     * @param invokeDynamicConstant The call site constant.
+     * @param argumentCount The number of arguments the call site takes from the stack.
+     */
+    Code invokeDynamic(int invokeDynamicConstant, int argumentCount) {
+      bytes.write(INVOKEDYNAMIC);
+      writeShort(invokeDynamicConstant);
+      writeShort(0);
+      return adjustStack(1 - argumentCount);
+    }
+
+    /**
+     * Pushes a small <code>int</code> value on the stack.
+     *
+     * @param value The value, between 0 and 32767.
+     */
+    Code pushInt(int value) {
+      if (value <= 5) {
+        bytes.write(ICONST_0 + value);
+      } else if (value <= Byte.MAX_VALUE) {
+        bytes.write(BIPUSH);
+        bytes.write(value);
+      } else if (value <= Short.MAX_VALUE) {
+        bytes.write(SIPUSH);
+        writeShort(value);
+      } else {
+        throw new UnsupportedOperationException("Value too large: " + value);
+      }
+      return adjustStack(1);
+    }
+
+    private void writeShort(int value) {
+      bytes.write(value >>> 8);
+      bytes.write(value);
+    }
+
+    private Code adjustStack(int change) {
+      stack += change;
+      maxStack = Math.max(maxStack, stack);
+      return this;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.parser.ASTNode;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * The result of compiling an abstract syntax tree into a tree of {@link EvaluatorNode}s. A program
+ * is immutable and can be evaluated concurrently.
+ */
+public final class ClosureProgram implements CompiledProgram {
+
+  /** The compiled root node. */
+  @Getter private final EvaluatorNode root;
+
+  /**
+   * The compiled nodes for the tree root and all lazy function parameters and operator operands, by
+   * identity of their {@link ASTNode}.
+   */
+  private final Map<ASTNode, EvaluatorNode> compiledNodes;
+
+  /** The variable slots the program was compiled with. */
+  @Getter private final VariableSlots variableSlots;
+
+  /** The number of common subexpressions, whose values are kept during an evaluation. */
+  @Getter private final int commonSubexpressionCount;
+
+  ClosureProgram(
+      EvaluatorNode root,
+      IdentityHashMap<ASTNode, EvaluatorNode> compiledNodes,
+      VariableSlots variableSlots,
+      int commonSubexpressionCount) {
+    this.root = root;
+    this.compiledNodes = Collections.unmodifiableMap(compiledNodes);
+    this.variableSlots = variableSlots;
+    this.commonSubexpressionCount = commonSubexpressionCount;
+  }
+
+  @Override
+  public EvaluationValue evaluate(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants)
+      throws EvaluationException {
+    EvaluationContext context =
+        new EvaluationContext(
+            expressionString, configuration, abstractSyntaxTree, dataAccessor, constants, this);
+    return root.evaluate(context);
+  }
+
+  /**
+   * Returns the compiled node for a node of the abstract syntax tree.
+   *
+   * @param node The tree node.
+   * @return The compiled node, or <code>null</code> if the node was not compiled on its own.
+   */
+  EvaluatorNode getCompiledNode(ASTNode node) {
+    return compiledNodes.get(node);
+  }
+}
@@ -0,0 +1,26 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+
+/**
+ * A subtree that occurs more than once in the expression, see {@link CommonSubexpressions}. All
+ * occurrences share the compiled subtree, which is evaluated only once per evaluation.
+ */
+final class CommonSubexpressionNode extends EvaluatorNode {
+
+  private final int index;
+
+  private final EvaluatorNode subtree;
+
+  CommonSubexpressionNode(int index, EvaluatorNode subtree) {
+    super(subtree.getToken());
+    this.index = index;
+    this.subtree = subtree;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    return context.evaluateCommonSubexpression(index, subtree);
+  }
+}
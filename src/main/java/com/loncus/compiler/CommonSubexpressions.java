@@ -0,0 +1,179 @@
+package com.loncus.compiler;
+
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The structurally identical subtrees of an abstract syntax tree, like <code>MAX(a, b)</code> in
+ * <code>MAX(a, b) / (1 + MAX(a, b))</code>. Each distinct subtree gets an index, all its
+ * occurrences share the index, so that it is evaluated only once per evaluation.
+ *
+ * <p>A subtree is shared, if it occurs more than once and all its operators and functions are
+ * {@link com.loncus.operators.OperatorIfc#isDeterministic() deterministic}. Leaves like variables
+ * and literals are not shared, they are as cheap to evaluate as to look up. Subtrees that only
+ * occur as part of a larger shared subtree are not shared on their own, and folded constant
+ * subtrees are ignored.
+ */
+final class CommonSubexpressions {
+
+  /** The structural identifier of each node, structurally identical nodes have the same id. */
+  private final Map<ASTNode, Integer> ids = new IdentityHashMap<>();
+
+  /** The structural identifiers by their key, used to hash-cons the nodes. */
+  private final Map<List<Object>, Integer> idsByKey = new HashMap<>();
+
+  private final List<Integer> occurrences = new ArrayList<>();
+
+  private final List<Boolean> pure = new ArrayList<>();
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final Map<ASTNode, Integer> indexes = new IdentityHashMap<>();
+
+  private final Map<Integer, Integer> indexesById = new HashMap<>();
+
+  private CommonSubexpressions(Map<ASTNode, EvaluationValue> foldedValues) {
+    this.foldedValues = foldedValues;
+  }
+
+  /**
+   * Finds the common subexpressions of the tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param foldedValues The folded constant subtrees, see {@link ConstantFolder}.
+   * @return The common subexpressions.
+   */
+  static CommonSubexpressions find(
+      ASTNode abstractSyntaxTree, Map<ASTNode, EvaluationValue> foldedValues) {
+    CommonSubexpressions subexpressions = new CommonSubexpressions(foldedValues);
+    subexpressions.identify(abstractSyntaxTree);
+    subexpressions.assignIndexes(abstractSyntaxTree, -1);
+    return subexpressions;
+  }
+
+  /**
+   * Returns the index of a shared subtree.
+   *
+   * @param node The root node of the subtree.
+   * @return The index, or <code>-1</code> if the subtree is not shared.
+   */
+  int getIndex(ASTNode node) {
+    Integer index = indexes.get(node);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Returns the number of distinct shared subtrees, the indexes are numbered from zero.
+   *
+   * @return The number of shared subtrees.
+   */
+  int getCount() {
+    return indexesById.size();
+  }
+
+  private int identify(ASTNode node) {
+    Token token = node.getToken();
+    List<ASTNode> parameters = node.getParameters();
+    Object[] key = new Object[parameters.size() + 2];
+    key[0] = token.getType();
+    key[1] = discriminator(token);
+    boolean pureParameters = true;
+    for (int i = 0; i < parameters.size(); i++) {
+      int parameterId = identify(parameters.get(i));
+      key[i + 2] = parameterId;
+      pureParameters &= pure.get(parameterId);
+    }
+    Integer id = idsByKey.get(Arrays.asList(key));
+    if (id == null) {
+      id = occurrences.size();
+      idsByKey.put(Arrays.asList(key), id);
+      occurrences.add(0);
+      pure.add(pureParameters && isPureToken(token));
+    }
+    // folded subtrees are never evaluated, so their occurrences do not count
+    if (!foldedValues.containsKey(node)) {
+      occurrences.set(id, occurrences.get(id) + 1);
+    }
+    ids.put(node, id);
+    return id;
+  }
+
+  private void assignIndexes(ASTNode node, int parentId) {
+    if (foldedValues.containsKey(node)) {
+      return;
+    }
+    int id = ids.get(node);
+    if (isShared(node, id, parentId)) {
+      Integer index = indexesById.get(id);
+      if (index == null) {
+        index = indexesById.size();
+        indexesById.put(id, index);
+      }
+      indexes.put(node, index);
+    }
+    for (ASTNode parameter : node.getParameters()) {
+      assignIndexes(parameter, id);
+    }
+  }
+
+  private boolean isShared(ASTNode node, int id, int parentId) {
+    if (!pure.get(id) || occurrences.get(id) < 2 || isLeaf(node.getToken())) {
+      return false;
+    }
+    // if the parent is shared as often, this subtree is evaluated only once anyway
+    return parentId < 0 || !pure.get(parentId) || occurrences.get(parentId) < occurrences.get(id);
+  }
+
+  private static boolean isLeaf(Token token) {
+    return token.getType() == Token.TokenType.NUMBER_LITERAL
+        || token.getType() == Token.TokenType.STRING_LITERAL
+        || token.getType() == Token.TokenType.VARIABLE_OR_CONSTANT;
+  }
+
+  private static Object discriminator(Token token) {
+    switch (token.getType()) {
+      case NUMBER_LITERAL:
+      case STRING_LITERAL:
+        return token.getValue();
+      case VARIABLE_OR_CONSTANT:
+        return token.getValue().toUpperCase(Locale.ROOT);
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition();
+      case FUNCTION:
+        return token.getFunctionDefinition();
+      case ARRAY_INDEX:
+        return "";
+      default:
+        // never identical to any other node
+        return new Object();
+    }
+  }
+
+  private static boolean isPureToken(Token token) {
+    switch (token.getType()) {
+      case NUMBER_LITERAL:
+      case STRING_LITERAL:
+      case VARIABLE_OR_CONSTANT:
+      case ARRAY_INDEX:
+        return true;
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition().isDeterministic();
+      case FUNCTION:
+        return token.getFunctionDefinition().isDeterministic();
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.ASTNode;
+import java.util.Map;
+
+/**
+ * A parsed expression, prepared for repeated evaluation in one of the compiled {@link
+ * ExpressionConfiguration.EvaluationMode}s. Programs hold no evaluation state and can be evaluated
+ * concurrently.
+ */
+public interface CompiledProgram {
+
+  /**
+   * Evaluates the program.
+   *
+   * @param expressionString The expression string the program was compiled from.
+   * @param configuration The expression configuration.
+   * @param abstractSyntaxTree The tree the program was compiled from.
+   * @param dataAccessor The data accessor for variable values.
+   * @param constants The constants to use.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  EvaluationValue evaluate(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants)
+      throws EvaluationException;
+}
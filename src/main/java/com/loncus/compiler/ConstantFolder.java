@@ -0,0 +1,168 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.MapBasedDataAccessor;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the subtrees of an abstract syntax tree that do not depend on any variable value and
+ * evaluates them once. A subtree is constant, if all its leaves are literals or constants and all
+ * its operators and functions are {@link com.loncus.operators.OperatorIfc#isDeterministic()
+ * deterministic}.
+ *
+ * <p>Literals are constant subtrees, so they are always folded. Constant subtrees are evaluated
+ * with the interpreter, so the folded values are exactly the values a later evaluation would
+ * produce, including intermediate rounding. If a constant subtree fails to evaluate, like in <code>
+ * 1/0</code>, it is not folded, so that the error is reported when the expression is evaluated.
+ */
+final class ConstantFolder {
+
+  private final Map<String, EvaluationValue> constants;
+
+  /** The values of all constant nodes that were evaluated without errors. */
+  private final Map<ASTNode, EvaluationValue> nodeValues = new IdentityHashMap<>();
+
+  private final EvaluationContext context;
+
+  private final Map<ASTNode, EvaluationValue> foldedValues = new IdentityHashMap<>();
+
+  private ConstantFolder(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants) {
+    this.constants = constants;
+    this.context =
+        new EvaluationContext(
+            null, configuration, abstractSyntaxTree, new MapBasedDataAccessor(), constants, null) {
+          @Override
+          public EvaluationValue evaluateSubtree(ASTNode startNode) throws EvaluationException {
+            // lazy parameters were evaluated before their parent
+            EvaluationValue value = nodeValues.get(startNode);
+            return value != null ? value : super.evaluateSubtree(startNode);
+          }
+        };
+    // the folded subtrees are not charged to the budgets of the evaluations
+    context.startUnchargedEvaluationBudget();
+  }
+
+  /**
+   * Folds the constant subtrees of the tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration used for evaluation.
+   * @param constants The constants, which are fixed for the compiled expression.
+   * @return The folded values of the largest constant subtrees, by identity of their root node.
+   */
+  static Map<ASTNode, EvaluationValue> fold(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants) {
+    ConstantFolder folder = new ConstantFolder(abstractSyntaxTree, configuration, constants);
+    folder.foldConstantSubtrees(abstractSyntaxTree);
+    return folder.foldedValues;
+  }
+
+  /**
+   * Folds the largest constant subtrees: the constant children of nodes that are not constant or
+   * failed to evaluate, and the root node, if it is constant. The tree is walked iteratively, so
+   * that its depth is not limited by the call stack, and each node is evaluated at most once.
+   */
+  private void foldConstantSubtrees(ASTNode abstractSyntaxTree) {
+    List<ASTNode> nodes = new ArrayList<>();
+    Deque<ASTNode> pending = new ArrayDeque<>();
+    pending.push(abstractSyntaxTree);
+    while (!pending.isEmpty()) {
+      ASTNode node = pending.pop();
+      nodes.add(node);
+      node.getParameters().forEach(pending::push);
+    }
+
+    // in reverse pre-order, all children are evaluated before their parent
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      foldNode(nodes.get(i));
+    }
+
+    if (nodeValues.containsKey(abstractSyntaxTree)) {
+      foldedValues.put(abstractSyntaxTree, nodeValues.get(abstractSyntaxTree));
+      return;
+    }
+    for (ASTNode node : nodes) {
+      if (!nodeValues.containsKey(node)) {
+        for (ASTNode parameter : node.getParameters()) {
+          EvaluationValue value = nodeValues.get(parameter);
+          if (value != null) {
+            foldedValues.put(parameter, value);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluates a node from the values of its parameters, if it is constant. Nodes with a parameter
+   * that is not constant or failed to evaluate are not evaluated, like nodes that fail to evaluate
+   * themselves, like <code>1/0</code>. This leaves it to the evaluation to report the error.
+   */
+  private void foldNode(ASTNode node) {
+    Token token = node.getToken();
+    if (!isConstantToken(token, constants)) {
+      return;
+    }
+    List<ASTNode> parameters = node.getParameters();
+    List<EvaluationValue> parameterValues = new ArrayList<>(parameters.size());
+    for (int i = 0; i < parameters.size(); i++) {
+      ASTNode parameter = parameters.get(i);
+      EvaluationValue value = nodeValues.get(parameter);
+      if (value == null) {
+        return;
+      }
+      boolean lazy =
+          token.getType() == Token.TokenType.FUNCTION
+              ? token.getFunctionDefinition().isParameterLazy(i)
+              : token.getType() == Token.TokenType.INFIX_OPERATOR
+                  && token.getOperatorDefinition().isOperandLazy();
+      parameterValues.add(lazy ? EvaluationValue.expressionNodeValue(parameter) : value);
+    }
+    try {
+      nodeValues.put(node, context.evaluateNode(node, parameterValues));
+    } catch (EvaluationException | RuntimeException e) {
+      // leave it to the evaluation to report the error
+    }
+  }
+
+  /**
+   * Checks whether the value of a token depends only on the values of its parameters.
+   *
+   * @param token The token of a tree node.
+   * @param constants The constants, which are fixed for the compiled expression.
+   * @return <code>true</code> if the token is a literal, a constant or a deterministic operation.
+   */
+  static boolean isConstantToken(Token token, Map<String, EvaluationValue> constants) {
+    switch (token.getType()) {
+      case NUMBER_LITERAL:
+      case STRING_LITERAL:
+      case ARRAY_INDEX:
+        return true;
+      case VARIABLE_OR_CONSTANT:
+        EvaluationValue constant = constants.get(token.getValue());
+        return constant != null && !constant.isExpressionNode();
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+      case INFIX_OPERATOR:
+        return token.getOperatorDefinition().isDeterministic();
+      case FUNCTION:
+        return token.getFunctionDefinition().isDeterministic();
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.loncus.compiler;
+
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+
+/** A node with a value that is known at compile time, e.g. a string literal. */
+final class ConstantNode extends EvaluatorNode {
+
+  private final EvaluationValue value;
+
+  ConstantNode(Token token, EvaluationValue value) {
+    super(token);
+    this.value = value;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) {
+    return value;
+  }
+}
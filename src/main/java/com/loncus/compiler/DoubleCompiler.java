@@ -0,0 +1,486 @@
+package com.loncus.compiler;
+
+import com.loncus.Bindings;
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
+import com.loncus.compiler.DoubleProgram.BooleanNode;
+import com.loncus.compiler.DoubleProgram.NumberNode;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.DoubleFunctionIfc;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.functions.FunctionParameterDefinition;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.functions.basic.NotFunction;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.arithmetic.InfixDivisionOperator;
+import com.loncus.operators.arithmetic.InfixMinusOperator;
+import com.loncus.operators.arithmetic.InfixModuloOperator;
+import com.loncus.operators.arithmetic.InfixMultiplicationOperator;
+import com.loncus.operators.arithmetic.InfixPlusOperator;
+import com.loncus.operators.arithmetic.InfixPowerOfOperator;
+import com.loncus.operators.arithmetic.PrefixMinusOperator;
+import com.loncus.operators.arithmetic.PrefixPlusOperator;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixEqualsOperator;
+import com.loncus.operators.booleans.InfixGreaterEqualsOperator;
+import com.loncus.operators.booleans.InfixGreaterOperator;
+import com.loncus.operators.booleans.InfixLessEqualsOperator;
+import com.loncus.operators.booleans.InfixLessOperator;
+import com.loncus.operators.booleans.InfixNotEqualsOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
+import com.loncus.operators.booleans.PrefixNotOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an abstract syntax tree into a {@link DoubleProgram}, for the {@link
+ * ExpressionConfiguration.NumericMode#DOUBLE} numeric mode. Constant subtrees are folded, see
+ * {@link ConstantFolder}, and variables are read by their slot.
+ *
+ * <p>The built-in arithmetic and boolean operators, the built-in <code>IF</code> and <code>NOT
+ * </code> functions and all functions implementing {@link DoubleFunctionIfc} are supported, as long
+ * as their operands are numbers or booleans. Like in {@link PostfixCompiler}, operators and
+ * functions are recognized by their exact class, as subclasses may evaluate differently. Trees with
+ * other nodes, e.g. strings, arrays or other functions, are not compiled.
+ */
+final class DoubleCompiler {
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final ExpressionConfiguration configuration;
+
+  /** Whether the evaluated nodes are charged to the evaluation budget. */
+  private final boolean charged;
+
+  private DoubleCompiler(
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      ExpressionConfiguration configuration) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.configuration = configuration;
+    this.charged = EvaluationBudget.isChargedPerNode(configuration);
+  }
+
+  /**
+   * Compiles the abstract syntax tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @return The compiled program, or <code>null</code> if the tree can not be evaluated with
+   *     primitive values.
+   */
+  static DoubleProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    if (ExpressionCompiler.exceedsDepth(
+        abstractSyntaxTree, ExpressionCompiler.MAXIMUM_COMPILED_DEPTH)) {
+      return null;
+    }
+    DoubleCompiler compiler =
+        new DoubleCompiler(
+            ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+            variableSlots,
+            configuration);
+    Token token = abstractSyntaxTree.getToken();
+    try {
+      if (compiler.isBoolean(abstractSyntaxTree)) {
+        return new DoubleProgram(
+            configuration, token, null, compiler.compileBoolean(abstractSyntaxTree));
+      }
+      return new DoubleProgram(
+          configuration, token, compiler.compileNumber(abstractSyntaxTree), null);
+    } catch (UnsupportedNodeException e) {
+      return null;
+    }
+  }
+
+  private NumberNode compileNumber(ASTNode node) throws UnsupportedNodeException {
+    NumberNode number = compileUnchargedNumber(node);
+    if (!charged || foldedValues.containsKey(node)) {
+      return number;
+    }
+    Token token = node.getToken();
+    return (bindings, budget) -> {
+      double value = number.evaluate(bindings, budget);
+      budget.chargeNode(token);
+      return value;
+    };
+  }
+
+  private NumberNode compileUnchargedNumber(ASTNode node) throws UnsupportedNodeException {
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      if (!foldedValue.isNumberValue()) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      double constant = foldedValue.getNumberValue().doubleValue();
+      return (bindings, budget) -> constant;
+    }
+    Token token = node.getToken();
+    List<ASTNode> parameters = node.getParameters();
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+        int slot = variableSlots.getSlot(token.getValue());
+        if (slot < 0) {
+          throw UnsupportedNodeException.INSTANCE;
+        }
+        DataType type = variableSlots.getType(slot);
+        if (type != null && type != DataType.NUMBER) {
+          throw UnsupportedNodeException.INSTANCE;
+        }
+        return (bindings, budget) ->
+            bindings.hasDouble(slot) ? bindings.getDouble(slot) : readNumber(bindings, token, slot);
+      case PREFIX_OPERATOR:
+        Class<?> prefixClass = token.getOperatorDefinition().getClass();
+        NumberNode operand = compileNumber(parameters.get(0));
+        if (prefixClass == PrefixMinusOperator.class) {
+          return (bindings, budget) -> -operand.evaluate(bindings, budget);
+        } else if (prefixClass == PrefixPlusOperator.class) {
+          return operand;
+        }
+        throw UnsupportedNodeException.INSTANCE;
+      case INFIX_OPERATOR:
+        return compileArithmetic(token, parameters);
+      case FUNCTION:
+        return compileFunction(token, parameters);
+      default:
+        throw UnsupportedNodeException.INSTANCE;
+    }
+  }
+
+  private NumberNode compileArithmetic(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    NumberNode left = compileNumber(parameters.get(0));
+    NumberNode right = compileNumber(parameters.get(1));
+    if (operatorClass == InfixPlusOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) + right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixMinusOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) - right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixMultiplicationOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) * right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixDivisionOperator.class) {
+      return (bindings, budget) -> {
+        double dividend = left.evaluate(bindings, budget);
+        double divisor = right.evaluate(bindings, budget);
+        if (divisor == 0) {
+          throw new EvaluationException(token, "Division by zero");
+        }
+        return dividend / divisor;
+      };
+    } else if (operatorClass == InfixModuloOperator.class) {
+      return (bindings, budget) -> {
+        double dividend = left.evaluate(bindings, budget);
+        double divisor = right.evaluate(bindings, budget);
+        if (divisor == 0) {
+          throw new EvaluationException(token, "Division by zero");
+        }
+        return dividend % divisor;
+      };
+    } else if (operatorClass == InfixPowerOfOperator.class) {
+      return (bindings, budget) -> {
+        double base = left.evaluate(bindings, budget);
+        double exponent = right.evaluate(bindings, budget);
+        double power = Math.pow(base, exponent);
+        if (Double.isNaN(power) || Double.isInfinite(power)) {
+          throw new EvaluationException(token, getPowerErrorMessage(base, exponent, power));
+        }
+        return power;
+      };
+    }
+    throw UnsupportedNodeException.INSTANCE;
+  }
+
+  /**
+   * Describes why a power is infinite or not a number, with the messages of the big decimal power,
+   * so that the error does not flow silently into comparisons and conditions.
+   */
+  private static String getPowerErrorMessage(double base, double exponent, double power) {
+    if (base == 0 && exponent < 0) {
+      return "Division by zero";
+    } else if (base < 0 && Double.isNaN(power)) {
+      return "Fractional power of a negative number";
+    }
+    return "Result is not a finite number: " + power;
+  }
+
+  private NumberNode compileFunction(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    FunctionIfc function = token.getFunctionDefinition();
+    if (function.getClass() == IfFunction.class) {
+      BooleanNode condition = compileBoolean(parameters.get(0));
+      NumberNode whenTrue = compileNumber(parameters.get(1));
+      NumberNode whenFalse = compileNumber(parameters.get(2));
+      return (bindings, budget) ->
+          condition.evaluate(bindings, budget)
+              ? whenTrue.evaluate(bindings, budget)
+              : whenFalse.evaluate(bindings, budget);
+    }
+    if (!(function instanceof DoubleFunctionIfc)) {
+      throw UnsupportedNodeException.INSTANCE;
+    }
+    DoubleFunctionIfc doubleFunction = (DoubleFunctionIfc) function;
+    List<FunctionParameterDefinition> definitions = function.getFunctionParameterDefinitions();
+    int parameterCount = parameters.size();
+    NumberNode[] parameterNodes = new NumberNode[parameterCount];
+    boolean[] nonZero = new boolean[parameterCount];
+    boolean[] nonNegative = new boolean[parameterCount];
+    for (int i = 0; i < parameterCount; i++) {
+      if (function.isParameterLazy(i)) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      // the last definition repeats for variable arguments
+      FunctionParameterDefinition definition = definitions.get(Math.min(i, definitions.size() - 1));
+      parameterNodes[i] = compileNumber(parameters.get(i));
+      nonZero[i] = definition.isNonZero();
+      nonNegative[i] = definition.isNonNegative();
+    }
+    return (bindings, budget) -> {
+      double[] parameterValues = new double[parameterCount];
+      for (int i = 0; i < parameterCount; i++) {
+        double value = parameterNodes[i].evaluate(bindings, budget);
+        if (nonZero[i] && value == 0) {
+          throw new EvaluationException(token, "Parameter must not be zero");
+        }
+        if (nonNegative[i] && value < 0) {
+          throw new EvaluationException(token, "Parameter must not be negative");
+        }
+        parameterValues[i] = value;
+      }
+      return doubleFunction.evaluateDouble(configuration, token, parameterValues);
+    };
+  }
+
+  private BooleanNode compileBoolean(ASTNode node) throws UnsupportedNodeException {
+    BooleanNode bool = compileUnchargedBoolean(node);
+    // numbers converted to booleans are charged by compileNumber()
+    if (!charged
+        || foldedValues.containsKey(node)
+        || (node.getToken().getType() != Token.TokenType.VARIABLE_OR_CONSTANT
+            && !isBoolean(node))) {
+      return bool;
+    }
+    Token token = node.getToken();
+    return (bindings, budget) -> {
+      boolean value = bool.evaluate(bindings, budget);
+      budget.chargeNode(token);
+      return value;
+    };
+  }
+
+  private BooleanNode compileUnchargedBoolean(ASTNode node) throws UnsupportedNodeException {
+    Token token = node.getToken();
+    if (token.getType() == Token.TokenType.VARIABLE_OR_CONSTANT
+        && !foldedValues.containsKey(node)) {
+      // variables without declared type may hold numbers or booleans
+      int slot = variableSlots.getSlot(token.getValue());
+      if (slot < 0) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      DataType type = variableSlots.getType(slot);
+      if (type != null && type != DataType.NUMBER && type != DataType.BOOLEAN) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      return (bindings, budget) ->
+          bindings.hasDouble(slot)
+              ? bindings.getDouble(slot) != 0
+              : readBoolean(bindings, token, slot);
+    }
+    if (!isBoolean(node)) {
+      // numbers are true, if they are not zero
+      NumberNode number = compileNumber(node);
+      return (bindings, budget) -> number.evaluate(bindings, budget) != 0;
+    }
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      Boolean value = foldedValue.getBooleanValue();
+      if (value == null) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      boolean constant = value;
+      return (bindings, budget) -> constant;
+    }
+    List<ASTNode> parameters = node.getParameters();
+    switch (token.getType()) {
+      case PREFIX_OPERATOR:
+        BooleanNode operand = compileBoolean(parameters.get(0));
+        return (bindings, budget) -> !operand.evaluate(bindings, budget);
+      case INFIX_OPERATOR:
+        return compileComparison(token, parameters);
+      default:
+        if (token.getFunctionDefinition().getClass() == NotFunction.class) {
+          BooleanNode parameter = compileBoolean(parameters.get(0));
+          return (bindings, budget) -> !parameter.evaluate(bindings, budget);
+        }
+        BooleanNode condition = compileBoolean(parameters.get(0));
+        BooleanNode whenTrue = compileBoolean(parameters.get(1));
+        BooleanNode whenFalse = compileBoolean(parameters.get(2));
+        return (bindings, budget) ->
+            condition.evaluate(bindings, budget)
+                ? whenTrue.evaluate(bindings, budget)
+                : whenFalse.evaluate(bindings, budget);
+    }
+  }
+
+  private BooleanNode compileComparison(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    ASTNode leftNode = parameters.get(0);
+    ASTNode rightNode = parameters.get(1);
+    if (operatorClass == InfixAndOperator.class || operatorClass == InfixOrOperator.class) {
+      BooleanNode left = compileBoolean(leftNode);
+      BooleanNode right = compileBoolean(rightNode);
+      if (operatorClass == InfixAndOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) && right.evaluate(bindings, budget);
+      }
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) || right.evaluate(bindings, budget);
+    }
+    boolean equality =
+        operatorClass == InfixEqualsOperator.class || operatorClass == InfixNotEqualsOperator.class;
+    if (equality
+        && (isUntypedVariable(leftNode) || isUntypedVariable(rightNode))
+        && !(isNumber(leftNode) || isNumber(rightNode))) {
+      // the type of the comparison is only known, if one of the operands is a number
+      throw UnsupportedNodeException.INSTANCE;
+    }
+    if (isBoolean(leftNode) && isBoolean(rightNode)) {
+      BooleanNode left = compileBoolean(leftNode);
+      BooleanNode right = compileBoolean(rightNode);
+      if (operatorClass == InfixEqualsOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) == right.evaluate(bindings, budget);
+      } else if (operatorClass == InfixNotEqualsOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) != right.evaluate(bindings, budget);
+      }
+      throw UnsupportedNodeException.INSTANCE;
+    }
+    NumberNode left = compileNumber(leftNode);
+    NumberNode right = compileNumber(rightNode);
+    if (operatorClass == InfixEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) == right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixNotEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) != right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixGreaterOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) > right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixGreaterEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) >= right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixLessOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) < right.evaluate(bindings, budget);
+    }
+    return (bindings, budget) ->
+        left.evaluate(bindings, budget) <= right.evaluate(bindings, budget);
+  }
+
+  /** Checks if the node evaluates to a boolean, all other supported nodes evaluate to numbers. */
+  private boolean isBoolean(ASTNode node) {
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      return foldedValue.isBooleanValue();
+    }
+    Token token = node.getToken();
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+        int slot = variableSlots.getSlot(token.getValue());
+        return slot >= 0 && variableSlots.getType(slot) == DataType.BOOLEAN;
+      case PREFIX_OPERATOR:
+        return token.getOperatorDefinition().getClass() == PrefixNotOperator.class;
+      case INFIX_OPERATOR:
+        return isBooleanOperator(token.getOperatorDefinition());
+      case FUNCTION:
+        Class<?> functionClass = token.getFunctionDefinition().getClass();
+        return functionClass == NotFunction.class
+            || (functionClass == IfFunction.class
+                && isBoolean(node.getParameters().get(1))
+                && isBoolean(node.getParameters().get(2)));
+      default:
+        return false;
+    }
+  }
+
+  private boolean isNumber(ASTNode node) {
+    return !isBoolean(node) && !isUntypedVariable(node);
+  }
+
+  private boolean isUntypedVariable(ASTNode node) {
+    Token token = node.getToken();
+    if (token.getType() != Token.TokenType.VARIABLE_OR_CONSTANT || foldedValues.containsKey(node)) {
+      return false;
+    }
+    int slot = variableSlots.getSlot(token.getValue());
+    return slot < 0 || variableSlots.getType(slot) == null;
+  }
+
+  static boolean isBooleanOperator(OperatorIfc operator) {
+    Class<?> operatorClass = operator.getClass();
+    return operatorClass == InfixAndOperator.class
+        || operatorClass == InfixOrOperator.class
+        || operatorClass == InfixEqualsOperator.class
+        || operatorClass == InfixNotEqualsOperator.class
+        || operatorClass == InfixGreaterOperator.class
+        || operatorClass == InfixGreaterEqualsOperator.class
+        || operatorClass == InfixLessOperator.class
+        || operatorClass == InfixLessEqualsOperator.class;
+  }
+
+  private static double readNumber(Bindings bindings, Token token, int slot)
+      throws EvaluationException {
+    EvaluationValue value = bindings.getData(slot);
+    if (value == null) {
+      throw new EvaluationException(
+          token, String.format("Variable or constant value for '%s' not found", token.getValue()));
+    }
+    if (!value.isNumberValue()) {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+    }
+    return value.getNumberValue().doubleValue();
+  }
+
+  private static boolean readBoolean(Bindings bindings, Token token, int slot)
+      throws EvaluationException {
+    EvaluationValue value = bindings.getData(slot);
+    if (value == null) {
+      throw new EvaluationException(
+          token, String.format("Variable or constant value for '%s' not found", token.getValue()));
+    }
+    Boolean booleanValue = value.getBooleanValue();
+    if (!value.isBooleanValue() || booleanValue == null) {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+    }
+    return booleanValue;
+  }
+
+  /** Signals a node that can not be evaluated with primitive values. */
+  private static final class UnsupportedNodeException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    static final UnsupportedNodeException INSTANCE = new UnsupportedNodeException();
+
+    private UnsupportedNodeException() {
+      super(null, null, false, false);
+    }
+  }
+}
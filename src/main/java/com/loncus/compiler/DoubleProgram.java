@@ -0,0 +1,93 @@
+package com.loncus.compiler;
+
+import com.loncus.Bindings;
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+import java.math.BigDecimal;
+
+/**
+ * An expression compiled for the {@link ExpressionConfiguration.NumericMode#DOUBLE} numeric mode,
+ * see {@link DoubleCompiler}. Numbers are primitive doubles and booleans are primitive booleans
+ * throughout the evaluation, variables are read from the {@link Bindings} without conversion, if
+ * they were bound as doubles. The result is converted into an {@link EvaluationValue} only by
+ * {@link #evaluate(Bindings, ExpressionConfiguration)}. The nodes are charged to the {@link
+ * EvaluationBudget} like the nodes of the other programs. A program is immutable and can be
+ * evaluated concurrently.
+ */
+public final class DoubleProgram {
+
+  /** A node that evaluates to a number. */
+  interface NumberNode {
+    double evaluate(Bindings bindings, EvaluationBudget budget) throws EvaluationException;
+  }
+
+  /** A node that evaluates to a boolean. */
+  interface BooleanNode {
+    boolean evaluate(Bindings bindings, EvaluationBudget budget) throws EvaluationException;
+  }
+
+  /** The configuration the program was compiled with, for the limits of the evaluation budget. */
+  private final ExpressionConfiguration configuration;
+
+  /** The token of the tree root, used for error reporting. */
+  private final Token token;
+
+  /** The root node, if the expression evaluates to a number, else <code>null</code>. */
+  private final NumberNode numberRoot;
+
+  /** The root node, if the expression evaluates to a boolean, else <code>null</code>. */
+  private final BooleanNode booleanRoot;
+
+  DoubleProgram(
+      ExpressionConfiguration configuration,
+      Token token,
+      NumberNode numberRoot,
+      BooleanNode booleanRoot) {
+    this.configuration = configuration;
+    this.token = token;
+    this.numberRoot = numberRoot;
+    this.booleanRoot = booleanRoot;
+  }
+
+  /**
+   * Evaluates the program and returns the result as primitive double. Boolean results are returned
+   * as <code>1</code> or <code>0</code>.
+   *
+   * @param bindings The variable values to use.
+   * @return The result.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  public double evaluateDouble(Bindings bindings) throws EvaluationException {
+    EvaluationBudget budget = EvaluationBudget.start(configuration, 1);
+    if (numberRoot != null) {
+      return numberRoot.evaluate(bindings, budget);
+    }
+    return booleanRoot.evaluate(bindings, budget) ? 1 : 0;
+  }
+
+  /**
+   * Evaluates the program and converts the result into an evaluation value.
+   *
+   * @param bindings The variable values to use.
+   * @param configuration The configuration, its math context is used to convert the result.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the expression, or the
+   *     result is infinite or not a number.
+   */
+  public EvaluationValue evaluate(Bindings bindings, ExpressionConfiguration configuration)
+      throws EvaluationException {
+    EvaluationBudget budget = EvaluationBudget.start(this.configuration, 1);
+    if (numberRoot == null) {
+      return EvaluationValue.booleanValue(booleanRoot.evaluate(bindings, budget));
+    }
+    double result = numberRoot.evaluate(bindings, budget);
+    if (Double.isNaN(result) || Double.isInfinite(result)) {
+      throw new EvaluationException(token, "Result is not a finite number: " + result);
+    }
+    return EvaluationValue.numberValue(
+        new BigDecimal(Double.toString(result), configuration.getMathContext()));
+  }
+}
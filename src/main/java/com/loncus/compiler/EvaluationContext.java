@@ -0,0 +1,123 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.SlotDataAccessorIfc;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The expression instance passed to operators and functions while a compiled program is evaluated.
+ * One context is created per evaluation, it shares the parsed tree, the data accessor and the
+ * constants with its creator.
+ *
+ * <p>Functions and operators with lazy parameters evaluate them through {@link
+ * #evaluateSubtree(ASTNode)}. If the node was compiled, the compiled node is evaluated instead of
+ * interpreting the tree. Without a program, the context interprets all nodes.
+ *
+ * <p>If the data accessor stores its values in the same {@link com.loncus.data.VariableSlots} the
+ * program was compiled with, variables are read by slot instead of by name.
+ *
+ * <p>The values of common subexpressions are kept in the context, so each of them is evaluated at
+ * most once per evaluation.
+ */
+public class EvaluationContext extends Expression {
+
+  private final ClosureProgram program;
+
+  /** The data accessor to read variables by slot, <code>null</code> if not possible. */
+  private final SlotDataAccessorIfc slotDataAccessor;
+
+  /** The values of the common subexpressions evaluated so far, by their index. */
+  private final EvaluationValue[] commonSubexpressionValues;
+
+  EvaluationContext(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants,
+      ClosureProgram program) {
+    super(expressionString, configuration, abstractSyntaxTree, dataAccessor, constants);
+    this.program = program;
+    this.slotDataAccessor =
+        program != null
+                && dataAccessor instanceof SlotDataAccessorIfc
+                && ((SlotDataAccessorIfc) dataAccessor).getVariableSlots()
+                    == program.getVariableSlots()
+            ? (SlotDataAccessorIfc) dataAccessor
+            : null;
+    this.commonSubexpressionValues =
+        program != null && program.getCommonSubexpressionCount() > 0
+            ? new EvaluationValue[program.getCommonSubexpressionCount()]
+            : null;
+  }
+
+  /**
+   * Looks up the value of a variable or constant, by slot if possible.
+   *
+   * @param token The variable or constant token.
+   * @param slot The variable slot, <code>-1</code> to look up the value by name.
+   * @return The value, never <code>null</code>.
+   * @throws EvaluationException If no value was found.
+   */
+  EvaluationValue getVariableOrConstant(Token token, int slot) throws EvaluationException {
+    if (slot < 0 || slotDataAccessor == null) {
+      return getVariableOrConstant(token);
+    }
+    EvaluationValue result = slotDataAccessor.getData(slot);
+    if (result == null) {
+      throw new EvaluationException(
+          token, String.format("Variable or constant value for '%s' not found", token.getValue()));
+    }
+    return result;
+  }
+
+  @Override
+  protected void startEvaluationBudget(int repetitions) {
+    // visible to the programs of this package, e.g. to budget all rows of a batch
+    super.startEvaluationBudget(repetitions);
+  }
+
+  @Override
+  protected void startUnchargedEvaluationBudget() {
+    // visible to the constant folder and the partial evaluator
+    super.startUnchargedEvaluationBudget();
+  }
+
+  @Override
+  protected EvaluationValue evaluateNode(ASTNode node, List<EvaluationValue> parameterValues)
+      throws EvaluationException {
+    // visible to the constant folder, which evaluates the nodes from their folded parameters
+    return super.evaluateNode(node, parameterValues);
+  }
+
+  @Override
+  public EvaluationValue evaluateSubtree(ASTNode startNode) throws EvaluationException {
+    EvaluatorNode node = program != null ? program.getCompiledNode(startNode) : null;
+    return node != null ? node.evaluate(this) : super.evaluateSubtree(startNode);
+  }
+
+  /**
+   * Evaluates a common subexpression, if it was not evaluated before in this context.
+   *
+   * @param index The index of the common subexpression.
+   * @param subtree The compiled subtree.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the subtree.
+   */
+  EvaluationValue evaluateCommonSubexpression(int index, EvaluatorNode subtree)
+      throws EvaluationException {
+    EvaluationValue value = commonSubexpressionValues[index];
+    if (value == null) {
+      value = subtree.evaluate(this);
+      commonSubexpressionValues[index] = value;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,30 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+import lombok.Getter;
+
+/**
+ * A node of a compiled expression. In contrast to an {@link com.loncus.parser.ASTNode}, all
+ * operator and function definitions, lazy parameter flags and child nodes are resolved when the
+ * node is created, so evaluation is a direct call on the node without any further dispatching.
+ */
+public abstract class EvaluatorNode {
+
+  /** The token this node was compiled from, used for error reporting. */
+  @Getter private final Token token;
+
+  protected EvaluatorNode(Token token) {
+    this.token = token;
+  }
+
+  /**
+   * Evaluates this node and all of its children.
+   *
+   * @param context The context of the current evaluation.
+   * @return The evaluation result value.
+   * @throws EvaluationException If there were problems while evaluating the node.
+   */
+  public abstract EvaluationValue evaluate(EvaluationContext context) throws EvaluationException;
+}
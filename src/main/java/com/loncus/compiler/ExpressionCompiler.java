@@ -0,0 +1,299 @@
+package com.loncus.compiler;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an abstract syntax tree into a {@link ClosureProgram}. Each tree node is translated into
+ * an {@link EvaluatorNode} that is specific for its token type, so the token type, operator and
+ * function definitions and lazy parameter flags are looked up only once. Constant subtrees are
+ * folded into a single node, see {@link ConstantFolder}, and variables are read by their slot.
+ * Structurally identical subtrees share a single compiled node, see {@link CommonSubexpressions}.
+ * Operators with operands of known types are specialized, see {@link InferredTypes}.
+ */
+public final class ExpressionCompiler {
+
+  /**
+   * The maximum depth of a tree that is compiled into a closure tree or bytecode. These compilers
+   * and their programs work recursively, deeper trees, like very long operator chains, are
+   * interpreted instead. Postfix programs have no depth limit.
+   */
+  static final int MAXIMUM_COMPILED_DEPTH = 1_000;
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final InferredTypes types;
+
+  private final CommonSubexpressions commonSubexpressions;
+
+  /** The compiled common subexpressions, by their index. */
+  private final EvaluatorNode[] commonSubexpressionNodes;
+
+  private final IdentityHashMap<ASTNode, EvaluatorNode> compiledNodes = new IdentityHashMap<>();
+
+  private ExpressionCompiler(
+      ASTNode abstractSyntaxTree,
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.types = types;
+    this.commonSubexpressions = CommonSubexpressions.find(abstractSyntaxTree, foldedValues);
+    this.commonSubexpressionNodes = new EvaluatorNode[commonSubexpressions.getCount()];
+  }
+
+  /**
+   * Creates the program for the evaluation mode of the configuration, without any known types. The
+   * constants are fixed at compile time, the program must not be evaluated with other constant
+   * values.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration, must not use the interpreter evaluation mode.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables, if the program is evaluated with a {@link
+   *     com.loncus.data.SlotDataAccessorIfc} for the same slots, variables are read by slot.
+   * @return The compiled program, an {@link InterpretedProgram} if the tree is too deep to be
+   *     compiled into a closure tree or bytecode.
+   */
+  public static CompiledProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    return compile(
+        abstractSyntaxTree, configuration, constants, variableSlots, InferredTypes.none());
+  }
+
+  /**
+   * Creates the program for the evaluation mode of the configuration. Operators with operands of
+   * known types are specialized, see {@link InferredTypes}. The constants are fixed at compile
+   * time, the program must not be evaluated with other constant values.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration, must not use the interpreter evaluation mode.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables, if the program is evaluated with a {@link
+   *     com.loncus.data.SlotDataAccessorIfc} for the same slots, variables are read by slot.
+   * @param types The inferred types of the tree nodes.
+   * @return The compiled program, an {@link InterpretedProgram} if the tree is too deep to be
+   *     compiled into a closure tree or bytecode.
+   */
+  public static CompiledProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    if (configuration.getEvaluationMode() == ExpressionConfiguration.EvaluationMode.STACK_MACHINE) {
+      return PostfixCompiler.compile(
+          abstractSyntaxTree, configuration, constants, variableSlots, types);
+    }
+    if (exceedsDepth(abstractSyntaxTree, MAXIMUM_COMPILED_DEPTH)) {
+      return new InterpretedProgram();
+    }
+    switch (configuration.getEvaluationMode()) {
+      case CLOSURE_TREE:
+        return compileClosureTree(
+            abstractSyntaxTree, configuration, constants, variableSlots, types);
+      case BYTECODE:
+        return new TieredProgram(
+            abstractSyntaxTree, configuration, constants, variableSlots, types);
+      default:
+        throw new IllegalArgumentException(
+            "Not a compiled evaluation mode: " + configuration.getEvaluationMode());
+    }
+  }
+
+  /**
+   * Compiles the abstract syntax tree for the {@link ExpressionConfiguration.NumericMode#DOUBLE}
+   * numeric mode, see {@link DoubleCompiler}.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @return The compiled program, or <code>null</code> if the tree can not be evaluated with
+   *     primitive values.
+   */
+  public static DoubleProgram compileDouble(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    return DoubleCompiler.compile(abstractSyntaxTree, configuration, constants, variableSlots);
+  }
+
+  /**
+   * Compiles the abstract syntax tree for the {@link
+   * ExpressionConfiguration.NumericMode#FIXED_POINT} numeric mode, see {@link FixedPointCompiler}.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @return The compiled program, or <code>null</code> if the tree can not be evaluated with fixed
+   *     point numbers.
+   * @throws IllegalArgumentException If the fixed point scale of the configuration is not between 0
+   *     and 18.
+   */
+  public static FixedPointProgram compileFixedPoint(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    return FixedPointCompiler.compile(abstractSyntaxTree, configuration, constants, variableSlots);
+  }
+
+  /**
+   * Creates the residual tree of a partial evaluation, see {@link PartialEvaluator}.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants, including the known variable values. The values of the folded
+   *     subtrees are added, so the map must be modifiable.
+   * @return The root node of the residual tree.
+   */
+  public static ASTNode specialize(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants) {
+    return PartialEvaluator.specialize(abstractSyntaxTree, configuration, constants);
+  }
+
+  /**
+   * Compiles the abstract syntax tree into a closure tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @param types The inferred types of the tree nodes.
+   * @return The compiled program.
+   */
+  static ClosureProgram compileClosureTree(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    ExpressionCompiler compiler =
+        new ExpressionCompiler(
+            abstractSyntaxTree,
+            ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+            variableSlots,
+            types);
+    EvaluatorNode root = compiler.compileNode(abstractSyntaxTree);
+    compiler.compiledNodes.put(abstractSyntaxTree, root);
+    return new ClosureProgram(
+        root, compiler.compiledNodes, variableSlots, compiler.commonSubexpressions.getCount());
+  }
+
+  static boolean exceedsDepth(ASTNode abstractSyntaxTree, int maximumDepth) {
+    Deque<ASTNode> nodes = new ArrayDeque<>();
+    Deque<Integer> depths = new ArrayDeque<>();
+    nodes.push(abstractSyntaxTree);
+    depths.push(1);
+    while (!nodes.isEmpty()) {
+      ASTNode node = nodes.pop();
+      int depth = depths.pop();
+      if (depth > maximumDepth) {
+        return true;
+      }
+      for (ASTNode parameter : node.getParameters()) {
+        nodes.push(parameter);
+        depths.push(depth + 1);
+      }
+    }
+    return false;
+  }
+
+  private EvaluatorNode compileNode(ASTNode node) {
+    Token token = node.getToken();
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      // all literals end up here
+      return new ConstantNode(token, foldedValue);
+    }
+    int index = commonSubexpressions.getIndex(node);
+    if (index < 0) {
+      return compileOperation(node);
+    }
+    if (commonSubexpressionNodes[index] == null) {
+      commonSubexpressionNodes[index] = new CommonSubexpressionNode(index, compileOperation(node));
+    }
+    return commonSubexpressionNodes[index];
+  }
+
+  private EvaluatorNode compileOperation(ASTNode node) {
+    Token token = node.getToken();
+    List<ASTNode> parameters = node.getParameters();
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+        return new VariableNode(token, variableSlots.getSlot(token.getValue()));
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+        return new UnaryOperatorNode(
+            token, types.getOperator(node), compileNode(parameters.get(0)));
+      case INFIX_OPERATOR:
+        if (token.getOperatorDefinition().isOperandLazy()) {
+          return new InfixOperatorNode(
+              token,
+              types.getOperator(node),
+              compileLazy(parameters.get(0)),
+              compileLazy(parameters.get(1)));
+        }
+        return new InfixOperatorNode(
+            token,
+            types.getOperator(node),
+            compileNode(parameters.get(0)),
+            compileNode(parameters.get(1)));
+      case ARRAY_INDEX:
+        return new ArrayIndexNode(
+            token, compileNode(parameters.get(0)), compileNode(parameters.get(1)));
+      case FUNCTION:
+        return compileFunction(node);
+      default:
+        return new UnexpectedTokenNode(token);
+    }
+  }
+
+  private EvaluatorNode compileFunction(ASTNode node) {
+    Token token = node.getToken();
+    FunctionIfc function = token.getFunctionDefinition();
+    int size = node.getParameters().size();
+    EvaluatorNode[] parameters = new EvaluatorNode[size];
+    EvaluationValue[] lazyValues = new EvaluationValue[size];
+    for (int i = 0; i < size; i++) {
+      ASTNode parameter = node.getParameters().get(i);
+      if (function.isParameterLazy(i)) {
+        lazyValues[i] = lazyValue(parameter);
+      } else {
+        parameters[i] = compileNode(parameter);
+      }
+    }
+    return new FunctionNode(token, parameters, lazyValues);
+  }
+
+  /** Compiles a lazy operand into a constant node, that passes the operand as expression node. */
+  private EvaluatorNode compileLazy(ASTNode operand) {
+    return new ConstantNode(operand.getToken(), lazyValue(operand));
+  }
+
+  private EvaluationValue lazyValue(ASTNode parameter) {
+    // the operator or function evaluates the parameter on demand, through the evaluation context
+    compiledNodes.put(parameter, compileNode(parameter));
+    return EvaluationValue.expressionNodeValue(parameter);
+  }
+}
@@ -0,0 +1,660 @@
+package com.loncus.compiler;
+
+import com.loncus.Bindings;
+import com.loncus.EvaluationBudget;
+import com.loncus.compiler.FixedPointProgram.BooleanNode;
+import com.loncus.compiler.FixedPointProgram.NotRepresentableException;
+import com.loncus.compiler.FixedPointProgram.NumberNode;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.basic.AbsFunction;
+import com.loncus.functions.basic.CeilingFunction;
+import com.loncus.functions.basic.FloorFunction;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.functions.basic.MaxFunction;
+import com.loncus.functions.basic.MinFunction;
+import com.loncus.functions.basic.NotFunction;
+import com.loncus.functions.basic.RoundFunction;
+import com.loncus.functions.basic.SumFunction;
+import com.loncus.operators.arithmetic.InfixDivisionOperator;
+import com.loncus.operators.arithmetic.InfixMinusOperator;
+import com.loncus.operators.arithmetic.InfixModuloOperator;
+import com.loncus.operators.arithmetic.InfixMultiplicationOperator;
+import com.loncus.operators.arithmetic.InfixPlusOperator;
+import com.loncus.operators.arithmetic.PrefixMinusOperator;
+import com.loncus.operators.arithmetic.PrefixPlusOperator;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixEqualsOperator;
+import com.loncus.operators.booleans.InfixGreaterEqualsOperator;
+import com.loncus.operators.booleans.InfixGreaterOperator;
+import com.loncus.operators.booleans.InfixLessOperator;
+import com.loncus.operators.booleans.InfixNotEqualsOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
+import com.loncus.operators.booleans.PrefixNotOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an abstract syntax tree into a {@link FixedPointProgram}, for the {@link
+ * ExpressionConfiguration.NumericMode#FIXED_POINT} numeric mode. Constant subtrees are folded, see
+ * {@link ConstantFolder}, and variables are read by their slot.
+ *
+ * <p>The built-in arithmetic operators except the power of operator, the built-in boolean operators
+ * and the built-in <code>IF</code>, <code>NOT</code>, <code>ABS</code>, <code>MIN</code>, <code>MAX
+ * </code>, <code>SUM</code>, <code>ROUND</code>, <code>FLOOR</code> and <code>CEILING
+ * </code> functions are supported, as long as their operands are numbers or booleans. Like in
+ * {@link DoubleCompiler}, operators and functions are recognized by their exact class. Trees with
+ * other nodes, or with literals that have more decimal places than the scale, are not compiled.
+ *
+ * <p>The program calculates the same values as the big decimal operators, as long as they are
+ * exact. Their results have at most 19 digits, so the math context must not round them, and each
+ * node is rounded to the decimal places of the configuration like with the {@link
+ * ExpressionConfiguration.RoundingPolicy#EACH_NODE} policy. The program does not strip trailing
+ * zeros, so it is only compiled if the result is stripped or rounded to a fixed number of decimal
+ * places afterwards.
+ */
+final class FixedPointCompiler {
+
+  /** The largest scale, <code>10^18</code> is the largest power of ten of type long. */
+  static final int MAXIMUM_SCALE = 18;
+
+  /** The smallest math context precision, that calculates all long values exactly. */
+  private static final int MINIMUM_PRECISION = 19;
+
+  private static final long[] POWERS_OF_TEN = new long[MAXIMUM_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final int scale;
+
+  /** The unscaled value of <code>1</code>. */
+  private final long one;
+
+  private final RoundingMode roundingMode;
+
+  /**
+   * The unit each node value is rounded to, or <code>0</code> if the decimal places of the
+   * configuration do not round numbers with the scale.
+   */
+  private final long nodeRoundingUnit;
+
+  /** Whether the evaluated nodes are charged to the evaluation budget. */
+  private final boolean charged;
+
+  private FixedPointCompiler(
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      ExpressionConfiguration configuration,
+      long nodeRoundingUnit) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.scale = configuration.getFixedPointScale();
+    this.one = POWERS_OF_TEN[scale];
+    this.roundingMode = configuration.getMathContext().getRoundingMode();
+    this.nodeRoundingUnit = nodeRoundingUnit;
+    this.charged = EvaluationBudget.isChargedPerNode(configuration);
+  }
+
+  /**
+   * Compiles the abstract syntax tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @return The compiled program, or <code>null</code> if the tree can not be evaluated with fixed
+   *     point numbers.
+   * @throws IllegalArgumentException If the fixed point scale of the configuration is not between 0
+   *     and 18.
+   */
+  static FixedPointProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots) {
+    int scale = configuration.getFixedPointScale();
+    if (scale < 0 || scale > MAXIMUM_SCALE) {
+      throw new IllegalArgumentException(
+          String.format("Fixed point scale must be between 0 and %d: %d", MAXIMUM_SCALE, scale));
+    }
+    int precision = configuration.getMathContext().getPrecision();
+    int decimalPlaces = configuration.getDecimalPlacesRounding();
+    boolean rounding = decimalPlaces != ExpressionConfiguration.DECIMAL_PLACES_ROUNDING_UNLIMITED;
+    if ((precision != 0 && precision < MINIMUM_PRECISION)
+        || configuration.getRoundingPolicy() == ExpressionConfiguration.RoundingPolicy.NEVER
+        || (!rounding && !configuration.isStripTrailingZeros())
+        || ExpressionCompiler.exceedsDepth(
+            abstractSyntaxTree, ExpressionCompiler.MAXIMUM_COMPILED_DEPTH)) {
+      return null;
+    }
+    long nodeRoundingUnit = 0;
+    if (rounding
+        && decimalPlaces < scale
+        && configuration.getRoundingPolicy() == ExpressionConfiguration.RoundingPolicy.EACH_NODE) {
+      if (scale - decimalPlaces > MAXIMUM_SCALE) {
+        return null;
+      }
+      nodeRoundingUnit = POWERS_OF_TEN[scale - decimalPlaces];
+    }
+
+    FixedPointCompiler compiler =
+        new FixedPointCompiler(
+            ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+            variableSlots,
+            configuration,
+            nodeRoundingUnit);
+    try {
+      if (compiler.isBoolean(abstractSyntaxTree)) {
+        return new FixedPointProgram(
+            configuration, scale, null, compiler.compileBoolean(abstractSyntaxTree));
+      }
+      return new FixedPointProgram(
+          configuration, scale, compiler.compileNumber(abstractSyntaxTree), null);
+    } catch (UnsupportedNodeException e) {
+      return null;
+    }
+  }
+
+  private NumberNode compileNumber(ASTNode node) throws UnsupportedNodeException {
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      if (!foldedValue.isNumberValue()) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      long constant;
+      try {
+        constant = toUnscaled(foldedValue.getNumberValue(), scale);
+      } catch (NotRepresentableException e) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      return (bindings, budget) -> constant;
+    }
+    NumberNode number = compileNumberNode(node);
+    NumberNode rounded =
+        nodeRoundingUnit == 0
+            ? number
+            : (bindings, budget) ->
+                round(number.evaluate(bindings, budget), nodeRoundingUnit, roundingMode);
+    if (!charged) {
+      return rounded;
+    }
+    Token token = node.getToken();
+    return (bindings, budget) -> {
+      long value = rounded.evaluate(bindings, budget);
+      budget.chargeNode(token);
+      return value;
+    };
+  }
+
+  private NumberNode compileNumberNode(ASTNode node) throws UnsupportedNodeException {
+    Token token = node.getToken();
+    List<ASTNode> parameters = node.getParameters();
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+        int slot = variableSlots.getSlot(token.getValue());
+        if (slot < 0) {
+          throw UnsupportedNodeException.INSTANCE;
+        }
+        DataType type = variableSlots.getType(slot);
+        if (type != null && type != DataType.NUMBER) {
+          throw UnsupportedNodeException.INSTANCE;
+        }
+        return (bindings, budget) -> readNumber(bindings, slot, scale);
+      case PREFIX_OPERATOR:
+        Class<?> prefixClass = token.getOperatorDefinition().getClass();
+        NumberNode operand = compileNumber(parameters.get(0));
+        if (prefixClass == PrefixMinusOperator.class) {
+          return (bindings, budget) -> negate(operand.evaluate(bindings, budget));
+        } else if (prefixClass == PrefixPlusOperator.class) {
+          return operand;
+        }
+        throw UnsupportedNodeException.INSTANCE;
+      case INFIX_OPERATOR:
+        return compileArithmetic(token, parameters);
+      case FUNCTION:
+        return compileFunction(token, parameters);
+      default:
+        throw UnsupportedNodeException.INSTANCE;
+    }
+  }
+
+  private NumberNode compileArithmetic(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    NumberNode left = compileNumber(parameters.get(0));
+    NumberNode right = compileNumber(parameters.get(1));
+    if (operatorClass == InfixPlusOperator.class) {
+      return (bindings, budget) ->
+          add(left.evaluate(bindings, budget), right.evaluate(bindings, budget));
+    } else if (operatorClass == InfixMinusOperator.class) {
+      return (bindings, budget) ->
+          subtract(left.evaluate(bindings, budget), right.evaluate(bindings, budget));
+    } else if (operatorClass == InfixMultiplicationOperator.class) {
+      return (bindings, budget) ->
+          multiply(left.evaluate(bindings, budget), right.evaluate(bindings, budget), one);
+    } else if (operatorClass == InfixDivisionOperator.class) {
+      return (bindings, budget) ->
+          divide(left.evaluate(bindings, budget), right.evaluate(bindings, budget), one);
+    } else if (operatorClass == InfixModuloOperator.class) {
+      return (bindings, budget) -> {
+        long dividend = left.evaluate(bindings, budget);
+        long divisor = right.evaluate(bindings, budget);
+        if (divisor == 0) {
+          // the big decimal operators report zeros with different scales differently
+          throw NotRepresentableException.INSTANCE;
+        }
+        return dividend % divisor;
+      };
+    }
+    throw UnsupportedNodeException.INSTANCE;
+  }
+
+  private NumberNode compileFunction(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    Class<?> functionClass = token.getFunctionDefinition().getClass();
+    if (functionClass == IfFunction.class) {
+      BooleanNode condition = compileBoolean(parameters.get(0));
+      NumberNode whenTrue = compileNumber(parameters.get(1));
+      NumberNode whenFalse = compileNumber(parameters.get(2));
+      return (bindings, budget) ->
+          condition.evaluate(bindings, budget)
+              ? whenTrue.evaluate(bindings, budget)
+              : whenFalse.evaluate(bindings, budget);
+    }
+    NumberNode[] parameterNodes = new NumberNode[parameters.size()];
+    for (int i = 0; i < parameterNodes.length; i++) {
+      parameterNodes[i] = compileNumber(parameters.get(i));
+    }
+    if (functionClass == AbsFunction.class) {
+      NumberNode value = parameterNodes[0];
+      return (bindings, budget) -> {
+        long number = value.evaluate(bindings, budget);
+        return number < 0 ? negate(number) : number;
+      };
+    } else if (functionClass == FloorFunction.class) {
+      NumberNode value = parameterNodes[0];
+      return (bindings, budget) -> round(value.evaluate(bindings, budget), one, RoundingMode.FLOOR);
+    } else if (functionClass == CeilingFunction.class) {
+      NumberNode value = parameterNodes[0];
+      return (bindings, budget) ->
+          round(value.evaluate(bindings, budget), one, RoundingMode.CEILING);
+    } else if (functionClass == RoundFunction.class) {
+      NumberNode value = parameterNodes[0];
+      NumberNode decimalPlaces = parameterNodes[1];
+      return (bindings, budget) -> {
+        long number = value.evaluate(bindings, budget);
+        // like BigDecimal.intValue(), the fraction is discarded
+        long places = decimalPlaces.evaluate(bindings, budget) / one;
+        if (places >= scale && places <= Integer.MAX_VALUE) {
+          return number;
+        }
+        if (places < scale - MAXIMUM_SCALE || places > Integer.MAX_VALUE) {
+          throw NotRepresentableException.INSTANCE;
+        }
+        return round(number, POWERS_OF_TEN[(int) (scale - places)], roundingMode);
+      };
+    } else if (functionClass == MinFunction.class || functionClass == MaxFunction.class) {
+      int sign = functionClass == MinFunction.class ? -1 : 1;
+      return (bindings, budget) -> {
+        long result = parameterNodes[0].evaluate(bindings, budget);
+        for (int i = 1; i < parameterNodes.length; i++) {
+          long number = parameterNodes[i].evaluate(bindings, budget);
+          if (Long.compare(number, result) == sign) {
+            result = number;
+          }
+        }
+        return result;
+      };
+    } else if (functionClass == SumFunction.class) {
+      return (bindings, budget) -> {
+        long sum = 0;
+        for (NumberNode parameterNode : parameterNodes) {
+          sum = add(sum, parameterNode.evaluate(bindings, budget));
+        }
+        return sum;
+      };
+    }
+    throw UnsupportedNodeException.INSTANCE;
+  }
+
+  private BooleanNode compileBoolean(ASTNode node) throws UnsupportedNodeException {
+    BooleanNode bool = compileUnchargedBoolean(node);
+    // numbers converted to booleans are charged by compileNumber()
+    if (!charged
+        || foldedValues.containsKey(node)
+        || (node.getToken().getType() != Token.TokenType.VARIABLE_OR_CONSTANT
+            && !isBoolean(node))) {
+      return bool;
+    }
+    Token token = node.getToken();
+    return (bindings, budget) -> {
+      boolean value = bool.evaluate(bindings, budget);
+      budget.chargeNode(token);
+      return value;
+    };
+  }
+
+  private BooleanNode compileUnchargedBoolean(ASTNode node) throws UnsupportedNodeException {
+    Token token = node.getToken();
+    if (token.getType() == Token.TokenType.VARIABLE_OR_CONSTANT
+        && !foldedValues.containsKey(node)) {
+      int slot = variableSlots.getSlot(token.getValue());
+      if (slot < 0) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      DataType type = variableSlots.getType(slot);
+      if (type != null && type != DataType.BOOLEAN) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      return (bindings, budget) -> readBoolean(bindings, slot);
+    }
+    if (!isBoolean(node)) {
+      // numbers are true, if they are not zero
+      NumberNode number = compileNumber(node);
+      return (bindings, budget) -> number.evaluate(bindings, budget) != 0;
+    }
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      Boolean value = foldedValue.getBooleanValue();
+      if (value == null) {
+        throw UnsupportedNodeException.INSTANCE;
+      }
+      boolean constant = value;
+      return (bindings, budget) -> constant;
+    }
+    List<ASTNode> parameters = node.getParameters();
+    switch (token.getType()) {
+      case PREFIX_OPERATOR:
+        BooleanNode operand = compileBoolean(parameters.get(0));
+        return (bindings, budget) -> !operand.evaluate(bindings, budget);
+      case INFIX_OPERATOR:
+        return compileComparison(token, parameters);
+      default:
+        if (token.getFunctionDefinition().getClass() == NotFunction.class) {
+          BooleanNode parameter = compileBoolean(parameters.get(0));
+          return (bindings, budget) -> !parameter.evaluate(bindings, budget);
+        }
+        BooleanNode condition = compileBoolean(parameters.get(0));
+        BooleanNode whenTrue = compileBoolean(parameters.get(1));
+        BooleanNode whenFalse = compileBoolean(parameters.get(2));
+        return (bindings, budget) ->
+            condition.evaluate(bindings, budget)
+                ? whenTrue.evaluate(bindings, budget)
+                : whenFalse.evaluate(bindings, budget);
+    }
+  }
+
+  private BooleanNode compileComparison(Token token, List<ASTNode> parameters)
+      throws UnsupportedNodeException {
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    ASTNode leftNode = parameters.get(0);
+    ASTNode rightNode = parameters.get(1);
+    if (operatorClass == InfixAndOperator.class || operatorClass == InfixOrOperator.class) {
+      BooleanNode left = compileBoolean(leftNode);
+      BooleanNode right = compileBoolean(rightNode);
+      if (operatorClass == InfixAndOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) && right.evaluate(bindings, budget);
+      }
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) || right.evaluate(bindings, budget);
+    }
+    boolean equality =
+        operatorClass == InfixEqualsOperator.class || operatorClass == InfixNotEqualsOperator.class;
+    if (equality
+        && (isUntypedVariable(leftNode) || isUntypedVariable(rightNode))
+        && !(isNumber(leftNode) || isNumber(rightNode))) {
+      // the type of the comparison is only known, if one of the operands is a number
+      throw UnsupportedNodeException.INSTANCE;
+    }
+    if (isBoolean(leftNode) && isBoolean(rightNode)) {
+      BooleanNode left = compileBoolean(leftNode);
+      BooleanNode right = compileBoolean(rightNode);
+      if (operatorClass == InfixEqualsOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) == right.evaluate(bindings, budget);
+      } else if (operatorClass == InfixNotEqualsOperator.class) {
+        return (bindings, budget) ->
+            left.evaluate(bindings, budget) != right.evaluate(bindings, budget);
+      }
+      throw UnsupportedNodeException.INSTANCE;
+    }
+    NumberNode left = compileNumber(leftNode);
+    NumberNode right = compileNumber(rightNode);
+    if (operatorClass == InfixEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) == right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixNotEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) != right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixGreaterOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) > right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixGreaterEqualsOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) >= right.evaluate(bindings, budget);
+    } else if (operatorClass == InfixLessOperator.class) {
+      return (bindings, budget) ->
+          left.evaluate(bindings, budget) < right.evaluate(bindings, budget);
+    }
+    return (bindings, budget) ->
+        left.evaluate(bindings, budget) <= right.evaluate(bindings, budget);
+  }
+
+  /** Checks if the node evaluates to a boolean, all other supported nodes evaluate to numbers. */
+  private boolean isBoolean(ASTNode node) {
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      return foldedValue.isBooleanValue();
+    }
+    Token token = node.getToken();
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+        int slot = variableSlots.getSlot(token.getValue());
+        return slot >= 0 && variableSlots.getType(slot) == DataType.BOOLEAN;
+      case PREFIX_OPERATOR:
+        return token.getOperatorDefinition().getClass() == PrefixNotOperator.class;
+      case INFIX_OPERATOR:
+        return DoubleCompiler.isBooleanOperator(token.getOperatorDefinition());
+      case FUNCTION:
+        Class<?> functionClass = token.getFunctionDefinition().getClass();
+        return functionClass == NotFunction.class
+            || (functionClass == IfFunction.class
+                && isBoolean(node.getParameters().get(1))
+                && isBoolean(node.getParameters().get(2)));
+      default:
+        return false;
+    }
+  }
+
+  private boolean isNumber(ASTNode node) {
+    return !isBoolean(node) && !isUntypedVariable(node);
+  }
+
+  private boolean isUntypedVariable(ASTNode node) {
+    Token token = node.getToken();
+    if (token.getType() != Token.TokenType.VARIABLE_OR_CONSTANT || foldedValues.containsKey(node)) {
+      return false;
+    }
+    int slot = variableSlots.getSlot(token.getValue());
+    return slot < 0 || variableSlots.getType(slot) == null;
+  }
+
+  /**
+   * Reads a number variable. Missing values and values of other types are not represented, so that
+   * the evaluation with big decimals reports them, or converts them like the operators do.
+   */
+  private static long readNumber(Bindings bindings, int slot, int scale)
+      throws NotRepresentableException {
+    EvaluationValue value = bindings.getData(slot);
+    if (value == null || !value.isNumberValue()) {
+      throw NotRepresentableException.INSTANCE;
+    }
+    return toUnscaled(value.getNumberValue(), scale);
+  }
+
+  private static boolean readBoolean(Bindings bindings, int slot) throws NotRepresentableException {
+    EvaluationValue value = bindings.getData(slot);
+    if (value == null || !value.isBooleanValue() || value.getBooleanValue() == null) {
+      throw NotRepresentableException.INSTANCE;
+    }
+    return value.getBooleanValue();
+  }
+
+  static long toUnscaled(BigDecimal number, int scale) throws NotRepresentableException {
+    try {
+      return number.scaleByPowerOfTen(scale).longValueExact();
+    } catch (ArithmeticException e) {
+      throw NotRepresentableException.INSTANCE;
+    }
+  }
+
+  static long negate(long value) throws NotRepresentableException {
+    if (value == Long.MIN_VALUE) {
+      throw NotRepresentableException.INSTANCE;
+    }
+    return -value;
+  }
+
+  static long add(long left, long right) throws NotRepresentableException {
+    long sum = left + right;
+    // the sum overflowed, if both operands have a different sign than the sum
+    if (((left ^ sum) & (right ^ sum)) < 0) {
+      throw NotRepresentableException.INSTANCE;
+    }
+    return sum;
+  }
+
+  static long subtract(long left, long right) throws NotRepresentableException {
+    long difference = left - right;
+    if (((left ^ right) & (left ^ difference)) < 0) {
+      throw NotRepresentableException.INSTANCE;
+    }
+    return difference;
+  }
+
+  /**
+   * Multiplies two unscaled values. The product of the unscaled values has the double scale and may
+   * overflow, even if the result does not. So the operands are split into their integer and
+   * fractional parts <code>l = li * one + lf</code> and <code>r = ri * one + rf</code>, and the
+   * result is calculated as <code>l * ri + li * rf + lf * rf / one</code>. For scales up to 9, the
+   * product of the fractional parts can not overflow.
+   */
+  static long multiply(long left, long right, long one) throws NotRepresentableException {
+    try {
+      if (one > 1_000_000_000L) {
+        long product = Math.multiplyExact(left, right);
+        if (product % one != 0) {
+          throw NotRepresentableException.INSTANCE;
+        }
+        return product / one;
+      }
+      long fractionProduct = (left % one) * (right % one);
+      if (fractionProduct % one != 0) {
+        throw NotRepresentableException.INSTANCE;
+      }
+      return add(
+          add(Math.multiplyExact(left, right / one), Math.multiplyExact(left / one, right % one)),
+          fractionProduct / one);
+    } catch (ArithmeticException e) {
+      throw NotRepresentableException.INSTANCE;
+    }
+  }
+
+  /**
+   * Divides two unscaled values, digit by digit like in a long division, so that the dividend does
+   * not need to be scaled. Only exact quotients are represented.
+   */
+  static long divide(long dividend, long divisor, long one) throws NotRepresentableException {
+    if (divisor == 0 || (dividend == Long.MIN_VALUE && divisor == -1)) {
+      // the big decimal operators report zeros with different scales differently
+      throw NotRepresentableException.INSTANCE;
+    }
+    try {
+      long quotient = Math.multiplyExact(dividend / divisor, one);
+      long remainder = dividend % divisor;
+      for (long unit = one / 10; unit > 0 && remainder != 0; unit /= 10) {
+        remainder = Math.multiplyExact(remainder, 10);
+        quotient = add(quotient, remainder / divisor * unit);
+        remainder %= divisor;
+      }
+      if (remainder != 0) {
+        throw NotRepresentableException.INSTANCE;
+      }
+      return quotient;
+    } catch (ArithmeticException e) {
+      throw NotRepresentableException.INSTANCE;
+    }
+  }
+
+  /**
+   * Rounds an unscaled value to a multiple of a unit, like {@link BigDecimal#setScale(int,
+   * RoundingMode)} with less decimal places.
+   */
+  static long round(long value, long unit, RoundingMode roundingMode)
+      throws NotRepresentableException {
+    long remainder = value % unit;
+    if (remainder == 0) {
+      return value;
+    }
+    long truncated = value - remainder;
+    int sign = value < 0 ? -1 : 1;
+    // compare the discarded fraction with the half unit, without overflow
+    int half = Long.compare(Math.abs(remainder), unit - Math.abs(remainder));
+    boolean increment;
+    switch (roundingMode) {
+      case UP:
+        increment = true;
+        break;
+      case DOWN:
+        increment = false;
+        break;
+      case CEILING:
+        increment = sign > 0;
+        break;
+      case FLOOR:
+        increment = sign < 0;
+        break;
+      case HALF_UP:
+        increment = half >= 0;
+        break;
+      case HALF_DOWN:
+        increment = half > 0;
+        break;
+      case HALF_EVEN:
+        increment = half > 0 || (half == 0 && (truncated / unit) % 2 != 0);
+        break;
+      default:
+        // the big decimal operators report the necessary rounding
+        throw NotRepresentableException.INSTANCE;
+    }
+    return increment ? add(truncated, sign * unit) : truncated;
+  }
+
+  /** Signals a node that can not be evaluated with fixed point numbers. */
+  private static final class UnsupportedNodeException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    static final UnsupportedNodeException INSTANCE = new UnsupportedNodeException();
+
+    private UnsupportedNodeException() {
+      super(null, null, false, false);
+    }
+  }
+}
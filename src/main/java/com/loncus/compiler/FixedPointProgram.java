@@ -0,0 +1,87 @@
+package com.loncus.compiler;
+
+import com.loncus.Bindings;
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+
+/**
+ * An expression compiled for the {@link ExpressionConfiguration.NumericMode#FIXED_POINT} numeric
+ * mode, see {@link FixedPointCompiler}. Numbers are primitive longs throughout the evaluation, the
+ * unscaled values of decimals with the fixed point scale. The arithmetic is exact: if the result of
+ * an operation can not be represented exactly, the evaluation stops and {@link #evaluate(Bindings)}
+ * returns <code>null</code>, so that the expression can be evaluated with big decimals instead. The
+ * nodes are charged to the {@link EvaluationBudget} like the nodes of the other programs. A program
+ * is immutable and can be evaluated concurrently.
+ */
+public final class FixedPointProgram {
+
+  /** A node that evaluates to the unscaled value of a number. */
+  interface NumberNode {
+    long evaluate(Bindings bindings, EvaluationBudget budget)
+        throws EvaluationException, NotRepresentableException;
+  }
+
+  /** A node that evaluates to a boolean. */
+  interface BooleanNode {
+    boolean evaluate(Bindings bindings, EvaluationBudget budget)
+        throws EvaluationException, NotRepresentableException;
+  }
+
+  private final ExpressionConfiguration configuration;
+
+  private final int scale;
+
+  /** The root node, if the expression evaluates to a number, else <code>null</code>. */
+  private final NumberNode numberRoot;
+
+  /** The root node, if the expression evaluates to a boolean, else <code>null</code>. */
+  private final BooleanNode booleanRoot;
+
+  FixedPointProgram(
+      ExpressionConfiguration configuration,
+      int scale,
+      NumberNode numberRoot,
+      BooleanNode booleanRoot) {
+    this.configuration = configuration;
+    this.scale = scale;
+    this.numberRoot = numberRoot;
+    this.booleanRoot = booleanRoot;
+  }
+
+  /**
+   * Evaluates the program and converts the result into an evaluation value. The result is neither
+   * rounded nor are trailing zeros stripped.
+   *
+   * @param bindings The variable values to use.
+   * @return The evaluation result value, or <code>null</code> if an intermediate result or a
+   *     variable value can not be represented as fixed point number.
+   * @throws EvaluationException If there were problems while evaluating the expression.
+   */
+  public EvaluationValue evaluate(Bindings bindings) throws EvaluationException {
+    EvaluationBudget budget = EvaluationBudget.start(configuration, 1);
+    try {
+      if (numberRoot == null) {
+        return EvaluationValue.booleanValue(booleanRoot.evaluate(bindings, budget));
+      }
+      return EvaluationValue.numberValue(
+          BigDecimal.valueOf(numberRoot.evaluate(bindings, budget), scale));
+    } catch (NotRepresentableException e) {
+      return null;
+    }
+  }
+
+  /** Signals a value that can not be represented as fixed point number. */
+  static final class NotRepresentableException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    static final NotRepresentableException INSTANCE = new NotRepresentableException();
+
+    private NotRepresentableException() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.parser.Token;
+
+/**
+ * A function call. Lazy parameters are passed as pre-built expression node values, all other
+ * parameters are evaluated before the function is called.
+ */
+final class FunctionNode extends EvaluatorNode {
+
+  private final FunctionIfc function;
+
+  /** The compiled parameters, <code>null</code> at the index of a lazy parameter. */
+  private final EvaluatorNode[] parameters;
+
+  /** The values passed for lazy parameters, <code>null</code> at the index of other parameters. */
+  private final EvaluationValue[] lazyValues;
+
+  FunctionNode(Token token, EvaluatorNode[] parameters, EvaluationValue[] lazyValues) {
+    super(token);
+    this.function = token.getFunctionDefinition();
+    this.parameters = parameters;
+    this.lazyValues = lazyValues;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    EvaluationValue[] parameterValues = new EvaluationValue[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      parameterValues[i] = lazyValues[i] != null ? lazyValues[i] : parameters[i].evaluate(context);
+    }
+
+    function.validatePreEvaluation(getToken(), parameterValues);
+
+    return context.completeNodeEvaluation(
+        getToken(), function.evaluate(context, getToken(), parameterValues));
+  }
+}
@@ -0,0 +1,161 @@
+package com.loncus.compiler;
+
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.data.VariableSlots;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The data types of the nodes of an abstract syntax tree, as far as they are known before
+ * evaluation, and the operators specialized for them. Literals and constants have the type of their
+ * value, variables their declared type, see {@link VariableSlots}, functions their declared return
+ * type and operators infer their result type from the operand types, see {@link
+ * OperatorIfc#inferResultType(Token, DataType...)}. Compiled programs call the specialized
+ * operators, the generic operators are called where the operand types are unknown.
+ */
+public final class InferredTypes {
+
+  private static final InferredTypes NONE = new InferredTypes();
+
+  private final Map<ASTNode, DataType> types = new IdentityHashMap<>();
+
+  private final Map<ASTNode, OperatorIfc> specializedOperators = new IdentityHashMap<>();
+
+  private InferredTypes() {}
+
+  /**
+   * Returns types where all types are unknown, so that only generic operators are called.
+   *
+   * @return The empty types.
+   */
+  public static InferredTypes none() {
+    return NONE;
+  }
+
+  /**
+   * Infers the types of the tree nodes. The tree is walked iteratively, parameters before their
+   * parent node.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables, with their declared types.
+   * @return The inferred types.
+   * @throws ParseException If an operator or array index is applied to operands of unsupported
+   *     types.
+   */
+  public static InferredTypes infer(
+      ASTNode abstractSyntaxTree,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots)
+      throws ParseException {
+    List<ASTNode> nodes = new ArrayList<>();
+    Deque<ASTNode> pending = new ArrayDeque<>();
+    pending.push(abstractSyntaxTree);
+    while (!pending.isEmpty()) {
+      ASTNode node = pending.pop();
+      nodes.add(node);
+      for (ASTNode parameter : node.getParameters()) {
+        pending.push(parameter);
+      }
+    }
+    InferredTypes inferredTypes = new InferredTypes();
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      inferredTypes.inferNode(nodes.get(i), constants, variableSlots);
+    }
+    return inferredTypes;
+  }
+
+  /**
+   * Returns the type of a node.
+   *
+   * @param node The tree node.
+   * @return The type, or <code>null</code> if it is not known before evaluation.
+   */
+  public DataType getType(ASTNode node) {
+    return types.get(node);
+  }
+
+  /**
+   * Returns the operator to call for an operator node.
+   *
+   * @param node The operator node.
+   * @return The operator specialized for the operand types, or the operator of the node token.
+   */
+  OperatorIfc getOperator(ASTNode node) {
+    OperatorIfc operator = specializedOperators.get(node);
+    return operator != null ? operator : node.getToken().getOperatorDefinition();
+  }
+
+  private void inferNode(
+      ASTNode node, Map<String, EvaluationValue> constants, VariableSlots variableSlots)
+      throws ParseException {
+    Token token = node.getToken();
+    switch (token.getType()) {
+      case NUMBER_LITERAL:
+        setType(node, DataType.NUMBER);
+        break;
+      case STRING_LITERAL:
+        setType(node, DataType.STRING);
+        break;
+      case VARIABLE_OR_CONSTANT:
+        EvaluationValue constant = constants.get(token.getValue());
+        int slot = variableSlots.getSlot(token.getValue());
+        DataType valueType = null;
+        if (constant != null) {
+          valueType = constant.getDataType();
+        } else if (slot >= 0) {
+          valueType = variableSlots.getType(slot);
+        }
+        // expression node values are evaluated, the type of their result is unknown
+        setType(node, valueType == DataType.EXPRESSION_NODE ? null : valueType);
+        break;
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+      case INFIX_OPERATOR:
+        inferOperator(node);
+        break;
+      case FUNCTION:
+        setType(node, token.getFunctionDefinition().getReturnType());
+        break;
+      case ARRAY_INDEX:
+        DataType arrayType = getType(node.getParameters().get(0));
+        DataType indexType = getType(node.getParameters().get(1));
+        if ((arrayType != null && arrayType != DataType.ARRAY)
+            || (indexType != null && indexType != DataType.NUMBER)) {
+          throw ParseException.ofUnsupportedDataTypeInOperation(token);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void inferOperator(ASTNode node) throws ParseException {
+    Token token = node.getToken();
+    OperatorIfc operator = token.getOperatorDefinition();
+    DataType[] operandTypes = new DataType[node.getParameters().size()];
+    for (int i = 0; i < operandTypes.length; i++) {
+      operandTypes[i] = getType(node.getParameters().get(i));
+    }
+    setType(node, operator.inferResultType(token, operandTypes));
+    OperatorIfc specialized = operator.specialize(operandTypes);
+    if (specialized != operator) {
+      specializedOperators.put(node, specialized);
+    }
+  }
+
+  private void setType(ASTNode node, DataType type) {
+    if (type != null) {
+      types.put(node, type);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.Token;
+
+/** An infix operator with its left and right operand. */
+final class InfixOperatorNode extends EvaluatorNode {
+
+  private final OperatorIfc operator;
+
+  private final EvaluatorNode left;
+
+  private final EvaluatorNode right;
+
+  InfixOperatorNode(Token token, OperatorIfc operator, EvaluatorNode left, EvaluatorNode right) {
+    super(token);
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    return context.completeNodeEvaluation(
+        getToken(),
+        operator.evaluate(context, getToken(), left.evaluate(context), right.evaluate(context)));
+  }
+}
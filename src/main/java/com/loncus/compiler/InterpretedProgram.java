@@ -0,0 +1,29 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.ASTNode;
+import java.util.Map;
+
+/**
+ * A program for trees that are too deep to be compiled, see {@link
+ * ExpressionCompiler#MAXIMUM_COMPILED_DEPTH}. The tree is interpreted on each evaluation, like in
+ * the {@link ExpressionConfiguration.EvaluationMode#INTERPRETER} mode.
+ */
+final class InterpretedProgram implements CompiledProgram {
+
+  @Override
+  public EvaluationValue evaluate(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants)
+      throws EvaluationException {
+    return new EvaluationContext(
+            expressionString, configuration, abstractSyntaxTree, dataAccessor, constants, null)
+        .evaluateSubtree(abstractSyntaxTree);
+  }
+}
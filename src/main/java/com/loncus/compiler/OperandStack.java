@@ -0,0 +1,43 @@
+package com.loncus.compiler;
+
+import com.loncus.data.EvaluationValue;
+import java.util.Arrays;
+
+/**
+ * The operand stack of the {@link PostfixNode}s evaluated on one thread. The stack is reused for
+ * all evaluations on the thread, nested evaluations, like of lazy function parameters, continue on
+ * top of the values of the outer evaluation.
+ */
+final class OperandStack {
+
+  private static final ThreadLocal<OperandStack> STACKS =
+      ThreadLocal.withInitial(OperandStack::new);
+
+  /** The values, the array is replaced when the stack grows. */
+  EvaluationValue[] values = new EvaluationValue[64];
+
+  /** The number of values used by the evaluations in progress. */
+  int size;
+
+  private OperandStack() {}
+
+  /**
+   * Returns the operand stack of the current thread.
+   *
+   * @return The operand stack.
+   */
+  static OperandStack get() {
+    return STACKS.get();
+  }
+
+  /**
+   * Makes sure the stack can hold the given number of values.
+   *
+   * @param capacity The required capacity.
+   */
+  void ensureCapacity(int capacity) {
+    if (capacity > values.length) {
+      values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.MapBasedDataAccessor;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites an abstract syntax tree for known variable values into a smaller, residual tree. The
+ * known values are passed as constants, so that the subtrees that depend only on them are constant
+ * subtrees, see {@link ConstantFolder}. The residual tree differs from the original tree in two
+ * ways:
+ *
+ * <ul>
+ *   <li>The largest constant subtrees are evaluated and replaced by a constant node, with a
+ *       generated name that can not clash with the names of variables.
+ *   <li>An <code>IF</code> function with a constant condition is replaced by the branch that the
+ *       condition selects.
+ * </ul>
+ *
+ * Like in constant folding, subtrees that fail to evaluate are kept, so that the error is reported
+ * when the residual tree is evaluated.
+ */
+final class PartialEvaluator {
+
+  /** The prefix of the generated constant names, which is not valid at the start of a name. */
+  private static final String FOLDED_CONSTANT_PREFIX = "#";
+
+  private final Map<String, EvaluationValue> constants;
+
+  private final EvaluationContext context;
+
+  private final Map<ASTNode, Boolean> constantNodes = new IdentityHashMap<>();
+
+  /** The selected branches of the <code>IF</code> functions with a constant condition. */
+  private final Map<ASTNode, ASTNode> selectedBranches = new IdentityHashMap<>();
+
+  private final Map<ASTNode, ASTNode> residualNodes = new IdentityHashMap<>();
+
+  private PartialEvaluator(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants) {
+    this.constants = constants;
+    this.context =
+        new EvaluationContext(
+            null, configuration, abstractSyntaxTree, new MapBasedDataAccessor(), constants, null);
+    // the folded subtrees are not charged to the budgets of the evaluations
+    context.startUnchargedEvaluationBudget();
+  }
+
+  /**
+   * Creates the residual tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration used for evaluation.
+   * @param constants The constants, including the known variable values. The values of the folded
+   *     subtrees are added, so the map must be modifiable and is used for the residual tree.
+   * @return The root node of the residual tree, the original root node if nothing could be
+   *     simplified.
+   */
+  static ASTNode specialize(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants) {
+    PartialEvaluator evaluator = new PartialEvaluator(abstractSyntaxTree, configuration, constants);
+    return evaluator.createResidualTree(abstractSyntaxTree);
+  }
+
+  /**
+   * Walks the tree iteratively, so that its depth is not limited by the call stack. In reverse
+   * pre-order, all children are visited before their parent.
+   */
+  private ASTNode createResidualTree(ASTNode abstractSyntaxTree) {
+    List<ASTNode> nodes = new ArrayList<>();
+    Deque<ASTNode> pending = new ArrayDeque<>();
+    pending.push(abstractSyntaxTree);
+    while (!pending.isEmpty()) {
+      ASTNode node = pending.pop();
+      nodes.add(node);
+      node.getParameters().forEach(pending::push);
+    }
+
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      findConstantNode(nodes.get(i));
+    }
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      createResidualNode(nodes.get(i));
+    }
+
+    ASTNode residualTree = residualNodes.get(abstractSyntaxTree);
+    return constantNodes.get(abstractSyntaxTree) ? fold(residualTree) : residualTree;
+  }
+
+  private void findConstantNode(ASTNode node) {
+    List<ASTNode> parameters = node.getParameters();
+    if (isIf(node) && constantNodes.get(parameters.get(0))) {
+      try {
+        EvaluationValue condition = context.evaluateSubtree(parameters.get(0));
+        ASTNode branch = parameters.get(Boolean.TRUE.equals(condition.getBooleanValue()) ? 1 : 2);
+        selectedBranches.put(node, branch);
+        constantNodes.put(node, constantNodes.get(branch));
+        return;
+      } catch (EvaluationException | RuntimeException e) {
+        // leave it to the evaluation to report the error
+      }
+    }
+
+    boolean constant = ConstantFolder.isConstantToken(node.getToken(), constants);
+    for (ASTNode parameter : parameters) {
+      constant &= constantNodes.get(parameter);
+    }
+    constantNodes.put(node, constant);
+  }
+
+  /**
+   * Creates the residual node of a node, after the residual nodes of its children were created.
+   * Constant nodes are kept as they are, they are folded as a whole by their parent.
+   */
+  private void createResidualNode(ASTNode node) {
+    ASTNode branch = selectedBranches.get(node);
+    if (branch != null) {
+      residualNodes.put(node, residualNodes.get(branch));
+      return;
+    }
+    if (constantNodes.get(node)) {
+      residualNodes.put(node, node);
+      return;
+    }
+
+    List<ASTNode> parameters = node.getParameters();
+    ASTNode[] residualParameters = new ASTNode[parameters.size()];
+    boolean changed = false;
+    for (int i = 0; i < residualParameters.length; i++) {
+      ASTNode parameter = parameters.get(i);
+      ASTNode residualParameter = residualNodes.get(parameter);
+      if (constantNodes.get(parameter)) {
+        residualParameter = fold(residualParameter);
+      }
+      residualParameters[i] = residualParameter;
+      changed |= residualParameter != parameter;
+    }
+    residualNodes.put(node, changed ? new ASTNode(node.getToken(), residualParameters) : node);
+  }
+
+  /** Replaces a constant subtree by a constant node, leaves are already constant nodes. */
+  private ASTNode fold(ASTNode subtree) {
+    if (subtree.getParameters().isEmpty()) {
+      return subtree;
+    }
+    EvaluationValue value;
+    try {
+      value = context.evaluateSubtree(subtree);
+    } catch (EvaluationException | RuntimeException e) {
+      // leave it to the evaluation to report the error
+      return subtree;
+    }
+    String name = FOLDED_CONSTANT_PREFIX + constants.size();
+    for (int i = constants.size() + 1; constants.containsKey(name); i++) {
+      name = FOLDED_CONSTANT_PREFIX + i;
+    }
+    constants.put(name, value);
+    return new ASTNode(
+        new Token(
+            subtree.getToken().getStartPosition(), name, Token.TokenType.VARIABLE_OR_CONSTANT));
+  }
+
+  private static boolean isIf(ASTNode node) {
+    Token token = node.getToken();
+    return token.getType() == Token.TokenType.FUNCTION
+        && token.getFunctionDefinition().getClass() == IfFunction.class;
+  }
+}
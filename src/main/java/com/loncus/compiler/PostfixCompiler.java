@@ -0,0 +1,341 @@
+package com.loncus.compiler;
+
+import static com.loncus.compiler.PostfixNode.ARRAY_INDEX;
+import static com.loncus.compiler.PostfixNode.CALL_FUNCTION;
+import static com.loncus.compiler.PostfixNode.CALL_INFIX_OPERATOR;
+import static com.loncus.compiler.PostfixNode.CALL_UNARY_OPERATOR;
+import static com.loncus.compiler.PostfixNode.JUMP;
+import static com.loncus.compiler.PostfixNode.JUMP_IF_FALSE;
+import static com.loncus.compiler.PostfixNode.LOAD_VARIABLE;
+import static com.loncus.compiler.PostfixNode.PUSH_CONSTANT;
+import static com.loncus.compiler.PostfixNode.SHORT_CIRCUIT;
+import static com.loncus.compiler.PostfixNode.SHORT_CIRCUIT_RESULT;
+import static com.loncus.compiler.PostfixNode.UNEXPECTED_TOKEN;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.functions.basic.IfFunction;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.booleans.InfixAndOperator;
+import com.loncus.operators.booleans.InfixOrOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowers an abstract syntax tree into a flat postfix program, see {@link PostfixNode}. The tree is
+ * walked iteratively, so that neither compilation nor evaluation depend on the depth of the tree.
+ * Constant subtrees are folded, see {@link ConstantFolder}, and variables are read by their slot.
+ *
+ * <p>The lazy parameters of the built-in <code>IF</code> function and the lazy operands of the
+ * built-in <code>&amp;&amp;</code> and <code>||</code> operators are lowered into conditional
+ * jumps. Lazy parameters of all other functions and lazy operator operands are passed as expression
+ * node values, each of them gets its own postfix program, which is evaluated when the function
+ * evaluates the parameter. Common subexpressions are not shared in postfix programs. Operators with
+ * operands of known types are specialized, see {@link InferredTypes}.
+ */
+final class PostfixCompiler {
+
+  private final Map<ASTNode, EvaluationValue> foldedValues;
+
+  private final VariableSlots variableSlots;
+
+  private final InferredTypes types;
+
+  private final IdentityHashMap<ASTNode, EvaluatorNode> compiledNodes = new IdentityHashMap<>();
+
+  private final Deque<ASTNode> pendingLazyParameters = new ArrayDeque<>();
+
+  private PostfixCompiler(
+      Map<ASTNode, EvaluationValue> foldedValues,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    this.foldedValues = foldedValues;
+    this.variableSlots = variableSlots;
+    this.types = types;
+  }
+
+  /**
+   * Compiles the abstract syntax tree.
+   *
+   * @param abstractSyntaxTree The root node of the tree.
+   * @param configuration The configuration to use.
+   * @param constants The constants to use.
+   * @param variableSlots The slots of the variables.
+   * @param types The inferred types of the tree nodes.
+   * @return The compiled program.
+   */
+  static ClosureProgram compile(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    PostfixCompiler compiler =
+        new PostfixCompiler(
+            ConstantFolder.fold(abstractSyntaxTree, configuration, constants),
+            variableSlots,
+            types);
+    EvaluatorNode root = compiler.compileProgram(abstractSyntaxTree);
+    compiler.compiledNodes.put(abstractSyntaxTree, root);
+    while (!compiler.pendingLazyParameters.isEmpty()) {
+      ASTNode parameter = compiler.pendingLazyParameters.poll();
+      compiler.compiledNodes.put(parameter, compiler.compileProgram(parameter));
+    }
+    return new ClosureProgram(root, compiler.compiledNodes, variableSlots, 0);
+  }
+
+  private PostfixNode compileProgram(ASTNode subtree) {
+    Program program = new Program();
+    Deque<Step> steps = new ArrayDeque<>();
+    steps.push(new Step(subtree, Step.COMPILE));
+    while (!steps.isEmpty()) {
+      Step step = steps.pop();
+      switch (step.stage) {
+        case Step.COMPILE:
+          compileNode(step.node, steps, program);
+          break;
+        case Step.LAZY_PARAMETER:
+          program.emit(1, PUSH_CONSTANT, program.constant(convertLazy(step.node)));
+          break;
+        case Step.OPERATION:
+          emitOperation(step.node, program);
+          break;
+        case Step.CONDITION_DONE:
+          step.jumpAddress = program.emit(-1, JUMP_IF_FALSE, 0);
+          steps.push(step.next(Step.TRUE_BRANCH_DONE));
+          steps.push(new Step(step.node.getParameters().get(1), Step.COMPILE));
+          break;
+        case Step.TRUE_BRANCH_DONE:
+          int jumpIfFalse = step.jumpAddress;
+          step.jumpAddress = program.emit(0, JUMP, 0);
+          // the false branch starts without the value of the true branch
+          program.stackSize--;
+          program.patch(jumpIfFalse);
+          steps.push(step.next(Step.FALSE_BRANCH_DONE));
+          steps.push(new Step(step.node.getParameters().get(2), Step.COMPILE));
+          break;
+        case Step.LEFT_OPERAND_DONE:
+          Token token = step.node.getToken();
+          step.jumpAddress =
+              program.emit(-1, SHORT_CIRCUIT, 0, program.token(token), isOr(token) ? 1 : 0);
+          steps.push(step.next(Step.RIGHT_OPERAND_DONE));
+          steps.push(new Step(step.node.getParameters().get(1), Step.COMPILE));
+          break;
+        case Step.RIGHT_OPERAND_DONE:
+          program.emit(0, SHORT_CIRCUIT_RESULT, program.token(step.node.getToken()));
+          program.patch(step.jumpAddress);
+          break;
+        default:
+          program.patch(step.jumpAddress);
+          break;
+      }
+    }
+    return program.toNode(subtree.getToken());
+  }
+
+  private void compileNode(ASTNode node, Deque<Step> steps, Program program) {
+    Token token = node.getToken();
+    EvaluationValue foldedValue = foldedValues.get(node);
+    if (foldedValue != null) {
+      // all literals end up here
+      program.emit(1, PUSH_CONSTANT, program.constant(foldedValue));
+      return;
+    }
+    if (token.getType() == Token.TokenType.VARIABLE_OR_CONSTANT) {
+      program.emit(1, LOAD_VARIABLE, program.token(token), variableSlots.getSlot(token.getValue()));
+      return;
+    }
+    List<ASTNode> parameters = node.getParameters();
+    if (isIf(token)) {
+      steps.push(new Step(node, Step.CONDITION_DONE));
+      steps.push(new Step(parameters.get(0), Step.COMPILE));
+      return;
+    }
+    if (isShortCircuit(token)) {
+      steps.push(new Step(node, Step.LEFT_OPERAND_DONE));
+      steps.push(new Step(parameters.get(0), Step.COMPILE));
+      return;
+    }
+    steps.push(new Step(node, Step.OPERATION));
+    for (int i = parameters.size() - 1; i >= 0; i--) {
+      boolean lazy =
+          token.getType() == Token.TokenType.FUNCTION
+              ? token.getFunctionDefinition().isParameterLazy(i)
+              : token.getType() == Token.TokenType.INFIX_OPERATOR
+                  && token.getOperatorDefinition().isOperandLazy();
+      steps.push(new Step(parameters.get(i), lazy ? Step.LAZY_PARAMETER : Step.COMPILE));
+    }
+  }
+
+  private void emitOperation(ASTNode node, Program program) {
+    Token token = node.getToken();
+    switch (token.getType()) {
+      case PREFIX_OPERATOR:
+      case POSTFIX_OPERATOR:
+        program.emit(0, CALL_UNARY_OPERATOR, program.operator(token, types.getOperator(node)));
+        break;
+      case INFIX_OPERATOR:
+        program.emit(-1, CALL_INFIX_OPERATOR, program.operator(token, types.getOperator(node)));
+        break;
+      case ARRAY_INDEX:
+        program.emit(-1, ARRAY_INDEX, program.token(token));
+        break;
+      case FUNCTION:
+        int parameterCount = node.getParameters().size();
+        program.emit(1 - parameterCount, CALL_FUNCTION, program.token(token), parameterCount);
+        break;
+      default:
+        program.emit(1, UNEXPECTED_TOKEN, program.token(token));
+        break;
+    }
+  }
+
+  private EvaluationValue convertLazy(ASTNode parameter) {
+    // the operator or function evaluates the parameter on demand, through the evaluation context
+    pendingLazyParameters.add(parameter);
+    return EvaluationValue.expressionNodeValue(parameter);
+  }
+
+  /**
+   * Checks for the built-in <code>IF</code> function, whose lazy parameters are lowered into jumps.
+   * Subclasses may evaluate differently, so they are called like all other functions.
+   */
+  private static boolean isIf(Token token) {
+    if (token.getType() != Token.TokenType.FUNCTION) {
+      return false;
+    }
+    FunctionIfc function = token.getFunctionDefinition();
+    return function.getClass() == IfFunction.class;
+  }
+
+  /**
+   * Checks for the built-in <code>&amp;&amp;</code> and <code>||</code> operators, whose right
+   * operand is skipped with a jump.
+   */
+  private static boolean isShortCircuit(Token token) {
+    if (token.getType() != Token.TokenType.INFIX_OPERATOR) {
+      return false;
+    }
+    Class<?> operatorClass = token.getOperatorDefinition().getClass();
+    return operatorClass == InfixAndOperator.class || isOr(token);
+  }
+
+  private static boolean isOr(Token token) {
+    return token.getOperatorDefinition().getClass() == InfixOrOperator.class;
+  }
+
+  /** A pending step of the tree walk. */
+  private static final class Step {
+
+    static final int COMPILE = 0;
+
+    static final int LAZY_PARAMETER = 1;
+
+    static final int OPERATION = 2;
+
+    static final int CONDITION_DONE = 3;
+
+    static final int TRUE_BRANCH_DONE = 4;
+
+    static final int FALSE_BRANCH_DONE = 5;
+
+    static final int LEFT_OPERAND_DONE = 6;
+
+    static final int RIGHT_OPERAND_DONE = 7;
+
+    final ASTNode node;
+
+    final int stage;
+
+    /** The address of the jump to patch, for the steps of a conditional or short circuit. */
+    int jumpAddress;
+
+    Step(ASTNode node, int stage) {
+      this.node = node;
+      this.stage = stage;
+    }
+
+    Step next(int nextStage) {
+      Step step = new Step(node, nextStage);
+      step.jumpAddress = jumpAddress;
+      return step;
+    }
+  }
+
+  /** The code, constants and tokens of the program under construction. */
+  private static final class Program {
+
+    private int[] code = new int[32];
+
+    private int length;
+
+    private final List<EvaluationValue> constants = new ArrayList<>();
+
+    private final List<Token> tokens = new ArrayList<>();
+
+    /** The operators to call, by token index, <code>null</code> for other tokens. */
+    private final List<OperatorIfc> operators = new ArrayList<>();
+
+    int stackSize;
+
+    private int maxStackSize;
+
+    /**
+     * Appends an instruction.
+     *
+     * @param stackChange The change of the stack size after the instruction.
+     * @param words The opcode and its operands.
+     * @return The address of the instruction.
+     */
+    int emit(int stackChange, int... words) {
+      if (length + words.length > code.length) {
+        code = Arrays.copyOf(code, Math.max(length + words.length, code.length * 2));
+      }
+      int address = length;
+      System.arraycopy(words, 0, code, length, words.length);
+      length += words.length;
+      stackSize += stackChange;
+      maxStackSize = Math.max(maxStackSize, stackSize);
+      return address;
+    }
+
+    /** Lets the jump at the address jump to the next instruction. */
+    void patch(int jumpAddress) {
+      code[jumpAddress + 1] = length;
+    }
+
+    int constant(EvaluationValue value) {
+      constants.add(value);
+      return constants.size() - 1;
+    }
+
+    int token(Token token) {
+      return operator(token, null);
+    }
+
+    int operator(Token token, OperatorIfc operator) {
+      tokens.add(token);
+      operators.add(operator);
+      return tokens.size() - 1;
+    }
+
+    PostfixNode toNode(Token token) {
+      return new PostfixNode(
+          token,
+          Arrays.copyOf(code, length),
+          constants.toArray(new EvaluationValue[0]),
+          tokens.toArray(new Token[0]),
+          operators.toArray(new OperatorIfc[0]),
+          maxStackSize);
+    }
+  }
+}
@@ -0,0 +1,195 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.Token;
+import java.util.Arrays;
+
+/**
+ * A subtree, lowered into a flat postfix program, see {@link PostfixCompiler}. The program is
+ * executed in a single loop over the {@link OperandStack} of the current thread: each instruction
+ * pops its operands and pushes its result. The program itself is immutable.
+ */
+final class PostfixNode extends EvaluatorNode {
+
+  /** Pushes a constant value. Operand: the constant index. */
+  static final int PUSH_CONSTANT = 0;
+
+  /** Pushes the value of a variable or constant. Operands: the token index, the variable slot. */
+  static final int LOAD_VARIABLE = 1;
+
+  /** Applies a prefix or postfix operator to the top value. Operand: the token index. */
+  static final int CALL_UNARY_OPERATOR = 2;
+
+  /** Applies an infix operator to the two top values. Operand: the token index. */
+  static final int CALL_INFIX_OPERATOR = 3;
+
+  /** Replaces the array and the index on top by the array element. Operand: the token index. */
+  static final int ARRAY_INDEX = 4;
+
+  /** Calls a function with the top values. Operands: the token index, the parameter count. */
+  static final int CALL_FUNCTION = 5;
+
+  /** Pops the top value and jumps, if it is not <code>true</code>. Operand: the target address. */
+  static final int JUMP_IF_FALSE = 6;
+
+  /** Jumps unconditionally. Operand: the target address. */
+  static final int JUMP = 7;
+
+  /** Reports a token that can not be evaluated. Operand: the token index. */
+  static final int UNEXPECTED_TOKEN = 8;
+
+  /**
+   * Completes <code>&amp;&amp;</code> or <code>||</code> and jumps, if the left operand on top
+   * determines the result, otherwise pops it. Operands: the target address, the token index, the
+   * determining value, 1 for <code>true</code>.
+   */
+  static final int SHORT_CIRCUIT = 9;
+
+  /**
+   * Completes <code>&amp;&amp;</code> or <code>||</code> with the right operand on top. Operand:
+   * the token index.
+   */
+  static final int SHORT_CIRCUIT_RESULT = 10;
+
+  private final int[] code;
+
+  private final EvaluationValue[] constants;
+
+  private final Token[] tokens;
+
+  /** The operators to call, by token index. */
+  private final OperatorIfc[] operators;
+
+  /** The maximum number of values on the stack while the program is executed. */
+  private final int maxStackSize;
+
+  PostfixNode(
+      Token token,
+      int[] code,
+      EvaluationValue[] constants,
+      Token[] tokens,
+      OperatorIfc[] operators,
+      int maxStackSize) {
+    super(token);
+    this.code = code;
+    this.constants = constants;
+    this.tokens = tokens;
+    this.operators = operators;
+    this.maxStackSize = maxStackSize;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    OperandStack stack = OperandStack.get();
+    int base = stack.size;
+    stack.ensureCapacity(base + maxStackSize);
+    EvaluationValue[] values = stack.values;
+    int top = base;
+    int address = 0;
+    try {
+      while (address < code.length) {
+        Token token;
+        EvaluationValue result;
+        switch (code[address]) {
+          case PUSH_CONSTANT:
+            values[top++] = constants[code[address + 1]];
+            address += 2;
+            continue;
+          case LOAD_VARIABLE:
+            token = tokens[code[address + 1]];
+            result = context.getVariableOrConstant(token, code[address + 2]);
+            if (result.isExpressionNode()) {
+              stack.size = top;
+              result = context.evaluateSubtree(result.getExpressionNode());
+              values = stack.values;
+            }
+            address += 3;
+            break;
+          case CALL_UNARY_OPERATOR:
+            token = tokens[code[address + 1]];
+            stack.size = top;
+            result = operators[code[address + 1]].evaluate(context, token, values[--top]);
+            values = stack.values;
+            address += 2;
+            break;
+          case CALL_INFIX_OPERATOR:
+            token = tokens[code[address + 1]];
+            stack.size = top;
+            top -= 2;
+            result =
+                operators[code[address + 1]].evaluate(context, token, values[top], values[top + 1]);
+            values = stack.values;
+            address += 2;
+            break;
+          case ARRAY_INDEX:
+            token = tokens[code[address + 1]];
+            top -= 2;
+            result = evaluateArrayIndex(token, values[top], values[top + 1]);
+            address += 2;
+            break;
+          case CALL_FUNCTION:
+            token = tokens[code[address + 1]];
+            int parameterCount = code[address + 2];
+            stack.size = top;
+            top -= parameterCount;
+            EvaluationValue[] parameterValues =
+                Arrays.copyOfRange(values, top, top + parameterCount);
+            FunctionIfc function = token.getFunctionDefinition();
+            function.validatePreEvaluation(token, parameterValues);
+            result = function.evaluate(context, token, parameterValues);
+            values = stack.values;
+            address += 3;
+            break;
+          case JUMP_IF_FALSE:
+            address =
+                Boolean.TRUE.equals(values[--top].getBooleanValue())
+                    ? address + 2
+                    : code[address + 1];
+            continue;
+          case JUMP:
+            address = code[address + 1];
+            continue;
+          case SHORT_CIRCUIT:
+            boolean determiningValue = code[address + 3] == 1;
+            if (values[top - 1].getBooleanValue() == determiningValue) {
+              values[top - 1] =
+                  context.completeNodeEvaluation(
+                      tokens[code[address + 2]], EvaluationValue.booleanValue(determiningValue));
+              address = code[address + 1];
+            } else {
+              top--;
+              address += 4;
+            }
+            continue;
+          case SHORT_CIRCUIT_RESULT:
+            token = tokens[code[address + 1]];
+            result = EvaluationValue.booleanValue(values[--top].getBooleanValue());
+            address += 2;
+            break;
+          case UNEXPECTED_TOKEN:
+          default:
+            token = tokens[code[address + 1]];
+            throw new EvaluationException(token, "Unexpected evaluation token: " + token);
+        }
+        values[top++] = context.completeNodeEvaluation(token, result);
+      }
+      return values[base];
+    } finally {
+      // release the values for garbage collection, the stack is shared by all evaluations
+      Arrays.fill(stack.values, base, base + maxStackSize, null);
+      stack.size = base;
+    }
+  }
+
+  private static EvaluationValue evaluateArrayIndex(
+      Token token, EvaluationValue array, EvaluationValue index) throws EvaluationException {
+    if (array.isArrayValue() && index.isNumberValue()) {
+      return array.getArrayValue().get(index.getNumberValue().intValue());
+    } else {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(token);
+    }
+  }
+}
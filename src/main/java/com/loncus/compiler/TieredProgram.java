@@ -0,0 +1,100 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.DataAccessorIfc;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.parser.ASTNode;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A program for the {@link ExpressionConfiguration.EvaluationMode#BYTECODE} mode. The expression is
+ * interpreted, until it was evaluated more often than the compilation threshold. Then it is
+ * compiled into bytecode once, and all further evaluations use the generated code. If the tree can
+ * not be compiled, the expression stays interpreted.
+ */
+public final class TieredProgram implements CompiledProgram {
+
+  private final ASTNode abstractSyntaxTree;
+
+  private final ExpressionConfiguration configuration;
+
+  private final Map<String, EvaluationValue> constants;
+
+  private final VariableSlots variableSlots;
+
+  private final InferredTypes types;
+
+  private final int compilationThreshold;
+
+  private final AtomicInteger invocationCount = new AtomicInteger();
+
+  private volatile ClosureProgram compiledProgram;
+
+  private volatile boolean compilationFailed;
+
+  TieredProgram(
+      ASTNode abstractSyntaxTree,
+      ExpressionConfiguration configuration,
+      Map<String, EvaluationValue> constants,
+      VariableSlots variableSlots,
+      InferredTypes types) {
+    this.abstractSyntaxTree = abstractSyntaxTree;
+    this.configuration = configuration;
+    this.constants = constants;
+    this.variableSlots = variableSlots;
+    this.types = types;
+    this.compilationThreshold = configuration.getCompilationThreshold();
+  }
+
+  @Override
+  public EvaluationValue evaluate(
+      String expressionString,
+      ExpressionConfiguration configuration,
+      ASTNode abstractSyntaxTree,
+      DataAccessorIfc dataAccessor,
+      Map<String, EvaluationValue> constants)
+      throws EvaluationException {
+    ClosureProgram program = compiledProgram;
+    if (program == null && !compilationFailed) {
+      program = compileIfHot();
+    }
+    if (program != null) {
+      return program.evaluate(
+          expressionString, configuration, abstractSyntaxTree, dataAccessor, constants);
+    }
+    return new EvaluationContext(
+            expressionString, configuration, abstractSyntaxTree, dataAccessor, constants, null)
+        .evaluateSubtree(abstractSyntaxTree);
+  }
+
+  /**
+   * Checks if the expression was compiled into bytecode.
+   *
+   * @return <code>true</code> if the generated code is used for evaluation.
+   */
+  public boolean isCompiled() {
+    return compiledProgram != null;
+  }
+
+  private ClosureProgram compileIfHot() {
+    if (invocationCount.incrementAndGet() <= compilationThreshold) {
+      return null;
+    }
+    synchronized (this) {
+      if (compiledProgram == null && !compilationFailed) {
+        try {
+          compiledProgram =
+              BytecodeCompiler.compile(
+                  abstractSyntaxTree, configuration, constants, variableSlots, types);
+        } catch (RuntimeException | LinkageError e) {
+          // e.g. code too large for a single method, keep interpreting
+          compilationFailed = true;
+        }
+      }
+      return compiledProgram;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.Token;
+
+/** A prefix or postfix operator with its operand. */
+final class UnaryOperatorNode extends EvaluatorNode {
+
+  private final OperatorIfc operator;
+
+  private final EvaluatorNode operand;
+
+  UnaryOperatorNode(Token token, OperatorIfc operator, EvaluatorNode operand) {
+    super(token);
+    this.operator = operator;
+    this.operand = operand;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    return context.completeNodeEvaluation(
+        getToken(), operator.evaluate(context, getToken(), operand.evaluate(context)));
+  }
+}
@@ -0,0 +1,21 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+
+/**
+ * A token that can not be evaluated. Compilation does not fail, the error is reported when the node
+ * is evaluated, the same way the interpreter does.
+ */
+final class UnexpectedTokenNode extends EvaluatorNode {
+
+  UnexpectedTokenNode(Token token) {
+    super(token);
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    throw new EvaluationException(getToken(), "Unexpected evaluation token: " + getToken());
+  }
+}
@@ -0,0 +1,29 @@
+package com.loncus.compiler;
+
+import com.loncus.EvaluationException;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+
+/**
+ * A variable or constant. Variables with a slot are read by slot, if the data accessor supports it,
+ * all others are looked up by name on each evaluation.
+ */
+final class VariableNode extends EvaluatorNode {
+
+  /** The variable slot, <code>-1</code> for constants and variables without a slot. */
+  private final int slot;
+
+  VariableNode(Token token, int slot) {
+    super(token);
+    this.slot = slot;
+  }
+
+  @Override
+  public EvaluationValue evaluate(EvaluationContext context) throws EvaluationException {
+    EvaluationValue result = context.getVariableOrConstant(getToken(), slot);
+    if (result.isExpressionNode()) {
+      result = context.evaluateSubtree(result.getExpressionNode());
+    }
+    return context.completeNodeEvaluation(getToken(), result);
+  }
+}
@@ -9,9 +9,11 @@ import com.loncus.functions.timeseries.*;
 import com.loncus.operators.OperatorIfc;
 import com.loncus.operators.arithmetic.*;
 import com.loncus.operators.booleans.*;
+import com.loncus.parser.ExpressionCache;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.function.Supplier;
@@ -49,10 +51,116 @@ public class ExpressionConfiguration {
   /** Setting the decimal places to unlimited, will disable intermediate rounding. */
   public static final int DECIMAL_PLACES_ROUNDING_UNLIMITED = -1;
 
+  /** Setting an evaluation budget to unlimited, will disable its check. */
+  public static final int EVALUATION_BUDGET_UNLIMITED = -1;
+
   /** The default math context has a precision of 68 and {@link RoundingMode#HALF_EVEN}. */
   public static final MathContext DEFAULT_MATH_CONTEXT =
       new MathContext(68, RoundingMode.HALF_EVEN);
 
+  /** The supported ways of evaluating a parsed expression. */
+  public enum EvaluationMode {
+    /**
+     * The reference mode, the abstract syntax tree is evaluated recursively, dispatching on the
+     * token type of each node.
+     */
+    INTERPRETER,
+    /**
+     * The abstract syntax tree is compiled once into a tree of evaluator nodes, with all operator
+     * and function definitions resolved at compile time.
+     */
+    CLOSURE_TREE,
+    /**
+     * Tiered compilation: the expression is interpreted, until it was evaluated more often than the
+     * {@link #getCompilationThreshold() compilation threshold}. Then it is compiled into a JVM
+     * class, which the JIT compiler can optimize as a whole. If compilation is not possible, the
+     * expression stays interpreted.
+     */
+    BYTECODE,
+    /**
+     * The abstract syntax tree is lowered once into a flat postfix program, which is evaluated in a
+     * loop over an operand stack. Evaluation does not recurse, so the depth of the tree is not
+     * limited by the call stack.
+     */
+    STACK_MACHINE
+  }
+
+  /** The supported parsers, that convert an expression string into an abstract syntax tree. */
+  public enum ParserType {
+    /**
+     * The expression string is split into a list of tokens first, which is then converted by the
+     * shunting yard algorithm.
+     */
+    SHUNTING_YARD,
+    /**
+     * The tokens are read one by one, while the tree is built by precedence climbing. This avoids
+     * the intermediate token list and stacks, and so lowers the latency of parsing.
+     */
+    PRECEDENCE_CLIMBING
+  }
+
+  /**
+   * The supported ways of applying the {@link #getDecimalPlacesRounding() decimal places rounding}
+   * and {@link #isStripTrailingZeros() trailing zero stripping} to numbers.
+   */
+  public enum RoundingPolicy {
+    /**
+     * The result of each operator, function, variable and array access is rounded, so rounding
+     * errors do not accumulate differently than with manual calculation.
+     */
+    EACH_NODE,
+    /**
+     * Only the final result of an evaluation is rounded, intermediate results keep the precision of
+     * the math context.
+     */
+    ROOT_ONLY,
+    /** Numbers are never rounded and trailing zeros are never stripped. */
+    NEVER
+  }
+
+  /** The supported representations of numbers during the evaluation. */
+  public enum NumericMode {
+    /** Numbers are {@link java.math.BigDecimal}s, calculated with the math context. */
+    BIG_DECIMAL,
+    /**
+     * Numbers are primitive doubles while a {@link com.loncus.CompiledExpression} is evaluated, and
+     * converted to {@link EvaluationValue}s only for the result. This trades precision for speed.
+     * Expressions that use other data types or functions without a double implementation are
+     * evaluated with big decimals.
+     */
+    DOUBLE,
+    /**
+     * Numbers are primitive longs with the {@link #getFixedPointScale() fixed point scale} while a
+     * {@link com.loncus.CompiledExpression} is evaluated. The results are the same as with big
+     * decimals: if an intermediate result can not be represented exactly, e.g. on overflow or
+     * because it has more decimal places than the scale, the evaluation is repeated with big
+     * decimals. Expressions that use other data types or functions without a fixed point
+     * implementation are always evaluated with big decimals.
+     */
+    FIXED_POINT
+  }
+
+  /** The supported precisions of the logarithms, trigonometric and hyperbolic functions. */
+  public enum FunctionPrecision {
+    /**
+     * The functions are calculated with doubles, so their results have about 16 significant digits,
+     * whatever the precision of the math context.
+     */
+    DOUBLE,
+    /**
+     * The functions are calculated with big decimals and correctly rounded to the precision of the
+     * math context, see {@link com.loncus.math.BigDecimalMath}. This is slower than with doubles,
+     * increasingly so with the precision.
+     */
+    MATH_CONTEXT
+  }
+
+  /** The default number of evaluations, before an expression is compiled into bytecode. */
+  public static final int DEFAULT_COMPILATION_THRESHOLD = 100;
+
+  /** The default number of decimal places in the {@link NumericMode#FIXED_POINT} numeric mode. */
+  public static final int DEFAULT_FIXED_POINT_SCALE = 6;
+
   /** The default zone id is the systemd default zone ID. */
   public static final ZoneId DEFAULT_ZONE_ID = ZoneId.systemDefault();
 
@@ -146,7 +254,8 @@ public class ExpressionConfiguration {
 
   /**
    * If specified, all results from operations and functions will be rounded to the specified number
-   * of decimal digits, using the MathContexts rounding mode.
+   * of decimal digits, using the MathContexts rounding mode. Which results are rounded is defined
+   * by the {@link #getRoundingPolicy() rounding policy}.
    */
   @Builder.Default @Getter
   private final int decimalPlacesRounding = DECIMAL_PLACES_ROUNDING_UNLIMITED;
@@ -156,6 +265,12 @@ public class ExpressionConfiguration {
    */
   @Builder.Default @Getter private final boolean stripTrailingZeros = true;
 
+  /**
+   * Where the decimal places rounding and the stripping of trailing zeros are applied. Defaults to
+   * {@link RoundingPolicy#EACH_NODE}.
+   */
+  @Builder.Default @Getter private final RoundingPolicy roundingPolicy = RoundingPolicy.EACH_NODE;
+
   /**
    * If set to true (default), then variables can be set that have the name of a constant. In that
    * case, the constant value will be removed and a variable value will be set.
@@ -170,6 +285,66 @@ public class ExpressionConfiguration {
   private final EvaluationValueConverterIfc evaluationValueConverter =
       new DefaultEvaluationValueConverter();
 
+  /**
+   * If set, parsed expressions are looked up in and added to this cache, so that the same
+   * expression string is parsed only once for this configuration. By default, no cache is used.
+   *
+   * @see ExpressionCache#sharedCache()
+   */
+  @Builder.Default @Getter private final ExpressionCache expressionCache = null;
+
+  /** The parser to use, by default the shunting yard algorithm. */
+  @Builder.Default @Getter private final ParserType parserType = ParserType.SHUNTING_YARD;
+
+  /** How expressions are evaluated, by default they are interpreted. */
+  @Builder.Default @Getter private final EvaluationMode evaluationMode = EvaluationMode.INTERPRETER;
+
+  /**
+   * How numbers are represented during evaluation, by default as big decimals. In {@link
+   * NumericMode#DOUBLE} mode, the math context and the rounding policy do not apply to intermediate
+   * results.
+   */
+  @Builder.Default @Getter private final NumericMode numericMode = NumericMode.BIG_DECIMAL;
+
+  /**
+   * The number of decimal places of the numbers in {@link NumericMode#FIXED_POINT} mode, between 0
+   * and 18. The larger the scale, the smaller the range of numbers that can be represented.
+   */
+  @Builder.Default @Getter private final int fixedPointScale = DEFAULT_FIXED_POINT_SCALE;
+
+  /**
+   * The precision of LOG, LOG10, the sine, cosine, tangent and arc tangent functions and the
+   * hyperbolic functions, by default doubles. In {@link NumericMode#DOUBLE} mode, they are always
+   * calculated with doubles.
+   */
+  @Builder.Default @Getter
+  private final FunctionPrecision functionPrecision = FunctionPrecision.DOUBLE;
+
+  /**
+   * In {@link EvaluationMode#BYTECODE} mode, the number of evaluations that are interpreted before
+   * the expression is compiled. A value of 0 compiles the expression on its first evaluation.
+   */
+  @Builder.Default @Getter private final int compilationThreshold = DEFAULT_COMPILATION_THRESHOLD;
+
+  /**
+   * The maximum number of operators, functions, variables and array accesses evaluated in a single
+   * evaluation, unlimited by default. Batch evaluations may evaluate this many nodes per row. See
+   * {@link com.loncus.EvaluationBudget}.
+   */
+  @Builder.Default @Getter private final long maximumNodeEvaluations = EVALUATION_BUDGET_UNLIMITED;
+
+  /**
+   * The maximum number of digits of the numbers calculated in a single evaluation, unlimited by
+   * default. Functions and operators that calculate large numbers check it before they start.
+   */
+  @Builder.Default @Getter private final int maximumDigits = EVALUATION_BUDGET_UNLIMITED;
+
+  /**
+   * The maximum duration of a single evaluation, unlimited (<code>null</code>) by default. The
+   * clock is checked while nodes are evaluated and in the loops of long-running functions.
+   */
+  @Builder.Default @Getter private final Duration evaluationTimeout = null;
+
   /**
    * Convenience method to create a default configuration.
    *
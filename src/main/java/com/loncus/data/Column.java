@@ -0,0 +1,242 @@
+package com.loncus.data;
+
+import com.loncus.config.ExpressionConfiguration;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable column of values, one value per row of a batch, see {@link
+ * com.loncus.CompiledExpression#evaluateBatch(java.util.Map)}. Columns are created from primitive
+ * or object arrays, the array is not copied and must not be modified while the column is in use:
+ *
+ * <pre>
+ *   Column prices = Column.of(new double[] {9.5, 12.0, 7.25});
+ *   Column quantities = Column.of(new long[] {3, 0, 4}).withValidity(validRows);
+ * </pre>
+ *
+ * NULL values are marked in a validity bitmap: a row is NULL if its bit is cleared. Without a
+ * bitmap, all rows are valid, except for <code>null</code> elements of object arrays.
+ */
+public final class Column {
+
+  private final int size;
+
+  /** The values, one of the supported array types. */
+  private final Object values;
+
+  /** The validity bitmap, in words of 64 rows, <code>null</code> if all rows are valid. */
+  private final long[] validity;
+
+  private Column(int size, Object values, long[] validity) {
+    this.size = size;
+    this.values = values;
+    this.validity = validity;
+  }
+
+  /**
+   * Creates a column of numbers, <code>null</code> elements are NULL.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(BigDecimal... values) {
+    return new Column(values.length, values, null);
+  }
+
+  /**
+   * Creates a column of numbers. The values are converted with the math context of the
+   * configuration when the column is evaluated.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(double... values) {
+    return new Column(values.length, values, null);
+  }
+
+  /**
+   * Creates a column of numbers.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(long... values) {
+    return new Column(values.length, values, null);
+  }
+
+  /**
+   * Creates a column of booleans.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(boolean... values) {
+    return new Column(values.length, values, null);
+  }
+
+  /**
+   * Creates a column of strings, <code>null</code> elements are NULL.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(String... values) {
+    return new Column(values.length, values, null);
+  }
+
+  /**
+   * Creates a column of evaluation values, <code>null</code> elements and NULL values are NULL.
+   *
+   * @param values The values.
+   * @return The column.
+   */
+  public static Column of(EvaluationValue... values) {
+    long[] validity = null;
+    for (int row = 0; row < values.length; row++) {
+      if (values[row] == null || values[row].isNullValue()) {
+        if (validity == null) {
+          validity = allValid(values.length);
+        }
+        validity[row >>> 6] &= ~(1L << row);
+      }
+    }
+    return new Column(values.length, values, validity);
+  }
+
+  /**
+   * Creates a column with the same values and the given validity bitmap. Rows whose bit is cleared
+   * are NULL, regardless of their value.
+   *
+   * @param validity The validity bitmap, a set bit marks a valid row.
+   * @return The new column.
+   */
+  public Column withValidity(BitSet validity) {
+    long[] words = validity.toLongArray();
+    long[] bitmap = new long[(size + 63) >>> 6];
+    System.arraycopy(words, 0, bitmap, 0, Math.min(words.length, bitmap.length));
+    if (this.validity != null) {
+      for (int i = 0; i < bitmap.length; i++) {
+        bitmap[i] &= this.validity[i];
+      }
+    }
+    return new Column(size, values, bitmap);
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return The number of rows.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the value of a row is NULL.
+   *
+   * @param row The row index.
+   * @return <code>true</code> if the value is NULL.
+   */
+  public boolean isNull(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+    return (validity != null && (validity[row >>> 6] & (1L << row)) == 0)
+        || (values instanceof Object[] && ((Object[]) values)[row] == null);
+  }
+
+  /**
+   * Returns the validity bitmap of the column.
+   *
+   * @return A new bit set, with a set bit for each valid row.
+   */
+  public BitSet getValidity() {
+    BitSet bitSet = new BitSet(size);
+    for (int row = 0; row < size; row++) {
+      bitSet.set(row, !isNull(row));
+    }
+    return bitSet;
+  }
+
+  /**
+   * Returns the value of a row, double values are converted with the default math context.
+   *
+   * @param row The row index.
+   * @return The value, a NULL value if the row is NULL.
+   */
+  public EvaluationValue getValue(int row) {
+    return isNull(row)
+        ? EvaluationValue.nullValue()
+        : toValues(ExpressionConfiguration.DEFAULT_MATH_CONTEXT, row, row + 1)[0];
+  }
+
+  /**
+   * Converts all rows into evaluation values. Each array type is converted in a single loop.
+   *
+   * @param configuration The configuration, its math context is used to convert double values.
+   * @return The values, NULL values for the NULL rows.
+   */
+  public EvaluationValue[] toValues(ExpressionConfiguration configuration) {
+    EvaluationValue[] result = toValues(configuration.getMathContext(), 0, size);
+    if (validity != null) {
+      for (int row = 0; row < size; row++) {
+        if ((validity[row >>> 6] & (1L << row)) == 0) {
+          result[row] = EvaluationValue.nullValue();
+        }
+      }
+    }
+    return result;
+  }
+
+  private EvaluationValue[] toValues(MathContext mathContext, int from, int to) {
+    EvaluationValue[] result = new EvaluationValue[to - from];
+    if (values instanceof double[]) {
+      double[] doubles = (double[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] =
+            EvaluationValue.numberValue(new BigDecimal(Double.toString(doubles[row]), mathContext));
+      }
+    } else if (values instanceof long[]) {
+      long[] longs = (long[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] = EvaluationValue.numberValue(longs[row]);
+      }
+    } else if (values instanceof boolean[]) {
+      boolean[] booleans = (boolean[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] = EvaluationValue.booleanValue(booleans[row]);
+      }
+    } else if (values instanceof BigDecimal[]) {
+      BigDecimal[] numbers = (BigDecimal[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] =
+            numbers[row] == null
+                ? EvaluationValue.nullValue()
+                : EvaluationValue.numberValue(numbers[row]);
+      }
+    } else if (values instanceof String[]) {
+      String[] strings = (String[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] =
+            strings[row] == null
+                ? EvaluationValue.nullValue()
+                : EvaluationValue.stringValue(strings[row]);
+      }
+    } else {
+      EvaluationValue[] evaluationValues = (EvaluationValue[]) values;
+      for (int row = from; row < to; row++) {
+        result[row - from] =
+            evaluationValues[row] == null ? EvaluationValue.nullValue() : evaluationValues[row];
+      }
+    }
+    return result;
+  }
+
+  private static long[] allValid(int size) {
+    long[] bitmap = new long[(size + 63) >>> 6];
+    Arrays.fill(bitmap, -1L);
+    return bitmap;
+  }
+}
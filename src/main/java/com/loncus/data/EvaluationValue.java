@@ -11,12 +11,23 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
+import lombok.experimental.NonFinal;
 
 /**
  * The representation of the final or intermediate evaluation result value. The representation
  * consists of a data type and data value. Depending on the type, the value will be stored in a
  * corresponding object type.
+ *
+ * <p>Integral numbers that fit into a <code>long</code> additionally keep their value as primitive
+ * long, see {@link #hasLongValue()}. The arithmetic and comparison operators calculate with these
+ * longs, and their results only hold a {@link BigDecimal} once it is requested, e.g. by {@link
+ * #getNumberValue()}, which then keeps it. A result that has a fraction or overflows a long is a
+ * big decimal again.
  */
 @Value
 public class EvaluationValue implements Comparable<EvaluationValue> {
@@ -27,6 +38,12 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   /** Return value for a null {@link DataType#ARRAY}. */
   private static final List<EvaluationValue> NULL_ARRAY = null;
 
+  /** The largest absolute value of the cached integer number values. */
+  private static final int CACHED_INTEGER_LIMIT = 99;
+
+  /** The number of digits of integral big decimals that always fit into a long. */
+  private static final int LONG_PRECISION = 18;
+
   /** The supported data types. */
   public enum DataType {
     /** A string of characters, stored as {@link String}. */
@@ -52,10 +69,36 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
     NULL
   }
 
-  Object value;
+  private static final EvaluationValue NULL_VALUE = new EvaluationValue(null, DataType.NULL);
+
+  private static final EvaluationValue TRUE = new EvaluationValue(Boolean.TRUE, DataType.BOOLEAN);
+
+  private static final EvaluationValue FALSE = new EvaluationValue(Boolean.FALSE, DataType.BOOLEAN);
+
+  /** The number values of the integers from -99 to 99, with a scale of zero. */
+  private static final EvaluationValue[] CACHED_INTEGERS = createCachedIntegers();
+
+  /**
+   * The value, depending on the data type. The big decimal of an integral number with a long value
+   * is created once it is requested, see {@link #getNumberValue()}.
+   */
+  @NonFinal Object value;
 
   DataType dataType;
 
+  /** The value of an integral number, if {@link #longNumber} is set. */
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  long longValue;
+
+  /**
+   * If the value is an integral number with a long value. The big decimal value may then be <code>
+   * null</code>, it is created on demand.
+   */
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  boolean longNumber;
+
   /**
    * Creates a new evaluation value by using the configured converter and configuration.
    *
@@ -69,8 +112,10 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
     EvaluationValue converted =
         configuration.getEvaluationValueConverter().convertObject(value, configuration);
 
-    this.value = converted.getValue();
+    this.value = converted.value;
     this.dataType = converted.getDataType();
+    this.longValue = converted.longValue;
+    this.longNumber = converted.longNumber;
   }
 
   /**
@@ -82,27 +127,75 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   private EvaluationValue(Object value, DataType dataType) {
     this.dataType = dataType;
     this.value = value;
+    this.longValue = 0;
+    this.longNumber = false;
   }
 
   /**
-   * Creates a new null value.
+   * Private constructor to create an integral number value.
    *
-   * @return A new null value.
+   * @param value The big decimal value, or <code>null</code> to create it on demand.
+   * @param longValue The long value.
+   */
+  private EvaluationValue(BigDecimal value, long longValue) {
+    this.dataType = DataType.NUMBER;
+    this.value = value;
+    this.longValue = longValue;
+    this.longNumber = true;
+  }
+
+  private static EvaluationValue[] createCachedIntegers() {
+    EvaluationValue[] integers = new EvaluationValue[2 * CACHED_INTEGER_LIMIT + 1];
+    for (int i = 0; i < integers.length; i++) {
+      long integer = i - CACHED_INTEGER_LIMIT;
+      integers[i] = new EvaluationValue(BigDecimal.valueOf(integer), integer);
+    }
+    return integers;
+  }
+
+  /**
+   * Returns the null value. Values are immutable, so a single instance is shared.
+   *
+   * @return The null value.
    */
   public static EvaluationValue nullValue() {
-    return new EvaluationValue(null, DataType.NULL);
+    return NULL_VALUE;
   }
 
   /**
-   * Creates a new number value.
+   * Creates a new number value. Small integers, with a scale of zero, are taken from a cache.
    *
    * @param value The BigDecimal value to use.
    * @return the new number value.
    */
   public static EvaluationValue numberValue(BigDecimal value) {
+    // the precision of a zero scale value is the number of its digits
+    if (value != null && value.scale() == 0) {
+      int precision = value.precision();
+      if (precision <= 2) {
+        return CACHED_INTEGERS[value.intValue() + CACHED_INTEGER_LIMIT];
+      }
+      if (precision <= LONG_PRECISION) {
+        return new EvaluationValue(value, value.longValue());
+      }
+    }
     return new EvaluationValue(value, DataType.NUMBER);
   }
 
+  /**
+   * Creates a new integral number value. The {@link BigDecimal} value, with a scale of zero, is
+   * only created when it is requested. Small integers are taken from a cache.
+   *
+   * @param value The long value to use.
+   * @return the new number value.
+   */
+  public static EvaluationValue numberValue(long value) {
+    if (value >= -CACHED_INTEGER_LIMIT && value <= CACHED_INTEGER_LIMIT) {
+      return CACHED_INTEGERS[(int) value + CACHED_INTEGER_LIMIT];
+    }
+    return new EvaluationValue(null, value);
+  }
+
   /**
    * Creates a new string value.
    *
@@ -114,13 +207,17 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   }
 
   /**
-   * Creates a new boolean value.
+   * Returns a boolean value. The values for <code>true</code> and <code>false</code> are shared
+   * instances.
    *
    * @param value The Boolean value to use.
-   * @return the new boolean value.
+   * @return the boolean value.
    */
   public static EvaluationValue booleanValue(Boolean value) {
-    return new EvaluationValue(value, DataType.BOOLEAN);
+    if (value == null) {
+      return new EvaluationValue(null, DataType.BOOLEAN);
+    }
+    return value ? TRUE : FALSE;
   }
 
   /**
@@ -177,6 +274,38 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   public EvaluationValue(double value, MathContext mathContext) {
     this.dataType = DataType.NUMBER;
     this.value = new BigDecimal(Double.toString(value), mathContext);
+    this.longValue = 0;
+    this.longNumber = false;
+  }
+
+  /**
+   * Gets the stored value. For numbers, this is always a {@link BigDecimal}, also for integral
+   * numbers that were calculated as long.
+   *
+   * @return The value, depending on the data type.
+   */
+  public Object getValue() {
+    return longNumber ? getNumberValue() : value;
+  }
+
+  /**
+   * Checks if the value is an integral number that fits into a long, so that it can be calculated
+   * with {@link #getLongValue()} instead of the {@link BigDecimal} value. Such a number always has
+   * a scale of zero.
+   *
+   * @return <code>true</code> or <code>false</code>.
+   */
+  public boolean hasLongValue() {
+    return longNumber;
+  }
+
+  /**
+   * Gets the long value of an integral number, see {@link #hasLongValue()}.
+   *
+   * @return The long value, or zero if the value has no long value.
+   */
+  public long getLongValue() {
+    return longValue;
   }
 
   /**
@@ -284,6 +413,10 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   public BigDecimal getNumberValue() {
     switch (getDataType()) {
       case NUMBER:
+        if (value == null && longNumber) {
+          // a race only creates equal big decimals, which are immutable
+          value = BigDecimal.valueOf(longValue);
+        }
         return (BigDecimal) value;
       case BOOLEAN:
         return (Boolean.TRUE.equals(value) ? BigDecimal.ONE : BigDecimal.ZERO);
@@ -312,7 +445,7 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   public String getStringValue() {
     switch (getDataType()) {
       case NUMBER:
-        return ((BigDecimal) value).toPlainString();
+        return longNumber ? Long.toString(longValue) : ((BigDecimal) value).toPlainString();
       case TIME_SERIES_POINT:
         return ((TimeSeriesPoint) value).getValue().toPlainString();
       case NULL:
@@ -336,7 +469,7 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
   public Boolean getBooleanValue() {
     switch (getDataType()) {
       case NUMBER:
-        return !value.equals(BigDecimal.ZERO);
+        return longNumber ? longValue != 0 : !value.equals(BigDecimal.ZERO);
       case BOOLEAN:
         return (Boolean) value;
       case STRING:
@@ -366,7 +499,7 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
     try {
       switch (getDataType()) {
         case NUMBER:
-          return Instant.ofEpochMilli(((BigDecimal) value).longValue());
+          return Instant.ofEpochMilli(getNumberValue().longValue());
         case DATE_TIME:
           return (Instant) value;
         case STRING:
@@ -396,7 +529,7 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
     try {
       switch (getDataType()) {
         case NUMBER:
-          return Duration.ofMillis(((BigDecimal) value).longValue());
+          return Duration.ofMillis(getNumberValue().longValue());
         case DURATION:
           return (Duration) value;
         case STRING:
@@ -444,10 +577,41 @@ public class EvaluationValue implements Comparable<EvaluationValue> {
     return isTimeSeriesPoint() ? ((TimeSeriesPoint) getValue()) : null;
   }
 
+  /**
+   * Two values are equal if they have the same data type and equal values. Like {@link
+   * BigDecimal#equals(Object)}, numbers must also have the same scale to be equal.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof EvaluationValue)) {
+      return false;
+    }
+    EvaluationValue other = (EvaluationValue) o;
+    if (getDataType() != other.getDataType()) {
+      return false;
+    }
+    if (longNumber && other.longNumber) {
+      return longValue == other.longValue;
+    }
+    return Objects.equals(getValue(), other.getValue());
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Objects.hashCode(getValue()) + Objects.hashCode(getDataType());
+  }
+
   @Override
   public int compareTo(EvaluationValue toCompare) {
     switch (getDataType()) {
       case NUMBER:
+        if (longNumber && toCompare.longNumber) {
+          return Long.compare(longValue, toCompare.longValue);
+        }
+        return getNumberValue().compareTo(toCompare.getNumberValue());
       case TIME_SERIES_POINT:
         return getNumberValue().compareTo(toCompare.getNumberValue());
       case BOOLEAN:
@@ -0,0 +1,24 @@
+package com.loncus.data;
+
+/**
+ * A data accessor that also stores the variable values of the {@link VariableSlots} it was created
+ * for in numbered slots. Compiled expressions read slotted variables by their slot number, if the
+ * data accessor was created for the same slots the expression was compiled with.
+ */
+public interface SlotDataAccessorIfc extends DataAccessorIfc {
+
+  /**
+   * Returns the slots this data accessor was created for.
+   *
+   * @return The variable slots.
+   */
+  VariableSlots getVariableSlots();
+
+  /**
+   * Retrieves a data value by its slot.
+   *
+   * @param slot The slot of the variable in the {@link #getVariableSlots() variable slots}.
+   * @return The data value, or <code>null</code> if not set.
+   */
+  EvaluationValue getData(int slot);
+}
@@ -0,0 +1,115 @@
+package com.loncus.data;
+
+import com.loncus.data.EvaluationValue.DataType;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns each variable of an expression a fixed slot number, so that variable values can be stored
+ * in an array instead of a map. The slots are numbered from zero, in the iteration order of the
+ * variable names passed on creation. Names are case-insensitive.
+ *
+ * <p>Variables may have a declared data type. Values of other types can not be bound to them, so
+ * that compiled expressions can rely on the declared types.
+ */
+public final class VariableSlots {
+
+  private final String[] names;
+
+  /** The declared types by slot, <code>null</code> for variables without a declared type. */
+  private final DataType[] types;
+
+  private final Map<String, Integer> slots = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  /**
+   * Creates the slots for the given variables.
+   *
+   * @param variables The variable names, each name gets the next free slot.
+   */
+  public VariableSlots(Collection<String> variables) {
+    this(variables, Collections.emptyMap());
+  }
+
+  /**
+   * Creates the slots for the given variables, with declared data types.
+   *
+   * @param variables The variable names, each name gets the next free slot.
+   * @param variableTypes The declared types by variable name, types of variables that are not in
+   *     the collection are ignored.
+   */
+  public VariableSlots(Collection<String> variables, Map<String, DataType> variableTypes) {
+    Map<String, DataType> declaredTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    declaredTypes.putAll(variableTypes);
+    this.names = new String[variables.size()];
+    this.types = new DataType[variables.size()];
+    int slot = 0;
+    for (String variable : variables) {
+      names[slot] = variable;
+      types[slot] = declaredTypes.get(variable);
+      slots.put(variable, slot++);
+    }
+  }
+
+  /**
+   * Returns the slot of a variable.
+   *
+   * @param variable The variable name.
+   * @return The slot, or <code>-1</code> if the variable has no slot.
+   */
+  public int getSlot(String variable) {
+    Integer slot = slots.get(variable);
+    return slot != null ? slot : -1;
+  }
+
+  /**
+   * Returns the name of the variable in a slot.
+   *
+   * @param slot The slot.
+   * @return The variable name.
+   * @throws IndexOutOfBoundsException If the slot does not exist.
+   */
+  public String getName(int slot) {
+    return names[slot];
+  }
+
+  /**
+   * Returns the declared data type of the variable in a slot.
+   *
+   * @param slot The slot.
+   * @return The declared type, or <code>null</code> if the variable has no declared type.
+   * @throws IndexOutOfBoundsException If the slot does not exist.
+   */
+  public DataType getType(int slot) {
+    return types[slot];
+  }
+
+  /**
+   * Checks that a value can be bound to the variable in a slot.
+   *
+   * @param slot The slot.
+   * @param value The value to bind.
+   * @return The value.
+   * @throws IllegalArgumentException If the value is not of the declared type of the variable.
+   */
+  public EvaluationValue checkType(int slot, EvaluationValue value) {
+    DataType type = types[slot];
+    if (type != null && value.getDataType() != type) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Variable '%s' is declared as %s, but the value is of type %s",
+              names[slot], type, value.getDataType()));
+    }
+    return value;
+  }
+
+  /**
+   * Returns the number of slots.
+   *
+   * @return The number of slots.
+   */
+  public int size() {
+    return names.length;
+  }
+}
@@ -11,20 +11,18 @@ public class NumberConverter implements ConverterIfc {
   public EvaluationValue convert(Object object, ExpressionConfiguration configuration) {
     BigDecimal bigDecimal;
 
-    if (object instanceof BigDecimal) {
+    if (object instanceof Integer
+        || object instanceof Long
+        || object instanceof Short
+        || object instanceof Byte) {
+      // integral numbers are kept as long, the big decimal is created on demand
+      return EvaluationValue.numberValue(((Number) object).longValue());
+    } else if (object instanceof BigDecimal) {
       bigDecimal = (BigDecimal) object;
     } else if (object instanceof Double) {
       bigDecimal = new BigDecimal(Double.toString((double) object), configuration.getMathContext());
     } else if (object instanceof Float) {
       bigDecimal = BigDecimal.valueOf((float) object);
-    } else if (object instanceof Integer) {
-      bigDecimal = BigDecimal.valueOf((int) object);
-    } else if (object instanceof Long) {
-      bigDecimal = BigDecimal.valueOf((long) object);
-    } else if (object instanceof Short) {
-      bigDecimal = BigDecimal.valueOf((short) object);
-    } else if (object instanceof Byte) {
-      bigDecimal = BigDecimal.valueOf((byte) object);
     } else {
       throw illegalArgument(object);
     }
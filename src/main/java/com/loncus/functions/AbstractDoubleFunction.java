@@ -0,0 +1,26 @@
+package com.loncus.functions;
+
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+
+/**
+ * Base class for functions that calculate with double values. The function logic is only
+ * implemented in {@link #evaluateDouble}, evaluation with big decimals converts the parameters to
+ * doubles and the result back.
+ */
+public abstract class AbstractDoubleFunction extends AbstractFunction implements DoubleFunctionIfc {
+
+  @Override
+  public EvaluationValue evaluate(
+      Expression expression, Token functionToken, EvaluationValue... parameterValues)
+      throws EvaluationException {
+    double[] values = new double[parameterValues.length];
+    for (int i = 0; i < parameterValues.length; i++) {
+      values[i] = parameterValues[i].getNumberValue().doubleValue();
+    }
+    return expression.convertDoubleValue(
+        evaluateDouble(expression.getConfiguration(), functionToken, values));
+  }
+}
@@ -2,6 +2,7 @@ package com.loncus.functions;
 
 import com.loncus.EvaluationException;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -17,9 +18,11 @@ public abstract class AbstractFunction implements FunctionIfc {
 
   private final boolean hasVarArgs;
 
+  private final DataType returnType;
+
   /**
    * Creates a new function and uses the {@link FunctionParameter} annotations to create the
-   * parameter definitions.
+   * parameter definitions, and the {@link FunctionReturnType} annotation for the return type.
    */
   protected AbstractFunction() {
     FunctionParameter[] parameterAnnotations =
@@ -46,6 +49,9 @@ public abstract class AbstractFunction implements FunctionIfc {
     }
 
     hasVarArgs = varArgParameterFound;
+
+    FunctionReturnType returnTypeAnnotation = getClass().getAnnotation(FunctionReturnType.class);
+    returnType = returnTypeAnnotation != null ? returnTypeAnnotation.value() : null;
   }
 
   @Override
@@ -73,6 +79,11 @@ public abstract class AbstractFunction implements FunctionIfc {
     return hasVarArgs;
   }
 
+  @Override
+  public DataType getReturnType() {
+    return returnType;
+  }
+
   private FunctionParameterDefinition getParameterDefinitionForParameter(int index) {
 
     if (hasVarArgs && index >= functionParameterDefinitions.size()) {
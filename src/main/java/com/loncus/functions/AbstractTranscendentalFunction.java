@@ -0,0 +1,55 @@
+package com.loncus.functions;
+
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.FunctionPrecision;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Base class for functions that calculate with doubles, or with big decimals rounded to the math
+ * context, depending on the {@link ExpressionConfiguration#getFunctionPrecision() function
+ * precision}. Arithmetic exceptions of the big decimal calculation, e.g. for a result out of range,
+ * are reported as evaluation exceptions.
+ */
+public abstract class AbstractTranscendentalFunction extends AbstractDoubleFunction {
+
+  @Override
+  public EvaluationValue evaluate(
+      Expression expression, Token functionToken, EvaluationValue... parameterValues)
+      throws EvaluationException {
+    ExpressionConfiguration configuration = expression.getConfiguration();
+    if (configuration.getFunctionPrecision() != FunctionPrecision.MATH_CONTEXT) {
+      return super.evaluate(expression, functionToken, parameterValues);
+    }
+    MathContext mathContext = configuration.getMathContext();
+    EvaluationBudget budget = expression.getEvaluationBudget();
+    if (budget.isLimited()) {
+      budget.checkDigits(functionToken, mathContext.getPrecision());
+    }
+    BigDecimal[] values = new BigDecimal[parameterValues.length];
+    for (int i = 0; i < parameterValues.length; i++) {
+      values[i] = parameterValues[i].getNumberValue();
+    }
+    try {
+      return EvaluationValue.numberValue(evaluateBigDecimal(mathContext, values));
+    } catch (ArithmeticException e) {
+      throw new EvaluationException(functionToken, e.getMessage());
+    }
+  }
+
+  /**
+   * Calculates the function with big decimals.
+   *
+   * @param mathContext The math context, to which the result is rounded.
+   * @param parameterValues The parameter values.
+   * @return The result of the function.
+   * @throws ArithmeticException If the result can not be calculated.
+   */
+  protected abstract BigDecimal evaluateBigDecimal(
+      MathContext mathContext, BigDecimal... parameterValues);
+}
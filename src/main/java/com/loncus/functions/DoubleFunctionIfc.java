@@ -0,0 +1,26 @@
+package com.loncus.functions;
+
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.parser.Token;
+
+/**
+ * A function that can also be evaluated with primitive double values, in the {@link
+ * ExpressionConfiguration.NumericMode#DOUBLE} numeric mode. The parameters are validated before the
+ * call, according to their {@link FunctionParameterDefinition}.
+ */
+public interface DoubleFunctionIfc extends FunctionIfc {
+
+  /**
+   * Performs the function logic with primitive double values.
+   *
+   * @param configuration The expression configuration.
+   * @param functionToken The function token from the parsed expression.
+   * @param parameterValues The parameter values.
+   * @return The result.
+   * @throws EvaluationException In case there were problems during evaluation.
+   */
+  double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues)
+      throws EvaluationException;
+}
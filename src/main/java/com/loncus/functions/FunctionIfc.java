@@ -3,6 +3,7 @@ package com.loncus.functions;
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.parser.Token;
 import java.util.List;
 
@@ -64,4 +65,27 @@ public interface FunctionIfc {
     }
     return getFunctionParameterDefinitions().get(parameterIndex).isLazy();
   }
+
+  /**
+   * Checks if the function is deterministic, that is, it always returns the same result for the
+   * same parameter values and has no side effects. Calls of deterministic functions with constant
+   * parameters may be evaluated once, when the expression is compiled, and identical calls in one
+   * expression may be evaluated only once per evaluation.
+   *
+   * @return <code>true</code> (default) if the function is deterministic.
+   */
+  default boolean isDeterministic() {
+    return true;
+  }
+
+  /**
+   * Returns the data type of all function results, if it is known before evaluation. Compiled
+   * expressions use it to infer the types of the operations on the function result.
+   *
+   * @return The result type, or <code>null</code> (default) if it depends on the evaluation.
+   * @see FunctionReturnType
+   */
+  default DataType getReturnType() {
+    return null;
+  }
 }
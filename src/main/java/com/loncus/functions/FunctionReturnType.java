@@ -0,0 +1,17 @@
+package com.loncus.functions;
+
+import com.loncus.data.EvaluationValue.DataType;
+import java.lang.annotation.*;
+
+/**
+ * Annotation to declare the data type of all function results. Compiled expressions use it to infer
+ * the types of the operations on the function result.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FunctionReturnType {
+
+  /** The data type of the function results. */
+  DataType value();
+}
@@ -1,20 +1,31 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Absolute (non-negative) value. */
 @FunctionParameter(name = "value")
-public class AbsFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class AbsFunction extends AbstractFunction implements DoubleFunctionIfc {
 
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
 
-    return expression.convertValue(
+    return EvaluationValue.numberValue(
         parameterValues[0].getNumberValue().abs(expression.getConfiguration().getMathContext()));
   }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.abs(parameterValues[0]);
+  }
 }
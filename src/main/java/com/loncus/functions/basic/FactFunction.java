@@ -1,27 +1,63 @@
 package com.loncus.functions.basic;
 
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
+import java.math.MathContext;
 
 /** Factorial function, calculates the factorial of a base value. */
 @FunctionParameter(name = "base")
-public class FactFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class FactFunction extends AbstractFunction implements DoubleFunctionIfc {
 
   @Override
   public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      Expression expression, Token functionToken, EvaluationValue... parameterValues)
+      throws EvaluationException {
     int number = parameterValues[0].getNumberValue().intValue();
+    MathContext mathContext = expression.getConfiguration().getMathContext();
+    EvaluationBudget budget = expression.getEvaluationBudget();
+    if (budget.isLimited()) {
+      budget.checkDigits(functionToken, estimateDigits(number, mathContext));
+    }
     BigDecimal factorial = BigDecimal.ONE;
     for (int i = 1; i <= number; i++) {
-      factorial =
-          factorial.multiply(
-              new BigDecimal(i, expression.getConfiguration().getMathContext()),
-              expression.getConfiguration().getMathContext());
+      budget.checkCancelled(functionToken);
+      factorial = factorial.multiply(new BigDecimal(i, mathContext), mathContext);
+    }
+    return EvaluationValue.numberValue(factorial);
+  }
+
+  /** Estimates the digits of the factorial with Stirling's formula, capped by the precision. */
+  private static long estimateDigits(int number, MathContext mathContext) {
+    if (number < 2) {
+      return 1;
+    }
+    double digits =
+        number * Math.log10(number / Math.E) + 0.5 * Math.log10(2 * Math.PI * number) + 1;
+    return mathContext.getPrecision() > 0
+        ? Math.min((long) digits, mathContext.getPrecision())
+        : (long) digits;
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    int number = (int) parameterValues[0];
+    double factorial = 1;
+    // beyond 170!, the factorial is infinite
+    for (int i = 1; i <= number && !Double.isInfinite(factorial); i++) {
+      factorial *= i;
     }
-    return expression.convertValue(factorial);
+    return factorial;
   }
 }
@@ -1,21 +1,32 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.RoundingMode;
 
 /** Rounds the given value an integer using the rounding mode {@link RoundingMode#FLOOR} */
 @FunctionParameter(name = "value")
-public class FloorFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class FloorFunction extends AbstractFunction implements DoubleFunctionIfc {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
 
     EvaluationValue value = parameterValues[0];
 
-    return expression.convertValue(value.getNumberValue().setScale(0, RoundingMode.FLOOR));
+    return EvaluationValue.numberValue(value.getNumberValue().setScale(0, RoundingMode.FLOOR));
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.floor(parameterValues[0]);
   }
 }
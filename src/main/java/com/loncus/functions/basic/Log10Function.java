@@ -1,20 +1,27 @@
 package com.loncus.functions.basic;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractTranscendentalFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
+import com.loncus.math.BigDecimalMath;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 /** The base 10 logarithm of a value */
 @FunctionParameter(name = "value", nonZero = true, nonNegative = true)
-public class Log10Function extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class Log10Function extends AbstractTranscendentalFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
-    double d = parameterValues[0].getNumberValue().doubleValue();
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.log10(parameterValues[0]);
+  }
 
-    return expression.convertDoubleValue(Math.log10(d));
+  @Override
+  protected BigDecimal evaluateBigDecimal(MathContext mathContext, BigDecimal... parameterValues) {
+    return BigDecimalMath.log10(parameterValues[0], mathContext);
   }
 }
@@ -1,20 +1,27 @@
 package com.loncus.functions.basic;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractTranscendentalFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
+import com.loncus.math.BigDecimalMath;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 /** The natural logarithm (base e) of a value */
 @FunctionParameter(name = "value", nonZero = true, nonNegative = true)
-public class LogFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class LogFunction extends AbstractTranscendentalFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
-    double d = parameterValues[0].getNumberValue().doubleValue();
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.log(parameterValues[0]);
+  }
 
-    return expression.convertDoubleValue(Math.log(d));
+  @Override
+  protected BigDecimal evaluateBigDecimal(MathContext mathContext, BigDecimal... parameterValues) {
+    return BigDecimalMath.ln(parameterValues[0], mathContext);
   }
 }
@@ -1,15 +1,20 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
 /** Returns the maximum value of all parameters. */
 @FunctionParameter(name = "value", isVarArg = true)
-public class MaxFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class MaxFunction extends AbstractFunction implements DoubleFunctionIfc {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
@@ -19,6 +24,16 @@ public class MaxFunction extends AbstractFunction {
         max = parameter.getNumberValue();
       }
     }
-    return expression.convertValue(max);
+    return EvaluationValue.numberValue(max);
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    double max = parameterValues[0];
+    for (int i = 1; i < parameterValues.length; i++) {
+      max = Math.max(max, parameterValues[i]);
+    }
+    return max;
   }
 }
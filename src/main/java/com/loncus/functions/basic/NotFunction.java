@@ -2,12 +2,15 @@ package com.loncus.functions.basic;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Boolean negation function. */
 @FunctionParameter(name = "value")
+@FunctionReturnType(DataType.BOOLEAN)
 public class NotFunction extends AbstractFunction {
 
   @Override
@@ -16,6 +19,6 @@ public class NotFunction extends AbstractFunction {
 
     boolean result = parameterValues[0].getBooleanValue();
 
-    return expression.convertValue(!result);
+    return EvaluationValue.booleanValue(!result);
   }
 }
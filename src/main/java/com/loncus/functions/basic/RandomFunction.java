@@ -1,13 +1,19 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /** Random function produces a random value between 0 and 1. */
-public class RandomFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class RandomFunction extends AbstractFunction implements DoubleFunctionIfc {
 
   @Override
   public EvaluationValue evaluate(
@@ -17,4 +23,16 @@ public class RandomFunction extends AbstractFunction {
 
     return expression.convertDoubleValue(secureRandom.nextDouble());
   }
+
+  @Override
+  public boolean isDeterministic() {
+    return false;
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    // a thread local generator neither blocks nor allocates on each call
+    return ThreadLocalRandom.current().nextDouble();
+  }
 }
@@ -1,10 +1,15 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
 
 /**
  * Rounds the given value to the specified scale, using the {@link java.math.MathContext} of the
@@ -12,7 +17,8 @@ import com.loncus.parser.Token;
  */
 @FunctionParameter(name = "value")
 @FunctionParameter(name = "scale")
-public class RoundFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class RoundFunction extends AbstractFunction implements DoubleFunctionIfc {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
@@ -20,11 +26,20 @@ public class RoundFunction extends AbstractFunction {
     EvaluationValue value = parameterValues[0];
     EvaluationValue precision = parameterValues[1];
 
-    return expression.convertValue(
+    return EvaluationValue.numberValue(
         value
             .getNumberValue()
             .setScale(
                 precision.getNumberValue().intValue(),
                 expression.getConfiguration().getMathContext().getRoundingMode()));
   }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    // rounding a decimal representation gives the same result as with big decimals
+    return BigDecimal.valueOf(parameterValues[0])
+        .setScale((int) parameterValues[1], configuration.getMathContext().getRoundingMode())
+        .doubleValue();
+  }
 }
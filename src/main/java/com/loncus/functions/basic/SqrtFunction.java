@@ -1,46 +1,117 @@
 package com.loncus.functions.basic;
 
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
 
-/** Square root function, uses the standard {@link BigDecimal#sqrt(MathContext)} implementation. */
+/**
+ * Square root function. The result is truncated to as many decimal places as the precision of the
+ * math context. It is calculated as integer square root, see {@link #sqrt(BigInteger)}.
+ */
 @FunctionParameter(name = "value", nonNegative = true)
-public class SqrtFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class SqrtFunction extends AbstractFunction implements DoubleFunctionIfc {
+
+  /** The maximum number of bits of a number whose square root is calculated with doubles. */
+  private static final int DOUBLE_SQRT_BITS = 62;
 
   @Override
   public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      Expression expression, Token functionToken, EvaluationValue... parameterValues)
+      throws EvaluationException {
 
-    /*
-     * From The Java Programmers Guide To numerical Computing
-     * (Ronald Mak, 2003)
-     */
     BigDecimal x = parameterValues[0].getNumberValue();
-    MathContext mathContext = expression.getConfiguration().getMathContext();
+    int precision = expression.getConfiguration().getMathContext().getPrecision();
 
     if (x.compareTo(BigDecimal.ZERO) == 0) {
-      return expression.convertValue(BigDecimal.ZERO);
+      return EvaluationValue.numberValue(BigDecimal.ZERO);
+    }
+    // perfect squares of small numbers, like 144 or 0.25, have an exact root of half the scale
+    if (x.precision() <= 18 && x.scale() % 2 == 0 && x.scale() / 2 <= precision) {
+      long unscaled = x.unscaledValue().longValue();
+      long root = sqrt(unscaled);
+      if (root * root == unscaled) {
+        return EvaluationValue.numberValue(
+            BigDecimal.valueOf(root, x.scale() / 2).setScale(precision));
+      }
+    }
+    EvaluationBudget budget = expression.getEvaluationBudget();
+    budget.checkDigits(functionToken, precision);
+    BigInteger n = x.movePointRight(precision << 1).toBigInteger();
+
+    return EvaluationValue.numberValue(new BigDecimal(sqrt(n, budget, functionToken), precision));
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.sqrt(parameterValues[0]);
+  }
+
+  /**
+   * Calculates the integer square root, the largest integer whose square is not greater than the
+   * number. The root of the highest 62 bits is seeded from {@link Math#sqrt(double)}. Each Newton
+   * step then doubles the number of bits of the root, until the root of the whole number is found.
+   *
+   * @param n The non-negative number.
+   * @param budget The evaluation budget, which is checked for cancellation after each step.
+   * @param functionToken The function token, for the error message of a cancellation.
+   * @return The integer square root.
+   * @throws EvaluationException If the evaluation is cancelled.
+   */
+  static BigInteger sqrt(BigInteger n, EvaluationBudget budget, Token functionToken)
+      throws EvaluationException {
+    int bitLength = n.bitLength();
+    // the shift of the number for each approximation, the root of a shift by 2k bits is the root
+    // of the number shifted by k bits
+    int[] shifts = new int[32];
+    int levels = 0;
+    int shift = 0;
+    while (bitLength - 2 * shift > DOUBLE_SQRT_BITS) {
+      shifts[levels++] = shift;
+      shift += (bitLength - 2 * shift) / 4;
+    }
+    BigInteger root = BigInteger.valueOf(sqrt(n.shiftRight(2 * shift).longValue()));
+    while (levels > 0) {
+      budget.checkCancelled(functionToken);
+      int nextShift = shifts[--levels];
+      BigInteger m = n.shiftRight(2 * nextShift);
+      root = root.shiftLeft(shift - nextShift);
+      // a Newton step is never below the root, and at most a few units above it
+      root = root.add(m.divide(root)).shiftRight(1);
+      while (root.multiply(root).compareTo(m) > 0) {
+        root = root.subtract(BigInteger.ONE);
+      }
+      shift = nextShift;
+    }
+    return root;
+  }
+
+  /**
+   * Calculates the integer square root of a long with up to 62 bits.
+   *
+   * @param n The non-negative number.
+   * @return The integer square root.
+   */
+  static long sqrt(long n) {
+    long root = (long) Math.sqrt(n);
+    // the double may be rounded, the root of 62 bits has no overflow when squared
+    while (root * root > n) {
+      root--;
+    }
+    while ((root + 1) * (root + 1) <= n) {
+      root++;
     }
-    BigInteger n = x.movePointRight(mathContext.getPrecision() << 1).toBigInteger();
-
-    int bits = (n.bitLength() + 1) >> 1;
-    BigInteger ix = n.shiftRight(bits);
-    BigInteger ixPrev;
-    BigInteger test;
-    do {
-      ixPrev = ix;
-      ix = ix.add(n.divide(ix)).shiftRight(1);
-      // Give other threads a chance to work
-      Thread.yield();
-      test = ix.subtract(ixPrev).abs();
-    } while (test.compareTo(BigInteger.ZERO) != 0 && test.compareTo(BigInteger.ONE) != 0);
-
-    return expression.convertValue(new BigDecimal(ix, mathContext.getPrecision()));
+    return root;
   }
 }
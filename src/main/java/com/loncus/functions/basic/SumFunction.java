@@ -1,15 +1,20 @@
 package com.loncus.functions.basic;
 
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.DoubleFunctionIfc;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
 /** Returns the sum value of all parameters. */
 @FunctionParameter(name = "value", isVarArg = true)
-public class SumFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class SumFunction extends AbstractFunction implements DoubleFunctionIfc {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
@@ -17,6 +22,16 @@ public class SumFunction extends AbstractFunction {
     for (EvaluationValue parameter : parameterValues) {
       sum = sum.add(parameter.getNumberValue(), expression.getConfiguration().getMathContext());
     }
-    return expression.convertValue(sum);
+    return EvaluationValue.numberValue(sum);
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    double sum = 0;
+    for (double parameterValue : parameterValues) {
+      sum += parameterValue;
+    }
+    return sum;
   }
 }
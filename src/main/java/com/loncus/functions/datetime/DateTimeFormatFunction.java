@@ -2,13 +2,16 @@ package com.loncus.functions.datetime;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 @FunctionParameter(name = "value", isVarArg = true)
+@FunctionReturnType(DataType.STRING)
 public class DateTimeFormatFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
@@ -23,6 +26,6 @@ public class DateTimeFormatFunction extends AbstractFunction {
       formatted =
           parameterValues[0].getDateTimeValue().atZone(zoneId).toLocalDateTime().format(formatter);
     }
-    return expression.convertValue(formatted);
+    return EvaluationValue.stringValue(formatted);
   }
 }
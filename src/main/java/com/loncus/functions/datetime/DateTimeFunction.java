@@ -2,13 +2,16 @@ package com.loncus.functions.datetime;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
 @FunctionParameter(name = "values", isVarArg = true, nonNegative = true)
+@FunctionReturnType(DataType.DATE_TIME)
 public class DateTimeFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
@@ -22,7 +25,7 @@ public class DateTimeFunction extends AbstractFunction {
     int nanoOfs = parameterValues.length >= 7 ? parameterValues[6].getNumberValue().intValue() : 0;
 
     ZoneId zoneId = expression.getConfiguration().getZoneId();
-    return expression.convertValue(
+    return EvaluationValue.dateTimeValue(
         LocalDateTime.of(year, month, day, hour, minute, second, nanoOfs)
             .atZone(zoneId)
             .toInstant());
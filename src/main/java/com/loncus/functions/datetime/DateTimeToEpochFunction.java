@@ -2,15 +2,20 @@ package com.loncus.functions.datetime;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
 
 @FunctionParameter(name = "value")
+@FunctionReturnType(DataType.NUMBER)
 public class DateTimeToEpochFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-    return expression.convertValue(parameterValues[0].getDateTimeValue().toEpochMilli());
+    return EvaluationValue.numberValue(
+        BigDecimal.valueOf(parameterValues[0].getDateTimeValue().toEpochMilli()));
   }
 }
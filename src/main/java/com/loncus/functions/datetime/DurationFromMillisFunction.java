@@ -2,18 +2,21 @@ package com.loncus.functions.datetime;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 import java.time.Duration;
 
 @FunctionParameter(name = "value")
+@FunctionReturnType(DataType.DURATION)
 public class DurationFromMillisFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
     BigDecimal millis = parameterValues[0].getNumberValue();
-    return expression.convertValue(Duration.ofMillis(millis.longValue()));
+    return EvaluationValue.durationValue(Duration.ofMillis(millis.longValue()));
   }
 }
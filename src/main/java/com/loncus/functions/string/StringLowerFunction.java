@@ -2,16 +2,19 @@ package com.loncus.functions.string;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Converts the given value to lower case. */
 @FunctionParameter(name = "value")
+@FunctionReturnType(DataType.STRING)
 public class StringLowerFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-    return expression.convertValue(parameterValues[0].getStringValue().toLowerCase());
+    return EvaluationValue.stringValue(parameterValues[0].getStringValue().toLowerCase());
   }
 }
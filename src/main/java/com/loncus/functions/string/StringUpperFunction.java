@@ -2,16 +2,19 @@ package com.loncus.functions.string;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Converts the given value to upper case. */
 @FunctionParameter(name = "value")
+@FunctionReturnType(DataType.STRING)
 public class StringUpperFunction extends AbstractFunction {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-    return expression.convertValue(parameterValues[0].getStringValue().toUpperCase());
+    return EvaluationValue.stringValue(parameterValues[0].getStringValue().toUpperCase());
   }
 }
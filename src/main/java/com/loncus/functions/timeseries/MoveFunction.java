@@ -2,16 +2,19 @@ package com.loncus.functions.timeseries;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.data.type.TimePeriod;
 import com.loncus.data.type.TimeSeriesPoint;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Returns a TimeSeriesPoint, the value of the previous n periods. */
 @FunctionParameter(name = "TimeSeriesPoint")
 @FunctionParameter(name = "period")
 @FunctionParameter(name = "times")
+@FunctionReturnType(DataType.TIME_SERIES_POINT)
 public class MoveFunction extends AbstractFunction {
 
   @Override
@@ -22,7 +25,7 @@ public class MoveFunction extends AbstractFunction {
     Number times = parameterValues[2].getNumberValue();
     TimePeriod timePeriod = TimePeriod.fromAlias(period);
 
-    return expression.convertValue(
+    return EvaluationValue.timeSeriesPointValue(
         timeSeriesPoint.setTime(timeSeriesPoint.getTime().minus(times.longValue(), timePeriod)));
   }
 }
@@ -2,12 +2,14 @@ package com.loncus.functions.timeseries;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.data.type.Time;
 import com.loncus.data.type.TimePeriod;
 import com.loncus.data.type.TimeSeries;
 import com.loncus.data.type.TimeSeriesPoint;
 import com.loncus.functions.AbstractFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
@@ -15,6 +17,7 @@ import java.math.BigDecimal;
 @FunctionParameter(name = "TimeSeriesPoint")
 @FunctionParameter(name = "period")
 @FunctionParameter(name = "times")
+@FunctionReturnType(DataType.NUMBER)
 public class MovingAvgFunction extends AbstractFunction {
 
   @Override
@@ -36,6 +39,6 @@ public class MovingAvgFunction extends AbstractFunction {
                 new BigDecimal(timeSeries.getValues().size()),
                 expression.getConfiguration().getMathContext());
 
-    return expression.convertValue(avg);
+    return EvaluationValue.numberValue(avg);
   }
 }
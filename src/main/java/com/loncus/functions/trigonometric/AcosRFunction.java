@@ -1,19 +1,19 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Returns the arc-cosine (in radians). */
 @FunctionParameter(name = "cosine")
-public class AcosRFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class AcosRFunction extends AbstractDoubleFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
-    return expression.convertDoubleValue(
-        Math.acos(parameterValues[0].getNumberValue().doubleValue()));
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.acos(parameterValues[0]);
   }
 }
@@ -1,20 +1,20 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Returns the arc-co-tangent (in radians). */
 @FunctionParameter(name = "value", nonZero = true)
-public class AcotRFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class AcotRFunction extends AbstractDoubleFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
     /* Formula: acot(x) = (pi / 2) - atan(x) */
-    return expression.convertDoubleValue(
-        (Math.PI / 2) - Math.atan(parameterValues[0].getNumberValue().doubleValue()));
+    return (Math.PI / 2) - Math.atan(parameterValues[0]);
   }
 }
@@ -5,15 +5,19 @@ import static java.math.BigDecimal.valueOf;
 
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
 /** Returns the arc-sine (in degrees). */
 @FunctionParameter(name = "value")
-public class AsinFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class AsinFunction extends AbstractDoubleFunction {
 
   private static final BigDecimal MINUS_ONE = valueOf(-1);
 
@@ -21,7 +25,7 @@ public class AsinFunction extends AbstractFunction {
   public EvaluationValue evaluate(
       Expression expression, Token functionToken, EvaluationValue... parameterValues)
       throws EvaluationException {
-
+    // checked here as well, to report the exact parameter value
     BigDecimal parameterValue = parameterValues[0].getNumberValue();
 
     if (parameterValue.compareTo(ONE) > 0) {
@@ -32,6 +36,20 @@ public class AsinFunction extends AbstractFunction {
       throw new EvaluationException(
           functionToken, "Illegal asin(x) for x < -1: x = " + parameterValue);
     }
-    return expression.convertDoubleValue(Math.toDegrees(Math.asin(parameterValue.doubleValue())));
+    return super.evaluate(expression, functionToken, parameterValues);
+  }
+
+  @Override
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues)
+      throws EvaluationException {
+    double value = parameterValues[0];
+    if (value > 1) {
+      throw new EvaluationException(functionToken, "Illegal asin(x) for x > 1: x = " + value);
+    }
+    if (value < -1) {
+      throw new EvaluationException(functionToken, "Illegal asin(x) for x < -1: x = " + value);
+    }
+    return Math.toDegrees(Math.asin(value));
   }
 }
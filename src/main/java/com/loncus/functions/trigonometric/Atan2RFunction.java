@@ -1,22 +1,20 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Returns the angle of atan2 (in radians). */
 @FunctionParameter(name = "y")
 @FunctionParameter(name = "x")
-public class Atan2RFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class Atan2RFunction extends AbstractDoubleFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
-    return expression.convertDoubleValue(
-        Math.atan2(
-            parameterValues[0].getNumberValue().doubleValue(),
-            parameterValues[1].getNumberValue().doubleValue()));
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.atan2(parameterValues[0], parameterValues[1]);
   }
 }
@@ -1,19 +1,27 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractTranscendentalFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
+import com.loncus.math.BigDecimalMath;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
 
 /** Returns the arc-tangent (in degrees). */
 @FunctionParameter(name = "value")
-public class AtanFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class AtanFunction extends AbstractTranscendentalFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    return Math.toDegrees(Math.atan(parameterValues[0]));
+  }
 
-    return expression.convertDoubleValue(
-        Math.toDegrees(Math.atan(parameterValues[0].getNumberValue().doubleValue())));
+  @Override
+  protected BigDecimal evaluateBigDecimal(MathContext mathContext, BigDecimal... parameterValues) {
+    return BigDecimalMath.atanInDegrees(parameterValues[0], mathContext);
   }
 }
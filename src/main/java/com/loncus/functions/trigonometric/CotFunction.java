@@ -1,20 +1,20 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /** Returns the co-tangent of an angle (in degrees). */
 @FunctionParameter(name = "value", nonZero = true)
-public class CotFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class CotFunction extends AbstractDoubleFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
-
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
     /* Formula: cot(x) = cos(x) / sin(x) = 1 / tan(x) */
-    return expression.convertDoubleValue(
-        1 / Math.tan(Math.toRadians(parameterValues[0].getNumberValue().doubleValue())));
+    return 1 / Math.tan(Math.toRadians(parameterValues[0]));
   }
 }
@@ -1,22 +1,23 @@
 package com.loncus.functions.trigonometric;
 
-import com.loncus.Expression;
-import com.loncus.data.EvaluationValue;
-import com.loncus.functions.AbstractFunction;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.AbstractDoubleFunction;
 import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.FunctionReturnType;
 import com.loncus.parser.Token;
 
 /**
  * Converts an angle measured in radians to an approximately equivalent angle measured in degrees.
  */
 @FunctionParameter(name = "radians")
-public class DegFunction extends AbstractFunction {
+@FunctionReturnType(DataType.NUMBER)
+public class DegFunction extends AbstractDoubleFunction {
   @Override
-  public EvaluationValue evaluate(
-      Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+  public double evaluateDouble(
+      ExpressionConfiguration configuration, Token functionToken, double... parameterValues) {
+    double rad = Math.toDegrees(parameterValues[0]);
 
-    double rad = Math.toDegrees(parameterValues[0].getNumberValue().doubleValue());
-
-    return expression.convertDoubleValue(rad);
+    return rad;
   }
 }
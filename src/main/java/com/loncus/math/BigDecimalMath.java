@@ -0,0 +1,1206 @@
+package com.loncus.math;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Transcendental functions of big decimals, correctly rounded to the precision of a math context.
+ * The results are calculated with guard digits, which are doubled while a result is too close to a
+ * rounding boundary, up to a limit that only results extremely close to a boundary reach. With an
+ * unlimited precision, results are rounded to {@link MathContext#DECIMAL128}.
+ *
+ * <p>The functions are calculated with binary fixed point numbers, big integers with a number of
+ * fraction bits, so that intermediate results are truncated by shifts instead of the decimal
+ * rounding of big decimals. The arguments are reduced, by multiples of ln(2) or pi/2 and by
+ * halving, until the Taylor series converge quickly. The constants ln(2), ln(10) and pi are
+ * calculated with binary splitting series, and cached with the largest number of bits requested so
+ * far.
+ *
+ * <p>Invalid arguments and results too large for a big decimal are reported by an {@link
+ * ArithmeticException}, like the arithmetic of big decimals.
+ */
+public final class BigDecimalMath {
+
+  /** The precision of the results, if the precision of the math context is unlimited. */
+  private static final MathContext UNLIMITED_PRECISION_FALLBACK = MathContext.DECIMAL128;
+
+  /** The additional digits of intermediate results, doubled for results close to a boundary. */
+  private static final int GUARD_DIGITS = 10;
+
+  /** The most additional digits, beyond which results are rounded even close to a boundary. */
+  private static final int MAXIMUM_GUARD_DIGITS = 80;
+
+  /**
+   * The distance to a rounding boundary, in units of the last guard digit, below which a result is
+   * calculated again, which is well above the error of the results.
+   */
+  private static final BigInteger BOUNDARY_DISTANCE = BigInteger.valueOf(1000);
+
+  /** The additional bits of fixed point intermediate results. */
+  private static final int GUARD_BITS = 16;
+
+  /**
+   * The additional bits of ln(2) and ln(10), which are multiplied by binary and decimal exponents
+   * of up to 2^40.
+   */
+  private static final int CONSTANT_GUARD_BITS = 40;
+
+  /** The reduction tables have entries for the multiples of 2^-6 from zero to one. */
+  private static final int TABLE_BITS = 6;
+
+  /** The most digits of a base and of an exact power, see {@link #exactPower}. */
+  private static final int EXACT_POWER_DIGITS = 8;
+
+  /** The digits of a double, which are rounded to find exact powers. */
+  private static final MathContext DOUBLE_DIGITS = new MathContext(15);
+
+  /** The largest absolute decimal exponent of a result. */
+  private static final double MAXIMUM_DECIMAL_EXPONENT = 999_999_999;
+
+  /** The largest binary exponent of an angle, which is reduced with as many bits of pi. */
+  private static final int MAXIMUM_ANGLE_EXPONENT = 1 << 20;
+
+  /** The fraction bits of the double approximations. */
+  private static final int DOUBLE_BITS = 62;
+
+  private static final BigDecimal HALF = new BigDecimal("0.5");
+
+  private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+  private static final BigDecimal THIRTY = BigDecimal.valueOf(30);
+
+  private static final BigDecimal FORTY_FIVE = BigDecimal.valueOf(45);
+
+  private static final BigDecimal NINETY = BigDecimal.valueOf(90);
+
+  private static final BigInteger THREE = BigInteger.valueOf(3);
+
+  private static final BigInteger ONE_HUNDRED_EIGHTY = BigInteger.valueOf(180);
+
+  private static final double LN_2 = Math.log(2);
+
+  private static final double LN_10 = Math.log(10);
+
+  private static final double LOG2_10 = LN_10 / LN_2;
+
+  /** The cached constants, calculated again when more bits are needed. */
+  private static volatile Constants constants = new Constants(512);
+
+  /** The cached logarithms of one plus the table multiples, calculated again like the constants. */
+  private static volatile Table lnTable = Table.EMPTY;
+
+  /** The cached arc tangents of the table multiples, calculated again like the constants. */
+  private static volatile Table atanTable = Table.EMPTY;
+
+  private BigDecimalMath() {}
+
+  /**
+   * Calculates the exponential function.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>e^x</code>.
+   * @throws ArithmeticException If the result is out of the range of a big decimal.
+   */
+  public static BigDecimal exp(BigDecimal x, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ONE;
+    }
+    checkRange(x.doubleValue(), "Exponential function result is out of range");
+    return calculate(
+        mathContext,
+        (bits, working) ->
+            isTiny(x, bits) ? expOfTiny(x, working) : exp(toFixed(x, bits), bits, working));
+  }
+
+  /**
+   * Calculates the natural logarithm.
+   *
+   * @param x The positive argument.
+   * @param mathContext The math context of the result.
+   * @return <code>ln(x)</code>.
+   * @throws ArithmeticException If the argument is not positive.
+   */
+  public static BigDecimal ln(BigDecimal x, MathContext mathContext) {
+    checkPositive(x, "Logarithm of a number that is not positive");
+    if (x.compareTo(BigDecimal.ONE) == 0) {
+      return BigDecimal.ZERO;
+    }
+    double approximation = approximateLn(x);
+    if (approximation == 0) {
+      return calculate(mathContext, (bits, working) -> lnOfTiny(x, working));
+    }
+    // a logarithm close to zero needs more fraction bits for the same relative precision
+    int extraBits = Math.max(0, -Math.getExponent(approximation));
+    return calculate(
+        mathContext,
+        (bits, working) -> toDecimal(ln(x, bits + extraBits), bits + extraBits, working));
+  }
+
+  /**
+   * Calculates the base 10 logarithm. The logarithms of powers of ten are exact.
+   *
+   * @param x The positive argument.
+   * @param mathContext The math context of the result.
+   * @return <code>log10(x)</code>.
+   * @throws ArithmeticException If the argument is not positive.
+   */
+  public static BigDecimal log10(BigDecimal x, MathContext mathContext) {
+    checkPositive(x, "Logarithm of a number that is not positive");
+    BigDecimal stripped = x.stripTrailingZeros();
+    if (stripped.unscaledValue().equals(BigInteger.ONE)) {
+      return BigDecimal.valueOf(-(long) stripped.scale()).round(inexact(mathContext));
+    }
+    double approximation = approximateLn(x);
+    if (approximation == 0) {
+      return calculate(
+          mathContext,
+          (bits, working) ->
+              lnOfTiny(x, working).divide(toDecimal(ln10(bits), bits, working), working));
+    }
+    int extraBits = Math.max(0, -Math.getExponent(approximation));
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          int fractionBits = bits + extraBits;
+          BigInteger log10 = ln(x, fractionBits).shiftLeft(fractionBits).divide(ln10(fractionBits));
+          return toDecimal(log10, fractionBits, working);
+        });
+  }
+
+  /**
+   * Calculates the power of a positive number as <code>exp(y * ln(x))</code>. Exact powers with few
+   * digits, like <code>4^0.5 = 2</code>, are found for exponents with up to two decimal places.
+   *
+   * @param x The positive base.
+   * @param y The exponent.
+   * @param mathContext The math context of the result.
+   * @return <code>x^y</code>.
+   * @throws ArithmeticException If the base is not positive, or if the result is out of the range
+   *     of a big decimal.
+   */
+  public static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mathContext) {
+    checkPositive(x, "Power of a number that is not positive");
+    checkRange(y.doubleValue() * approximateLn(x), "Power result is out of range");
+    BigDecimal exact = exactPower(x, y);
+    if (exact != null) {
+      return exact.round(inexact(mathContext));
+    }
+    // an absolute error of y * ln(x) is a relative error of the power, and the error of ln(x) is
+    // multiplied by y
+    int exponentBits = Math.max(0, Math.getExponent(y.doubleValue()) + 1);
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          BigInteger product = multiply(ln(x, bits + exponentBits), y).shiftRight(exponentBits);
+          return exp(product, bits, working);
+        });
+  }
+
+  /**
+   * Finds an exact power with few digits, for an exponent <code>y = n / 10^s</code> with up to two
+   * decimal places. The double approximation c of the power is exact, if <code>c^(10^s) = x^n
+   * </code>, which is checked for small powers only.
+   */
+  private static BigDecimal exactPower(BigDecimal x, BigDecimal y) {
+    BigDecimal exponent = y.stripTrailingZeros();
+    if (exponent.scale() > 2 || exponent.precision() > 3 || x.precision() > EXACT_POWER_DIGITS) {
+      return null;
+    }
+    double power = Math.pow(x.doubleValue(), y.doubleValue());
+    if (!(power > 0 && power < Double.POSITIVE_INFINITY)) {
+      return null;
+    }
+    BigDecimal candidate = new BigDecimal(power, DOUBLE_DIGITS).stripTrailingZeros();
+    if (candidate.precision() > EXACT_POWER_DIGITS) {
+      return null;
+    }
+    int root = exponent.scale() == 2 ? 100 : 10;
+    int n = exponent.movePointRight(exponent.scale()).intValueExact();
+    BigDecimal left = candidate.pow(root);
+    BigDecimal right = x.pow(Math.abs(n));
+    return (n < 0 ? left.multiply(right) : left).compareTo(n < 0 ? BigDecimal.ONE : right) == 0
+        ? candidate
+        : null;
+  }
+
+  /**
+   * Calculates the sine of an angle in radians.
+   *
+   * @param x The angle in radians.
+   * @param mathContext The math context of the result.
+   * @return <code>sin(x)</code>.
+   */
+  public static BigDecimal sin(BigDecimal x, MathContext mathContext) {
+    return sin(x, false, mathContext);
+  }
+
+  /**
+   * Calculates the sine of an angle in degrees. Rational sines, like <code>sin(30) = 0.5</code>,
+   * are exact.
+   *
+   * @param x The angle in degrees.
+   * @param mathContext The math context of the result.
+   * @return <code>sin(x * pi / 180)</code>.
+   */
+  public static BigDecimal sinOfDegrees(BigDecimal x, MathContext mathContext) {
+    return sin(x, true, mathContext);
+  }
+
+  /**
+   * Calculates the cosine of an angle in radians.
+   *
+   * @param x The angle in radians.
+   * @param mathContext The math context of the result.
+   * @return <code>cos(x)</code>.
+   */
+  public static BigDecimal cos(BigDecimal x, MathContext mathContext) {
+    return cos(x, false, mathContext);
+  }
+
+  /**
+   * Calculates the cosine of an angle in degrees. Rational cosines, like <code>cos(60) = 0.5</code>
+   * , are exact.
+   *
+   * @param x The angle in degrees.
+   * @param mathContext The math context of the result.
+   * @return <code>cos(x * pi / 180)</code>.
+   */
+  public static BigDecimal cosOfDegrees(BigDecimal x, MathContext mathContext) {
+    return cos(x, true, mathContext);
+  }
+
+  /**
+   * Calculates the tangent of an angle in radians.
+   *
+   * @param x The angle in radians.
+   * @param mathContext The math context of the result.
+   * @return <code>tan(x)</code>.
+   */
+  public static BigDecimal tan(BigDecimal x, MathContext mathContext) {
+    return tan(x, false, mathContext);
+  }
+
+  /**
+   * Calculates the tangent of an angle in degrees. Rational tangents, like <code>tan(45) = 1</code>
+   * , are exact.
+   *
+   * @param x The angle in degrees.
+   * @param mathContext The math context of the result.
+   * @return <code>tan(x * pi / 180)</code>.
+   * @throws ArithmeticException If the angle is an odd multiple of 90 degrees.
+   */
+  public static BigDecimal tanOfDegrees(BigDecimal x, MathContext mathContext) {
+    return tan(x, true, mathContext);
+  }
+
+  /**
+   * Calculates the arc tangent in radians.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>atan(x)</code>, from -pi/2 to pi/2.
+   */
+  public static BigDecimal atan(BigDecimal x, MathContext mathContext) {
+    return atan(x, false, mathContext);
+  }
+
+  /**
+   * Calculates the arc tangent in degrees. The arc tangents of 1 and -1 are exact.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>atan(x) * 180 / pi</code>, from -90 to 90.
+   */
+  public static BigDecimal atanInDegrees(BigDecimal x, MathContext mathContext) {
+    return atan(x, true, mathContext);
+  }
+
+  /**
+   * Calculates the hyperbolic sine.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>sinh(x)</code>.
+   * @throws ArithmeticException If the result is out of the range of a big decimal.
+   */
+  public static BigDecimal sinh(BigDecimal x, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    BigDecimal magnitude = x.abs();
+    checkRange(magnitude.doubleValue(), "Hyperbolic function result is out of range");
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          if (isTiny(x, bits)) {
+            return cubic(x, 6, working);
+          }
+          if (magnitude.compareTo(BigDecimal.ONE) < 0) {
+            int fractionBits = bits - (int) binaryExponent(magnitude);
+            BigInteger power = exp(toFixed(x, fractionBits), fractionBits);
+            BigInteger difference = power.subtract(reciprocal(power, fractionBits));
+            return toDecimal(difference.shiftRight(1), fractionBits, working);
+          }
+          BigDecimal power = exp(toFixed(magnitude, bits), bits, working);
+          BigDecimal sinh = power.subtract(BigDecimal.ONE.divide(power, working), working);
+          return withSign(sinh.multiply(HALF), x);
+        });
+  }
+
+  /**
+   * Calculates the hyperbolic cosine.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>cosh(x)</code>.
+   * @throws ArithmeticException If the result is out of the range of a big decimal.
+   */
+  public static BigDecimal cosh(BigDecimal x, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ONE;
+    }
+    BigDecimal magnitude = x.abs();
+    checkRange(magnitude.doubleValue(), "Hyperbolic function result is out of range");
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          if (isTiny(x, bits)) {
+            return BigDecimal.ONE.add(x.pow(2).multiply(HALF), up(working));
+          }
+          if (magnitude.compareTo(BigDecimal.ONE) < 0) {
+            BigInteger power = exp(toFixed(magnitude, bits), bits);
+            BigInteger sum = power.add(reciprocal(power, bits));
+            return toDecimal(sum.shiftRight(1), bits, working);
+          }
+          BigDecimal power = exp(toFixed(magnitude, bits), bits, working);
+          BigDecimal cosh = power.add(BigDecimal.ONE.divide(power, working), working);
+          return cosh.multiply(HALF);
+        });
+  }
+
+  /**
+   * Calculates the hyperbolic tangent.
+   *
+   * @param x The argument.
+   * @param mathContext The math context of the result.
+   * @return <code>tanh(x)</code>.
+   */
+  public static BigDecimal tanh(BigDecimal x, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    MathContext inexact = inexact(mathContext);
+    BigDecimal magnitude = x.abs();
+    // tanh(x) = 1 - 2 / (e^2x + 1), where the fraction is below any guard digits for a large x
+    int maximumPrecision = inexact.getPrecision() + MAXIMUM_GUARD_DIGITS;
+    if (2 * magnitude.doubleValue() > (maximumPrecision + 1) * LN_10) {
+      BigDecimal fraction = BigDecimal.ONE.movePointLeft(maximumPrecision + 1);
+      return withSign(BigDecimal.ONE.subtract(fraction), x).round(inexact);
+    }
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          if (isTiny(x, bits)) {
+            return cubic(x, -3, working);
+          }
+          if (magnitude.compareTo(BigDecimal.ONE) < 0) {
+            int fractionBits = bits - (int) binaryExponent(magnitude);
+            BigInteger power = exp(toFixed(x, fractionBits), fractionBits);
+            BigInteger inverse = reciprocal(power, fractionBits);
+            BigInteger tanh =
+                power.subtract(inverse).shiftLeft(fractionBits).divide(power.add(inverse));
+            return toDecimal(tanh, fractionBits, working);
+          }
+          BigDecimal power = exp(toFixed(magnitude.multiply(TWO), bits), bits, working);
+          BigDecimal fraction = TWO.divide(power.add(BigDecimal.ONE), working);
+          return withSign(BigDecimal.ONE.subtract(fraction), x);
+        });
+  }
+
+  /**
+   * Calculates pi.
+   *
+   * @param mathContext The math context of the result.
+   * @return pi.
+   */
+  public static BigDecimal pi(MathContext mathContext) {
+    return calculate(mathContext, (bits, working) -> toDecimal(pi(bits), bits, working));
+  }
+
+  private static BigDecimal sin(BigDecimal x, boolean degrees, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    BigDecimal magnitude = x.abs();
+    checkAngle(magnitude);
+    if (degrees) {
+      Angle angle = reduceDegrees(magnitude);
+      if (angle.isOddQuarterTurns() ? angle.isRationalCos() : angle.isRationalSin()) {
+        return sin(angle.inRadians(GUARD_BITS), x.signum(), inexact(mathContext));
+      }
+      return calculate(
+          mathContext, (bits, working) -> sin(angle.inRadians(bits), x.signum(), working));
+    }
+    return calculate(
+        mathContext,
+        (bits, working) ->
+            isTiny(x, bits)
+                ? cubic(x, -6, working)
+                : sin(reduceRadians(magnitude, bits), x.signum(), working));
+  }
+
+  private static BigDecimal sin(Angle angle, int signum, MathContext mathContext) {
+    BigInteger sin = angle.isOddQuarterTurns() ? angle.cos() : angle.sin();
+    boolean negative = ((angle.quarterTurns & 2) != 0) != (signum < 0);
+    return toDecimal(negative ? sin.negate() : sin, angle.bits, mathContext);
+  }
+
+  private static BigDecimal cos(BigDecimal x, boolean degrees, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ONE;
+    }
+    BigDecimal magnitude = x.abs();
+    checkAngle(magnitude);
+    if (degrees) {
+      Angle angle = reduceDegrees(magnitude);
+      if (angle.isOddQuarterTurns() ? angle.isRationalSin() : angle.isRationalCos()) {
+        return cos(angle.inRadians(GUARD_BITS), inexact(mathContext));
+      }
+      return calculate(mathContext, (bits, working) -> cos(angle.inRadians(bits), working));
+    }
+    return calculate(
+        mathContext,
+        (bits, working) ->
+            isTiny(x, bits)
+                ? BigDecimal.ONE.subtract(x.pow(2).multiply(HALF), up(working))
+                : cos(reduceRadians(magnitude, bits), working));
+  }
+
+  private static BigDecimal cos(Angle angle, MathContext mathContext) {
+    BigInteger cos = angle.isOddQuarterTurns() ? angle.sin() : angle.cos();
+    boolean negative = ((angle.quarterTurns + 1) & 2) != 0;
+    return toDecimal(negative ? cos.negate() : cos, angle.bits, mathContext);
+  }
+
+  private static BigDecimal tan(BigDecimal x, boolean degrees, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    BigDecimal magnitude = x.abs();
+    checkAngle(magnitude);
+    if (degrees) {
+      Angle angle = reduceDegrees(magnitude);
+      if (angle.isRationalTan()) {
+        return tan(angle.inRadians(GUARD_BITS), x.signum(), inexact(mathContext));
+      }
+      return calculate(
+          mathContext, (bits, working) -> tan(angle.inRadians(bits), x.signum(), working));
+    }
+    return calculate(
+        mathContext,
+        (bits, working) ->
+            isTiny(x, bits)
+                ? cubic(x, 3, working)
+                : tan(reduceRadians(magnitude, bits), x.signum(), working));
+  }
+
+  private static BigDecimal tan(Angle angle, int signum, MathContext mathContext) {
+    BigInteger sin;
+    BigInteger cos;
+    if (angle.isHalfRightAngle()) {
+      cos = BigInteger.ONE.shiftLeft(angle.bits);
+      sin = angle.degrees.signum() < 0 ? cos.negate() : cos;
+    } else {
+      sin = angle.sin();
+      cos = angle.cos();
+    }
+    BigInteger tan;
+    if (angle.isOddQuarterTurns()) {
+      if (sin.signum() == 0) {
+        throw new ArithmeticException("Tangent of an odd multiple of 90 degrees");
+      }
+      tan = cos.shiftLeft(angle.bits).divide(sin).negate();
+    } else {
+      tan = sin.shiftLeft(angle.bits).divide(cos);
+    }
+    return toDecimal(signum < 0 ? tan.negate() : tan, angle.bits, mathContext);
+  }
+
+  private static BigDecimal atan(BigDecimal x, boolean degrees, MathContext mathContext) {
+    if (x.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    BigDecimal magnitude = x.abs();
+    int comparison = magnitude.compareTo(BigDecimal.ONE);
+    if (comparison == 0 && degrees) {
+      return withSign(FORTY_FIVE, x);
+    }
+    return calculate(
+        mathContext,
+        (bits, working) -> {
+          if (!degrees && isTiny(x, bits)) {
+            return cubic(x, -3, working);
+          }
+          int fractionBits;
+          BigInteger atan;
+          if (comparison == 0) {
+            fractionBits = bits;
+            atan = pi(bits).shiftRight(2);
+          } else if (comparison > 0) {
+            // atan(x) = pi/2 - atan(1/x)
+            fractionBits = bits;
+            atan = pi(bits).shiftRight(1).subtract(atan(reciprocal(magnitude, bits), bits));
+          } else {
+            fractionBits = bits - (int) binaryExponent(magnitude);
+            atan = atan(toFixed(magnitude, fractionBits), fractionBits);
+          }
+          if (degrees) {
+            atan =
+                atan.multiply(ONE_HUNDRED_EIGHTY).shiftLeft(fractionBits).divide(pi(fractionBits));
+          }
+          return toDecimal(x.signum() < 0 ? atan.negate() : atan, fractionBits, working);
+        });
+  }
+
+  /**
+   * Calculates a function with guard digits and rounds it to the math context. If the result with
+   * guard digits is so close to a rounding boundary of the math context that its error could change
+   * the rounding, it is calculated again with twice the guard digits.
+   */
+  private static BigDecimal calculate(MathContext mathContext, Approximation approximation) {
+    MathContext inexact = inexact(mathContext);
+    for (int guardDigits = GUARD_DIGITS; ; guardDigits *= 2) {
+      MathContext working =
+          new MathContext(inexact.getPrecision() + guardDigits, RoundingMode.DOWN);
+      BigDecimal result = approximation.calculate(bits(working), working);
+      BigDecimal rounded = result.round(inexact);
+      if (guardDigits >= MAXIMUM_GUARD_DIGITS
+          || !isCloseToBoundary(result, rounded, inexact.getPrecision())) {
+        return rounded;
+      }
+    }
+  }
+
+  /**
+   * Checks if the digits of a result beyond the precision are close to a rounding boundary, which
+   * is zero for the directed rounding modes and one half for the half rounding modes. The distance
+   * of the result from its rounded value is either the guard digits or their distance to a unit.
+   */
+  private static boolean isCloseToBoundary(BigDecimal result, BigDecimal rounded, int precision) {
+    int guardDigits = Math.max(0, result.precision() - precision);
+    BigInteger unit = BigInteger.TEN.pow(guardDigits);
+    BigInteger guard = result.subtract(rounded).unscaledValue().abs();
+    return guard.compareTo(BOUNDARY_DISTANCE) <= 0
+        || unit.subtract(guard).compareTo(BOUNDARY_DISTANCE) <= 0
+        || guard.subtract(unit.shiftRight(1)).abs().compareTo(BOUNDARY_DISTANCE) < 0;
+  }
+
+  /**
+   * Calculates the exponential function of a fixed point number. The argument is reduced by the
+   * multiple of ln(10) closest to it, which becomes the exact power of ten of the result.
+   */
+  private static BigDecimal exp(BigInteger z, int bits, MathContext mathContext) {
+    BigInteger ln10 = ln10(bits + CONSTANT_GUARD_BITS);
+    BigInteger scaled = z.shiftLeft(CONSTANT_GUARD_BITS);
+    BigInteger multiple = scaled.add(ln10.shiftRight(1)).divide(ln10);
+    BigInteger remainder = scaled.subtract(multiple.multiply(ln10)).shiftRight(CONSTANT_GUARD_BITS);
+    return toDecimal(exp(remainder, bits), bits, mathContext)
+        .scaleByPowerOfTen(multiple.intValueExact());
+  }
+
+  /**
+   * Calculates the exponential function of a small fixed point number. The argument is divided by a
+   * power of two, until the Taylor series converges quickly, and the result is squared as often.
+   */
+  private static BigInteger exp(BigInteger r, int bits) {
+    int halvings = (int) Math.sqrt(bits);
+    // each squaring doubles the relative error
+    int working = bits + halvings + GUARD_BITS;
+    BigInteger argument = r.shiftLeft(GUARD_BITS);
+    BigInteger sum = BigInteger.ONE.shiftLeft(working);
+    BigInteger term = sum;
+    for (int k = 1; term.signum() != 0; k++) {
+      term = term.multiply(argument).shiftRight(working).divide(BigInteger.valueOf(k));
+      sum = sum.add(term);
+    }
+    for (int i = 0; i < halvings; i++) {
+      sum = sum.multiply(sum).shiftRight(working);
+    }
+    return sum.shiftRight(working - bits);
+  }
+
+  /**
+   * Calculates the natural logarithm of a positive number as fixed point number. The number is
+   * split into <code>m * 2^e * 10^-s</code>, with <code>1 &lt;= m &lt; 2</code>.
+   */
+  private static BigInteger ln(BigDecimal x, int bits) {
+    BigInteger unscaled = x.unscaledValue();
+    int e = unscaled.bitLength() - 1;
+    BigInteger m = unscaled.shiftLeft(bits - e);
+    int constantBits = bits + CONSTANT_GUARD_BITS;
+    return lnOfMantissa(m, bits)
+        .shiftLeft(CONSTANT_GUARD_BITS)
+        .add(ln2(constantBits).multiply(BigInteger.valueOf(e)))
+        .subtract(ln10(constantBits).multiply(BigInteger.valueOf(x.scale())))
+        .shiftRight(CONSTANT_GUARD_BITS);
+  }
+
+  /**
+   * Calculates the natural logarithm of a fixed point number from one to two. With the closest
+   * entry c of the reduction table, <code>ln(m) = ln(c) + 2 atanh((m - c) / (m + c))</code>, where
+   * the series of the arc tangent converges quickly.
+   */
+  private static BigInteger lnOfMantissa(BigInteger m, int bits) {
+    BigInteger one = BigInteger.ONE.shiftLeft(bits);
+    int entry = tableEntry(m.subtract(one), bits);
+    BigInteger c = one.add(BigInteger.valueOf(entry).shiftLeft(bits - TABLE_BITS));
+    BigInteger w = m.subtract(c).shiftLeft(bits).divide(m.add(c));
+    BigInteger atanh = arcSeries(w, 1, bits).shiftLeft(1);
+    return entry == 0 ? atanh : lnTable(entry, bits).add(atanh);
+  }
+
+  /**
+   * Calculates the natural logarithm of a fixed point number from one to two for the reduction
+   * table. With the logarithm y of its double value, <code>ln(m) = y + ln(m * e^-y)</code>, where
+   * the second logarithm is close to zero and its series converges quickly.
+   */
+  private static BigInteger lnFromDouble(BigInteger m, int bits) {
+    BigInteger y = fromDouble(Math.log(toDouble(m, bits)), bits);
+    BigInteger one = BigInteger.ONE.shiftLeft(bits);
+    BigInteger u = m.multiply(exp(y.negate(), bits)).shiftRight(bits).subtract(one);
+    // ln(1 + u) = 2 * atanh(u / (2 + u))
+    BigInteger w = u.shiftLeft(bits).divide(u.add(one.shiftLeft(1)));
+    return y.add(arcSeries(w, 1, bits).shiftLeft(1));
+  }
+
+  /**
+   * Calculates the sine of a fixed point number up to pi/4. The argument is divided by a power of
+   * three, and the result is tripled as often with <code>sin(3a) = 3 sin(a) - 4 sin(a)^3</code>.
+   */
+  private static BigInteger sin(BigInteger r, int bits) {
+    if (r.signum() == 0) {
+      return r;
+    }
+    int triplings = (int) Math.sqrt(bits / 4);
+    // each tripling triples the error
+    int working = bits + 2 * triplings + GUARD_BITS;
+    BigInteger a = r.shiftLeft(working - bits).divide(THREE.pow(triplings));
+    BigInteger square = a.multiply(a).shiftRight(working);
+    BigInteger sum = a;
+    BigInteger term = a;
+    for (int k = 2; term.signum() != 0; k += 2) {
+      term = term.multiply(square).shiftRight(working).divide(BigInteger.valueOf(-k * (k + 1)));
+      sum = sum.add(term);
+    }
+    for (int i = 0; i < triplings; i++) {
+      BigInteger cube = sum.multiply(sum).shiftRight(working).multiply(sum).shiftRight(working);
+      sum = sum.multiply(THREE).subtract(cube.shiftLeft(2));
+    }
+    return sum.shiftRight(working - bits);
+  }
+
+  /**
+   * Calculates the cosine of a fixed point number up to pi/4. The versine <code>1 - cos(a)</code>
+   * of the argument divided by a power of two is doubled as often with <code>
+   * 1 - cos(2a) = 2 (1 - cos(a)) (1 + cos(a))</code>, which keeps its relative error.
+   */
+  private static BigInteger cos(BigInteger r, int bits) {
+    int doublings = (int) Math.sqrt(bits / 2);
+    int working = bits + 2 * doublings + GUARD_BITS;
+    BigInteger a = r.shiftLeft(working - bits - doublings);
+    BigInteger square = a.multiply(a).shiftRight(working);
+    BigInteger term = square.shiftRight(1);
+    BigInteger versine = term;
+    for (int k = 3; term.signum() != 0; k += 2) {
+      term = term.multiply(square).shiftRight(working).divide(BigInteger.valueOf(-k * (k + 1)));
+      versine = versine.add(term);
+    }
+    BigInteger two = BigInteger.ONE.shiftLeft(working + 1);
+    for (int i = 0; i < doublings; i++) {
+      versine = versine.multiply(two.subtract(versine)).shiftRight(working - 1);
+    }
+    return BigInteger.ONE.shiftLeft(working).subtract(versine).shiftRight(working - bits);
+  }
+
+  /**
+   * Calculates the arc tangent of a fixed point number up to one. With the closest entry c of the
+   * reduction table, <code>atan(u) = atan(c) + atan((u - c) / (1 + u c))</code>, where the second
+   * arc tangent is close to zero and its series converges quickly.
+   */
+  private static BigInteger atan(BigInteger u, int bits) {
+    int entry = tableEntry(u, bits);
+    if (entry == 0) {
+      return arcSeries(u, -1, bits);
+    }
+    BigInteger c = BigInteger.valueOf(entry);
+    BigInteger d =
+        u.subtract(c.shiftLeft(bits - TABLE_BITS))
+            .shiftLeft(bits)
+            .divide(BigInteger.ONE.shiftLeft(bits).add(u.multiply(c).shiftRight(TABLE_BITS)));
+    return atanTable(entry, bits).add(arcSeries(d, -1, bits));
+  }
+
+  /**
+   * Calculates the arc tangent of a fixed point number up to one for the reduction table. With the
+   * arc tangent y of its double value, <code>atan(u) = y + atan((u - tan(y)) / (1 + u tan(y)))
+   * </code>, where the second arc tangent is close to zero and its series converges quickly.
+   */
+  private static BigInteger atanFromDouble(BigInteger u, int bits) {
+    BigInteger y = fromDouble(Math.atan(toDouble(u, bits)), bits);
+    BigInteger sin = sin(y, bits);
+    BigInteger cos = cos(y, bits);
+    BigInteger d =
+        u.multiply(cos)
+            .subtract(sin.shiftLeft(bits))
+            .divide(cos.add(u.multiply(sin).shiftRight(bits)));
+    return y.add(arcSeries(d, -1, bits));
+  }
+
+  /**
+   * Calculates the series <code>w + s w^3 / 3 + w^5 / 5 + s w^7 / 7 + ...</code> of a small fixed
+   * point number, which is atan(w) for s = -1 and atanh(w) for s = 1.
+   */
+  private static BigInteger arcSeries(BigInteger w, int sign, int bits) {
+    BigInteger square = w.multiply(w).shiftRight(bits);
+    if (sign < 0) {
+      square = square.negate();
+    }
+    BigInteger sum = w;
+    BigInteger power = w;
+    for (int k = 3; ; k += 2) {
+      power = power.multiply(square).shiftRight(bits);
+      BigInteger term = power.divide(BigInteger.valueOf(k));
+      if (term.signum() == 0) {
+        return sum;
+      }
+      sum = sum.add(term);
+    }
+  }
+
+  /**
+   * Reduces an angle in degrees by the multiple of 90 degrees closest to it, which is exact, so
+   * that the remainder is converted to radians for each number of fraction bits.
+   */
+  private static Angle reduceDegrees(BigDecimal x) {
+    BigDecimal[] division = x.divideAndRemainder(NINETY);
+    BigInteger quarterTurns = division[0].toBigInteger();
+    BigDecimal remainder = division[1];
+    if (remainder.compareTo(FORTY_FIVE) > 0) {
+      quarterTurns = quarterTurns.add(BigInteger.ONE);
+      remainder = remainder.subtract(NINETY);
+    }
+    return new Angle(quarterTurns.intValue(), remainder, null, 0);
+  }
+
+  /**
+   * Reduces an angle in radians by the multiple of pi/2 closest to it. If the remainder is small,
+   * its relative error is large, and it is calculated again with more bits.
+   */
+  private static Angle reduceRadians(BigDecimal x, int bits) {
+    int integerBits = (int) Math.max(0, binaryExponent(x) + 1);
+    int fractionBits = bits + integerBits + GUARD_BITS;
+    while (true) {
+      BigInteger fixed = toFixed(x, fractionBits);
+      BigInteger pi = pi(fractionBits);
+      // round(2x / pi) and 2x - k pi, with one more fraction bit
+      BigInteger quarterTurns = fixed.shiftLeft(2).add(pi).divide(pi.shiftLeft(1));
+      BigInteger remainder = fixed.shiftLeft(1).subtract(quarterTurns.multiply(pi));
+      int significantBits = bits + quarterTurns.bitLength() + 2;
+      if (remainder.bitLength() >= significantBits) {
+        int shift = remainder.bitLength() - bits;
+        return new Angle(
+            quarterTurns.intValue(), null, remainder.shiftRight(shift), fractionBits + 1 - shift);
+      }
+      fractionBits += significantBits - remainder.bitLength() + GUARD_BITS;
+    }
+  }
+
+  /**
+   * Calculates the first two terms of the Taylor series <code>x + x^3 / d</code> of a function,
+   * which are exact enough for an argument whose fourth power is below the precision. The
+   * remainders of the series have the sign of x, so the sum is rounded away from zero, which keeps
+   * a sum below the precision from looking like an exact result.
+   */
+  private static BigDecimal cubic(BigDecimal x, int denominator, MathContext mathContext) {
+    BigDecimal cube = x.pow(3).divide(BigDecimal.valueOf(denominator), working(mathContext));
+    return x.add(cube, up(mathContext));
+  }
+
+  /**
+   * Calculates the Taylor series <code>1 + x + x^2 / 2 + x^3 / 6</code> of the exponential
+   * function, for an argument whose fourth power is below the precision. The remainder is positive,
+   * so the sum is rounded up.
+   */
+  private static BigDecimal expOfTiny(BigDecimal x, MathContext mathContext) {
+    MathContext precise = new MathContext(2 * mathContext.getPrecision(), RoundingMode.CEILING);
+    BigDecimal terms =
+        x.add(x.pow(2).multiply(HALF), precise)
+            .add(x.pow(3).divide(BigDecimal.valueOf(6), precise), precise);
+    return BigDecimal.ONE.add(terms, up(mathContext));
+  }
+
+  /**
+   * Calculates the Taylor series <code>d - d^2 / 2</code> of <code>ln(1 + d)</code>, for a
+   * difference d too small for a double. The remainder has the sign of d.
+   */
+  private static BigDecimal lnOfTiny(BigDecimal x, MathContext mathContext) {
+    BigDecimal d = x.subtract(BigDecimal.ONE);
+    return d.subtract(d.pow(2).multiply(HALF), up(mathContext));
+  }
+
+  private static boolean isTiny(BigDecimal x, int bits) {
+    return x.signum() == 0 || binaryExponent(x) < -(bits / 4) - 1;
+  }
+
+  /** Multiplies a fixed point number by a big decimal. */
+  private static BigInteger multiply(BigInteger fixed, BigDecimal factor) {
+    if (fixed.bitLength() + binaryExponent(factor) < -1) {
+      return BigInteger.ZERO;
+    }
+    BigInteger product = fixed.multiply(factor.unscaledValue());
+    return factor.scale() <= 0
+        ? product.multiply(BigInteger.TEN.pow(-factor.scale()))
+        : product.divide(BigInteger.TEN.pow(factor.scale()));
+  }
+
+  private static BigInteger toFixed(BigDecimal x, int bits) {
+    return multiply(BigInteger.ONE.shiftLeft(bits), x);
+  }
+
+  /** Calculates the reciprocal of a positive big decimal as fixed point number. */
+  private static BigInteger reciprocal(BigDecimal x, int bits) {
+    if (binaryExponent(x) > bits + 1) {
+      return BigInteger.ZERO;
+    }
+    BigInteger unscaled = x.unscaledValue();
+    return x.scale() >= 0
+        ? BigInteger.TEN.pow(x.scale()).shiftLeft(bits).divide(unscaled)
+        : BigInteger.ONE.shiftLeft(bits).divide(unscaled.multiply(BigInteger.TEN.pow(-x.scale())));
+  }
+
+  /** Calculates the reciprocal of a positive fixed point number. */
+  private static BigInteger reciprocal(BigInteger fixed, int bits) {
+    return BigInteger.ONE.shiftLeft(2 * bits).divide(fixed);
+  }
+
+  private static BigDecimal toDecimal(BigInteger fixed, int bits, MathContext mathContext) {
+    return new BigDecimal(fixed)
+        .divide(new BigDecimal(BigInteger.ONE.shiftLeft(bits)), mathContext);
+  }
+
+  private static double toDouble(BigInteger fixed, int bits) {
+    int shift = Math.max(0, fixed.bitLength() - DOUBLE_BITS);
+    return Math.scalb(fixed.shiftRight(shift).doubleValue(), shift - bits);
+  }
+
+  private static BigInteger fromDouble(double value, int bits) {
+    if (value == 0) {
+      return BigInteger.ZERO;
+    }
+    int exponent = Math.getExponent(value);
+    BigInteger mantissa = BigInteger.valueOf((long) Math.scalb(value, DOUBLE_BITS - exponent));
+    int shift = bits - DOUBLE_BITS + exponent;
+    return shift >= 0 ? mantissa.shiftLeft(shift) : mantissa.shiftRight(-shift);
+  }
+
+  /**
+   * Approximates the natural logarithm of a positive number with doubles, with a relative error of
+   * about 1e-16, also for numbers close to one and numbers out of the range of doubles.
+   */
+  private static double approximateLn(BigDecimal x) {
+    if (x.compareTo(HALF) >= 0 && x.compareTo(TWO) <= 0) {
+      return Math.log1p(x.subtract(BigDecimal.ONE).doubleValue());
+    }
+    BigInteger unscaled = x.unscaledValue();
+    int shift = Math.max(0, unscaled.bitLength() - 64);
+    return Math.log(unscaled.shiftRight(shift).doubleValue()) + shift * LN_2 - x.scale() * LN_10;
+  }
+
+  /** Approximates the binary exponent of a non-zero number, the floor of log2(|x|), within one. */
+  private static long binaryExponent(BigDecimal x) {
+    return x.unscaledValue().bitLength() - 1 - (long) Math.floor(x.scale() * LOG2_10);
+  }
+
+  private static void checkAngle(BigDecimal magnitude) {
+    if (binaryExponent(magnitude) > MAXIMUM_ANGLE_EXPONENT) {
+      throw new ArithmeticException("Angle is out of range");
+    }
+  }
+
+  private static void checkPositive(BigDecimal x, String message) {
+    if (x.signum() <= 0) {
+      throw new ArithmeticException(message);
+    }
+  }
+
+  private static void checkRange(double naturalExponent, String message) {
+    if (!(Math.abs(naturalExponent) / LN_10 <= MAXIMUM_DECIMAL_EXPONENT)) {
+      throw new ArithmeticException(message);
+    }
+  }
+
+  private static BigDecimal withSign(BigDecimal magnitude, BigDecimal x) {
+    return x.signum() < 0 ? magnitude.negate() : magnitude;
+  }
+
+  /** The fraction bits of fixed point numbers for the precision of a math context. */
+  private static int bits(MathContext mathContext) {
+    return (int) Math.ceil(mathContext.getPrecision() * LOG2_10);
+  }
+
+  private static MathContext inexact(MathContext mathContext) {
+    return mathContext.getPrecision() == 0 ? UNLIMITED_PRECISION_FALLBACK : mathContext;
+  }
+
+  private static MathContext working(MathContext mathContext) {
+    return new MathContext(mathContext.getPrecision() + GUARD_DIGITS);
+  }
+
+  private static MathContext up(MathContext mathContext) {
+    return new MathContext(mathContext.getPrecision(), RoundingMode.UP);
+  }
+
+  private static BigInteger ln2(int bits) {
+    Constants cached = constants(bits);
+    return cached.ln2.shiftRight(cached.bits - bits);
+  }
+
+  private static BigInteger ln10(int bits) {
+    Constants cached = constants(bits);
+    return cached.ln10.shiftRight(cached.bits - bits);
+  }
+
+  private static BigInteger pi(int bits) {
+    Constants cached = constants(bits);
+    return cached.pi.shiftRight(cached.bits - bits);
+  }
+
+  /** Returns the cached constants, if they have enough bits, or calculates them. */
+  private static Constants constants(int bits) {
+    Constants cached = constants;
+    if (cached.bits < bits) {
+      cached = new Constants(Math.max(bits, 2 * cached.bits));
+      constants = cached;
+    }
+    return cached;
+  }
+
+  /** The index of the table multiple closest to a fixed point number from zero to one. */
+  private static int tableEntry(BigInteger fixed, int bits) {
+    int step = bits - TABLE_BITS;
+    return fixed.add(BigInteger.ONE.shiftLeft(step - 1)).shiftRight(step).intValue();
+  }
+
+  private static BigInteger lnTable(int entry, int bits) {
+    Table cached = lnTable;
+    if (cached.bits < bits) {
+      cached =
+          Table.calculate(
+              Math.max(bits, 2 * cached.bits),
+              (multiple, tableBits) ->
+                  lnFromDouble(multiple.add(BigInteger.ONE.shiftLeft(tableBits)), tableBits));
+      lnTable = cached;
+    }
+    return cached.values[entry].shiftRight(cached.bits - bits);
+  }
+
+  private static BigInteger atanTable(int entry, int bits) {
+    Table cached = atanTable;
+    if (cached.bits < bits) {
+      cached = Table.calculate(Math.max(bits, 2 * cached.bits), BigDecimalMath::atanFromDouble);
+      atanTable = cached;
+    }
+    return cached.values[entry].shiftRight(cached.bits - bits);
+  }
+
+  /** A function calculated with the guard digits of a working math context. */
+  private interface Approximation {
+
+    /**
+     * Calculates the function with fixed point numbers with the fraction bits, or with the working
+     * math context, truncated to the working precision.
+     */
+    BigDecimal calculate(int bits, MathContext working);
+  }
+
+  /**
+   * An angle reduced to at most 45 degrees, as fixed point number of radians, and the number of
+   * quarter turns subtracted from it, modulo four. An angle in degrees keeps its exact remainder in
+   * degrees, whose rational sines, cosines and tangents are exact.
+   */
+  private static final class Angle {
+
+    private final int quarterTurns;
+
+    private final BigDecimal degrees;
+
+    private final BigInteger radians;
+
+    private final int bits;
+
+    private Angle(int quarterTurns, BigDecimal degrees, BigInteger radians, int bits) {
+      this.quarterTurns = quarterTurns & 3;
+      this.degrees = degrees;
+      this.radians = radians;
+      this.bits = bits;
+    }
+
+    private boolean isOddQuarterTurns() {
+      return (quarterTurns & 1) != 0;
+    }
+
+    /**
+     * Converts the remainder in degrees to radians, with enough fraction bits for its relative
+     * precision.
+     */
+    private Angle inRadians(int bits) {
+      if (degrees.signum() == 0) {
+        return new Angle(quarterTurns, degrees, BigInteger.ZERO, bits);
+      }
+      // pi / 180 is about 2^-6, with additional bits for the error of pi times the remainder
+      int fractionBits = bits + (int) Math.max(0, 6 - binaryExponent(degrees));
+      int piBits = fractionBits + 8;
+      BigInteger converted =
+          multiply(pi(piBits), degrees)
+              .divide(ONE_HUNDRED_EIGHTY)
+              .shiftRight(piBits - fractionBits);
+      return new Angle(quarterTurns, degrees, converted, fractionBits);
+    }
+
+    /** Up to 45 degrees, only the sines of 0 and 30 degrees are rational. */
+    private boolean isRationalSin() {
+      return degrees != null && (degrees.signum() == 0 || degrees.abs().compareTo(THIRTY) == 0);
+    }
+
+    private boolean isRationalCos() {
+      return degrees != null && degrees.signum() == 0;
+    }
+
+    private boolean isRationalTan() {
+      return degrees != null && (degrees.signum() == 0 || isHalfRightAngle());
+    }
+
+    private boolean isHalfRightAngle() {
+      return degrees != null && degrees.abs().compareTo(FORTY_FIVE) == 0;
+    }
+
+    private BigInteger sin() {
+      if (degrees != null && degrees.abs().compareTo(THIRTY) == 0) {
+        BigInteger half = BigInteger.ONE.shiftLeft(bits - 1);
+        return degrees.signum() < 0 ? half.negate() : half;
+      }
+      return BigDecimalMath.sin(radians, bits);
+    }
+
+    private BigInteger cos() {
+      return BigDecimalMath.cos(radians, bits);
+    }
+  }
+
+  /**
+   * The fixed point values of a function at the multiples of 2^-6 from zero to one, with a number
+   * of fraction bits, which reduce its argument to a difference of at most 2^-7.
+   */
+  private static final class Table {
+
+    private static final Table EMPTY = new Table(0, new BigInteger[0]);
+
+    private final int bits;
+
+    private final BigInteger[] values;
+
+    private Table(int bits, BigInteger[] values) {
+      this.bits = bits;
+      this.values = values;
+    }
+
+    /** Calculates the values of a function at the multiples as fixed point numbers. */
+    private static Table calculate(int bits, TableFunction function) {
+      BigInteger[] values = new BigInteger[(1 << TABLE_BITS) + 1];
+      for (int entry = 0; entry < values.length; entry++) {
+        values[entry] =
+            function.calculate(BigInteger.valueOf(entry).shiftLeft(bits - TABLE_BITS), bits);
+      }
+      return new Table(bits, values);
+    }
+  }
+
+  /** A function of a fixed point number, which calculates the entries of a reduction table. */
+  private interface TableFunction {
+
+    BigInteger calculate(BigInteger fixed, int bits);
+  }
+
+  /** The fixed point values of ln(2), ln(10) and pi, with a number of fraction bits. */
+  private static final class Constants {
+
+    private final int bits;
+
+    private final BigInteger ln2;
+
+    private final BigInteger ln10;
+
+    private final BigInteger pi;
+
+    /**
+     * Calculates the constants as <code>ln(2) = 2 atanh(1/3)</code>, <code>
+     * ln(10) = 3 ln(2) + 2 atanh(1/9)</code> and Machin's formula <code>
+     * pi = 16 atan(1/5) - 4 atan(1/239)</code>.
+     */
+    private Constants(int bits) {
+      this.bits = bits;
+      int working = bits + GUARD_BITS;
+      BigInteger atanhOfThird = arcSeriesOfReciprocal(3, 1, working);
+      this.ln2 = atanhOfThird.shiftRight(GUARD_BITS - 1);
+      this.ln10 =
+          atanhOfThird
+              .multiply(BigInteger.valueOf(6))
+              .add(arcSeriesOfReciprocal(9, 1, working).shiftLeft(1))
+              .shiftRight(GUARD_BITS);
+      this.pi =
+          arcSeriesOfReciprocal(5, -1, working)
+              .shiftLeft(4)
+              .subtract(arcSeriesOfReciprocal(239, -1, working).shiftLeft(2))
+              .shiftRight(GUARD_BITS);
+    }
+
+    /**
+     * Calculates the series of atan(1/n) for s = -1 and atanh(1/n) for s = 1, the sum of <code>
+     * s^k / ((2k + 1) n^(2k + 1))</code>, with binary splitting.
+     */
+    private static BigInteger arcSeriesOfReciprocal(int n, int sign, int bits) {
+      int terms = (int) (bits / (2 * Math.log(n) / LN_2)) + 2;
+      BigInteger[] sum = split(n, sign, 0, terms);
+      return sum[3].shiftLeft(bits).divide(sum[1].multiply(sum[2]));
+    }
+
+    /**
+     * Sums the terms from the first (inclusive) to the last (exclusive) as exact fraction, so that
+     * the big integers are only divided once. A term k is <code>product(p_j / q_j) / b_k</code> for
+     * <code>j &lt;= k</code>. Returns the product P of the p_j, the product Q of the q_j, the
+     * product B of the b_k, and T, with the sum <code>T / (B Q)</code>.
+     */
+    private static BigInteger[] split(long n, int sign, int first, int last) {
+      if (last - first == 1) {
+        BigInteger p = BigInteger.valueOf(first == 0 ? 1 : sign);
+        BigInteger q = BigInteger.valueOf(first == 0 ? n : n * n);
+        return new BigInteger[] {p, q, BigInteger.valueOf(2L * first + 1), p};
+      }
+      int middle = (first + last) >>> 1;
+      BigInteger[] left = split(n, sign, first, middle);
+      BigInteger[] right = split(n, sign, middle, last);
+      return new BigInteger[] {
+        left[0].multiply(right[0]),
+        left[1].multiply(right[1]),
+        left[2].multiply(right[2]),
+        right[2]
+            .multiply(right[1])
+            .multiply(left[3])
+            .add(left[2].multiply(left[0]).multiply(right[3]))
+      };
+    }
+  }
+}
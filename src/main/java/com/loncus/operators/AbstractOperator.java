@@ -2,7 +2,12 @@ package com.loncus.operators;
 
 import static com.loncus.operators.OperatorIfc.OperatorType.PREFIX_OPERATOR;
 
+import com.loncus.Expression;
 import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.Token;
 import lombok.Getter;
 
 /**
@@ -11,10 +16,15 @@ import lombok.Getter;
  */
 public abstract class AbstractOperator implements OperatorIfc {
 
+  /** The maximum number of digits of a long value. */
+  private static final int LONG_DIGITS = 19;
+
   @Getter private final int precedence;
 
   private final boolean leftAssociative;
 
+  private final boolean operandsLazy;
+
   OperatorType type;
 
   /**
@@ -29,14 +39,17 @@ public abstract class AbstractOperator implements OperatorIfc {
       this.type = OperatorType.INFIX_OPERATOR;
       this.precedence = infixAnnotation.precedence();
       this.leftAssociative = infixAnnotation.leftAssociative();
+      this.operandsLazy = infixAnnotation.operandsLazy();
     } else if (prefixAnnotation != null) {
       this.type = PREFIX_OPERATOR;
       this.precedence = prefixAnnotation.precedence();
       this.leftAssociative = prefixAnnotation.leftAssociative();
+      this.operandsLazy = false;
     } else if (postfixAnnotation != null) {
       this.type = OperatorType.POSTFIX_OPERATOR;
       this.precedence = postfixAnnotation.precedence();
       this.leftAssociative = postfixAnnotation.leftAssociative();
+      this.operandsLazy = false;
     } else {
       throw new OperatorAnnotationNotFoundException(this.getClass().getName());
     }
@@ -52,6 +65,11 @@ public abstract class AbstractOperator implements OperatorIfc {
     return leftAssociative;
   }
 
+  @Override
+  public boolean isOperandLazy() {
+    return operandsLazy;
+  }
+
   @Override
   public boolean isPrefix() {
     return type == PREFIX_OPERATOR;
@@ -66,4 +84,84 @@ public abstract class AbstractOperator implements OperatorIfc {
   public boolean isInfix() {
     return type == OperatorType.INFIX_OPERATOR;
   }
+
+  /**
+   * Checks if all operand types are known to be {@link DataType#NUMBER}, as a condition for
+   * specializations, see {@link #specialize(DataType...)}.
+   *
+   * @param operandTypes The operand types, <code>null</code> for an unknown type.
+   * @return <code>true</code> if all operands are numbers.
+   */
+  protected static boolean areNumbers(DataType... operandTypes) {
+    for (DataType operandType : operandTypes) {
+      if (operandType != DataType.NUMBER) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if values of a type are numbers or time series points, which are both evaluated as
+   * numbers by the arithmetic operators.
+   *
+   * @param type The data type, <code>null</code> for an unknown type.
+   * @return <code>true</code> if the type is a number or time series point type.
+   */
+  protected static boolean isNumberOrTimeSeriesPoint(DataType type) {
+    return type == DataType.NUMBER || type == DataType.TIME_SERIES_POINT;
+  }
+
+  /**
+   * Infers the result type of an operator, that only accepts numbers and time series points and
+   * always returns a number.
+   *
+   * @param operatorToken The operator token from the parsed expression.
+   * @param operandTypes The operand types, <code>null</code> for an unknown type.
+   * @return Always {@link DataType#NUMBER}.
+   * @throws ParseException If an operand type is known and not supported.
+   */
+  protected static DataType inferNumberResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    for (DataType operandType : operandTypes) {
+      if (operandType != null && !isNumberOrTimeSeriesPoint(operandType)) {
+        throw ParseException.ofUnsupportedDataTypeInOperation(operatorToken);
+      }
+    }
+    return DataType.NUMBER;
+  }
+
+  /**
+   * Checks if an arithmetic operation can be calculated with the long values of its operands, see
+   * {@link EvaluationValue#hasLongValue()}. This requires that a long result would not be rounded
+   * by the configured math context.
+   *
+   * @param expression The expression, which provides the configuration.
+   * @param leftOperand The left operand.
+   * @param rightOperand The right operand.
+   * @return <code>true</code> if both operands have long values and long results are exact.
+   */
+  protected static boolean areLongs(
+      Expression expression, EvaluationValue leftOperand, EvaluationValue rightOperand) {
+    if (!leftOperand.hasLongValue() || !rightOperand.hasLongValue()) {
+      return false;
+    }
+    int precision = expression.getConfiguration().getMathContext().getPrecision();
+    return precision == 0 || precision >= LONG_DIGITS;
+  }
+
+  /**
+   * Compares two number values, with their long values if both have one.
+   *
+   * @param leftOperand The left operand.
+   * @param rightOperand The right operand.
+   * @return A negative number, zero or a positive number, like {@link
+   *     Comparable#compareTo(Object)}.
+   */
+  protected static int compareNumbers(EvaluationValue leftOperand, EvaluationValue rightOperand) {
+    if (leftOperand.hasLongValue() && rightOperand.hasLongValue()) {
+      return Long.compare(leftOperand.getLongValue(), rightOperand.getLongValue());
+    }
+    return leftOperand.getNumberValue().compareTo(rightOperand.getNumberValue());
+  }
 }
@@ -13,4 +13,11 @@ public @interface InfixOperator {
 
   /** Operator associativity, defaults to <code>true</code>. */
   boolean leftAssociative() default true;
+
+  /**
+   * If the operands are lazily evaluated. Defaults to <code>false</code>.
+   *
+   * @see OperatorIfc#isOperandLazy()
+   */
+  boolean operandsLazy() default false;
 }
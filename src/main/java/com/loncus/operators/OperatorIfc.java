@@ -4,6 +4,8 @@ import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 
 /**
@@ -103,9 +105,65 @@ public interface OperatorIfc {
    *     expression configuration.
    * @param operatorToken The operator token from the parsed expression.
    * @param operands The operands, one for prefix and postfix operators, two for infix operators.
+   *     Lazy operands are passed as expression nodes, see {@link #isOperandLazy()}.
    * @return The evaluation result in form of a {@link EvaluationValue}.
    * @throws EvaluationException In case there were problems during evaluation.
    */
   EvaluationValue evaluate(Expression expression, Token operatorToken, EvaluationValue... operands)
       throws EvaluationException;
+
+  /**
+   * Checks if the operands are lazily evaluated. Lazy operands are not evaluated in advance, but
+   * the corresponding {@link com.loncus.parser.ASTNode} is passed as an expression node value. The
+   * operator evaluates them on demand, with {@link Expression#evaluateSubtree}, so it can skip an
+   * operand whose value is not needed.
+   *
+   * @return <code>true</code> if the operands are lazily evaluated, <code>false</code> (default)
+   *     otherwise.
+   * @see com.loncus.operators.booleans.InfixAndOperator for an example.
+   */
+  default boolean isOperandLazy() {
+    return false;
+  }
+
+  /**
+   * Checks if the operator is deterministic, that is, it always returns the same result for the
+   * same operand values and has no side effects. Operators with constant operands may be evaluated
+   * once, when the expression is compiled, and identical operations in one expression may be
+   * evaluated only once per evaluation.
+   *
+   * @return <code>true</code> (default) if the operator is deterministic.
+   */
+  default boolean isDeterministic() {
+    return true;
+  }
+
+  /**
+   * Infers the type of the operation result from the operand types, when an expression is compiled.
+   * Operand types that can never be evaluated by the operator are reported as parse errors.
+   *
+   * @param operatorToken The operator token from the parsed expression.
+   * @param operandTypes The operand types, one for prefix and postfix operators, two for infix
+   *     operators. A type is <code>null</code> if it is not known before evaluation.
+   * @return The result type, or <code>null</code> (default) if it is not known before evaluation.
+   * @throws ParseException If the operator does not support the operand types.
+   */
+  default DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return null;
+  }
+
+  /**
+   * Returns an implementation of this operator that is specialized for the given operand types.
+   * Compiled expressions call the specialized operator for operands of these types, so it can skip
+   * the checks of the operand types.
+   *
+   * @param operandTypes The operand types, a type is <code>null</code> if it is not known before
+   *     evaluation.
+   * @return The specialized operator, or this operator (default) if there is no specialization.
+   * @see SpecializedOperator
+   */
+  default OperatorIfc specialize(DataType... operandTypes) {
+    return this;
+  }
 }
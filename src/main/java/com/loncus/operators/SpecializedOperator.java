@@ -0,0 +1,100 @@
+package com.loncus.operators;
+
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.Token;
+
+/**
+ * Base class for the implementations returned by {@link OperatorIfc#specialize(DataType...)}. A
+ * specialized operator only implements the evaluation, all other properties are taken from the
+ * generic operator. The inferred types do not exclude NULL values, e.g. of the NULL rows of a batch
+ * column, so operands that are NULL are passed to the generic operator.
+ */
+public abstract class SpecializedOperator implements OperatorIfc {
+
+  private final OperatorIfc operator;
+
+  /**
+   * Creates a specialization of an operator.
+   *
+   * @param operator The generic operator.
+   */
+  protected SpecializedOperator(OperatorIfc operator) {
+    this.operator = operator;
+  }
+
+  @Override
+  public final EvaluationValue evaluate(
+      Expression expression, Token operatorToken, EvaluationValue... operands)
+      throws EvaluationException {
+    for (EvaluationValue operand : operands) {
+      if (operand.isNullValue()) {
+        return operator.evaluate(expression, operatorToken, operands);
+      }
+    }
+    return evaluateSpecialized(expression, operatorToken, operands);
+  }
+
+  /**
+   * Evaluates the operator for operands of the specialized types, none of them is NULL.
+   *
+   * @param expression The expression, where this operator is evaluated.
+   * @param operatorToken The operator token from the parsed expression.
+   * @param operands The operands.
+   * @return The evaluation result.
+   * @throws EvaluationException In case of any evaluation error.
+   */
+  protected abstract EvaluationValue evaluateSpecialized(
+      Expression expression, Token operatorToken, EvaluationValue... operands)
+      throws EvaluationException;
+
+  @Override
+  public int getPrecedence() {
+    return operator.getPrecedence();
+  }
+
+  @Override
+  public int getPrecedence(ExpressionConfiguration configuration) {
+    return operator.getPrecedence(configuration);
+  }
+
+  @Override
+  public boolean isLeftAssociative() {
+    return operator.isLeftAssociative();
+  }
+
+  @Override
+  public boolean isPrefix() {
+    return operator.isPrefix();
+  }
+
+  @Override
+  public boolean isPostfix() {
+    return operator.isPostfix();
+  }
+
+  @Override
+  public boolean isInfix() {
+    return operator.isInfix();
+  }
+
+  @Override
+  public boolean isOperandLazy() {
+    return operator.isOperandLazy();
+  }
+
+  @Override
+  public boolean isDeterministic() {
+    return operator.isDeterministic();
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return operator.inferResultType(operatorToken, operandTypes);
+  }
+}
@@ -0,0 +1,142 @@
+package com.loncus.operators.arithmetic;
+
+import com.loncus.EvaluationBudget;
+import com.loncus.EvaluationException;
+import com.loncus.math.BigDecimalMath;
+import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Powers of big decimals. Integer powers are calculated by multiplication, with the square and the
+ * cube as single roundings and exponentiation by squaring for larger exponents. Fractional powers
+ * are calculated as <code>exp(y * ln(x))</code> with guard digits, so that the result is correctly
+ * rounded to the precision of the math context, see {@link BigDecimalMath#pow(BigDecimal,
+ * BigDecimal, MathContext)}.
+ */
+final class BigDecimalPower {
+
+  /** The largest absolute exponent of {@link BigDecimal#pow(int, MathContext)}. */
+  private static final int MAXIMUM_INTEGER_EXPONENT = 999_999_999;
+
+  /** The precision of inexact powers, if the precision of the math context is unlimited. */
+  private static final MathContext UNLIMITED_PRECISION_FALLBACK = MathContext.DECIMAL128;
+
+  /** The additional digits of intermediate results. */
+  private static final int GUARD_DIGITS = 10;
+
+  private BigDecimalPower() {}
+
+  /**
+   * Calculates the power of a number.
+   *
+   * @param x The base.
+   * @param y The exponent.
+   * @param mathContext The math context of the result.
+   * @param budget The evaluation budget, which limits the digits of the result.
+   * @param operatorToken The operator token, for error messages.
+   * @return The power, rounded to the math context.
+   * @throws EvaluationException If zero is raised to a negative power, a negative number to a
+   *     fractional power, or if the power is too large or too small for a big decimal.
+   */
+  static BigDecimal pow(
+      BigDecimal x,
+      BigDecimal y,
+      MathContext mathContext,
+      EvaluationBudget budget,
+      Token operatorToken)
+      throws EvaluationException {
+    if (y.signum() == 0) {
+      return BigDecimal.ONE;
+    }
+    if (x.signum() == 0) {
+      if (y.signum() < 0) {
+        throw new EvaluationException(operatorToken, "Division by zero");
+      }
+      return BigDecimal.ZERO;
+    }
+    if (x.compareTo(BigDecimal.ONE) == 0) {
+      return BigDecimal.ONE;
+    }
+    boolean integral = isIntegral(y);
+    if (integral && y.abs().compareTo(BigDecimal.valueOf(MAXIMUM_INTEGER_EXPONENT)) <= 0) {
+      int exponent = y.intValue();
+      if (budget.isLimited()) {
+        budget.checkDigits(operatorToken, estimateDigits(x, Math.abs(exponent), mathContext));
+      }
+      return integerPower(x, exponent, mathContext);
+    }
+    if (x.signum() < 0) {
+      if (!integral) {
+        throw new EvaluationException(operatorToken, "Fractional power of a negative number");
+      }
+      BigDecimal power = pow(x.negate(), y, mathContext, budget, operatorToken);
+      return y.toBigInteger().testBit(0) ? power.negate() : power;
+    }
+    return fractionalPower(x, y, mathContext, budget, operatorToken);
+  }
+
+  private static BigDecimal integerPower(BigDecimal x, int exponent, MathContext mathContext) {
+    if (exponent > 0) {
+      return positivePower(x, exponent, mathContext);
+    }
+    // the reciprocal of the positive power, which is calculated with guard digits
+    MathContext inexact = inexact(mathContext);
+    MathContext working = new MathContext(inexact.getPrecision() + GUARD_DIGITS);
+    return BigDecimal.ONE.divide(positivePower(x, -exponent, working), inexact);
+  }
+
+  private static BigDecimal positivePower(BigDecimal x, int exponent, MathContext mathContext) {
+    switch (exponent) {
+      case 1:
+        return x.round(mathContext);
+      case 2:
+        return x.multiply(x, mathContext);
+      case 3:
+        return x.multiply(x).multiply(x, mathContext);
+      default:
+        // exponentiation by squaring, rounding intermediate results with additional digits
+        return x.pow(exponent, mathContext);
+    }
+  }
+
+  private static BigDecimal fractionalPower(
+      BigDecimal x,
+      BigDecimal y,
+      MathContext mathContext,
+      EvaluationBudget budget,
+      Token operatorToken)
+      throws EvaluationException {
+    if (budget.isLimited()) {
+      budget.checkDigits(operatorToken, inexact(mathContext).getPrecision() + GUARD_DIGITS);
+    }
+    try {
+      return BigDecimalMath.pow(x, y, mathContext);
+    } catch (ArithmeticException e) {
+      throw new EvaluationException(operatorToken, e.getMessage());
+    }
+  }
+
+  private static boolean isIntegral(BigDecimal number) {
+    return number.scale() <= 0 || number.stripTrailingZeros().scale() <= 0;
+  }
+
+  private static MathContext inexact(MathContext mathContext) {
+    return mathContext.getPrecision() == 0 ? UNLIMITED_PRECISION_FALLBACK : mathContext;
+  }
+
+  /**
+   * Estimates the digits of the integer power from the digits of the unscaled base, capped by the
+   * precision.
+   */
+  private static long estimateDigits(BigDecimal base, int exponent, MathContext mathContext) {
+    BigInteger unscaled = base.unscaledValue().abs();
+    double digitsPerFactor =
+        unscaled.bitLength() < 1000
+            ? Math.log10(unscaled.doubleValue())
+            : unscaled.bitLength() * Math.log10(2);
+    long digits = (long) Math.max(1, Math.ceil(exponent * digitsPerFactor));
+    return mathContext.getPrecision() > 0 ? Math.min(digits, mathContext.getPrecision()) : digits;
+  }
+}
@@ -5,8 +5,12 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_MULTIPLICATIV
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
@@ -14,6 +18,16 @@ import java.math.BigDecimal;
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_MULTIPLICATIVE)
 public class InfixDivisionOperator extends AbstractOperator {
 
+  private final OperatorIfc numberDivision =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands)
+            throws EvaluationException {
+          return divide(expression, operatorToken, operands[0], operands[1]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -27,18 +41,36 @@ public class InfixDivisionOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-
-      if (rightOperand.getNumberValue().equals(BigDecimal.ZERO)) {
-        throw new EvaluationException(operatorToken, "Division by zero");
-      }
-
-      return expression.convertValue(
-          leftOperand
-              .getNumberValue()
-              .divide(
-                  rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+      return divide(expression, operatorToken, leftOperand, rightOperand);
     } else {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return inferNumberResultType(operatorToken, operandTypes);
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberDivision : this;
+  }
+
+  private static EvaluationValue divide(
+      Expression expression,
+      Token operatorToken,
+      EvaluationValue leftOperand,
+      EvaluationValue rightOperand)
+      throws EvaluationException {
+    if (rightOperand.getNumberValue().equals(BigDecimal.ZERO)) {
+      throw new EvaluationException(operatorToken, "Division by zero");
+    }
+
+    return EvaluationValue.numberValue(
+        leftOperand
+            .getNumberValue()
+            .divide(rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+  }
 }
@@ -5,15 +5,30 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_ADDITIVE;
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.time.Duration;
 
 /** Subtraction of two numbers. */
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_ADDITIVE)
 public class InfixMinusOperator extends AbstractOperator {
 
+  private final OperatorIfc numberSubtraction =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands) {
+          return subtract(expression, operands[0], operands[1]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -27,26 +42,22 @@ public class InfixMinusOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-      return expression.convertValue(
-          leftOperand
-              .getNumberValue()
-              .subtract(
-                  rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+      return subtract(expression, leftOperand, rightOperand);
 
     } else if (leftOperand.isDateTimeValue() && rightOperand.isDateTimeValue()) {
-      return expression.convertValue(
+      return EvaluationValue.durationValue(
           Duration.ofMillis(
               leftOperand.getDateTimeValue().toEpochMilli()
                   - rightOperand.getDateTimeValue().toEpochMilli()));
 
     } else if (leftOperand.isDateTimeValue() && rightOperand.isDurationValue()) {
-      return expression.convertValue(
+      return EvaluationValue.dateTimeValue(
           leftOperand.getDateTimeValue().minus(rightOperand.getDurationValue()));
     } else if (leftOperand.isDurationValue() && rightOperand.isDurationValue()) {
-      return expression.convertValue(
+      return EvaluationValue.durationValue(
           leftOperand.getDurationValue().minus(rightOperand.getDurationValue()));
     } else if (leftOperand.isDateTimeValue() && rightOperand.isNumberValue()) {
-      return expression.convertValue(
+      return EvaluationValue.dateTimeValue(
           leftOperand
               .getDateTimeValue()
               .minus(Duration.ofMillis(rightOperand.getNumberValue().longValue())));
@@ -54,4 +65,52 @@ public class InfixMinusOperator extends AbstractOperator {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    DataType leftType = operandTypes[0];
+    DataType rightType = operandTypes[1];
+    if (leftType == null || rightType == null) {
+      return null;
+    }
+    if (isNumberOrTimeSeriesPoint(leftType) && isNumberOrTimeSeriesPoint(rightType)) {
+      return DataType.NUMBER;
+    } else if (leftType == DataType.DATE_TIME && rightType == DataType.DATE_TIME) {
+      return DataType.DURATION;
+    } else if (leftType == DataType.DATE_TIME
+        && (rightType == DataType.DURATION || rightType == DataType.NUMBER)) {
+      return DataType.DATE_TIME;
+    } else if (leftType == DataType.DURATION && rightType == DataType.DURATION) {
+      return DataType.DURATION;
+    } else {
+      throw ParseException.ofUnsupportedDataTypeInOperation(operatorToken);
+    }
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberSubtraction : this;
+  }
+
+  private static EvaluationValue subtract(
+      Expression expression, EvaluationValue leftOperand, EvaluationValue rightOperand) {
+    if (areLongs(expression, leftOperand, rightOperand)) {
+      long left = leftOperand.getLongValue();
+      long right = rightOperand.getLongValue();
+      long difference = left - right;
+      // the difference overflowed, if the operand signs differ and the result sign is wrong
+      if (((left ^ right) & (left ^ difference)) >= 0) {
+        return EvaluationValue.numberValue(difference);
+      }
+    }
+    // rounding the exact result only if needed is equal to, but allocates less than, the
+    // subtract with the math context
+    MathContext mathContext = expression.getConfiguration().getMathContext();
+    BigDecimal difference = leftOperand.getNumberValue().subtract(rightOperand.getNumberValue());
+    return EvaluationValue.numberValue(
+        difference.precision() > mathContext.getPrecision()
+            ? difference.round(mathContext)
+            : difference);
+  }
 }
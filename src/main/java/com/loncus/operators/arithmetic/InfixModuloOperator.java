@@ -5,8 +5,12 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_MULTIPLICATIV
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 import java.math.BigDecimal;
 
@@ -14,6 +18,16 @@ import java.math.BigDecimal;
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_MULTIPLICATIVE)
 public class InfixModuloOperator extends AbstractOperator {
 
+  private final OperatorIfc numberRemainder =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands)
+            throws EvaluationException {
+          return remainder(expression, operatorToken, operands[0], operands[1]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -27,18 +41,41 @@ public class InfixModuloOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-
-      if (rightOperand.getNumberValue().equals(BigDecimal.ZERO)) {
-        throw new EvaluationException(operatorToken, "Division by zero");
-      }
-
-      return expression.convertValue(
-          leftOperand
-              .getNumberValue()
-              .remainder(
-                  rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+      return remainder(expression, operatorToken, leftOperand, rightOperand);
     } else {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return inferNumberResultType(operatorToken, operandTypes);
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberRemainder : this;
+  }
+
+  private static EvaluationValue remainder(
+      Expression expression,
+      Token operatorToken,
+      EvaluationValue leftOperand,
+      EvaluationValue rightOperand)
+      throws EvaluationException {
+    if (areLongs(expression, leftOperand, rightOperand) && rightOperand.getLongValue() != 0) {
+      // the sign of the remainder is the sign of the dividend, like with big decimals
+      return EvaluationValue.numberValue(leftOperand.getLongValue() % rightOperand.getLongValue());
+    }
+    if (rightOperand.getNumberValue().equals(BigDecimal.ZERO)) {
+      throw new EvaluationException(operatorToken, "Division by zero");
+    }
+
+    return EvaluationValue.numberValue(
+        leftOperand
+            .getNumberValue()
+            .remainder(
+                rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+  }
 }
@@ -5,14 +5,27 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_MULTIPLICATIV
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 
 /** Multiplication of two numbers. */
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_MULTIPLICATIVE)
 public class InfixMultiplicationOperator extends AbstractOperator {
 
+  private final OperatorIfc numberMultiplication =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands) {
+          return multiply(expression, operands[0], operands[1]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -26,13 +39,40 @@ public class InfixMultiplicationOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-      return expression.convertValue(
-          leftOperand
-              .getNumberValue()
-              .multiply(
-                  rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+      return multiply(expression, leftOperand, rightOperand);
     } else {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return inferNumberResultType(operatorToken, operandTypes);
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberMultiplication : this;
+  }
+
+  private static EvaluationValue multiply(
+      Expression expression, EvaluationValue leftOperand, EvaluationValue rightOperand) {
+    if (areLongs(expression, leftOperand, rightOperand)) {
+      long left = leftOperand.getLongValue();
+      long right = rightOperand.getLongValue();
+      long product = left * right;
+      // like Math.multiplyExact(), but without an exception on overflow
+      if (((Math.abs(left) | Math.abs(right)) >>> 31 == 0
+              || (right == 0 || product / right == left))
+          && (left != Long.MIN_VALUE || right != -1)) {
+        return EvaluationValue.numberValue(product);
+      }
+    }
+    return EvaluationValue.numberValue(
+        leftOperand
+            .getNumberValue()
+            .multiply(
+                rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+  }
 }
@@ -4,9 +4,14 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_ADDITIVE;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
 import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.time.Duration;
 
 /**
@@ -15,6 +20,15 @@ import java.time.Duration;
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_ADDITIVE)
 public class InfixPlusOperator extends AbstractOperator {
 
+  private final OperatorIfc numberAddition =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands) {
+          return add(expression, operands[0], operands[1]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands) {
@@ -27,23 +41,64 @@ public class InfixPlusOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-      return expression.convertValue(
-          leftOperand
-              .getNumberValue()
-              .add(rightOperand.getNumberValue(), expression.getConfiguration().getMathContext()));
+      return add(expression, leftOperand, rightOperand);
     } else if (leftOperand.isDateTimeValue() && rightOperand.isDurationValue()) {
-      return expression.convertValue(
+      return EvaluationValue.dateTimeValue(
           leftOperand.getDateTimeValue().plus(rightOperand.getDurationValue()));
     } else if (leftOperand.isDurationValue() && rightOperand.isDurationValue()) {
-      return expression.convertValue(
+      return EvaluationValue.durationValue(
           leftOperand.getDurationValue().plus(rightOperand.getDurationValue()));
     } else if (leftOperand.isDateTimeValue() && rightOperand.isNumberValue()) {
-      return expression.convertValue(
+      return EvaluationValue.dateTimeValue(
           leftOperand
               .getDateTimeValue()
               .plus(Duration.ofMillis(rightOperand.getNumberValue().longValue())));
     } else {
-      return expression.convertValue(leftOperand.getStringValue() + rightOperand.getStringValue());
+      return EvaluationValue.stringValue(
+          leftOperand.getStringValue() + rightOperand.getStringValue());
+    }
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes) {
+    DataType leftType = operandTypes[0];
+    DataType rightType = operandTypes[1];
+    if (leftType == null || rightType == null) {
+      return null;
+    }
+    if (isNumberOrTimeSeriesPoint(leftType) && isNumberOrTimeSeriesPoint(rightType)) {
+      return DataType.NUMBER;
+    } else if (leftType == DataType.DATE_TIME
+        && (rightType == DataType.DURATION || rightType == DataType.NUMBER)) {
+      return DataType.DATE_TIME;
+    } else if (leftType == DataType.DURATION && rightType == DataType.DURATION) {
+      return DataType.DURATION;
+    } else {
+      return DataType.STRING;
+    }
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberAddition : this;
+  }
+
+  private static EvaluationValue add(
+      Expression expression, EvaluationValue leftOperand, EvaluationValue rightOperand) {
+    if (areLongs(expression, leftOperand, rightOperand)) {
+      long left = leftOperand.getLongValue();
+      long right = rightOperand.getLongValue();
+      long sum = left + right;
+      // the sum overflowed, if its sign differs from the sign of both summands
+      if (((left ^ sum) & (right ^ sum)) >= 0) {
+        return EvaluationValue.numberValue(sum);
+      }
     }
+    // rounding the exact result only if needed is equal to, but allocates less than, the
+    // add with the math context
+    MathContext mathContext = expression.getConfiguration().getMathContext();
+    BigDecimal sum = leftOperand.getNumberValue().add(rightOperand.getNumberValue());
+    return EvaluationValue.numberValue(
+        sum.precision() > mathContext.getPrecision() ? sum.round(mathContext) : sum);
   }
 }
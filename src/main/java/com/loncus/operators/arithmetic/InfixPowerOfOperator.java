@@ -6,22 +6,25 @@ import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.config.ExpressionConfiguration;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
-import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
 
 /**
  * Power of operator, calculates the power of right operand of left operand. The precedence is read
- * from the configuration during parsing.
+ * from the configuration during parsing. Powers of integers that fit into a long are calculated
+ * with longs, all other powers with big decimals, see {@link BigDecimalPower}.
  *
  * @see #getPrecedence(ExpressionConfiguration)
  */
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_POWER, leftAssociative = false)
 public class InfixPowerOfOperator extends AbstractOperator {
 
+  /** The natural logarithm of 2^62, the largest power calculated with longs. */
+  private static final double MAXIMUM_LONG_LN = (Long.SIZE - 2) * Math.log(2);
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -35,35 +38,67 @@ public class InfixPowerOfOperator extends AbstractOperator {
         rightOperand.isNumberValue() || rightOperand.isTimeSeriesPoint();
 
     if (leftIsNumberOrTimeSeriesPoint && rightIsNumberOrTimeSeriesPoint) {
-      /*-
-       * Thanks to Gene Marin:
-       * http://stackoverflow.com/questions/3579779/how-to-do-a-fractional-power-on-bigdecimal-in-java
-       */
+      return power(expression, operatorToken, leftOperand, rightOperand);
+    } else {
+      throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
+    }
+  }
 
-      MathContext mathContext = expression.getConfiguration().getMathContext();
-      BigDecimal v1 = leftOperand.getNumberValue();
-      BigDecimal v2 = rightOperand.getNumberValue();
+  private static EvaluationValue power(
+      Expression expression,
+      Token operatorToken,
+      EvaluationValue leftOperand,
+      EvaluationValue rightOperand)
+      throws EvaluationException {
+    if (areLongs(expression, leftOperand, rightOperand)
+        && isLongPower(leftOperand.getLongValue(), rightOperand.getLongValue())) {
+      return EvaluationValue.numberValue(
+          longPower(leftOperand.getLongValue(), rightOperand.getLongValue()));
+    }
+    return EvaluationValue.numberValue(
+        BigDecimalPower.pow(
+            leftOperand.getNumberValue(),
+            rightOperand.getNumberValue(),
+            expression.getConfiguration().getMathContext(),
+            expression.getEvaluationBudget(),
+            operatorToken));
+  }
 
-      int signOf2 = v2.signum();
-      double dn1 = v1.doubleValue();
-      v2 = v2.multiply(new BigDecimal(signOf2)); // n2 is now positive
-      BigDecimal remainderOf2 = v2.remainder(BigDecimal.ONE);
-      BigDecimal n2IntPart = v2.subtract(remainderOf2);
-      BigDecimal intPow = v1.pow(n2IntPart.intValueExact(), mathContext);
-      BigDecimal doublePow = BigDecimal.valueOf(Math.pow(dn1, remainderOf2.doubleValue()));
+  /**
+   * Checks if the power of a long is a long. The logarithm of the power is estimated with doubles,
+   * which are precise enough to ensure that the power is below 2^63. The magnitude of {@link
+   * Long#MIN_VALUE} is negative, its powers are calculated with big decimals.
+   */
+  private static boolean isLongPower(long base, long exponent) {
+    long magnitude = Math.abs(base);
+    return exponent >= 0
+        && magnitude >= 0
+        && (magnitude <= 1 || exponent * Math.log(magnitude) < MAXIMUM_LONG_LN);
+  }
 
-      BigDecimal result = intPow.multiply(doublePow, mathContext);
-      if (signOf2 == -1) {
-        result = BigDecimal.ONE.divide(result, mathContext.getPrecision(), RoundingMode.HALF_UP);
+  /** Exponentiation by squaring of longs, without overflow, see {@link #isLongPower}. */
+  private static long longPower(long base, long exponent) {
+    long result = 1;
+    long factor = base;
+    for (long remaining = exponent; remaining > 0; remaining >>= 1) {
+      if ((remaining & 1) != 0) {
+        result *= factor;
+      }
+      if (remaining > 1) {
+        factor *= factor;
       }
-      return expression.convertValue(result);
-    } else {
-      throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
+    return result;
   }
 
   @Override
   public int getPrecedence(ExpressionConfiguration configuration) {
     return configuration.getPowerOfPrecedence();
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    return inferNumberResultType(operatorToken, operandTypes);
+  }
 }
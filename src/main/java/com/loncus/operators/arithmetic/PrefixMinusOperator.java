@@ -3,14 +3,27 @@ package com.loncus.operators.arithmetic;
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
+import com.loncus.operators.OperatorIfc;
 import com.loncus.operators.PrefixOperator;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 
 /** Unary prefix minus. */
 @PrefixOperator(leftAssociative = false)
 public class PrefixMinusOperator extends AbstractOperator {
 
+  private final OperatorIfc numberNegation =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands) {
+          return negate(expression, operands[0]);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands)
@@ -18,10 +31,28 @@ public class PrefixMinusOperator extends AbstractOperator {
     EvaluationValue operand = operands[0];
 
     if (operand.isNumberValue()) {
-      return expression.convertValue(
-          operand.getNumberValue().negate(expression.getConfiguration().getMathContext()));
+      return negate(expression, operand);
     } else {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    if (operandTypes[0] != null && operandTypes[0] != DataType.NUMBER) {
+      throw ParseException.ofUnsupportedDataTypeInOperation(operatorToken);
+    }
+    return DataType.NUMBER;
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberNegation : this;
+  }
+
+  private static EvaluationValue negate(Expression expression, EvaluationValue operand) {
+    return EvaluationValue.numberValue(
+        operand.getNumberValue().negate(expression.getConfiguration().getMathContext()));
+  }
 }
@@ -3,8 +3,10 @@ package com.loncus.operators.arithmetic;
 import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.PrefixOperator;
+import com.loncus.parser.ParseException;
 import com.loncus.parser.Token;
 
 /** Unary prefix plus. */
@@ -18,10 +20,19 @@ public class PrefixPlusOperator extends AbstractOperator {
     EvaluationValue operator = operands[0];
 
     if (operator.isNumberValue()) {
-      return expression.convertValue(
+      return EvaluationValue.numberValue(
           operator.getNumberValue().plus(expression.getConfiguration().getMathContext()));
     } else {
       throw EvaluationException.ofUnsupportedDataTypeInOperation(operatorToken);
     }
   }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes)
+      throws ParseException {
+    if (operandTypes[0] != null && operandTypes[0] != DataType.NUMBER) {
+      throw ParseException.ofUnsupportedDataTypeInOperation(operatorToken);
+    }
+    return DataType.NUMBER;
+  }
 }
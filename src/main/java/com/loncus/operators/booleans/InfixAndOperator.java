@@ -2,19 +2,32 @@ package com.loncus.operators.booleans;
 
 import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_AND;
 
+import com.loncus.EvaluationException;
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
 import com.loncus.parser.Token;
 
-/** Boolean AND of two values. */
-@InfixOperator(precedence = OPERATOR_PRECEDENCE_AND)
+/**
+ * Boolean AND of two values. The operands are evaluated lazily, the second operand is only
+ * evaluated if the first one does not determine the result.
+ */
+@InfixOperator(precedence = OPERATOR_PRECEDENCE_AND, operandsLazy = true)
 public class InfixAndOperator extends AbstractOperator {
 
   @Override
   public EvaluationValue evaluate(
-      Expression expression, Token operatorToken, EvaluationValue... operands) {
-    return expression.convertValue(operands[0].getBooleanValue() && operands[1].getBooleanValue());
+      Expression expression, Token operatorToken, EvaluationValue... operands)
+      throws EvaluationException {
+    return EvaluationValue.booleanValue(
+        expression.evaluateSubtree(operands[0].getExpressionNode()).getBooleanValue()
+            && expression.evaluateSubtree(operands[1].getExpressionNode()).getBooleanValue());
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes) {
+    return DataType.BOOLEAN;
   }
 }
@@ -4,17 +4,39 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_COMPARISON;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.operators.SpecializedOperator;
 import com.loncus.parser.Token;
 
 /** Less or equals of two values. */
 @InfixOperator(precedence = OPERATOR_PRECEDENCE_COMPARISON)
 public class InfixLessEqualsOperator extends AbstractOperator {
 
+  private final OperatorIfc numberComparison =
+      new SpecializedOperator(this) {
+        @Override
+        protected EvaluationValue evaluateSpecialized(
+            Expression expression, Token operatorToken, EvaluationValue... operands) {
+          return EvaluationValue.booleanValue(compareNumbers(operands[0], operands[1]) <= 0);
+        }
+      };
+
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands) {
-    return expression.convertValue(operands[0].compareTo(operands[1]) <= 0);
+    return EvaluationValue.booleanValue(operands[0].compareTo(operands[1]) <= 0);
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes) {
+    return DataType.BOOLEAN;
+  }
+
+  @Override
+  public OperatorIfc specialize(DataType... operandTypes) {
+    return areNumbers(operandTypes) ? numberComparison : this;
   }
 }
@@ -4,6 +4,7 @@ import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_EQUALITY;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.InfixOperator;
 import com.loncus.parser.Token;
@@ -15,6 +16,11 @@ public class InfixNotEqualsOperator extends AbstractOperator {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands) {
-    return expression.convertValue(!operands[0].equals(operands[1]));
+    return EvaluationValue.booleanValue(!operands[0].equals(operands[1]));
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes) {
+    return DataType.BOOLEAN;
   }
 }
@@ -2,6 +2,7 @@ package com.loncus.operators.booleans;
 
 import com.loncus.Expression;
 import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
 import com.loncus.operators.AbstractOperator;
 import com.loncus.operators.PrefixOperator;
 import com.loncus.parser.Token;
@@ -13,6 +14,11 @@ public class PrefixNotOperator extends AbstractOperator {
   @Override
   public EvaluationValue evaluate(
       Expression expression, Token operatorToken, EvaluationValue... operands) {
-    return expression.convertValue(!operands[0].getBooleanValue());
+    return EvaluationValue.booleanValue(!operands[0].getBooleanValue());
+  }
+
+  @Override
+  public DataType inferResultType(Token operatorToken, DataType... operandTypes) {
+    return DataType.BOOLEAN;
   }
 }
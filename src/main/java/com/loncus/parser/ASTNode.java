@@ -1,6 +1,7 @@
 package com.loncus.parser;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.Value;
@@ -11,8 +12,8 @@ import lombok.Value;
  * numerical or string constant that has no more children (parameters). Other nodes define
  * operators, functions and special operations like array index and structure separation.
  *
- * <p>The tree is evaluated from bottom (leafs) to top, in a recursive way, until the root node is
- * evaluated, which then holds the result of the complete expression.
+ * <p>The tree is evaluated from bottom (leafs) to top, until the root node is evaluated, which then
+ * holds the result of the complete expression.
  *
  * <p>To be able to visualize the tree, a <code>toJSON</code> method is provided. The produced JSON
  * string can be used to visualize the tree. OE.g. with this online tool:
@@ -22,7 +23,7 @@ import lombok.Value;
 @Value
 public class ASTNode {
 
-  /** The children od the tree. */
+  /** The children od the tree, the list can not be modified. */
   List<ASTNode> parameters;
 
   /** The token associated with this tree node. */
@@ -30,7 +31,7 @@ public class ASTNode {
 
   public ASTNode(Token token, ASTNode... parameters) {
     this.token = token;
-    this.parameters = Arrays.asList(parameters);
+    this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
   }
 
   /**
@@ -0,0 +1,242 @@
+package com.loncus.parser;
+
+import com.loncus.config.ExpressionConfiguration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * A bounded, thread-safe cache for parsed expressions. Entries are keyed by the expression string
+ * and the identity of the {@link ExpressionConfiguration} that was used for parsing, because the
+ * operator and function dictionaries of a configuration determine the resulting tree.
+ *
+ * <p>Lookups are lock-free, so any number of threads can read concurrently. When the cache grows
+ * beyond its maximum size, the least recently used entries are evicted in one batch. Recency is
+ * tracked with an epoch counter that only advances on cache misses, which keeps cache hits free of
+ * contended writes.
+ *
+ * <p>A process-wide instance is available through {@link #sharedCache()}. To let expressions use a
+ * cache, set it in the configuration:
+ *
+ * <pre>
+ *   ExpressionConfiguration config = ExpressionConfiguration.builder().expressionCache(ExpressionCache.sharedCache()).build();
+ * </pre>
+ */
+public class ExpressionCache {
+
+  /** The default maximum number of entries, used for the shared cache. */
+  public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  private static final ExpressionCache SHARED_CACHE = new ExpressionCache(DEFAULT_MAXIMUM_SIZE);
+
+  /** The maximum number of entries the cache holds. */
+  @Getter private final int maximumSize;
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  private final AtomicLong epoch = new AtomicLong();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final Object evictionLock = new Object();
+
+  /**
+   * Creates a new cache with the given maximum size.
+   *
+   * @param maximumSize The maximum number of parsed expressions to keep, must be positive.
+   */
+  public ExpressionCache(int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum cache size must be positive");
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns the process-wide shared cache.
+   *
+   * @return The shared cache instance.
+   */
+  public static ExpressionCache sharedCache() {
+    return SHARED_CACHE;
+  }
+
+  /**
+   * Returns the parsed abstract syntax tree for the expression string. The expression is parsed
+   * only, if it is not found in the cache.
+   *
+   * @param expressionString The expression string.
+   * @param configuration The configuration to use for parsing.
+   * @return The root node of the (immutable) abstract syntax tree.
+   * @throws ParseException If there were problems while parsing the expression. Failed parse
+   *     attempts are not cached.
+   */
+  public ASTNode getAbstractSyntaxTree(
+      String expressionString, ExpressionConfiguration configuration) throws ParseException {
+    Key key = new Key(expressionString, configuration);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      hitCount.increment();
+      entry.touch(epoch.get());
+      return entry.getNode();
+    }
+
+    missCount.increment();
+    ASTNode node = ExpressionParser.parse(expressionString, configuration);
+
+    Entry existing = entries.putIfAbsent(key, new Entry(node, epoch.incrementAndGet()));
+    if (existing != null) {
+      // another thread parsed the same expression in the meantime, share its result
+      return existing.getNode();
+    }
+    if (entries.size() > maximumSize) {
+      evict();
+    }
+    return node;
+  }
+
+  /**
+   * Returns the current number of cached expressions.
+   *
+   * @return The number of entries.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /** Removes all entries from the cache. The statistics are not reset. */
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Returns a snapshot of the cache statistics.
+   *
+   * @return The current hit, miss and eviction counts.
+   */
+  public Statistics getStatistics() {
+    return new Statistics(
+        hitCount.sum(), missCount.sum(), evictionCount.sum(), entries.size(), maximumSize);
+  }
+
+  /**
+   * Evicts the least recently used entries, so that about a tenth of the capacity is free again.
+   * Evicting in batches keeps the sorting cost low, when many new expressions are added.
+   */
+  private void evict() {
+    synchronized (evictionLock) {
+      int targetSize = maximumSize - maximumSize / 10;
+      if (entries.size() <= maximumSize) {
+        return;
+      }
+      // take a snapshot of the access epochs, they may change concurrently while sorting
+      List<Candidate> candidates = new ArrayList<>(entries.size());
+      entries.forEach((key, entry) -> candidates.add(new Candidate(key, entry, entry.lastAccess)));
+      candidates.sort(Comparator.comparingLong(Candidate::getLastAccess));
+      for (Candidate candidate : candidates) {
+        if (entries.size() <= targetSize) {
+          break;
+        }
+        if (entries.remove(candidate.getKey(), candidate.getEntry())) {
+          evictionCount.increment();
+        }
+      }
+    }
+  }
+
+  /** A snapshot of the cache usage statistics. */
+  @Value
+  public static class Statistics {
+
+    /** Number of lookups that found a cached expression. */
+    long hitCount;
+
+    /** Number of lookups that required parsing the expression. */
+    long missCount;
+
+    /** Number of entries that were evicted because the cache was full. */
+    long evictionCount;
+
+    /** Number of entries at the time the snapshot was taken. */
+    int size;
+
+    /** The maximum number of entries. */
+    int maximumSize;
+
+    /**
+     * The ratio of hits to all lookups.
+     *
+     * @return The hit rate between 0 and 1, or 0 if there were no lookups yet.
+     */
+    public double getHitRate() {
+      long requests = hitCount + missCount;
+      return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+  }
+
+  /** Cache key, compares the expression string by value and the configuration by identity. */
+  private static final class Key {
+    private final String expressionString;
+    private final ExpressionConfiguration configuration;
+    private final int hash;
+
+    private Key(String expressionString, ExpressionConfiguration configuration) {
+      this.expressionString = expressionString;
+      this.configuration = configuration;
+      this.hash = 31 * expressionString.hashCode() + System.identityHashCode(configuration);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return configuration == key.configuration && expressionString.equals(key.expressionString);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /** An eviction candidate with the access epoch at the time the eviction started. */
+  @Value
+  private static class Candidate {
+    Key key;
+    Entry entry;
+    long lastAccess;
+  }
+
+  /** Cache entry, holding the parsed tree and the epoch of its last access. */
+  private static final class Entry {
+    @Getter private final ASTNode node;
+    private volatile long lastAccess;
+
+    private Entry(ASTNode node, long lastAccess) {
+      this.node = node;
+      this.lastAccess = lastAccess;
+    }
+
+    private void touch(long currentEpoch) {
+      // avoid writing the shared field, if it already holds the current epoch
+      if (lastAccess != currentEpoch) {
+        lastAccess = currentEpoch;
+      }
+    }
+  }
+}
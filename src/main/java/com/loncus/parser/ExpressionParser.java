@@ -0,0 +1,49 @@
+package com.loncus.parser;
+
+import com.loncus.config.ExpressionConfiguration;
+
+/**
+ * Parses expression strings with the {@link ExpressionConfiguration#getParserType() parser type} of
+ * the configuration.
+ */
+public final class ExpressionParser {
+
+  private ExpressionParser() {}
+
+  /**
+   * Parses the expression into an abstract syntax tree.
+   *
+   * @param expressionString The expression string.
+   * @param configuration The configuration to use.
+   * @return The root node of the tree.
+   * @throws ParseException When the expression can't be parsed.
+   */
+  public static ASTNode parse(String expressionString, ExpressionConfiguration configuration)
+      throws ParseException {
+    return parse(expressionString, configuration, null);
+  }
+
+  /**
+   * Parses the expression into an abstract syntax tree, interning all tokens.
+   *
+   * @param expressionString The expression string.
+   * @param configuration The configuration to use.
+   * @param symbolTable The table to intern the tokens in, <code>null</code> to not intern them.
+   * @return The root node of the tree.
+   * @throws ParseException When the expression can't be parsed.
+   */
+  public static ASTNode parse(
+      String expressionString, ExpressionConfiguration configuration, SymbolTable symbolTable)
+      throws ParseException {
+    switch (configuration.getParserType()) {
+      case PRECEDENCE_CLIMBING:
+        return new PrecedenceClimbingParser(expressionString, configuration, symbolTable)
+            .toAbstractSyntaxTree();
+      case SHUNTING_YARD:
+      default:
+        Tokenizer tokenizer = new Tokenizer(expressionString, configuration, symbolTable);
+        return new ShuntingYardConverter(expressionString, tokenizer.parse(), configuration)
+            .toAbstractSyntaxTree();
+    }
+  }
+}
@@ -22,4 +22,8 @@ public class ParseException extends BaseException {
         token.getValue(),
         message);
   }
+
+  public static ParseException ofUnsupportedDataTypeInOperation(Token token) {
+    return new ParseException(token, "Unsupported data types in operation");
+  }
 }
@@ -0,0 +1,322 @@
+package com.loncus.parser;
+
+import static com.loncus.parser.Token.TokenType.*;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.functions.FunctionIfc;
+import com.loncus.operators.OperatorIfc;
+import com.loncus.parser.Token.TokenType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-pass alternative to the {@link Tokenizer} and {@link ShuntingYardConverter} pipeline.
+ * The tokens are read one by one while the abstract syntax tree is built by precedence climbing, so
+ * neither a token list nor operator and operand stacks are needed.
+ *
+ * <p>For well-formed expressions, the trees are identical to the ones of the shunting yard
+ * converter, and the usual errors are reported with the same messages and positions. Operator
+ * chains are parsed in a loop, but nested braces and right associative operators are parsed
+ * recursively, so their nesting depth is limited by the call stack.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Operator-precedence_parser">Precedence climbing</a>
+ */
+public class PrecedenceClimbingParser {
+
+  private final String expressionString;
+
+  private final ExpressionConfiguration configuration;
+
+  private final Tokenizer tokenizer;
+
+  /** The current token, <code>null</code> at the end of the expression. */
+  private Token currentToken;
+
+  /**
+   * The operator that misses its operand, while the pending operators are unwound. Like with the
+   * shunting yard converter, the pending operators pass their operands on to the inner operators,
+   * so the outermost infix operator reports the missing operand. Without infix operator, it is the
+   * innermost prefix operator.
+   */
+  private Token operatorWithoutOperand;
+
+  /** Set, if the tokenizer reported an error. */
+  private boolean tokenizerFailed;
+
+  public PrecedenceClimbingParser(String expressionString, ExpressionConfiguration configuration) {
+    this(expressionString, configuration, null);
+  }
+
+  /**
+   * Creates a parser that interns all tokens.
+   *
+   * @param expressionString The expression string.
+   * @param configuration The configuration to use.
+   * @param symbolTable The table to intern the tokens in, <code>null</code> to not intern them.
+   */
+  public PrecedenceClimbingParser(
+      String expressionString, ExpressionConfiguration configuration, SymbolTable symbolTable) {
+    this.expressionString = expressionString;
+    this.configuration = configuration;
+    this.tokenizer = new Tokenizer(expressionString, configuration, symbolTable);
+  }
+
+  /**
+   * Parses the expression into an abstract syntax tree.
+   *
+   * @return The root node of the tree.
+   * @throws ParseException When the expression can't be parsed.
+   */
+  public ASTNode toAbstractSyntaxTree() throws ParseException {
+    try {
+      nextToken();
+      ASTNode root = parseGroup(null);
+      if (root == null) {
+        throw new ParseException(expressionString, "Empty expression");
+      }
+      return root;
+    } catch (ParseException e) {
+      if (!tokenizerFailed) {
+        // like in the two-pass pipeline, errors in the rest of the expression take precedence
+        skipRemainingTokens();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Parses the operands up to the closing token, the end of the expression if it is <code>null
+   * </code>. Like with the shunting yard converter, commas outside of functions are ignored.
+   */
+  private ASTNode parseGroup(TokenType closingType) throws ParseException {
+    ASTNode result = null;
+    while (!isAt(closingType)) {
+      ASTNode operand = parseGroupElement();
+      if (operand != null) {
+        if (result != null) {
+          throw new ParseException(expressionString, "Too many operands");
+        }
+        result = operand;
+      }
+    }
+    return result;
+  }
+
+  private ASTNode parseFunction(Token functionToken) throws ParseException {
+    nextToken(); // the opening brace always follows the function name
+    List<ASTNode> parameters = new ArrayList<>();
+    while (!isAt(BRACE_CLOSE)) {
+      ASTNode parameter = parseGroupElement();
+      if (parameter != null) {
+        parameters.add(parameter);
+      }
+    }
+    nextToken();
+    validateFunctionParameters(functionToken, parameters);
+    return new ASTNode(functionToken, parameters.toArray(new ASTNode[0]));
+  }
+
+  /** Parses the next element of a group, commas and empty braces result in <code>null</code>. */
+  private ASTNode parseGroupElement() throws ParseException {
+    Token startToken = currentToken;
+    if (startToken == null) {
+      throw new ParseException(expressionString, "Closing brace not found");
+    }
+    if (startToken.getType() == COMMA) {
+      nextToken();
+      return null;
+    }
+    ASTNode operand = parseExpression(null);
+    if (currentToken == startToken) {
+      throw new ParseException(
+          startToken, "Unexpected token of type '" + startToken.getType() + "'");
+    }
+    return operand;
+  }
+
+  private void validateFunctionParameters(Token functionToken, List<ASTNode> parameters)
+      throws ParseException {
+    FunctionIfc function = functionToken.getFunctionDefinition();
+    if (parameters.size() < function.getFunctionParameterDefinitions().size()) {
+      throw new ParseException(functionToken, "Not enough parameters for function");
+    }
+    if (!function.hasVarArgs()
+        && parameters.size() > function.getFunctionParameterDefinitions().size()) {
+      throw new ParseException(functionToken, "Too many parameters for function");
+    }
+  }
+
+  /**
+   * Parses an operand with all following operators that bind tighter than the pending operator.
+   *
+   * @param pendingOperator The operator that waits for this operand, or <code>null</code>.
+   * @return The operand, or <code>null</code> if there is none.
+   */
+  private ASTNode parseExpression(Token pendingOperator) throws ParseException {
+    ASTNode operand;
+    if (currentToken != null && currentToken.getType() == PREFIX_OPERATOR) {
+      Token prefixOperator = currentToken;
+      if (!bindsTighter(prefixOperator, pendingOperator)) {
+        throw new ParseException(pendingOperator, missingOperandMessage(pendingOperator));
+      }
+      nextToken();
+      ASTNode prefixOperand = parseExpression(prefixOperator);
+      if (prefixOperand != null) {
+        operand = new ASTNode(prefixOperator, prefixOperand);
+      } else {
+        if (operatorWithoutOperand == null) {
+          operatorWithoutOperand = prefixOperator;
+        }
+        if (pendingOperator == null) {
+          throw new ParseException(
+              operatorWithoutOperand, missingOperandMessage(operatorWithoutOperand));
+        }
+        operand = null;
+      }
+    } else {
+      operand = parseOperand();
+    }
+    return parseOperators(operand, pendingOperator);
+  }
+
+  private ASTNode parseOperand() throws ParseException {
+    Token token = currentToken;
+    if (token == null) {
+      return null;
+    }
+    switch (token.getType()) {
+      case VARIABLE_OR_CONSTANT:
+      case NUMBER_LITERAL:
+      case STRING_LITERAL:
+        nextToken();
+        return new ASTNode(token);
+      case FUNCTION:
+        nextToken();
+        return parseFunction(token);
+      case BRACE_OPEN:
+        nextToken();
+        ASTNode operand = parseGroup(BRACE_CLOSE);
+        nextToken();
+        return operand;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Applies the postfix and infix operators and array indexes that follow the operand, as long as
+   * they bind tighter than the pending operator.
+   */
+  private ASTNode parseOperators(ASTNode operand, Token pendingOperator) throws ParseException {
+    ASTNode left = operand;
+    while (currentToken != null) {
+      Token token = currentToken;
+      switch (token.getType()) {
+        case ARRAY_OPEN:
+          left = parseArrayIndex(left);
+          break;
+        case POSTFIX_OPERATOR:
+          if (!bindsTighter(token, pendingOperator)) {
+            return left;
+          }
+          nextToken();
+          ASTNode postfixOperand = parseOperators(left, token);
+          if (postfixOperand == null) {
+            throw new ParseException(token, "Missing operand for operator");
+          }
+          left = new ASTNode(token, postfixOperand);
+          break;
+        case INFIX_OPERATOR:
+          if (!bindsTighter(token, pendingOperator)) {
+            return left;
+          }
+          nextToken();
+          ASTNode right = parseExpression(token);
+          if (left != null && right == null) {
+            operatorWithoutOperand = token;
+            if (pendingOperator != null) {
+              return null;
+            }
+            throw new ParseException(token, "Missing second operand for operator");
+          }
+          if (left == null && right == null && operatorWithoutOperand != null) {
+            throw new ParseException(
+                operatorWithoutOperand, missingOperandMessage(operatorWithoutOperand));
+          }
+          if (left == null || right == null) {
+            throw new ParseException(
+                token,
+                left == null && right == null
+                    ? "Missing operand for operator"
+                    : "Missing second operand for operator");
+          }
+          left = new ASTNode(token, left, right);
+          break;
+        default:
+          return left;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * Array index is treated like a function with two parameters. First parameter is the array (name
+   * or evaluation result). Second parameter is the array index.
+   */
+  private ASTNode parseArrayIndex(ASTNode array) throws ParseException {
+    Token arrayOpen = currentToken;
+    nextToken();
+    ASTNode index = parseGroup(ARRAY_CLOSE);
+    nextToken();
+    if (array == null || index == null) {
+      throw new ParseException(arrayOpen, "Missing operand for array index");
+    }
+    Token arrayIndex = new Token(arrayOpen.getStartPosition(), arrayOpen.getValue(), ARRAY_INDEX);
+    return new ASTNode(arrayIndex, array, index);
+  }
+
+  /**
+   * Checks if the operator binds tighter than the pending operator, so that it belongs to the
+   * operand of the pending operator. This is the inverse of the precedence check of the shunting
+   * yard converter.
+   */
+  private boolean bindsTighter(Token operatorToken, Token pendingOperator) {
+    if (pendingOperator == null) {
+      return true;
+    }
+    OperatorIfc operator = operatorToken.getOperatorDefinition();
+    int precedence = operator.getPrecedence(configuration);
+    int pendingPrecedence = pendingOperator.getOperatorDefinition().getPrecedence(configuration);
+    return operator.isLeftAssociative()
+        ? precedence > pendingPrecedence
+        : precedence >= pendingPrecedence;
+  }
+
+  private static String missingOperandMessage(Token operatorToken) {
+    return operatorToken.getType() == INFIX_OPERATOR
+        ? "Missing second operand for operator"
+        : "Missing operand for operator";
+  }
+
+  private boolean isAt(TokenType tokenType) {
+    if (tokenType == null) {
+      return currentToken == null;
+    }
+    return currentToken != null && currentToken.getType() == tokenType;
+  }
+
+  private void nextToken() throws ParseException {
+    try {
+      currentToken = tokenizer.nextToken();
+    } catch (ParseException e) {
+      tokenizerFailed = true;
+      throw e;
+    }
+  }
+
+  private void skipRemainingTokens() throws ParseException {
+    while (currentToken != null) {
+      nextToken();
+    }
+  }
+}
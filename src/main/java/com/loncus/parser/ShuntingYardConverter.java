@@ -8,6 +8,7 @@ import com.loncus.operators.OperatorIfc;
 import com.loncus.parser.Token.TokenType;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 
@@ -117,13 +118,14 @@ public class ShuntingYardConverter {
       Token functionToken = operatorStack.pop();
       ArrayList<ASTNode> parameters = new ArrayList<>();
       while (true) {
-        // add all parameters in reverse order from stack to the parameter array
+        // the parameters are on the stack in reverse order
         ASTNode node = operandStack.pop();
         if (node.getToken().getType() == TokenType.FUNCTION_PARAM_START) {
           break;
         }
-        parameters.add(0, node);
+        parameters.add(node);
       }
+      Collections.reverse(parameters);
       validateFunctionParameters(functionToken, parameters);
       operandStack.push(new ASTNode(functionToken, parameters.toArray(new ASTNode[0])));
     }
@@ -0,0 +1,70 @@
+package com.loncus.parser;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the tokens of many parsed expressions, so that equal tokens, like the same variable at
+ * the same position, are shared, and all identifiers, literals and operators with the same value
+ * share a single string. This keeps the memory of a large number of similar expressions small.
+ *
+ * <p>A symbol table is thread safe. As tokens are compared without their operator and function
+ * definitions, it must only be used with a single configuration.
+ */
+public final class SymbolTable {
+
+  private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+  private final Map<Token, Token> tokens = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the shared instance of a string.
+   *
+   * @param value The string value.
+   * @return The string from the table, with the same value.
+   */
+  public String intern(String value) {
+    String existing = strings.putIfAbsent(value, value);
+    return existing != null ? existing : value;
+  }
+
+  /**
+   * Returns the shared instance of a token. The value of a newly added token is interned, too.
+   *
+   * @param token The token.
+   * @return The token from the table, equal to the given token.
+   */
+  public Token intern(Token token) {
+    Token existing = tokens.get(token);
+    if (existing != null) {
+      return existing;
+    }
+    Token interned =
+        new Token(
+            token.getStartPosition(),
+            intern(token.getValue()),
+            token.getType(),
+            token.getFunctionDefinition(),
+            token.getOperatorDefinition());
+    existing = tokens.putIfAbsent(interned, interned);
+    return existing != null ? existing : interned;
+  }
+
+  /**
+   * Returns the number of distinct strings in the table.
+   *
+   * @return The number of strings.
+   */
+  public int getStringCount() {
+    return strings.size();
+  }
+
+  /**
+   * Returns the number of distinct tokens in the table.
+   *
+   * @return The number of tokens.
+   */
+  public int getTokenCount() {
+    return tokens.size();
+  }
+}
@@ -14,6 +14,8 @@ import java.util.List;
 /**
  * The tokenizer is responsible to parse a string and return a list of tokens. The order of tokens
  * will follow the infix expression notation, skipping any blank characters.
+ *
+ * <p>Tokens can also be read one by one with {@link #nextToken()}, without building the list.
  */
 public class Tokenizer {
 
@@ -25,7 +27,10 @@ public class Tokenizer {
 
   private final ExpressionConfiguration configuration;
 
-  private final List<Token> tokens = new ArrayList<>();
+  /** The table to intern the tokens in, <code>null</code> if tokens are not interned. */
+  private final SymbolTable symbolTable;
+
+  private Token previousToken;
 
   private int currentColumnIndex = 0;
 
@@ -36,10 +41,23 @@ public class Tokenizer {
   private int arrayBalance;
 
   public Tokenizer(String expressionString, ExpressionConfiguration configuration) {
+    this(expressionString, configuration, null);
+  }
+
+  /**
+   * Creates a tokenizer that interns all tokens.
+   *
+   * @param expressionString The expression string.
+   * @param configuration The configuration to use.
+   * @param symbolTable The table to intern the tokens in, <code>null</code> to not intern them.
+   */
+  public Tokenizer(
+      String expressionString, ExpressionConfiguration configuration, SymbolTable symbolTable) {
     this.expressionString = expressionString;
     this.configuration = configuration;
     this.operatorDictionary = configuration.getOperatorDictionary();
     this.functionDictionary = configuration.getFunctionDictionary();
+    this.symbolTable = symbolTable;
   }
 
   /**
@@ -49,26 +67,42 @@ public class Tokenizer {
    * @throws ParseException When the expression can't be parsed.
    */
   public List<Token> parse() throws ParseException {
-    Token currentToken = getNextToken();
+    List<Token> tokens = new ArrayList<>();
+    Token currentToken = nextToken();
     while (currentToken != null) {
-      validateToken(currentToken);
       tokens.add(currentToken);
-      currentToken = getNextToken();
+      currentToken = nextToken();
     }
+    return tokens;
+  }
 
-    if (braceBalance > 0) {
-      throw new ParseException(expressionString, "Closing brace not found");
+  /**
+   * Parses the next token of the expression. At the end of the expression, it is checked that all
+   * braces and arrays were closed.
+   *
+   * @return The next token, or <code>null</code> at the end of the expression.
+   * @throws ParseException When the expression can't be parsed.
+   */
+  Token nextToken() throws ParseException {
+    Token currentToken = getNextToken();
+    if (currentToken == null) {
+      if (braceBalance > 0) {
+        throw new ParseException(expressionString, "Closing brace not found");
+      }
+      if (arrayBalance > 0) {
+        throw new ParseException(expressionString, "Closing array not found");
+      }
+      return null;
     }
-
-    if (arrayBalance > 0) {
-      throw new ParseException(expressionString, "Closing array not found");
+    validateToken(currentToken);
+    if (symbolTable != null) {
+      currentToken = symbolTable.intern(currentToken);
     }
-
-    return tokens;
+    previousToken = currentToken;
+    return currentToken;
   }
 
   private void validateToken(Token currentToken) throws ParseException {
-    Token previousToken = getPreviousToken();
     if (previousToken != null
         && previousToken.getType() == INFIX_OPERATOR
         && invalidTokenAfterInfixOperator(currentToken)) {
@@ -160,29 +194,26 @@ public class Tokenizer {
     return token;
   }
 
-  private Token getPreviousToken() {
-    return tokens.isEmpty() ? null : tokens.get(tokens.size() - 1);
-  }
-
   private Token parseOperator() throws ParseException {
     int tokenStartIndex = currentColumnIndex;
-    StringBuilder tokenValue = new StringBuilder();
     while (true) {
-      tokenValue.append((char) currentChar);
-      String tokenString = tokenValue.toString();
-      String possibleNextOperator = tokenString + (char) peekNextChar();
-      boolean possibleNextOperatorFound =
-          (prefixOperatorAllowed() && operatorDictionary.hasPrefixOperator(possibleNextOperator))
-              || (postfixOperatorAllowed()
-                  && operatorDictionary.hasPostfixOperator(possibleNextOperator))
-              || (infixOperatorAllowed()
-                  && operatorDictionary.hasInfixOperator(possibleNextOperator));
+      boolean possibleNextOperatorFound = false;
+      if (peekNextChar() != -1) {
+        String possibleNextOperator =
+            expressionString.substring(tokenStartIndex - 1, currentColumnIndex + 1);
+        possibleNextOperatorFound =
+            (prefixOperatorAllowed() && operatorDictionary.hasPrefixOperator(possibleNextOperator))
+                || (postfixOperatorAllowed()
+                    && operatorDictionary.hasPostfixOperator(possibleNextOperator))
+                || (infixOperatorAllowed()
+                    && operatorDictionary.hasInfixOperator(possibleNextOperator));
+      }
       consumeChar();
       if (!possibleNextOperatorFound) {
         break;
       }
     }
-    String tokenString = tokenValue.toString();
+    String tokenString = substringFrom(tokenStartIndex);
     if (prefixOperatorAllowed() && operatorDictionary.hasPrefixOperator(tokenString)) {
       OperatorIfc operator = operatorDictionary.getPrefixOperator(tokenString);
       return new Token(tokenStartIndex, tokenString, TokenType.PREFIX_OPERATOR, operator);
@@ -201,8 +232,6 @@ public class Tokenizer {
   }
 
   private boolean arrayCloseAllowed() {
-    Token previousToken = getPreviousToken();
-
     if (previousToken == null) {
       return false;
     }
@@ -221,8 +250,6 @@ public class Tokenizer {
   }
 
   private boolean prefixOperatorAllowed() {
-    Token previousToken = getPreviousToken();
-
     if (previousToken == null) {
       return true;
     }
@@ -239,8 +266,6 @@ public class Tokenizer {
   }
 
   private boolean postfixOperatorAllowed() {
-    Token previousToken = getPreviousToken();
-
     if (previousToken == null) {
       return false;
     }
@@ -257,8 +282,6 @@ public class Tokenizer {
   }
 
   private boolean infixOperatorAllowed() {
-    Token previousToken = getPreviousToken();
-
     if (previousToken == null) {
       return false;
     }
@@ -286,7 +309,6 @@ public class Tokenizer {
 
   private Token parseDecimalNumberLiteral() throws ParseException {
     int tokenStartIndex = currentColumnIndex;
-    StringBuilder tokenValue = new StringBuilder();
 
     int lastChar = -1;
     boolean scientificNotation = false;
@@ -294,10 +316,10 @@ public class Tokenizer {
       if (currentChar == 'e' || currentChar == 'E') {
         scientificNotation = true;
       }
-      tokenValue.append((char) currentChar);
       lastChar = currentChar;
       consumeChar();
     }
+    String tokenValue = substringFrom(tokenStartIndex);
     // illegal scientific format literal
     if (scientificNotation
         && (lastChar == 'e'
@@ -306,52 +328,44 @@ public class Tokenizer {
             || lastChar == '-'
             || lastChar == '.')) {
       throw new ParseException(
-          new Token(tokenStartIndex, tokenValue.toString(), TokenType.NUMBER_LITERAL),
+          new Token(tokenStartIndex, tokenValue, TokenType.NUMBER_LITERAL),
           "Illegal scientific format");
     }
-    return new Token(tokenStartIndex, tokenValue.toString(), TokenType.NUMBER_LITERAL);
+    return new Token(tokenStartIndex, tokenValue, TokenType.NUMBER_LITERAL);
   }
 
   private Token parseHexNumberLiteral() {
     int tokenStartIndex = currentColumnIndex;
-    StringBuilder tokenValue = new StringBuilder();
 
     // hexadecimal number, consume "0x"
-    tokenValue.append((char) currentChar);
     consumeChar();
-    tokenValue.append((char) currentChar);
     consumeChar();
     while (currentChar != -1 && isAtHexChar()) {
-      tokenValue.append((char) currentChar);
       consumeChar();
     }
-    return new Token(tokenStartIndex, tokenValue.toString(), TokenType.NUMBER_LITERAL);
+    return new Token(tokenStartIndex, substringFrom(tokenStartIndex), TokenType.NUMBER_LITERAL);
   }
 
   private Token parseVars() {
     int tokenStartIndex = currentColumnIndex;
-    StringBuilder tokenValue = new StringBuilder();
     while (currentChar != -1) {
-      tokenValue.append((char) currentChar);
       if (currentChar == '}') {
         consumeChar();
         break;
       }
       consumeChar();
     }
-    String tokenName = tokenValue.toString();
+    String tokenName = substringFrom(tokenStartIndex);
     return new Token(tokenStartIndex, tokenName, TokenType.VARIABLE_OR_CONSTANT);
   }
 
   private Token parseIdentifier() throws ParseException {
     int tokenStartIndex = currentColumnIndex;
-    StringBuilder tokenValue = new StringBuilder();
 
     while (currentChar != -1 && isAtIdentifierChar()) {
-      tokenValue.append((char) currentChar);
       consumeChar();
     }
-    String tokenName = tokenValue.toString();
+    String tokenName = substringFrom(tokenStartIndex);
 
     if (prefixOperatorAllowed() && operatorDictionary.hasPrefixOperator(tokenName)) {
       return new Token(
@@ -520,6 +534,12 @@ public class Tokenizer {
     }
   }
 
+  /** Returns the expression string from the start position up to, excluding the current char. */
+  private String substringFrom(int startPosition) {
+    int endIndex = currentChar == -1 ? expressionString.length() : currentColumnIndex - 1;
+    return expressionString.substring(startPosition - 1, endIndex);
+  }
+
   private int peekNextChar() {
     return currentColumnIndex == expressionString.length()
         ? -1
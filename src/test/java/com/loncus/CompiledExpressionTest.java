@@ -0,0 +1,314 @@
+package com.loncus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.config.ExpressionConfiguration.RoundingPolicy;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.parser.ExpressionCache;
+import com.loncus.parser.ParseException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class CompiledExpressionTest {
+
+  @Test
+  void testEvaluateWithBindings() throws ParseException, EvaluationException {
+    CompiledExpression compiled = CompiledExpression.compile("(a + b) * (a - b)");
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 3.5).and("b", 2.5));
+
+    assertThat(result.getStringValue()).isEqualTo("6");
+  }
+
+  @Test
+  void testBindingsAreIndependent() throws ParseException, EvaluationException {
+    CompiledExpression compiled = CompiledExpression.compile("a*2");
+
+    Bindings bindings1 = compiled.newBindings().with("a", 1);
+    Bindings bindings2 = compiled.newBindings().with("A", 5);
+
+    assertThat(compiled.evaluate(bindings1).getStringValue()).isEqualTo("2");
+    assertThat(compiled.evaluate(bindings2).getStringValue()).isEqualTo("10");
+  }
+
+  @Test
+  void testWithValues() throws ParseException, EvaluationException {
+    CompiledExpression compiled = CompiledExpression.compile("a+b+c");
+
+    Map<String, Object> values = new HashMap<>();
+    values.put("a", "Hello");
+    values.put("b", " ");
+    values.put("c", "world");
+
+    assertThat(compiled.evaluate(compiled.newBindings().withValues(values)).getStringValue())
+        .isEqualTo("Hello world");
+  }
+
+  @Test
+  void testConstantsAndLazyFunctions() throws ParseException, EvaluationException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(a > 0, PI, -1)");
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 1)).getNumberValue())
+        .isEqualByComparingTo(ExpressionConfiguration.StandardConstants.get("PI").getNumberValue());
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 0)).getStringValue())
+        .isEqualTo("-1");
+  }
+
+  @Test
+  void testConstantsCanNotBeBound() throws ParseException {
+    CompiledExpression compiled = CompiledExpression.compile("a*PI");
+
+    assertThatThrownBy(() -> compiled.newBindings().with("pi", 3))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessage("Can't set value for constant 'pi'");
+  }
+
+  @Test
+  void testUndefinedVariable() throws ParseException {
+    CompiledExpression compiled = CompiledExpression.compile("a+b");
+
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings().with("a", 1)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'b' not found");
+  }
+
+  @Test
+  void testUsedVariables() throws ParseException {
+    CompiledExpression compiled = CompiledExpression.compile("a+b*2-A/PI*(1/2)*pi+e-E+a");
+
+    assertThat(compiled.getUsedVariables()).containsExactlyInAnyOrder("a", "b");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testBindBySlot(EvaluationMode evaluationMode) throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    CompiledExpression compiled = CompiledExpression.compile("b * 10 + A", configuration);
+    int a = compiled.getVariableSlot("a");
+    int b = compiled.getVariableSlot("B");
+
+    Bindings bindings = compiled.newBindings().set(a, 1).set(b, 2);
+
+    assertThat(compiled.evaluate(bindings).getStringValue()).isEqualTo("21");
+    assertThat(compiled.evaluate(bindings.with("b", 3)).getStringValue()).isEqualTo("31");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testBooleanOperatorsShortCircuit(EvaluationMode evaluationMode)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    CompiledExpression and = CompiledExpression.compile("a > 0 && x / a > 1", configuration);
+    CompiledExpression or = CompiledExpression.compile("a = 0 || x / a > 1", configuration);
+
+    // x is not defined, it must not be evaluated
+    assertThat(and.evaluate(and.newBindings().with("a", 0)).getBooleanValue()).isFalse();
+    assertThat(or.evaluate(or.newBindings().with("a", 0)).getBooleanValue()).isTrue();
+    assertThat(and.evaluate(and.newBindings().with("a", 2).and("x", 2)).getBooleanValue())
+        .isFalse();
+    assertThat(or.evaluate(or.newBindings().with("a", 2).and("x", 3)).getBooleanValue()).isTrue();
+    assertThatThrownBy(() -> and.evaluate(and.newBindings().with("a", 1)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'x' not found");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testFailingConstantChainIsReportedOnEvaluation(EvaluationMode evaluationMode)
+      throws ParseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "1/0 + " + String.join(" + ", Collections.nCopies(10_000, "1")), configuration);
+
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings()))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testRoundingPolicies(EvaluationMode evaluationMode)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .decimalPlacesRounding(2)
+            .build();
+
+    assertThat(evaluate("a / 3 * 3 + 1.50", configuration, RoundingPolicy.EACH_NODE))
+        .isEqualTo("2.49");
+    assertThat(evaluate("a / 3 * 3 + 1.50", configuration, RoundingPolicy.ROOT_ONLY))
+        .isEqualTo("2.5");
+    assertThat(evaluate("a / 3 * 3 + 1.50", configuration, RoundingPolicy.NEVER))
+        .isEqualTo("2.5" + String.join("", Collections.nCopies(66, "0")));
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testDeclaredVariableTypes(EvaluationMode evaluationMode)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    Map<String, DataType> types = new HashMap<>();
+    types.put("a", DataType.NUMBER);
+    types.put("B", DataType.NUMBER);
+    types.put("s", DataType.STRING);
+    String[] expressionStrings = {
+      "(a + b) * (a - b) / 2 % 7",
+      "-a + SQRT(b) * 2 >= a",
+      "a < b && b <= 10 || a > 100",
+      "s + a + b",
+      "IF(a > b, a, b) - 1"
+    };
+
+    for (String expressionString : expressionStrings) {
+      CompiledExpression typed = CompiledExpression.compile(expressionString, configuration, types);
+      CompiledExpression untyped = CompiledExpression.compile(expressionString, configuration);
+      Map<String, Object> values = new HashMap<>();
+      values.put("a", 3);
+      values.put("b", 4.5);
+      values.put("s", "x");
+
+      assertThat(typed.evaluate(typed.newBindings().withValues(values)))
+          .isEqualTo(untyped.evaluate(untyped.newBindings().withValues(values)));
+    }
+  }
+
+  @Test
+  void testStaticTypeErrors() {
+    Map<String, DataType> types = new HashMap<>();
+    types.put("a", DataType.NUMBER);
+    types.put("s", DataType.STRING);
+    types.put("flag", DataType.BOOLEAN);
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+
+    for (String expressionString :
+        new String[] {"a * s", "-flag", "\"x\" - 1", "a[0]", "2 ^ (flag + 1)", "a / NOT(flag)"}) {
+      assertThatThrownBy(() -> CompiledExpression.compile(expressionString, configuration, types))
+          .as(expressionString)
+          .isInstanceOf(ParseException.class)
+          .hasMessage("Unsupported data types in operation");
+    }
+  }
+
+  @Test
+  void testBindingsCheckDeclaredTypes() throws ParseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "a * 2",
+            ExpressionConfiguration.defaultConfiguration(),
+            Collections.singletonMap("a", DataType.NUMBER));
+
+    assertThatThrownBy(() -> compiled.newBindings().with("A", "text"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Variable 'a' is declared as NUMBER, but the value is of type STRING");
+    assertThatThrownBy(() -> compiled.newBindings().set(compiled.getVariableSlot("a"), true))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void testVariableSlotsFollowUsedVariables() throws ParseException {
+    CompiledExpression compiled = CompiledExpression.compile("c + a * PI + b + a");
+
+    assertThat(compiled.getVariableSlot("a")).isZero();
+    assertThat(compiled.getVariableSlot("b")).isEqualTo(1);
+    assertThat(compiled.getVariableSlot("c")).isEqualTo(2);
+    assertThatThrownBy(() -> compiled.getVariableSlot("pi"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Variable 'pi' is not used in the expression");
+  }
+
+  @Test
+  void testBindingsOfOtherExpressionAreReadByName() throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationMode(EvaluationMode.CLOSURE_TREE).build();
+    CompiledExpression compiled1 = CompiledExpression.compile("a - b", configuration);
+    CompiledExpression compiled2 = CompiledExpression.compile("b - a", configuration);
+
+    Bindings bindings = compiled2.newBindings().with("a", 1).and("b", 5);
+
+    assertThat(compiled1.evaluate(bindings).getStringValue()).isEqualTo("-4");
+  }
+
+  @Test
+  void testCompileUsesExpressionCache() throws ParseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().expressionCache(new ExpressionCache(10)).build();
+
+    CompiledExpression compiled1 = CompiledExpression.compile("x^2", configuration);
+    CompiledExpression compiled2 = CompiledExpression.compile("x^2", configuration);
+
+    assertThat(compiled2.getAbstractSyntaxTree()).isSameAs(compiled1.getAbstractSyntaxTree());
+  }
+
+  @Test
+  void testConcurrentEvaluation() throws Exception {
+    CompiledExpression compiled = CompiledExpression.compile("SUM(a, b, MAX(a, b) * 2)");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        int offset = thread;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 1_000; i++) {
+                    int a = offset * 1_000 + i;
+                    EvaluationValue result =
+                        compiled.evaluate(compiled.newBindings().with("a", a).and("b", 1));
+                    assertThat(result.getNumberValue())
+                        .isEqualByComparingTo(BigDecimal.valueOf(a + 1 + Math.max(a, 1) * 2L));
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static String evaluate(
+      String expressionString, ExpressionConfiguration configuration, RoundingPolicy policy)
+      throws ParseException, EvaluationException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            expressionString, configuration.toBuilder().roundingPolicy(policy).build());
+    return compiled.evaluate(compiled.newBindings().with("a", 1)).getStringValue();
+  }
+}
@@ -0,0 +1,253 @@
+package com.loncus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.EvaluationCancelledException.Reason;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import com.loncus.data.Column;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class EvaluationBudgetTest {
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testMaximumNodeEvaluations(EvaluationMode evaluationMode) throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .maximumNodeEvaluations(7)
+            .build();
+    // four variables and three operators
+    CompiledExpression allowed = CompiledExpression.compile("a + a + a + a", configuration);
+    CompiledExpression exceeding = CompiledExpression.compile("a + a + a + a + a", configuration);
+
+    for (int i = 0; i < 3; i++) {
+      // each evaluation has its own budget
+      assertThat(allowed.evaluate(allowed.newBindings().with("a", 1)).getStringValue())
+          .isEqualTo("4");
+    }
+    assertThatThrownBy(() -> exceeding.evaluate(exceeding.newBindings().with("a", 1)))
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.NODE_EVALUATIONS))
+        .hasMessage("Evaluation exceeded the maximum of 7 node evaluations");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testLiteralsAreNotCharged(EvaluationMode evaluationMode) throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .maximumNodeEvaluations(2)
+            .build();
+    CompiledExpression compiled = CompiledExpression.compile("a + 1", configuration);
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 1)).getStringValue())
+        .isEqualTo("2");
+    assertThat(new Expression("a + 1", configuration).with("a", 1).evaluate().getStringValue())
+        .isEqualTo("2");
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testConstantSubtreesWithExhaustedBudget(EvaluationMode evaluationMode) throws BaseException {
+    ExpressionConfiguration.ExpressionConfigurationBuilder builder =
+        ExpressionConfiguration.builder().evaluationMode(evaluationMode).compilationThreshold(0);
+    CompiledExpression exceeding =
+        CompiledExpression.compile("1 + 2 + 3 + a", builder.maximumNodeEvaluations(1).build());
+    CompiledExpression allowed =
+        CompiledExpression.compile("1 + 2 + 3 + a", builder.maximumNodeEvaluations(4).build());
+
+    assertThatThrownBy(() -> exceeding.evaluate(exceeding.newBindings().with("a", 4)))
+        .isInstanceOf(EvaluationCancelledException.class)
+        .hasMessage("Evaluation exceeded the maximum of 1 node evaluations");
+    assertThat(allowed.evaluate(allowed.newBindings().with("a", 4)).getStringValue())
+        .isEqualTo("10");
+  }
+
+  @Test
+  void testMaximumNodeEvaluationsOfExpression() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().maximumNodeEvaluations(3).build();
+    Expression expression = new Expression("a * 2", configuration).with("a", 3);
+
+    assertThat(expression.evaluate().getStringValue()).isEqualTo("6");
+    assertThat(expression.evaluate().getStringValue()).isEqualTo("6");
+    assertThatThrownBy(() -> new Expression("a * 2 + a", configuration).with("a", 3).evaluate())
+        .isInstanceOf(EvaluationCancelledException.class);
+  }
+
+  @Test
+  void testMaximumNodeEvaluationsPerBatchRow() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().maximumNodeEvaluations(3).build();
+    CompiledExpression compiled = CompiledExpression.compile("a * 2", configuration);
+
+    Column result =
+        compiled.evaluateBatch(
+            Collections.singletonMap("a", Column.of(new long[] {1, 2, 3, 4, 5})));
+
+    assertThat(result.getValue(4).getNumberValue()).isEqualByComparingTo("10");
+  }
+
+  @Test
+  void testMaximumNodeEvaluationsOfFixedPointNumbers() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .numericMode(NumericMode.FIXED_POINT)
+            .maximumNodeEvaluations(3)
+            .build();
+    CompiledExpression compiled =
+        CompiledExpression.compile("a + a + a + a + a + a + a", configuration);
+
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings().with("a", 1)))
+        .isInstanceOf(EvaluationCancelledException.class);
+  }
+
+  @ParameterizedTest
+  @EnumSource(NumericMode.class)
+  void testResultsDoNotChangeWithLimits(NumericMode numericMode) throws BaseException {
+    ExpressionConfiguration unlimited =
+        ExpressionConfiguration.builder().numericMode(numericMode).build();
+    ExpressionConfiguration limited =
+        unlimited
+            .toBuilder()
+            .maximumNodeEvaluations(100)
+            .evaluationTimeout(Duration.ofMinutes(1))
+            .build();
+    String expressionString = "IF(a > 1, a / 3, a * 1.5) + SQRT(a)";
+    CompiledExpression unlimitedExpression =
+        CompiledExpression.compile(expressionString, unlimited);
+    CompiledExpression limitedExpression = CompiledExpression.compile(expressionString, limited);
+
+    for (int a = 0; a < 5; a++) {
+      assertThat(limitedExpression.evaluate(limitedExpression.newBindings().with("a", a)))
+          .isEqualTo(unlimitedExpression.evaluate(unlimitedExpression.newBindings().with("a", a)));
+      assertThat(limitedExpression.evaluateDouble(limitedExpression.newBindings().with("a", a)))
+          .isEqualTo(
+              unlimitedExpression.evaluateDouble(unlimitedExpression.newBindings().with("a", a)));
+    }
+  }
+
+  @Test
+  void testMaximumNodeEvaluationsOfDoubles() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .numericMode(NumericMode.DOUBLE)
+            .maximumNodeEvaluations(3)
+            .build();
+    CompiledExpression allowed = CompiledExpression.compile("a * 2", configuration);
+    CompiledExpression exceeding = CompiledExpression.compile("a * 2 + a", configuration);
+
+    assertThat(allowed.evaluate(allowed.newBindings().with("a", 3)).getStringValue())
+        .isEqualTo("6");
+    assertThatThrownBy(() -> exceeding.evaluate(exceeding.newBindings().with("a", 3)))
+        .isInstanceOf(EvaluationCancelledException.class);
+    assertThatThrownBy(() -> exceeding.evaluateDouble(exceeding.newBindings().with("a", 3)))
+        .isInstanceOf(EvaluationCancelledException.class);
+  }
+
+  @Test
+  void testMaximumDigits() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .mathContext(MathContext.UNLIMITED)
+            .maximumDigits(1000)
+            .build();
+
+    assertThat(new Expression("2^100", configuration).evaluate().getStringValue())
+        .isEqualTo("1267650600228229401496703205376");
+    assertThat(new Expression("FACT(20)", configuration).evaluate().getStringValue())
+        .isEqualTo("2432902008176640000");
+    assertThatThrownBy(() -> new Expression("2^999999", configuration).evaluate())
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.DIGITS))
+        .hasMessage("Number with 301030 digits exceeds the maximum of 1000 digits");
+    assertThatThrownBy(() -> new Expression("FACT(100000)", configuration).evaluate())
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.DIGITS));
+    // the result of a node is checked, when the digits could not be estimated before
+    assertThatThrownBy(
+            () ->
+                new Expression("a * a", configuration)
+                    .with("a", new BigDecimal(String.join("", Collections.nCopies(600, "7"))))
+                    .evaluate())
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.DIGITS));
+  }
+
+  @Test
+  void testMaximumDigitsOfSquareRoot() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .mathContext(new MathContext(1_000_000))
+            .maximumDigits(1000)
+            .build();
+
+    assertThatThrownBy(() -> new Expression("SQRT(2)", configuration).evaluate())
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.DIGITS))
+        .hasMessage("Number with 1000000 digits exceeds the maximum of 1000 digits");
+  }
+
+  @Test
+  void testTimeout() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .mathContext(MathContext.UNLIMITED)
+            .evaluationTimeout(Duration.ofMillis(50))
+            .build();
+    long start = System.nanoTime();
+
+    assertThatThrownBy(() -> new Expression("FACT(1000000)", configuration).evaluate())
+        .isInstanceOfSatisfying(
+            EvaluationCancelledException.class,
+            e -> assertThat(e.getReason()).isEqualTo(Reason.TIMEOUT))
+        .hasMessage("Evaluation exceeded the timeout of 50 ms");
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void testInterruption() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationTimeout(Duration.ofMinutes(1)).build();
+    Thread.currentThread().interrupt();
+    try {
+      assertThatThrownBy(() -> new Expression("FACT(10)", configuration).evaluate())
+          .isInstanceOfSatisfying(
+              EvaluationCancelledException.class,
+              e -> assertThat(e.getReason()).isEqualTo(Reason.INTERRUPTED))
+          .hasMessage("Evaluation was interrupted");
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  void testNoLimitsByDefault() throws BaseException {
+    Expression expression = new Expression("FACT(10)");
+    Thread.currentThread().interrupt();
+    try {
+      assertThat(expression.evaluate().getStringValue()).isEqualTo("3628800");
+      assertThat(expression.getEvaluationBudget().isLimited()).isFalse();
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.loncus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ExpressionCache;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FormulaLibraryTest {
+
+  @Test
+  void testCompileAndEvaluate() throws EvaluationException {
+    Map<String, String> formulas = new LinkedHashMap<>();
+    formulas.put("sum", "a + b");
+    formulas.put("product", "a * b");
+    formulas.put("circle", "PI * r ^ 2");
+
+    FormulaLibrary library = FormulaLibrary.compile(formulas);
+
+    assertThat(library.getParseExceptions()).isEmpty();
+    assertThat(library.getCompiledExpressions()).containsOnlyKeys("sum", "product", "circle");
+    CompiledExpression product = library.getCompiledExpression("product");
+    assertThat(product.evaluate(product.newBindings().with("a", 3).and("b", 4)).getStringValue())
+        .isEqualTo("12");
+  }
+
+  @Test
+  void testAllParseExceptionsAreReported() {
+    Map<String, String> formulas = new LinkedHashMap<>();
+    formulas.put("first", "1 +");
+    formulas.put("valid", "1 + 2");
+    formulas.put("second", "MAX(");
+    formulas.put("third", "");
+
+    FormulaLibrary library = FormulaLibrary.compile(formulas);
+
+    assertThat(library.getCompiledExpressions()).containsOnlyKeys("valid");
+    assertThat(library.getParseExceptions()).containsOnlyKeys("first", "second", "third");
+    assertThat(library.getParseExceptions().get("first"))
+        .hasMessage("Missing second operand for operator");
+    assertThat(library.getParseExceptions().get("third")).hasMessage("Empty expression");
+    assertThat(library.getCompiledExpression("first")).isNull();
+  }
+
+  @Test
+  void testTokensAndConstantsAreShared() {
+    Map<String, String> formulas = new LinkedHashMap<>();
+    for (int i = 0; i < 100; i++) {
+      formulas.put("formula" + i, "price * (1 + rate) - " + i);
+    }
+
+    FormulaLibrary library = FormulaLibrary.compile(formulas);
+
+    ASTNode tree1 = library.getCompiledExpression("formula1").getAbstractSyntaxTree();
+    ASTNode tree2 = library.getCompiledExpression("formula2").getAbstractSyntaxTree();
+    ASTNode price1 = tree1.getParameters().get(0).getParameters().get(0);
+    ASTNode price2 = tree2.getParameters().get(0).getParameters().get(0);
+    assertThat(price2.getToken()).isSameAs(price1.getToken());
+    assertThat(library.getCompiledExpression("formula2").getConstants())
+        .isSameAs(library.getCompiledExpression("formula1").getConstants());
+    // "price", "*", "(", "+", "rate", ")", "-" and the numbers 0 to 99, including "1"
+    assertThat(library.getSymbolTable().getStringCount()).isEqualTo(107);
+  }
+
+  @Test
+  void testManyFormulasInCompiledMode() throws EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationMode(EvaluationMode.CLOSURE_TREE).build();
+    Map<String, String> formulas = new LinkedHashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      formulas.put("formula" + i, "IF(x > " + i + ", x * " + i + ", SUM(x, y, " + i + "))");
+    }
+
+    FormulaLibrary library = FormulaLibrary.compile(formulas, configuration);
+
+    assertThat(library.getParseExceptions()).isEmpty();
+    assertThat(library.getCompiledExpressions()).hasSize(10_000);
+    CompiledExpression compiled = library.getCompiledExpression("formula42");
+    assertThat(compiled.evaluate(compiled.newBindings().with("x", 1).and("y", 2)).getStringValue())
+        .isEqualTo("45");
+  }
+
+  @Test
+  void testExpressionCacheIsUsed() {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().expressionCache(new ExpressionCache(10)).build();
+    Map<String, String> formulas = new LinkedHashMap<>();
+    formulas.put("first", "a + b");
+    formulas.put("second", "a + b");
+
+    FormulaLibrary library = FormulaLibrary.compile(formulas, configuration);
+
+    assertThat(library.getCompiledExpression("second").getAbstractSyntaxTree())
+        .isSameAs(library.getCompiledExpression("first").getAbstractSyntaxTree());
+  }
+}
@@ -0,0 +1,207 @@
+package com.loncus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.FunctionParameter;
+import com.loncus.parser.Token;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IncrementalEvaluatorTest {
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "(a + b) * (c - d) / 2 + a * c",
+        "IF(a > b, a * c, IF(flag, d, b / 3))",
+        "flag && a > 10 || b < c",
+        "MAX(a, b, c) + MIN(d, 2) + SUM(a, b, c, d)",
+        "NOT(a = b) && (c <> d || flag)",
+      })
+  void testSameResultAsFullEvaluation(String expressionString) throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile(expressionString);
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator();
+    Map<String, Object> values = new HashMap<>();
+    values.put("a", 1);
+    values.put("b", 2);
+    values.put("c", 3);
+    values.put("d", 4);
+    values.put("flag", true);
+    evaluator.withValues(values);
+
+    Random random = new Random(42);
+    String[] variables = {"a", "b", "c", "d", "flag"};
+    for (int i = 0; i < 200; i++) {
+      String variable = variables[random.nextInt(variables.length)];
+      Object value = variable.equals("flag") ? random.nextBoolean() : random.nextInt(20) + 1;
+      values.put(variable, value);
+      evaluator.with(variable, value);
+
+      assertThat(evaluator.evaluate())
+          .isEqualTo(compiled.evaluate(compiled.newBindings().withValues(values)));
+    }
+  }
+
+  @Test
+  void testOnlyChangedSubtreesAreEvaluated() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    CompiledExpression compiled =
+        CompiledExpression.compile("COUNT(a) * 2 + COUNT(b) + COUNT(3)", withCount(count));
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator().with("a", 1).and("b", 2);
+
+    assertThat(evaluator.evaluate().getNumberValue()).isEqualByComparingTo("7");
+    assertThat(count.invocations).isEqualTo(3);
+
+    assertThat(evaluator.with("a", 5).evaluate().getNumberValue()).isEqualByComparingTo("15");
+    assertThat(count.invocations).isEqualTo(4);
+
+    // an equal value changes nothing
+    assertThat(evaluator.with("b", 2).evaluate().getNumberValue()).isEqualByComparingTo("15");
+    assertThat(count.invocations).isEqualTo(4);
+  }
+
+  @Test
+  void testUnusedBranchesAreNotEvaluated() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    CompiledExpression compiled =
+        CompiledExpression.compile("IF(flag, COUNT(a), COUNT(b))", withCount(count));
+    IncrementalEvaluator evaluator =
+        compiled.newIncrementalEvaluator().with("flag", true).and("a", 1).and("b", 2);
+
+    assertThat(evaluator.evaluate().getNumberValue()).isEqualByComparingTo("1");
+    assertThat(count.invocations).isEqualTo(1);
+
+    assertThat(evaluator.with("b", 3).evaluate().getNumberValue()).isEqualByComparingTo("1");
+    assertThat(count.invocations).isEqualTo(1);
+
+    assertThat(evaluator.with("flag", false).evaluate().getNumberValue()).isEqualByComparingTo("3");
+    assertThat(count.invocations).isEqualTo(2);
+
+    // the remembered value of the first branch is still valid
+    assertThat(evaluator.with("flag", true).evaluate().getNumberValue()).isEqualByComparingTo("1");
+    assertThat(count.invocations).isEqualTo(2);
+  }
+
+  @Test
+  void testNonDeterministicSubtreesAreAlwaysEvaluated() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    count.deterministic = false;
+    CompiledExpression compiled =
+        CompiledExpression.compile("COUNT(a) + MAX(b, 1)", withCount(count));
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator().with("a", 1).and("b", 2);
+
+    evaluator.evaluate();
+    evaluator.evaluate();
+
+    assertThat(count.invocations).isEqualTo(2);
+  }
+
+  @Test
+  void testLazyParametersOfOtherFunctions() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    ExpressionConfiguration configuration =
+        withCount(count)
+            .withAdditionalFunctions(
+                new AbstractMap.SimpleEntry<>("FIRST_DEFINED", new FirstDefinedFunction()));
+    CompiledExpression compiled =
+        CompiledExpression.compile("COUNT(1) + FIRST_DEFINED(1 / a, b)", configuration);
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator().with("a", 0).and("b", 3);
+
+    assertThat(evaluator.evaluate().getNumberValue()).isEqualByComparingTo("4");
+    assertThat(evaluator.with("a", 4).evaluate().getNumberValue()).isEqualByComparingTo("1.25");
+    assertThat(evaluator.with("a", 0).and("b", 5).evaluate().getNumberValue())
+        .isEqualByComparingTo("6");
+    assertThat(count.invocations).isEqualTo(1);
+  }
+
+  @Test
+  void testErrorsDoNotKeepStaleValues() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a / b + 1");
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator().with("a", 6).and("b", 0);
+
+    assertThatThrownBy(evaluator::evaluate)
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThat(evaluator.with("b", 3).evaluate().getNumberValue()).isEqualByComparingTo("3");
+  }
+
+  @Test
+  void testBindingErrors() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a * PI");
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator();
+
+    assertThatThrownBy(() -> evaluator.with("pi", 3))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessage("Can't set value for constant 'pi'");
+    assertThatThrownBy(evaluator::evaluate)
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'a' not found");
+  }
+
+  @Test
+  void testDeepTreeIsEvaluated() throws BaseException {
+    String expressionString =
+        "0"
+            + String.join(
+                "", Collections.nCopies(IncrementalEvaluator.MAXIMUM_TRACKED_DEPTH, "+a"));
+    CompiledExpression compiled = CompiledExpression.compile(expressionString);
+    IncrementalEvaluator evaluator = compiled.newIncrementalEvaluator().with("a", 1);
+
+    assertThat(evaluator.evaluate().getNumberValue()).isEqualByComparingTo("1000");
+    assertThat(evaluator.with("a", 2).evaluate().getNumberValue()).isEqualByComparingTo("2000");
+  }
+
+  private static ExpressionConfiguration withCount(CountingFunction count) {
+    return ExpressionConfiguration.defaultConfiguration()
+        .withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+  }
+
+  /** Returns its parameter and counts its invocations. */
+  @FunctionParameter(name = "value")
+  static class CountingFunction extends AbstractFunction {
+
+    int invocations;
+
+    boolean deterministic = true;
+
+    @Override
+    public EvaluationValue evaluate(
+        Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      invocations++;
+      return parameterValues[0];
+    }
+
+    @Override
+    public boolean isDeterministic() {
+      return deterministic;
+    }
+  }
+
+  /** Returns the first parameter that can be evaluated, the others are evaluated lazily. */
+  @FunctionParameter(name = "values", isLazy = true, isVarArg = true)
+  static class FirstDefinedFunction extends AbstractFunction {
+
+    @Override
+    public EvaluationValue evaluate(
+        Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      for (EvaluationValue parameterValue : parameterValues) {
+        try {
+          return expression.evaluateSubtree(parameterValue.getExpressionNode());
+        } catch (EvaluationException e) {
+          // try the next one
+        }
+      }
+      return EvaluationValue.nullValue();
+    }
+  }
+}
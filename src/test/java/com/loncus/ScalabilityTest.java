@@ -0,0 +1,129 @@
+package com.loncus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.config.ExpressionConfiguration.ParserType;
+import com.loncus.data.EvaluationValue;
+import com.loncus.parser.ParseException;
+import java.math.BigDecimal;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@Timeout(60)
+class ScalabilityTest {
+
+  private static final int TERMS = 100_000;
+
+  @ParameterizedTest
+  @EnumSource(ParserType.class)
+  void testLongOperatorChain(ParserType parserType) throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().parserType(parserType).build();
+
+    Expression expression = new Expression(terms(" + ", i -> "1"), configuration);
+
+    assertThat(expression.evaluate().getNumberValue()).isEqualByComparingTo(valueOf(TERMS));
+  }
+
+  @ParameterizedTest
+  @EnumSource(ParserType.class)
+  void testLongShortCircuitChains(ParserType parserType)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().parserType(parserType).build();
+
+    Expression and = new Expression(terms(" && ", i -> "TRUE"), configuration);
+    Expression or = new Expression(terms(" || ", i -> "FALSE"), configuration);
+    Expression skipped =
+        new Expression(terms(" && ", i -> i == 0 ? "FALSE" : "TRUE"), configuration);
+
+    assertThat(and.evaluate().getBooleanValue()).isTrue();
+    assertThat(or.evaluate().getBooleanValue()).isFalse();
+    assertThat(skipped.evaluate().getBooleanValue()).isFalse();
+  }
+
+  @ParameterizedTest
+  @EnumSource(ParserType.class)
+  void testFunctionWithManyParameters(ParserType parserType)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().parserType(parserType).build();
+
+    Expression expression = new Expression("SUM(" + terms(", ", i -> "2") + ")", configuration);
+
+    assertThat(expression.evaluate().getNumberValue()).isEqualByComparingTo(valueOf(2L * TERMS));
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testLongOperatorChainInAllModes(EvaluationMode evaluationMode)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    CompiledExpression compiled =
+        CompiledExpression.compile(TERMS + " - " + terms(" - ", i -> "a"), configuration);
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 1));
+
+    assertThat(result.getNumberValue()).isZero();
+  }
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testLongShortCircuitChainsInAllModes(EvaluationMode evaluationMode)
+      throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    CompiledExpression and = CompiledExpression.compile(terms(" && ", i -> "a"), configuration);
+    CompiledExpression or = CompiledExpression.compile(terms(" || ", i -> "a"), configuration);
+
+    assertThat(and.evaluate(and.newBindings().with("a", true)).getBooleanValue()).isTrue();
+    assertThat(or.evaluate(or.newBindings().with("a", false)).getBooleanValue()).isFalse();
+  }
+
+  @Test
+  void testUsedVariablesOfLongOperatorChain() throws ParseException {
+    Expression expression = new Expression(terms(" * ", i -> "a" + i));
+
+    assertThat(expression.getUsedVariables()).hasSize(TERMS);
+    assertThat(expression.getAllASTNodes()).hasSize(2 * TERMS - 1);
+  }
+
+  @Test
+  void testManyVariablesBoundBySlot() throws ParseException, EvaluationException {
+    CompiledExpression compiled =
+        CompiledExpression.compile("SUM(" + terms(", ", i -> "a" + i) + ")");
+
+    Bindings bindings = compiled.newBindings();
+    for (int i = 0; i < TERMS; i++) {
+      bindings.set(compiled.getVariableSlot("a" + i), i);
+    }
+
+    assertThat(compiled.evaluate(bindings).getNumberValue())
+        .isEqualByComparingTo(valueOf((long) TERMS * (TERMS - 1) / 2));
+  }
+
+  private static String terms(String separator, IntFunction<String> term) {
+    StringJoiner joiner = new StringJoiner(separator);
+    for (int i = 0; i < TERMS; i++) {
+      joiner.add(term.apply(i));
+    }
+    return joiner.toString();
+  }
+
+  private static BigDecimal valueOf(long value) {
+    return BigDecimal.valueOf(value);
+  }
+}
@@ -0,0 +1,70 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the allocation of cheap arithmetic and boolean expressions, where creating the result
+ * values dominates. Run with the GC profiler (<code>-prof gc</code>, the main method adds it) and
+ * compare the <code>gc.alloc.rate.norm</code> results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+  @Param({"INTERPRETER", "CLOSURE_TREE", "BYTECODE", "STACK_MACHINE"})
+  private EvaluationMode evaluationMode;
+
+  @Param({"a + 1 - 1 + 2 - 2 + b * 1", "(a + b) * (a - b) > c && c < 10", "a * b + c - d % 7"})
+  private String expressionString;
+
+  private CompiledExpression compiledExpression;
+
+  private Bindings bindings;
+
+  @Setup
+  public void setup() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationMode(evaluationMode).build();
+    compiledExpression = CompiledExpression.compile(expressionString, configuration);
+    bindings = compiledExpression.newBindings().with("a", 12).and("b", 7).and("c", 3).and("d", 20);
+  }
+
+  @Benchmark
+  public EvaluationValue evaluate() throws BaseException {
+    return compiledExpression.evaluate(bindings);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(AllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
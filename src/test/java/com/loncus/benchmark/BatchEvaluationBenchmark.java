@@ -0,0 +1,94 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.data.Column;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the evaluation of a formula for many rows of data, row by row with bindings and vector
+ * at a time with columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchEvaluationBenchmark {
+
+  private static final int ROWS = 100_000;
+
+  @Param({
+    "price * quantity * (1 - discount)",
+    "IF(quantity > 10 && price > 50, price * quantity * 0.9, price * quantity)"
+  })
+  private String expressionString;
+
+  private CompiledExpression compiledExpression;
+
+  private double[] prices;
+
+  private long[] quantities;
+
+  private double[] discounts;
+
+  private Map<String, Column> columns;
+
+  @Setup
+  public void setup() throws BaseException {
+    compiledExpression = CompiledExpression.compile(expressionString);
+    prices = new double[ROWS];
+    quantities = new long[ROWS];
+    discounts = new double[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      prices[row] = 10 + row % 90 * 1.25;
+      quantities[row] = row % 20;
+      discounts[row] = row % 5 * 0.05;
+    }
+    columns = new HashMap<>();
+    columns.put("price", Column.of(prices));
+    columns.put("quantity", Column.of(quantities));
+    columns.put("discount", Column.of(discounts));
+  }
+
+  @Benchmark
+  public void rowByRow(Blackhole blackhole) throws BaseException {
+    for (int row = 0; row < ROWS; row++) {
+      blackhole.consume(
+          compiledExpression.evaluate(
+              compiledExpression
+                  .newBindings()
+                  .with("price", prices[row])
+                  .and("quantity", quantities[row])
+                  .and("discount", discounts[row])));
+    }
+  }
+
+  @Benchmark
+  public void batch(Blackhole blackhole) throws BaseException {
+    blackhole.consume(compiledExpression.evaluateBatch(columns));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(BatchEvaluationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
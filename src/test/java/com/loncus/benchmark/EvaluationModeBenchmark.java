@@ -0,0 +1,79 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the evaluation modes on a set of typical expressions. The expressions are compiled once,
+ * only the evaluation with fresh bindings is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationModeBenchmark {
+
+  @Param({"INTERPRETER", "CLOSURE_TREE", "BYTECODE", "STACK_MACHINE"})
+  private EvaluationMode evaluationMode;
+
+  @Param({
+    "a + b * 2",
+    "(a + b) * (a - b) / (a * b + 1)",
+    "IF(a > b, MAX(a, b, 100) * 2, MIN(a, b) / 3)",
+    "SQRT(a * a + b * b) + ABS(a - b) + FLOOR(a / 3)"
+  })
+  private String expressionString;
+
+  private CompiledExpression compiledExpression;
+
+  private int slotA;
+
+  private int slotB;
+
+  @Setup
+  public void setup() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationMode(evaluationMode).build();
+    compiledExpression = CompiledExpression.compile(expressionString, configuration);
+    slotA = compiledExpression.getVariableSlot("a");
+    slotB = compiledExpression.getVariableSlot("b");
+  }
+
+  @Benchmark
+  public EvaluationValue evaluate() throws BaseException {
+    Bindings bindings = compiledExpression.newBindings().with("a", 12.5).and("b", 7);
+    return compiledExpression.evaluate(bindings);
+  }
+
+  @Benchmark
+  public EvaluationValue evaluateBySlot() throws BaseException {
+    Bindings bindings = compiledExpression.newBindings().set(slotA, 12.5).set(slotB, 7);
+    return compiledExpression.evaluate(bindings);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(EvaluationModeBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
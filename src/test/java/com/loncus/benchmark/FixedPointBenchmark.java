@@ -0,0 +1,78 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the evaluation of a monetary formula with big decimals and with fixed point numbers,
+ * with the amounts bound as big decimals with two decimal places.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+  private static final BigDecimal DISCOUNT = new BigDecimal("0.15");
+
+  private static final BigDecimal SHIPPING = new BigDecimal("4.99");
+
+  @Param({"BIG_DECIMAL", "FIXED_POINT"})
+  private NumericMode numericMode;
+
+  private CompiledExpression compiledExpression;
+
+  private BigDecimal[] prices;
+
+  private int row;
+
+  @Setup
+  public void setup() throws BaseException {
+    compiledExpression =
+        CompiledExpression.compile(
+            "IF(quantity > 10, price * quantity * (1 - discount), price * quantity) + shipping",
+            ExpressionConfiguration.builder().numericMode(numericMode).build());
+    prices = new BigDecimal[1_000];
+    for (int i = 0; i < prices.length; i++) {
+      prices[i] = BigDecimal.valueOf(i * 137 % 100_000, 2);
+    }
+  }
+
+  @Benchmark
+  public EvaluationValue evaluate() throws BaseException {
+    row++;
+    return compiledExpression.evaluate(
+        compiledExpression
+            .newBindings()
+            .with("price", prices[row % prices.length])
+            .and("quantity", row % 20)
+            .and("discount", DISCOUNT)
+            .and("shipping", SHIPPING));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FixedPointBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
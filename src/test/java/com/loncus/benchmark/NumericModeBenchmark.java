@@ -0,0 +1,86 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the evaluation of numeric formulas with big decimals and with primitive doubles, with
+ * the variables bound by slot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericModeBenchmark {
+
+  @Param({
+    "price * quantity * (1 - discount)",
+    "IF(quantity > 10 && price > 50, SQRT(price) * quantity, MAX(price, quantity) / 3)"
+  })
+  private String expressionString;
+
+  @Param({"BIG_DECIMAL", "DOUBLE"})
+  private NumericMode numericMode;
+
+  private CompiledExpression compiledExpression;
+
+  private Bindings bindings;
+
+  private int priceSlot;
+
+  private int quantitySlot;
+
+  private int discountSlot;
+
+  private int row;
+
+  @Setup
+  public void setup() throws BaseException {
+    compiledExpression =
+        CompiledExpression.compile(
+            expressionString, ExpressionConfiguration.builder().numericMode(numericMode).build());
+    bindings = compiledExpression.newBindings();
+    priceSlot = compiledExpression.getVariableSlot("price");
+    quantitySlot = compiledExpression.getVariableSlot("quantity");
+    discountSlot =
+        compiledExpression.getUsedVariables().contains("discount")
+            ? compiledExpression.getVariableSlot("discount")
+            : -1;
+  }
+
+  @Benchmark
+  public double evaluate() throws BaseException {
+    row++;
+    bindings.set(priceSlot, 10 + row % 90 * 1.25);
+    bindings.set(quantitySlot, (double) (row % 20));
+    if (discountSlot >= 0) {
+      bindings.set(discountSlot, row % 5 * 0.05);
+    }
+    return compiledExpression.evaluateDouble(bindings);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(NumericModeBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
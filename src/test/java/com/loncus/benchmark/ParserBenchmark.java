@@ -0,0 +1,59 @@
+package com.loncus.benchmark;
+
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.ParserType;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ExpressionParser;
+import com.loncus.parser.ParseException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Compares the parsers on a set of typical expressions, without an expression cache. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"SHUNTING_YARD", "PRECEDENCE_CLIMBING"})
+  private ParserType parserType;
+
+  @Param({
+    "a + b * 2",
+    "(a + b) * (a - b) / (a * b + 1)",
+    "IF(a > b, MAX(a, b, 100) * 2, MIN(a, b) / 3)",
+    "SQRT(a * a + b * b) + ABS(a - b) + FLOOR(a / 3)"
+  })
+  private String expressionString;
+
+  private ExpressionConfiguration configuration;
+
+  @Setup
+  public void setup() {
+    configuration = ExpressionConfiguration.builder().parserType(parserType).build();
+  }
+
+  @Benchmark
+  public ASTNode parse() throws ParseException {
+    return ExpressionParser.parse(expressionString, configuration);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ParserBenchmark.class.getSimpleName()).build()).run();
+  }
+}
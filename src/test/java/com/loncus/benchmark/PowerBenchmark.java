@@ -0,0 +1,66 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the power operator with integer exponents, for integer and decimal bases, and with
+ * fractional exponents, with the default precision of 68 digits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowerBenchmark {
+
+  @Param({"2", "3", "12", "0.5", "2.75", "-1.5"})
+  private String exponent;
+
+  @Param({"integer", "decimal"})
+  private String base;
+
+  private CompiledExpression compiledExpression;
+
+  private Object[] values;
+
+  private int row;
+
+  @Setup
+  public void setup() throws BaseException {
+    compiledExpression = CompiledExpression.compile("x ^ " + exponent);
+    values = new Object[1_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = base.equals("integer") ? (Object) (i + 2) : BigDecimal.valueOf(i * 7919L + 3, 3);
+    }
+  }
+
+  @Benchmark
+  public EvaluationValue power() throws BaseException {
+    row++;
+    return compiledExpression.evaluate(
+        compiledExpression.newBindings().with("x", values[row % values.length]));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PowerBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,110 @@
+package com.loncus.benchmark;
+
+import static com.loncus.operators.OperatorIfc.OPERATOR_PRECEDENCE_AND;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.operators.AbstractOperator;
+import com.loncus.operators.InfixOperator;
+import com.loncus.parser.Token;
+import java.util.AbstractMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the lazy <code>&amp;&amp;</code> operator with an eager one, on rules with a cheap guard
+ * and an expensive condition. The guard is false for 9 of the 10 data sets, so the expensive
+ * condition needs to be evaluated for only one of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortCircuitBenchmark {
+
+  private static final int DATA_SETS = 10;
+
+  @Param({"INTERPRETER", "CLOSURE_TREE", "BYTECODE", "STACK_MACHINE"})
+  private EvaluationMode evaluationMode;
+
+  @Param({"true", "false"})
+  private boolean shortCircuit;
+
+  @Param({
+    "active && SQRT(x * x + y * y) / MAX(x, y, 1) > 1.2",
+    "price > limit && SUM(x, y, price) * SQRT(price) / (x + y) > 10 && ABS(x - y) < price"
+  })
+  private String expressionString;
+
+  private CompiledExpression compiledExpression;
+
+  private Bindings[] bindings;
+
+  @Setup
+  public void setup() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().evaluationMode(evaluationMode).build();
+    if (!shortCircuit) {
+      configuration.withAdditionalOperators(
+          new AbstractMap.SimpleEntry<>("&&", new EagerAndOperator()));
+    }
+    compiledExpression = CompiledExpression.compile(expressionString, configuration);
+    bindings = new Bindings[DATA_SETS];
+    for (int i = 0; i < DATA_SETS; i++) {
+      boolean guard = i == 0;
+      bindings[i] =
+          compiledExpression
+              .newBindings()
+              .with("active", guard)
+              .and("price", guard ? 120 : 80)
+              .and("limit", 100)
+              .and("x", 3.5 + i)
+              .and("y", 12.25 - i);
+    }
+  }
+
+  @Benchmark
+  public void evaluate(Blackhole blackhole) throws BaseException {
+    for (Bindings dataSet : bindings) {
+      blackhole.consume(compiledExpression.evaluate(dataSet));
+    }
+  }
+
+  /** The boolean AND operator with eagerly evaluated operands, as baseline. */
+  @InfixOperator(precedence = OPERATOR_PRECEDENCE_AND)
+  public static class EagerAndOperator extends AbstractOperator {
+
+    @Override
+    public EvaluationValue evaluate(
+        Expression expression, Token operatorToken, EvaluationValue... operands) {
+      return expression.convertValue(
+          operands[0].getBooleanValue() && operands[1].getBooleanValue());
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ShortCircuitBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,78 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.data.EvaluationValue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the evaluation of a formula with all variables bound per request, and of the residual
+ * expression that is specialized for the rarely changing parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializationBenchmark {
+
+  private static final String EXPRESSION =
+      "IF(region = \"EU\", amount * fxRate * (1 + vatRate), amount * fxRate)"
+          + " * IF(amount * fxRate > threshold, 1 - discount, 1)";
+
+  @Param({"false", "true"})
+  private boolean specialized;
+
+  private CompiledExpression compiledExpression;
+
+  private Map<String, Object> parameters;
+
+  private int row;
+
+  @Setup
+  public void setup() throws BaseException {
+    parameters = new HashMap<>();
+    parameters.put("region", "EU");
+    parameters.put("fxRate", 1.0834);
+    parameters.put("vatRate", 0.19);
+    parameters.put("threshold", 1000);
+    parameters.put("discount", 0.05);
+    compiledExpression = CompiledExpression.compile(EXPRESSION);
+    if (specialized) {
+      compiledExpression = compiledExpression.specialize(parameters);
+    }
+  }
+
+  @Benchmark
+  public EvaluationValue evaluate() throws BaseException {
+    row++;
+    if (specialized) {
+      return compiledExpression.evaluate(
+          compiledExpression.newBindings().with("amount", row % 2000));
+    }
+    return compiledExpression.evaluate(
+        compiledExpression.newBindings().withValues(parameters).and("amount", row % 2000));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SpecializationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
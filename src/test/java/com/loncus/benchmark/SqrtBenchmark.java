@@ -0,0 +1,68 @@
+package com.loncus.benchmark;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the square root function with the precisions of the common decimal formats, and with a
+ * high precision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqrtBenchmark {
+
+  @Param({"16", "34", "68", "200"})
+  private int precision;
+
+  private CompiledExpression compiledExpression;
+
+  private BigDecimal[] values;
+
+  private int row;
+
+  @Setup
+  public void setup() throws BaseException {
+    compiledExpression =
+        CompiledExpression.compile(
+            "SQRT(x)",
+            ExpressionConfiguration.builder().mathContext(new MathContext(precision)).build());
+    values = new BigDecimal[1_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = BigDecimal.valueOf(i * 7919L + 2, i % 5);
+    }
+  }
+
+  @Benchmark
+  public EvaluationValue sqrt() throws BaseException {
+    row++;
+    return compiledExpression.evaluate(
+        compiledExpression.newBindings().with("x", values[row % values.length]));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SqrtBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,111 @@
+package com.loncus.benchmark;
+
+import com.loncus.math.BigDecimalMath;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the transcendental functions of big decimals at the precisions of doubles, of {@link
+ * MathContext#DECIMAL128} and of the default math context, with arguments of all magnitudes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranscendentalBenchmark {
+
+  @Param({"16", "34", "68"})
+  private int precision;
+
+  private MathContext mathContext;
+
+  private BigDecimal[] arguments;
+
+  private int row;
+
+  @Setup
+  public void setup() {
+    mathContext = new MathContext(precision);
+    arguments = new BigDecimal[1_000];
+    for (int i = 0; i < arguments.length; i++) {
+      arguments[i] = BigDecimal.valueOf(i * 7919L % 100_000 + 1, i % 7);
+    }
+  }
+
+  @Benchmark
+  public BigDecimal exp() {
+    return BigDecimalMath.exp(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal ln() {
+    return BigDecimalMath.ln(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal log10() {
+    return BigDecimalMath.log10(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal sin() {
+    return BigDecimalMath.sin(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal cos() {
+    return BigDecimalMath.cos(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal tan() {
+    return BigDecimalMath.tan(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal atan() {
+    return BigDecimalMath.atan(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal sinh() {
+    return BigDecimalMath.sinh(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal cosh() {
+    return BigDecimalMath.cosh(nextArgument(), mathContext);
+  }
+
+  @Benchmark
+  public BigDecimal tanh() {
+    return BigDecimalMath.tanh(nextArgument(), mathContext);
+  }
+
+  private BigDecimal nextArgument() {
+    row++;
+    return arguments[row % arguments.length];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TranscendentalBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
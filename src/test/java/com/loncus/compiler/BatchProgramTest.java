@@ -0,0 +1,266 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationCancelledException;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.Column;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BatchProgramTest {
+
+  private static final int ROWS = 100;
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "(a + b) * (a - b) / 2",
+        "-a ^ 2 + b % 7",
+        "a * 2.5 + 3 * 4",
+        "s + \" \" + a",
+        "IF(a > b, a * 2, b / 3)",
+        "IF(a < 50, IF(b > 60, 1, 2), IF(flag, 3, 4))",
+        "flag && a > 10 || b < 5",
+        "MAX(a, b, 4) + MIN(a, 2) + SUM(1, 2, a)",
+        "NOT(a = b) && TRUE",
+        "ABS(-a) + FLOOR(b / 3) + SQRT(a) * PI",
+        "arr[1] + a",
+      })
+  void testSameResultAsRowByRow(String expressionString) throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile(expressionString);
+    long[] a = new long[ROWS];
+    double[] b = new double[ROWS];
+    String[] s = new String[ROWS];
+    boolean[] flag = new boolean[ROWS];
+    EvaluationValue[] arr = new EvaluationValue[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      a[row] = row + 1;
+      b[row] = (ROWS - row) * 1.25;
+      s[row] = "row" + row;
+      flag[row] = row % 3 == 0;
+      arr[row] =
+          new EvaluationValue(
+              Arrays.asList(row, row * 2), ExpressionConfiguration.defaultConfiguration());
+    }
+    Map<String, Column> columns = new HashMap<>();
+    columns.put("a", Column.of(a));
+    columns.put("b", Column.of(b));
+    columns.put("s", Column.of(s));
+    columns.put("flag", Column.of(flag));
+    columns.put("arr", Column.of(arr));
+
+    Column result = compiled.evaluateBatch(columns);
+
+    assertThat(result.size()).isEqualTo(ROWS);
+    for (int row = 0; row < ROWS; row++) {
+      Bindings bindings =
+          compiled
+              .newBindings()
+              .with("a", a[row])
+              .and("b", b[row])
+              .and("s", s[row])
+              .and("flag", flag[row])
+              .and("arr", arr[row]);
+      assertThat(result.getValue(row)).isEqualTo(compiled.evaluate(bindings));
+    }
+  }
+
+  @Test
+  void testNullRows() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(a = NULL, NULL, a * 2)");
+    BitSet validity = new BitSet();
+    validity.set(0);
+    validity.set(2);
+
+    Column result =
+        compiled.evaluateBatch(
+            Collections.singletonMap(
+                "a", Column.of(new long[] {1, 2, 3, 4}).withValidity(validity)));
+
+    assertThat(result.getValidity()).isEqualTo(validity);
+    assertThat(result.getValue(0).getNumberValue()).isEqualByComparingTo("2");
+    assertThat(result.isNull(1)).isTrue();
+    assertThat(result.getValue(2).getNumberValue()).isEqualByComparingTo("6");
+    assertThat(result.getValue(3).isNullValue()).isTrue();
+  }
+
+  @Test
+  void testNullRowsOfShortCircuitOperators() throws BaseException {
+    CompiledExpression and = CompiledExpression.compile("a && b");
+    CompiledExpression or = CompiledExpression.compile("a || b");
+    BitSet validA = new BitSet();
+    validA.set(0);
+    validA.set(2);
+    BitSet validB = new BitSet();
+    validB.set(0, 2);
+    Map<String, Column> columns = new HashMap<>();
+    columns.put("a", Column.of(true, true, true, true).withValidity(validA));
+    columns.put("b", Column.of(true, true, true, true).withValidity(validB));
+
+    // NULL operands count as false
+    Column andResult = and.evaluateBatch(columns);
+    Column orResult = or.evaluateBatch(columns);
+
+    assertThat(andResult.getValue(0).getBooleanValue()).isTrue();
+    assertThat(andResult.getValue(1).getBooleanValue()).isFalse();
+    assertThat(andResult.getValue(2).getBooleanValue()).isFalse();
+    assertThat(andResult.getValue(3).getBooleanValue()).isFalse();
+    assertThat(orResult.getValue(0).getBooleanValue()).isTrue();
+    assertThat(orResult.getValue(1).getBooleanValue()).isTrue();
+    assertThat(orResult.getValue(2).getBooleanValue()).isTrue();
+    assertThat(orResult.getValue(3).getBooleanValue()).isFalse();
+  }
+
+  @Test
+  void testShortCircuitOperatorsAreCharged() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "a && b", ExpressionConfiguration.builder().maximumNodeEvaluations(2).build());
+    Map<String, Column> columns = new HashMap<>();
+    columns.put("a", Column.of(false, true));
+    columns.put("b", Column.of(true, true));
+
+    // the first row evaluates two nodes, the second row three
+    assertThatThrownBy(() -> compiled.evaluateBatch(columns))
+        .isInstanceOf(EvaluationCancelledException.class);
+  }
+
+  @Test
+  void testNullRowsOfDeclaredTypes() throws BaseException {
+    Map<String, DataType> variableTypes = Collections.singletonMap("a", DataType.NUMBER);
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "IF(a = NULL, 0, a * 2)",
+            ExpressionConfiguration.defaultConfiguration(),
+            variableTypes);
+    CompiledExpression specialized =
+        CompiledExpression.compile(
+            "a * 2", ExpressionConfiguration.defaultConfiguration(), variableTypes);
+    BitSet validity = new BitSet();
+    validity.set(0);
+    Map<String, Column> columns =
+        Collections.singletonMap("a", Column.of(1.5, 2.5).withValidity(validity));
+
+    Column result = compiled.evaluateBatch(columns);
+
+    assertThat(result.getValue(0).getNumberValue()).isEqualByComparingTo("3");
+    assertThat(result.getValue(1).getNumberValue()).isEqualByComparingTo("0");
+    // the specialized operator passes the NULL operand to the generic operator
+    assertThatThrownBy(() -> specialized.evaluateBatch(columns))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Unsupported data types in operation");
+  }
+
+  @Test
+  void testLazyOperandsAreOnlyEvaluatedForSelectedRows() throws BaseException {
+    ExpressionCompilerTest.CountingFunction count = new ExpressionCompilerTest.CountingFunction();
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.defaultConfiguration()
+            .withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "IF(a > 2, COUNT(a), 0) + IF(a > 0 && COUNT(a) > 3, 1, 0)", configuration);
+
+    Column result =
+        compiled.evaluateBatch(Collections.singletonMap("a", Column.of(new long[] {0, 1, 3, 4})));
+
+    assertThat(result.getValue(3).getNumberValue()).isEqualByComparingTo("5");
+    // two rows select the first COUNT, three rows evaluate the right operand of &&
+    assertThat(count.invocations).isEqualTo(5);
+  }
+
+  @Test
+  void testLazyParametersOfOtherFunctions() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.defaultConfiguration()
+            .withAdditionalFunctions(
+                new AbstractMap.SimpleEntry<>(
+                    "FIRST_DEFINED", new PostfixCompilerTest.FirstDefinedFunction()));
+    CompiledExpression compiled =
+        CompiledExpression.compile("2 * FIRST_DEFINED(x, 1 / a, a + 1)", configuration);
+
+    Column result =
+        compiled.evaluateBatch(
+            Collections.singletonMap("a", Column.of(new BigDecimal("0"), new BigDecimal("4"))));
+
+    assertThat(result.getValue(0).getNumberValue()).isEqualByComparingTo("2");
+    assertThat(result.getValue(1).getNumberValue()).isEqualByComparingTo("0.5");
+  }
+
+  @Test
+  void testDeepTreeIsEvaluated() throws BaseException {
+    String expressionString =
+        "0" + String.join("", Collections.nCopies(ExpressionCompiler.MAXIMUM_COMPILED_DEPTH, "+a"));
+    CompiledExpression compiled = CompiledExpression.compile(expressionString);
+
+    Column result =
+        compiled.evaluateBatch(Collections.singletonMap("a", Column.of(new long[] {1, 2})));
+
+    assertThat(result.getValue(1).getNumberValue()).isEqualByComparingTo("2000");
+  }
+
+  @Test
+  void testErrors() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a / b");
+
+    Map<String, Column> columns = new HashMap<>();
+    columns.put("a", Column.of(new long[] {1, 2}));
+    columns.put("b", Column.of(new long[] {1, 0}));
+    assertThatThrownBy(() -> compiled.evaluateBatch(columns))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+
+    assertThatThrownBy(
+            () -> compiled.evaluateBatch(Collections.singletonMap("a", Column.of(new long[] {1}))))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'b' not found");
+
+    columns.put("b", Column.of(new long[] {1, 2, 3}));
+    assertThatThrownBy(() -> compiled.evaluateBatch(columns))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThatThrownBy(() -> compiled.evaluateBatch(Collections.emptyMap()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("At least one column is required");
+
+    assertThatThrownBy(
+            () -> compiled.evaluateBatch(Collections.singletonMap("PI", Column.of(new long[] {1}))))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testDeclaredTypesAreChecked() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "a * 2",
+            ExpressionConfiguration.defaultConfiguration(),
+            Collections.singletonMap("a", DataType.NUMBER));
+
+    assertThat(
+            compiled
+                .evaluateBatch(Collections.singletonMap("a", Column.of(1.5, 2.5)))
+                .getValue(1)
+                .getNumberValue())
+        .isEqualByComparingTo("5");
+    assertThatThrownBy(
+            () -> compiled.evaluateBatch(Collections.singletonMap("a", Column.of("x", "y"))))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Variable 'a' is declared as NUMBER, but the value is of type STRING");
+  }
+}
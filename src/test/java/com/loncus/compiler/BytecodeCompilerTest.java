@@ -0,0 +1,141 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.MapBasedDataAccessor;
+import com.loncus.data.VariableSlots;
+import com.loncus.parser.ASTNode;
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BytecodeCompilerTest {
+
+  private static final ExpressionConfiguration BYTECODE =
+      ExpressionConfiguration.builder()
+          .evaluationMode(EvaluationMode.BYTECODE)
+          .compilationThreshold(0)
+          .build();
+
+  private static final VariableSlots NO_SLOTS = new VariableSlots(Collections.emptyList());
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "1+2*3",
+        "-2^2",
+        "(a+b)*(a-b)/2",
+        "a % 3 + 0x1F",
+        "1.5e3 / 7",
+        "\"Hello \" + s",
+        "IF(a > b, a * 2, b / 3)",
+        "IF(a < b, IF(b > 10, 1, 2), IF(a > 8, 3, 4))",
+        "MAX(a, b, 4) + MIN(a, 2) + SUM(1, 2, a, 4, 5, 6, 7, 8)",
+        "NOT(a = b) && TRUE || FALSE",
+        "ABS(-a) + FLOOR(2.7) + CEILING(2.1) + FACT(5)",
+        "SQRT(a) * PI + E",
+        "arr[1] + arr[0]",
+        "!(a >= b)",
+      })
+  void testSameResultAsInterpreter(String expressionString) throws BaseException {
+    assertThat(evaluate(expressionString, BYTECODE))
+        .isEqualTo(evaluate(expressionString, ExpressionConfiguration.defaultConfiguration()));
+  }
+
+  @Test
+  void testErrorsAreReportedLikeInterpreter() {
+    assertThatThrownBy(() -> evaluate("a / (b - 7)", BYTECODE))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThatThrownBy(() -> new Expression("x + 1", BYTECODE).evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'x' not found");
+  }
+
+  @Test
+  void testCompilesAfterThreshold() throws BaseException {
+    ExpressionConfiguration configuration = BYTECODE.toBuilder().compilationThreshold(3).build();
+    ASTNode tree = new Expression("IF(a > 2, a * 2, a + a)").getAbstractSyntaxTree();
+    TieredProgram program =
+        (TieredProgram)
+            ExpressionCompiler.compile(tree, configuration, Collections.emptyMap(), NO_SLOTS);
+
+    for (int i = 1; i <= 5; i++) {
+      MapBasedDataAccessor dataAccessor = new MapBasedDataAccessor();
+      dataAccessor.setData("a", EvaluationValue.numberValue(BigDecimal.valueOf(i)));
+
+      EvaluationValue result =
+          program.evaluate(
+              "IF(a > 2, a * 2, a + a)", configuration, tree, dataAccessor, Collections.emptyMap());
+
+      assertThat(result.getStringValue()).isEqualTo(String.valueOf(i * 2));
+      assertThat(program.isCompiled()).isEqualTo(i > 3);
+    }
+  }
+
+  @Test
+  void testFallsBackToInterpreterIfTooLarge() throws BaseException {
+    // each parameter needs 11 bytes of code, more than a single method can hold
+    String expressionString = "SUM(" + String.join(",", Collections.nCopies(6_000, "a")) + ")";
+    ASTNode tree = new Expression(expressionString).getAbstractSyntaxTree();
+    TieredProgram program =
+        (TieredProgram)
+            ExpressionCompiler.compile(tree, BYTECODE, Collections.emptyMap(), NO_SLOTS);
+    MapBasedDataAccessor dataAccessor = new MapBasedDataAccessor();
+    dataAccessor.setData("a", EvaluationValue.numberValue(BigDecimal.ONE));
+
+    EvaluationValue result =
+        program.evaluate(expressionString, BYTECODE, tree, dataAccessor, Collections.emptyMap());
+
+    assertThat(result.getStringValue()).isEqualTo("6000");
+    assertThat(program.isCompiled()).isFalse();
+  }
+
+  @Test
+  void testCompiledExpressionIsSharedBetweenBindings() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile("IF(a > 1, SUM(a, 2, 3) * 2, -a)", BYTECODE);
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 3)).getStringValue())
+        .isEqualTo("16");
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 1)).getStringValue())
+        .isEqualTo("-1");
+  }
+
+  @Test
+  void testCommonSubexpressionsAreEvaluatedOnce() throws BaseException {
+    ExpressionCompilerTest.CountingFunction count = new ExpressionCompilerTest.CountingFunction();
+    ExpressionConfiguration configuration =
+        BYTECODE.withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "COUNT(a + 1) * COUNT(a + 1) + IF(a > 0, COUNT(a + 1), 0)", configuration);
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 2));
+
+    assertThat(result.getStringValue()).isEqualTo("12");
+    assertThat(count.invocations).isEqualTo(1);
+  }
+
+  private static EvaluationValue evaluate(
+      String expressionString, ExpressionConfiguration configuration) throws BaseException {
+    return new Expression(expressionString, configuration)
+        .with("a", 9)
+        .and("b", 7)
+        .and("s", "world")
+        .and("arr", Arrays.asList(3, 4.5))
+        .evaluate();
+  }
+}
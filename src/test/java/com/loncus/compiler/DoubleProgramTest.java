@@ -0,0 +1,210 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.loncus.BaseException;
+import com.loncus.Bindings;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.trigonometric.AtanFunction;
+import com.loncus.functions.trigonometric.SinFunction;
+import java.util.AbstractMap;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DoubleProgramTest {
+
+  private static final ExpressionConfiguration DOUBLE_CONFIGURATION =
+      ExpressionConfiguration.builder().numericMode(NumericMode.DOUBLE).build();
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "(a + b) * (a - b) / 2",
+        "-a ^ 2 + b % 7",
+        "+a * 2.5 + 3 * b",
+        "IF(a > b, a * 2, b / 3)",
+        "IF(a < 5, IF(b >= 6, 1, 2), IF(a <= b, 3, 4))",
+        "MAX(a, b, 4) + MIN(a, 2) + SUM(1, 2, a)",
+        "ABS(-a) + FLOOR(b / 3) + CEILING(a / 3) + SQRT(a) * PI",
+        "LOG(a) + LOG10(b) + FACT(3)",
+      })
+  void testSameResultAsBigDecimal(String expressionString) throws BaseException {
+    CompiledExpression decimal = CompiledExpression.compile(expressionString);
+    CompiledExpression primitive =
+        CompiledExpression.compile(expressionString, DOUBLE_CONFIGURATION);
+    assertThat(compileDouble(primitive)).isNotNull();
+
+    for (int a = 1; a < 10; a++) {
+      double b = 10.5 - a;
+      EvaluationValue expected = decimal.evaluate(decimal.newBindings().with("a", a).and("b", b));
+      Bindings bindings = primitive.newBindings();
+      bindings.set(primitive.getVariableSlot("a"), (double) a);
+      bindings.set(primitive.getVariableSlot("b"), b);
+
+      assertThat(primitive.evaluateDouble(bindings))
+          .isCloseTo(expected.getNumberValue().doubleValue(), within(1e-9));
+      assertThat(primitive.evaluate(bindings).getNumberValue().doubleValue())
+          .isCloseTo(expected.getNumberValue().doubleValue(), within(1e-9));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "a > b && a != 3",
+        "a < b || NOT(a = 2)",
+        "!(a >= b) == TRUE",
+        "IF(a > 4, a < 6, b <> 7.5)",
+      })
+  void testBooleanResults(String expressionString) throws BaseException {
+    CompiledExpression decimal = CompiledExpression.compile(expressionString);
+    CompiledExpression primitive =
+        CompiledExpression.compile(expressionString, DOUBLE_CONFIGURATION);
+    assertThat(compileDouble(primitive)).isNotNull();
+
+    for (int a = 1; a < 10; a++) {
+      double b = 10.5 - a;
+      EvaluationValue expected = decimal.evaluate(decimal.newBindings().with("a", a).and("b", b));
+      EvaluationValue actual = primitive.evaluate(primitive.newBindings().with("a", a).and("b", b));
+
+      assertThat(actual).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void testBooleanVariables() throws BaseException {
+    CompiledExpression undeclared =
+        CompiledExpression.compile("IF(flag && x > 1, x, -x)", DOUBLE_CONFIGURATION);
+    CompiledExpression declared =
+        CompiledExpression.compile(
+            "IF(flag && x > 1, x, -x)",
+            DOUBLE_CONFIGURATION,
+            Collections.singletonMap("flag", DataType.BOOLEAN));
+
+    for (CompiledExpression compiled : new CompiledExpression[] {undeclared, declared}) {
+      assertThat(compileDouble(compiled)).isNotNull();
+      assertThat(compiled.evaluateDouble(compiled.newBindings().with("flag", true).and("x", 2)))
+          .isEqualTo(2.0);
+      assertThat(compiled.evaluateDouble(compiled.newBindings().with("flag", false).and("x", 2)))
+          .isEqualTo(-2.0);
+    }
+  }
+
+  @Test
+  void testTrigonometricFunctions() throws BaseException {
+    ExpressionConfiguration configuration =
+        DOUBLE_CONFIGURATION.withAdditionalFunctions(
+            new AbstractMap.SimpleEntry<>("SIN", new SinFunction()),
+            new AbstractMap.SimpleEntry<>("ATAN", new AtanFunction()));
+    CompiledExpression compiled = CompiledExpression.compile("SIN(x) + ATAN(x)", configuration);
+    assertThat(compileDouble(compiled)).isNotNull();
+
+    Bindings bindings = compiled.newBindings();
+    bindings.set(0, 30.0);
+
+    assertThat(compiled.evaluateDouble(bindings))
+        .isCloseTo(0.5 + Math.toDegrees(Math.atan(30)), within(1e-12));
+  }
+
+  @Test
+  void testResultIsRounded() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("1 / 3", DOUBLE_CONFIGURATION);
+
+    assertThat(compiled.evaluate().getNumberValue()).isEqualByComparingTo("0.3333333333333333");
+    assertThat(compiled.evaluateDouble(compiled.newBindings())).isEqualTo(1.0 / 3);
+  }
+
+  @Test
+  void testDoubleBindings() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("x * 2", DOUBLE_CONFIGURATION);
+    Bindings bindings = compiled.newBindings();
+    bindings.set(0, 1.5);
+
+    assertThat(bindings.hasDouble(0)).isTrue();
+    assertThat(bindings.getDouble(0)).isEqualTo(1.5);
+    assertThat(bindings.getData("x").getNumberValue()).isEqualByComparingTo("1.5");
+    assertThat(compiled.evaluateDouble(bindings)).isEqualTo(3.0);
+
+    bindings.set(0, "text");
+
+    assertThat(bindings.hasDouble(0)).isFalse();
+    assertThatThrownBy(() -> compiled.evaluate(bindings))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Unsupported data types in operation");
+  }
+
+  @Test
+  void testErrors() throws BaseException {
+    CompiledExpression division = CompiledExpression.compile("a / b", DOUBLE_CONFIGURATION);
+    assertThatThrownBy(() -> division.evaluate(division.newBindings().with("a", 1).and("b", 0)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+
+    CompiledExpression sqrt = CompiledExpression.compile("SQRT(a)", DOUBLE_CONFIGURATION);
+    assertThatThrownBy(() -> sqrt.evaluate(sqrt.newBindings().with("a", -1)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Parameter must not be negative");
+
+    CompiledExpression missing = CompiledExpression.compile("a + 1", DOUBLE_CONFIGURATION);
+    assertThatThrownBy(() -> missing.evaluate(missing.newBindings()))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'a' not found");
+
+    CompiledExpression overflow = CompiledExpression.compile("a ^ 1000", DOUBLE_CONFIGURATION);
+    assertThatThrownBy(() -> overflow.evaluate(overflow.newBindings().with("a", 10)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Result is not a finite number: Infinity");
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "IF(a ^ 0.5 > 1, 1, 2)",
+        "a ^ 0.5 == a ^ 0.5",
+        "NOT(a ^ 0.5 < 0)",
+        "IF(a^0.5, 1, 2)"
+      })
+  void testFractionalPowerOfNegativeNumber(String expressionString) throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(expressionString, DOUBLE_CONFIGURATION);
+
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings().with("a", -4)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Fractional power of a negative number");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"s + \"x\"", "a = b", "arr[0] * 2", "LOG(a) > \"1\""})
+  void testUnsupportedExpressionsFallBack(String expressionString) throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(expressionString, DOUBLE_CONFIGURATION);
+
+    assertThat(compileDouble(compiled)).isNull();
+  }
+
+  @Test
+  void testFallbackEvaluatesWithBigDecimals() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("s + \" \" + a", DOUBLE_CONFIGURATION);
+    Bindings bindings = compiled.newBindings().with("s", "total");
+    bindings.set(compiled.getVariableSlot("a"), 2.5);
+
+    assertThat(compiled.evaluate(bindings).getStringValue()).isEqualTo("total 2.5");
+  }
+
+  private static DoubleProgram compileDouble(CompiledExpression compiled) {
+    return DoubleCompiler.compile(
+        compiled.getAbstractSyntaxTree(),
+        compiled.getConfiguration(),
+        compiled.getConstants(),
+        compiled.getVariableSlots());
+  }
+}
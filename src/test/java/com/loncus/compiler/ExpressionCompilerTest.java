@@ -0,0 +1,279 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.data.VariableSlots;
+import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.FunctionParameter;
+import com.loncus.functions.basic.RandomFunction;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ParseException;
+import com.loncus.parser.Token;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExpressionCompilerTest {
+
+  private static final ExpressionConfiguration CLOSURE_TREE =
+      ExpressionConfiguration.builder().evaluationMode(EvaluationMode.CLOSURE_TREE).build();
+
+  private static final VariableSlots NO_SLOTS = new VariableSlots(Collections.emptyList());
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "1+2*3",
+        "-2^2",
+        "(a+b)*(a-b)/2",
+        "a % 3 + 0x1F",
+        "1.5e3 / 7",
+        "\"Hello \" + s",
+        "IF(a > b, a * 2, b / 3)",
+        "IF(a < b, IF(b > 10, 1, 2), 3)",
+        "MAX(a, b, 4) + MIN(a, 2) + SUM(1, 2, a)",
+        "NOT(a = b) && TRUE || FALSE",
+        "ABS(-a) + FLOOR(2.7) + CEILING(2.1) + FACT(5)",
+        "SQRT(a) * PI + E",
+        "arr[1] + arr[0]",
+        "!(a >= b)",
+      })
+  void testSameResultAsInterpreter(String expressionString) throws BaseException {
+    assertThat(evaluate(expressionString, CLOSURE_TREE))
+        .isEqualTo(evaluate(expressionString, ExpressionConfiguration.defaultConfiguration()));
+  }
+
+  @Test
+  void testSameRoundingAsInterpreter() throws BaseException {
+    ExpressionConfiguration interpreted =
+        ExpressionConfiguration.builder()
+            .mathContext(MathContext.DECIMAL32)
+            .decimalPlacesRounding(2)
+            .stripTrailingZeros(false)
+            .build();
+    ExpressionConfiguration compiled =
+        interpreted.toBuilder().evaluationMode(EvaluationMode.CLOSURE_TREE).build();
+
+    assertThat(evaluate("a / 3 * b + 1.005", compiled))
+        .isEqualTo(evaluate("a / 3 * b + 1.005", interpreted));
+  }
+
+  @Test
+  void testErrorsAreReportedLikeInterpreter() {
+    assertThatThrownBy(() -> evaluate("a / (b - 7)", CLOSURE_TREE))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThatThrownBy(() -> new Expression("x + 1", CLOSURE_TREE).evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'x' not found");
+  }
+
+  @Test
+  void testLazyParametersAreCompiled() throws ParseException {
+    ASTNode tree = new Expression("IF(a, b + 1, c)").getAbstractSyntaxTree();
+
+    ClosureProgram program =
+        ExpressionCompiler.compileClosureTree(
+            tree,
+            CLOSURE_TREE,
+            ExpressionConfiguration.StandardConstants,
+            NO_SLOTS,
+            InferredTypes.none());
+
+    assertThat(program.getCompiledNode(tree)).isSameAs(program.getRoot());
+    assertThat(program.getCompiledNode(tree.getParameters().get(1)))
+        .isInstanceOf(InfixOperatorNode.class);
+    assertThat(program.getCompiledNode(tree.getParameters().get(2)))
+        .isInstanceOf(VariableNode.class);
+    assertThat(program.getCompiledNode(tree.getParameters().get(0))).isNull();
+  }
+
+  @Test
+  void testSubExpressionVariable() throws BaseException {
+    Expression expression = new Expression("a*b", CLOSURE_TREE);
+    ASTNode subExpression = expression.createExpressionNode("4+3");
+
+    assertThat(expression.with("a", 2).and("b", subExpression).evaluate().getStringValue())
+        .isEqualTo("14");
+  }
+
+  @Test
+  void testCompiledExpressionUsesEvaluationMode() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(a > 1, a * 2, -a)", CLOSURE_TREE);
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 3)).getStringValue())
+        .isEqualTo("6");
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 1)).getStringValue())
+        .isEqualTo("-1");
+  }
+
+  @Test
+  void testConstantSubtreesAreFolded() throws BaseException {
+    ASTNode tree = new Expression("SQRT(2)/2 + PI*2", CLOSURE_TREE).getAbstractSyntaxTree();
+
+    ClosureProgram program =
+        ExpressionCompiler.compileClosureTree(
+            tree,
+            CLOSURE_TREE,
+            ExpressionConfiguration.StandardConstants,
+            NO_SLOTS,
+            InferredTypes.none());
+
+    assertThat(program.getRoot()).isInstanceOf(ConstantNode.class);
+    assertThat(program.getRoot().evaluate(null))
+        .isEqualTo(new Expression("SQRT(2)/2 + PI*2").evaluate());
+  }
+
+  @Test
+  void testVariablesAreNotFolded() throws BaseException {
+    ASTNode tree = new Expression("a * (PI*2)", CLOSURE_TREE).getAbstractSyntaxTree();
+
+    ClosureProgram program =
+        ExpressionCompiler.compileClosureTree(
+            tree,
+            CLOSURE_TREE,
+            ExpressionConfiguration.StandardConstants,
+            NO_SLOTS,
+            InferredTypes.none());
+
+    assertThat(program.getRoot()).isInstanceOf(InfixOperatorNode.class);
+    assertThat(evaluate("a * (PI*2)", CLOSURE_TREE))
+        .isEqualTo(evaluate("a * (PI*2)", ExpressionConfiguration.defaultConfiguration()));
+  }
+
+  @Test
+  void testNonDeterministicFunctionsAreNotFolded() throws BaseException {
+    ExpressionConfiguration configuration =
+        CLOSURE_TREE.withAdditionalFunctions(
+            new AbstractMap.SimpleEntry<>("RANDOM", new RandomFunction()));
+    CompiledExpression compiled = CompiledExpression.compile("RANDOM() * 1000000", configuration);
+
+    Set<EvaluationValue> results = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      results.add(compiled.evaluate());
+    }
+
+    assertThat(results).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  void testFailingConstantSubtreeIsReportedOnEvaluation() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a + 1/0", CLOSURE_TREE);
+
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings().with("a", 1)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+  }
+
+  @Test
+  void testConstantNodesAreEvaluatedOnceWhenFolding() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    ExpressionConfiguration configuration =
+        CLOSURE_TREE.withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+    ASTNode tree =
+        new Expression("(COUNT(COUNT(1)) + 1/0) * 2", configuration).getAbstractSyntaxTree();
+    ASTNode counts = tree.getParameters().get(0).getParameters().get(0);
+
+    Map<ASTNode, EvaluationValue> foldedValues =
+        ConstantFolder.fold(tree, configuration, ExpressionConfiguration.StandardConstants);
+
+    assertThat(count.invocations).isEqualTo(2);
+    assertThat(foldedValues)
+        .containsKeys(counts, tree.getParameters().get(1))
+        .doesNotContainKeys(tree, tree.getParameters().get(0));
+    assertThat(foldedValues.get(counts).getStringValue()).isEqualTo("1");
+  }
+
+  @Test
+  void testOverwrittenConstantIsNotFolded() throws BaseException {
+    Expression expression = new Expression("PI * 2", CLOSURE_TREE);
+    assertThat(expression.evaluate().getNumberValue()).isGreaterThan(BigDecimal.valueOf(6));
+
+    assertThat(expression.with("PI", 3).evaluate().getStringValue()).isEqualTo("6");
+  }
+
+  @Test
+  void testCommonSubexpressionsAreEvaluatedOnce() throws BaseException {
+    CountingFunction count = new CountingFunction();
+    ExpressionConfiguration configuration =
+        CLOSURE_TREE.withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "COUNT(a) / (COUNT(A) + COUNT(b)) + IF(a > 0, COUNT(a) * 2, 0)", configuration);
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 3).and("b", 1));
+
+    assertThat(result.getStringValue()).isEqualTo("6.75");
+    assertThat(count.invocations).isEqualTo(2);
+    compiled.evaluate(compiled.newBindings().with("a", 3).and("b", 1));
+    assertThat(count.invocations).isEqualTo(4);
+  }
+
+  @Test
+  void testNonDeterministicSubexpressionsAreNotShared() throws BaseException {
+    ExpressionConfiguration configuration =
+        CLOSURE_TREE.withAdditionalFunctions(
+            new AbstractMap.SimpleEntry<>("RANDOM", new RandomFunction()));
+    ASTNode tree =
+        new Expression("RANDOM() * 2 + RANDOM() * 2", configuration).getAbstractSyntaxTree();
+
+    CommonSubexpressions subexpressions = CommonSubexpressions.find(tree, Collections.emptyMap());
+
+    assertThat(subexpressions.getCount()).isZero();
+  }
+
+  @Test
+  void testOnlyLargestCommonSubexpressionIsShared() throws BaseException {
+    ASTNode tree = new Expression("SQRT(a * b) + SQRT(a * b) + a * b * 2").getAbstractSyntaxTree();
+    ASTNode left = tree.getParameters().get(0);
+    ASTNode sqrt = left.getParameters().get(0);
+
+    CommonSubexpressions subexpressions = CommonSubexpressions.find(tree, Collections.emptyMap());
+
+    assertThat(subexpressions.getCount()).isEqualTo(2);
+    assertThat(subexpressions.getIndex(sqrt)).isZero();
+    assertThat(subexpressions.getIndex(left.getParameters().get(1))).isZero();
+    assertThat(subexpressions.getIndex(sqrt.getParameters().get(0))).isEqualTo(1);
+    assertThat(subexpressions.getIndex(left)).isEqualTo(-1);
+  }
+
+  /** Returns its parameter and counts its invocations. */
+  @FunctionParameter(name = "value")
+  static class CountingFunction extends AbstractFunction {
+
+    int invocations;
+
+    @Override
+    public EvaluationValue evaluate(
+        Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      invocations++;
+      return parameterValues[0];
+    }
+  }
+
+  private static EvaluationValue evaluate(
+      String expressionString, ExpressionConfiguration configuration) throws BaseException {
+    return new Expression(expressionString, configuration)
+        .with("a", 9)
+        .and("b", 7)
+        .and("s", "world")
+        .and("arr", Arrays.asList(3, 4.5))
+        .evaluate();
+  }
+}
@@ -0,0 +1,276 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.compiler.FixedPointProgram.NotRepresentableException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.NumericMode;
+import com.loncus.config.ExpressionConfiguration.RoundingPolicy;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.basic.RoundFunction;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FixedPointProgramTest {
+
+  private static final ExpressionConfiguration DECIMAL_CONFIGURATION =
+      ExpressionConfiguration.defaultConfiguration()
+          .withAdditionalFunctions(new AbstractMap.SimpleEntry<>("ROUND", new RoundFunction()));
+
+  private static final ExpressionConfiguration FIXED_POINT_CONFIGURATION =
+      DECIMAL_CONFIGURATION.toBuilder().numericMode(NumericMode.FIXED_POINT).build();
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "price * quantity * (1 - discount)",
+        "(price + 0.05) / 4 - -quantity % 3",
+        "IF(quantity > 10 && price >= 50, price * 0.9, +price) * quantity",
+        "ROUND(price * discount, 2) + FLOOR(price / 3) + CEILING(-price / 7)",
+        "ABS(discount - price) + MAX(price, quantity, 3) - MIN(price, 2) + SUM(1, price, quantity)",
+        "price / quantity",
+        "NOT(price = 3) || discount <> 0.1 && price < quantity",
+      })
+  void testSameResultAsBigDecimal(String expressionString) throws BaseException {
+    CompiledExpression decimal =
+        CompiledExpression.compile(expressionString, DECIMAL_CONFIGURATION);
+    CompiledExpression fixed =
+        CompiledExpression.compile(expressionString, FIXED_POINT_CONFIGURATION);
+    assertThat(compileFixedPoint(fixed)).isNotNull();
+
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      BigDecimal price = BigDecimal.valueOf(random.nextInt(1_000_000) - 10_000, 2);
+      BigDecimal quantity = BigDecimal.valueOf(random.nextInt(30) + 1);
+      BigDecimal discount = BigDecimal.valueOf(random.nextInt(50), 2);
+
+      assertSameResult(
+          decimal, fixed, values("price", price, "quantity", quantity, "discount", discount));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UP", "DOWN", "CEILING", "FLOOR", "HALF_UP", "HALF_DOWN", "HALF_EVEN"})
+  void testRounding(String roundingModeName) throws BaseException {
+    RoundingMode roundingMode = RoundingMode.valueOf(roundingModeName);
+    String expressionString = "a * b / 8 + ROUND(a / 16, 3) - b * 0.125";
+    for (RoundingPolicy roundingPolicy :
+        new RoundingPolicy[] {RoundingPolicy.EACH_NODE, RoundingPolicy.ROOT_ONLY}) {
+      ExpressionConfiguration.ExpressionConfigurationBuilder builder =
+          DECIMAL_CONFIGURATION
+              .toBuilder()
+              .mathContext(new MathContext(68, roundingMode))
+              .decimalPlacesRounding(2)
+              .roundingPolicy(roundingPolicy);
+      CompiledExpression decimal = CompiledExpression.compile(expressionString, builder.build());
+      CompiledExpression fixed =
+          CompiledExpression.compile(
+              expressionString, builder.numericMode(NumericMode.FIXED_POINT).build());
+      assertThat(compileFixedPoint(fixed)).isNotNull();
+
+      Random random = new Random(7);
+      for (int i = 0; i < 200; i++) {
+        BigDecimal a = BigDecimal.valueOf(random.nextInt(2_000_000) - 1_000_000, 3);
+        BigDecimal b = BigDecimal.valueOf(random.nextInt(20_000) - 10_000, 2);
+
+        assertSameResult(decimal, fixed, values("a", a, "b", b));
+      }
+    }
+  }
+
+  @Test
+  void testFallbackToBigDecimal() throws BaseException {
+    CompiledExpression decimal = CompiledExpression.compile("a / b + a * b");
+    CompiledExpression fixed =
+        CompiledExpression.compile("a / b + a * b", FIXED_POINT_CONFIGURATION);
+
+    // not exact at the scale
+    assertSameResult(decimal, fixed, values("a", 1, "b", 3));
+    assertSameResult(decimal, fixed, values("a", new BigDecimal("0.0000001"), "b", 1));
+    // overflow
+    assertSameResult(decimal, fixed, values("a", new BigDecimal("9e12"), "b", 1000));
+    assertSameResult(
+        decimal, fixed, values("a", new BigDecimal("123456789012345678901234567890"), "b", 2));
+    // other data types
+    CompiledExpression concatenation =
+        CompiledExpression.compile("a + b", FIXED_POINT_CONFIGURATION);
+    assertThat(compileFixedPoint(concatenation)).isNotNull();
+    assertThat(
+            concatenation
+                .evaluate(concatenation.newBindings().with("a", "x").and("b", 1))
+                .getStringValue())
+        .isEqualTo("x1");
+  }
+
+  @Test
+  void testErrorsOfBigDecimal() throws BaseException {
+    CompiledExpression fixed = CompiledExpression.compile("a / b", FIXED_POINT_CONFIGURATION);
+
+    assertThatThrownBy(() -> fixed.evaluate(fixed.newBindings().with("a", 1).and("b", 0)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThatThrownBy(() -> fixed.evaluate(fixed.newBindings().with("a", 1)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'b' not found");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"a ^ 2", "SQRT(a)", "s + \"x\"", "a * 0.0000001", "arr[0] * 2"})
+  void testUnsupportedExpressionsFallBack(String expressionString) throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(expressionString, FIXED_POINT_CONFIGURATION);
+
+    assertThat(compileFixedPoint(compiled)).isNull();
+  }
+
+  @Test
+  void testUnsupportedConfigurations() throws BaseException {
+    ExpressionConfiguration[] configurations = {
+      FIXED_POINT_CONFIGURATION.toBuilder().roundingPolicy(RoundingPolicy.NEVER).build(),
+      FIXED_POINT_CONFIGURATION.toBuilder().stripTrailingZeros(false).build(),
+      FIXED_POINT_CONFIGURATION.toBuilder().mathContext(MathContext.DECIMAL32).build(),
+    };
+    for (ExpressionConfiguration configuration : configurations) {
+      CompiledExpression compiled = CompiledExpression.compile("a * 2", configuration);
+
+      assertThat(compileFixedPoint(compiled)).isNull();
+      assertThat(compiled.evaluate(compiled.newBindings().with("a", 1.5)).getNumberValue())
+          .isEqualByComparingTo("3");
+    }
+    assertThatThrownBy(
+            () ->
+                CompiledExpression.compile(
+                    "a", FIXED_POINT_CONFIGURATION.toBuilder().fixedPointScale(19).build()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Fixed point scale must be between 0 and 18: 19");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2, 6, 9, 12, 18})
+  void testArithmetic(int scale) {
+    long one = BigDecimal.ONE.scaleByPowerOfTen(scale).longValueExact();
+    Random random = new Random(scale);
+    for (int i = 0; i < 10_000; i++) {
+      long left = randomValue(random);
+      long right = randomValue(random);
+      BigDecimal leftDecimal = BigDecimal.valueOf(left, scale);
+      BigDecimal rightDecimal = BigDecimal.valueOf(right, scale);
+
+      assertSameValue(
+          () -> FixedPointCompiler.add(left, right), leftDecimal.add(rightDecimal), scale);
+      assertSameValue(
+          () -> FixedPointCompiler.subtract(left, right),
+          leftDecimal.subtract(rightDecimal),
+          scale);
+      assertSameValue(
+          () -> FixedPointCompiler.multiply(left, right, one),
+          leftDecimal.multiply(rightDecimal),
+          scale);
+      if (right != 0) {
+        BigDecimal quotient;
+        try {
+          quotient = leftDecimal.divide(rightDecimal);
+        } catch (ArithmeticException e) {
+          // not terminating
+          quotient = null;
+        }
+        assertSameValue(() -> FixedPointCompiler.divide(left, right, one), quotient, scale);
+      }
+      for (RoundingMode roundingMode : RoundingMode.values()) {
+        if (roundingMode != RoundingMode.UNNECESSARY && scale > 0) {
+          assertSameValue(
+              () -> FixedPointCompiler.round(left, 10, roundingMode),
+              leftDecimal.setScale(scale - 1, roundingMode),
+              scale);
+          assertSameValue(
+              () -> FixedPointCompiler.round(left, one, roundingMode),
+              leftDecimal.setScale(0, roundingMode),
+              scale);
+        }
+      }
+    }
+  }
+
+  /** Random values of all magnitudes, including the smallest and largest values. */
+  private static long randomValue(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return random.nextLong();
+      case 1:
+        return random.nextBoolean() ? Long.MAX_VALUE : Long.MIN_VALUE;
+      default:
+        return random.nextLong() >> random.nextInt(64);
+    }
+  }
+
+  private interface LongOperation {
+    long apply() throws NotRepresentableException;
+  }
+
+  /**
+   * Checks that the operation calculates the exact result, or reports that it can not be
+   * represented with the scale.
+   */
+  private static void assertSameValue(LongOperation operation, BigDecimal expected, int scale) {
+    Long expectedValue;
+    try {
+      expectedValue =
+          expected != null ? expected.setScale(scale).unscaledValue().longValueExact() : null;
+    } catch (ArithmeticException e) {
+      expectedValue = null;
+    }
+    Long actualValue;
+    try {
+      actualValue = operation.apply();
+    } catch (NotRepresentableException e) {
+      actualValue = null;
+    }
+    if (actualValue != null) {
+      assertThat(actualValue).isEqualTo(expectedValue);
+    } else if (expectedValue != null) {
+      // overflow of an intermediate result is allowed, it falls back to big decimals
+      assertThat(expected.abs()).isGreaterThan(BigDecimal.valueOf(Long.MAX_VALUE / 100, scale));
+    }
+  }
+
+  private static void assertSameResult(
+      CompiledExpression decimal, CompiledExpression fixed, Map<String, Object> values)
+      throws EvaluationException {
+    EvaluationValue expected = decimal.evaluate(decimal.newBindings().withValues(values));
+    EvaluationValue actual = fixed.evaluate(fixed.newBindings().withValues(values));
+
+    assertThat(actual).isEqualTo(expected);
+    if (expected.isNumberValue()) {
+      // the same scale, not only the same value
+      assertThat(actual.getNumberValue()).isEqualTo(expected.getNumberValue());
+    }
+  }
+
+  private static Map<String, Object> values(Object... namesAndValues) {
+    Map<String, Object> values = new HashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return values;
+  }
+
+  private static FixedPointProgram compileFixedPoint(CompiledExpression compiled) {
+    return FixedPointCompiler.compile(
+        compiled.getAbstractSyntaxTree(),
+        compiled.getConfiguration(),
+        compiled.getConstants(),
+        compiled.getVariableSlots());
+  }
+}
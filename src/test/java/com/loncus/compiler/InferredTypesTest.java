@@ -0,0 +1,86 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.loncus.CompiledExpression;
+import com.loncus.Expression;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.data.VariableSlots;
+import com.loncus.operators.SpecializedOperator;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InferredTypesTest {
+
+  private static final Map<String, DataType> TYPES = new HashMap<>();
+
+  static {
+    TYPES.put("n", DataType.NUMBER);
+    TYPES.put("s", DataType.STRING);
+    TYPES.put("d", DataType.DATE_TIME);
+  }
+
+  @Test
+  void testTypesOfLiteralsConstantsAndVariables() throws ParseException {
+    assertThat(rootType("1.5")).isEqualTo(DataType.NUMBER);
+    assertThat(rootType("\"text\"")).isEqualTo(DataType.STRING);
+    assertThat(rootType("PI")).isEqualTo(DataType.NUMBER);
+    assertThat(rootType("TRUE")).isEqualTo(DataType.BOOLEAN);
+    assertThat(rootType("s")).isEqualTo(DataType.STRING);
+    assertThat(rootType("x")).isNull();
+  }
+
+  @Test
+  void testTypesOfOperations() throws ParseException {
+    assertThat(rootType("n + 1")).isEqualTo(DataType.NUMBER);
+    assertThat(rootType("s + n")).isEqualTo(DataType.STRING);
+    assertThat(rootType("d - d")).isEqualTo(DataType.DURATION);
+    assertThat(rootType("d + 1000")).isEqualTo(DataType.DATE_TIME);
+    assertThat(rootType("x + 1")).isNull();
+    // operators that only accept numbers always return a number
+    assertThat(rootType("x * 2")).isEqualTo(DataType.NUMBER);
+    assertThat(rootType("x > n")).isEqualTo(DataType.BOOLEAN);
+    assertThat(rootType("SQRT(x) + MAX(n, 2)")).isEqualTo(DataType.NUMBER);
+    assertThat(rootType("NOT(x)")).isEqualTo(DataType.BOOLEAN);
+    assertThat(rootType("IF(x, 1, 2)")).isNull();
+  }
+
+  @Test
+  void testOperatorsAreSpecializedForKnownTypes() throws ParseException {
+    ASTNode tree = parse("n * 2 + x");
+    InferredTypes types = infer(tree);
+    ASTNode multiplication = tree.getParameters().get(0);
+
+    assertThat(types.getOperator(multiplication)).isInstanceOf(SpecializedOperator.class);
+    assertThat(types.getOperator(tree)).isSameAs(tree.getToken().getOperatorDefinition());
+    assertThat(InferredTypes.none().getOperator(multiplication))
+        .isSameAs(multiplication.getToken().getOperatorDefinition());
+  }
+
+  @Test
+  void testDeepTree() throws ParseException {
+    StringBuilder expressionString = new StringBuilder("n");
+    for (int i = 0; i < 10_000; i++) {
+      expressionString.append(" + 1");
+    }
+
+    assertThat(rootType(expressionString.toString())).isEqualTo(DataType.NUMBER);
+  }
+
+  private static DataType rootType(String expressionString) throws ParseException {
+    ASTNode tree = parse(expressionString);
+    return infer(tree).getType(tree);
+  }
+
+  private static ASTNode parse(String expressionString) throws ParseException {
+    return new Expression(expressionString).getAbstractSyntaxTree();
+  }
+
+  private static InferredTypes infer(ASTNode tree) throws ParseException {
+    VariableSlots slots = new VariableSlots(TYPES.keySet(), TYPES);
+    return InferredTypes.infer(tree, CompiledExpression.compile("0").getConstants(), slots);
+  }
+}
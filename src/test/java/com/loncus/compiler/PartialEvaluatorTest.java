@@ -0,0 +1,185 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue.DataType;
+import com.loncus.functions.basic.RandomFunction;
+import com.loncus.parser.ASTNode;
+import com.loncus.parser.ParseException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PartialEvaluatorTest {
+
+  private static final String[] EXPRESSIONS = {
+    "IF(threshold > 10, amount * (rate * 2), amount / rate)",
+    "IF(amount > threshold, amount * rate, IF(flag, threshold, 0))",
+    "MAX(amount, threshold * 2) + SQRT(rate) * PI",
+    "flag && amount > threshold || rate < 1",
+    "IF(flag, \"high \" + amount, \"low \" + threshold)",
+  };
+
+  @ParameterizedTest
+  @EnumSource(EvaluationMode.class)
+  void testSameResultAsFullEvaluation(EvaluationMode evaluationMode) throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .evaluationMode(evaluationMode)
+            .compilationThreshold(0)
+            .build();
+    Map<String, Object> knownValues = new HashMap<>();
+    knownValues.put("threshold", 20);
+    knownValues.put("rate", 1.5);
+    knownValues.put("flag", true);
+
+    for (String expressionString : EXPRESSIONS) {
+      CompiledExpression compiled = CompiledExpression.compile(expressionString, configuration);
+      CompiledExpression residual = compiled.specialize(knownValues);
+
+      for (int amount = 0; amount < 40; amount += 7) {
+        assertThat(residual.evaluate(residual.newBindings().with("amount", amount)))
+            .isEqualTo(
+                compiled.evaluate(
+                    compiled.newBindings().withValues(knownValues).and("amount", amount)));
+      }
+    }
+  }
+
+  @Test
+  void testResidualTree() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile("IF(threshold > 10, amount * (rate * 2), amount / rate)");
+
+    CompiledExpression residual =
+        compiled.specialize(knownValues("threshold", 20, "rate", 1.5, "unused", 1));
+
+    assertThat(residual.getUsedVariables()).containsExactly("amount");
+    ASTNode tree = residual.getAbstractSyntaxTree();
+    String folded = tree.getParameters().get(1).getToken().getValue();
+    assertThat(tree.toJSON())
+        .isEqualTo(
+            "{\"type\":\"INFIX_OPERATOR\",\"value\":\"*\",\"children\":["
+                + "{\"type\":\"VARIABLE_OR_CONSTANT\",\"value\":\"amount\"},"
+                + "{\"type\":\"VARIABLE_OR_CONSTANT\",\"value\":\""
+                + folded
+                + "\"}]}");
+    assertThat(folded).startsWith("#");
+    assertThat(residual.getConstants().get(folded).getNumberValue()).isEqualByComparingTo("3");
+  }
+
+  @Test
+  void testConstantResult() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(a > 1, b + 1, 0)");
+
+    CompiledExpression residual = compiled.specialize(knownValues("a", 2, "b", 4));
+
+    assertThat(residual.getUsedVariables()).isEmpty();
+    assertThat(residual.getAbstractSyntaxTree().getParameters()).isEmpty();
+    assertThat(residual.evaluate().getNumberValue()).isEqualByComparingTo("5");
+  }
+
+  @Test
+  void testNothingKnown() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(a > 1, b * 2, c)");
+
+    CompiledExpression residual = compiled.specialize(Collections.emptyMap());
+
+    assertThat(residual.getAbstractSyntaxTree()).isSameAs(compiled.getAbstractSyntaxTree());
+  }
+
+  @Test
+  void testRepeatedSpecialization() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a * (b + 1) + c * (d + 1) + x");
+
+    CompiledExpression residual =
+        compiled.specialize(knownValues("b", 1)).specialize(knownValues("d", 2, "a", 3));
+
+    assertThat(residual.getUsedVariables()).containsExactlyInAnyOrder("c", "x");
+    assertThat(residual.evaluate(residual.newBindings().with("c", 1).and("x", 1)).getNumberValue())
+        .isEqualByComparingTo("10");
+  }
+
+  @Test
+  void testNonDeterministicFunctionsAreKept() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "RANDOM() * a < a + 1",
+            ExpressionConfiguration.defaultConfiguration()
+                .withAdditionalFunctions(
+                    new AbstractMap.SimpleEntry<>("RANDOM", new RandomFunction())));
+
+    CompiledExpression residual = compiled.specialize(knownValues("a", 2));
+
+    assertThat(residual.getAbstractSyntaxTree().toJSON()).contains("RANDOM");
+    assertThat(residual.evaluate().getBooleanValue()).isTrue();
+  }
+
+  @Test
+  void testErrorsAreReportedOnEvaluation() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("IF(b > 1, a + 1 / rate, 0)");
+
+    CompiledExpression residual = compiled.specialize(knownValues("rate", 0));
+
+    assertThat(residual.evaluate(residual.newBindings().with("a", 1).and("b", 0)).getNumberValue())
+        .isEqualByComparingTo("0");
+    assertThatThrownBy(() -> residual.evaluate(residual.newBindings().with("a", 1).and("b", 2)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+  }
+
+  @Test
+  void testKnownValueErrors() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "a * PI + b",
+            ExpressionConfiguration.defaultConfiguration(),
+            Collections.singletonMap("b", DataType.NUMBER));
+
+    assertThatThrownBy(() -> compiled.specialize(knownValues("pi", 3)))
+        .isInstanceOf(UnsupportedOperationException.class)
+        .hasMessage("Can't set value for constant 'pi'");
+    assertThatThrownBy(() -> compiled.specialize(knownValues("b", "text")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Variable 'b' is declared as NUMBER, but the value is of type STRING");
+    assertThatThrownBy(() -> compiled.specialize(knownValues("a", "text")))
+        .isInstanceOf(ParseException.class);
+
+    CompiledExpression residual = compiled.specialize(knownValues("a", 1));
+
+    assertThatThrownBy(() -> residual.newBindings().with("a", 2))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> residual.newBindings().with("b", "text"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void testDeepTree() throws BaseException {
+    String expressionString = "0" + String.join("", Collections.nCopies(5_000, "+k")) + "+a";
+    CompiledExpression compiled = CompiledExpression.compile(expressionString);
+
+    CompiledExpression residual = compiled.specialize(knownValues("k", 2));
+
+    assertThat(residual.getAbstractSyntaxTree().getParameters().get(0).getParameters()).isEmpty();
+    assertThat(residual.evaluate(residual.newBindings().with("a", 1)).getNumberValue())
+        .isEqualByComparingTo("10001");
+  }
+
+  private static Map<String, Object> knownValues(Object... namesAndValues) {
+    Map<String, Object> values = new HashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return values;
+  }
+}
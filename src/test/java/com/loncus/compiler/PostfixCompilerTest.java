@@ -0,0 +1,162 @@
+package com.loncus.compiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.EvaluationMode;
+import com.loncus.data.EvaluationValue;
+import com.loncus.functions.AbstractFunction;
+import com.loncus.functions.FunctionParameter;
+import com.loncus.parser.Token;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PostfixCompilerTest {
+
+  private static final ExpressionConfiguration STACK_MACHINE =
+      ExpressionConfiguration.builder().evaluationMode(EvaluationMode.STACK_MACHINE).build();
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "1+2*3",
+        "-2^2",
+        "(a+b)*(a-b)/2",
+        "a % 3 + 0x1F",
+        "1.5e3 / 7",
+        "\"Hello \" + s",
+        "IF(a > b, a * 2, b / 3)",
+        "IF(a < b, IF(b > 10, 1, 2), IF(a > 8, 3, 4))",
+        "IF(a, b, 0) + IF(s, 1, 2)",
+        "MAX(a, b, 4) + MIN(a, 2) + SUM(1, 2, a, 4, 5, 6, 7, 8)",
+        "NOT(a = b) && TRUE || FALSE",
+        "ABS(-a) + FLOOR(2.7) + CEILING(2.1) + FACT(5)",
+        "SQRT(a) * PI + E",
+        "arr[1] + arr[0]",
+        "!(a >= b)",
+      })
+  void testSameResultAsInterpreter(String expressionString) throws BaseException {
+    assertThat(evaluate(expressionString, STACK_MACHINE))
+        .isEqualTo(evaluate(expressionString, ExpressionConfiguration.defaultConfiguration()));
+  }
+
+  @Test
+  void testErrorsAreReportedLikeInterpreter() {
+    assertThatThrownBy(() -> evaluate("a / (b - 7)", STACK_MACHINE))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThatThrownBy(() -> new Expression("x + 1", STACK_MACHINE).evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Variable or constant value for 'x' not found");
+    assertThatThrownBy(() -> evaluate("s[1]", STACK_MACHINE))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Unsupported data types in operation");
+  }
+
+  @Test
+  void testOnlyTheSelectedBranchIsEvaluated() throws BaseException {
+    ExpressionCompilerTest.CountingFunction count = new ExpressionCompilerTest.CountingFunction();
+    ExpressionConfiguration configuration =
+        STACK_MACHINE.withAdditionalFunctions(new AbstractMap.SimpleEntry<>("COUNT", count));
+    CompiledExpression compiled =
+        CompiledExpression.compile("IF(a > 0, COUNT(a), IF(a < 0, COUNT(-a), 0))", configuration);
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 2)).getStringValue())
+        .isEqualTo("2");
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 0)).getStringValue())
+        .isEqualTo("0");
+    assertThat(count.invocations).isEqualTo(1);
+  }
+
+  @Test
+  void testLazyParametersOfOtherFunctions() throws BaseException {
+    ExpressionConfiguration configuration =
+        STACK_MACHINE.withAdditionalFunctions(
+            new AbstractMap.SimpleEntry<>("FIRST_DEFINED", new FirstDefinedFunction()));
+    CompiledExpression compiled =
+        CompiledExpression.compile("2 * FIRST_DEFINED(x, 1 / 0, a + 1)", configuration);
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 4));
+
+    assertThat(result.getStringValue()).isEqualTo("10");
+  }
+
+  @Test
+  void testDeepTreeIsCompiled() throws BaseException {
+    String expressionString =
+        "0" + String.join("", Collections.nCopies(ExpressionCompiler.MAXIMUM_COMPILED_DEPTH, "+a"));
+    CompiledExpression compiled = CompiledExpression.compile(expressionString, STACK_MACHINE);
+
+    assertThat(compiled.evaluate(compiled.newBindings().with("a", 2)).getStringValue())
+        .isEqualTo("2000");
+  }
+
+  @Test
+  void testProgramIsSharedBetweenThreads() throws Exception {
+    CompiledExpression compiled =
+        CompiledExpression.compile("IF(a > 1, SUM(a, 2, 3) * 2, -a)", STACK_MACHINE);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<?>[] futures = new Future<?>[8];
+      for (int i = 0; i < futures.length; i++) {
+        int a = i;
+        futures[i] =
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 1_000; j++) {
+                    String expected = a > 1 ? String.valueOf((a + 5) * 2) : String.valueOf(-a);
+                    assertThat(
+                            compiled.evaluate(compiled.newBindings().with("a", a)).getStringValue())
+                        .isEqualTo(expected);
+                  }
+                  return null;
+                });
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** Returns the first parameter that can be evaluated, the others are evaluated lazily. */
+  @FunctionParameter(name = "values", isLazy = true, isVarArg = true)
+  static class FirstDefinedFunction extends AbstractFunction {
+
+    @Override
+    public EvaluationValue evaluate(
+        Expression expression, Token functionToken, EvaluationValue... parameterValues) {
+      for (EvaluationValue parameterValue : parameterValues) {
+        try {
+          return expression.evaluateSubtree(parameterValue.getExpressionNode());
+        } catch (EvaluationException e) {
+          // try the next one
+        }
+      }
+      return EvaluationValue.nullValue();
+    }
+  }
+
+  private static EvaluationValue evaluate(
+      String expressionString, ExpressionConfiguration configuration) throws BaseException {
+    return new Expression(expressionString, configuration)
+        .with("a", 9)
+        .and("b", 7)
+        .and("s", "world")
+        .and("arr", Arrays.asList(3, 4.5))
+        .evaluate();
+  }
+}
@@ -0,0 +1,58 @@
+package com.loncus.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.config.ExpressionConfiguration;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+class ColumnTest {
+
+  @Test
+  void testConversions() {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().mathContext(new MathContext(3)).build();
+
+    assertThat(Column.of(1.23456, 2.0).toValues(configuration)[0].getNumberValue())
+        .isEqualByComparingTo("1.23");
+    assertThat(Column.of(7L, -3L).toValues(configuration)[1].getNumberValue())
+        .isEqualByComparingTo("-3");
+    assertThat(Column.of(true, false).toValues(configuration)[0].getBooleanValue()).isTrue();
+    assertThat(Column.of(new BigDecimal("1.5")).toValues(configuration)[0].getNumberValue())
+        .isEqualByComparingTo("1.5");
+    assertThat(Column.of("a", "b").toValues(configuration)[1].getStringValue()).isEqualTo("b");
+  }
+
+  @Test
+  void testNullRows() {
+    BitSet validity = new BitSet();
+    validity.set(1);
+    validity.set(64);
+    Column column = Column.of(new double[70]).withValidity(validity);
+
+    assertThat(column.isNull(0)).isTrue();
+    assertThat(column.isNull(1)).isFalse();
+    assertThat(column.isNull(64)).isFalse();
+    assertThat(column.isNull(69)).isTrue();
+    assertThat(column.getValidity()).isEqualTo(validity);
+    assertThat(column.toValues(ExpressionConfiguration.defaultConfiguration())[0].isNullValue())
+        .isTrue();
+
+    Column strings = Column.of("a", null, "c");
+    assertThat(strings.isNull(1)).isTrue();
+    assertThat(strings.getValue(1).isNullValue()).isTrue();
+    assertThat(strings.withValidity(new BitSet()).isNull(0)).isTrue();
+
+    Column values = Column.of(EvaluationValue.stringValue("x"), EvaluationValue.nullValue());
+    assertThat(values.getValidity().cardinality()).isEqualTo(1);
+  }
+
+  @Test
+  void testRowOutOfBounds() {
+    assertThatThrownBy(() -> Column.of(1L, 2L).isNull(2))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
@@ -0,0 +1,102 @@
+package com.loncus.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.loncus.config.ExpressionConfiguration;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class EvaluationValueTest {
+
+  @Test
+  void testBooleanAndNullValuesAreShared() {
+    assertThat(EvaluationValue.booleanValue(true)).isSameAs(EvaluationValue.booleanValue(true));
+    assertThat(EvaluationValue.booleanValue(false)).isSameAs(EvaluationValue.booleanValue(false));
+    assertThat(EvaluationValue.nullValue()).isSameAs(EvaluationValue.nullValue());
+
+    EvaluationValue nullBoolean = EvaluationValue.booleanValue(null);
+    assertThat(nullBoolean.isBooleanValue()).isTrue();
+    assertThat(nullBoolean.getValue()).isNull();
+  }
+
+  @Test
+  void testSmallIntegersAreShared() {
+    assertThat(EvaluationValue.numberValue(BigDecimal.valueOf(-99)))
+        .isSameAs(EvaluationValue.numberValue(new BigDecimal("-99")));
+    assertThat(EvaluationValue.numberValue(BigDecimal.ZERO))
+        .isSameAs(EvaluationValue.numberValue(new BigDecimal("0")));
+    assertThat(EvaluationValue.numberValue(BigDecimal.valueOf(99)).getNumberValue())
+        .isEqualTo(new BigDecimal("99"));
+  }
+
+  @Test
+  void testOtherNumbersKeepTheirScale() {
+    EvaluationValue scaled = EvaluationValue.numberValue(new BigDecimal("1.50"));
+    assertThat(scaled.getNumberValue().toPlainString()).isEqualTo("1.50");
+    assertThat(EvaluationValue.numberValue(new BigDecimal("1.0")).getNumberValue().scale())
+        .isEqualTo(1);
+    assertThat(EvaluationValue.numberValue(BigDecimal.valueOf(100)))
+        .isNotSameAs(EvaluationValue.numberValue(BigDecimal.valueOf(100)));
+    assertThat(EvaluationValue.numberValue(null).getNumberValue()).isNull();
+  }
+
+  @Test
+  void testFactoriesMatchConverter() {
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+    assertThat(EvaluationValue.numberValue(BigDecimal.valueOf(42)))
+        .isEqualTo(new EvaluationValue(42, configuration));
+    assertThat(EvaluationValue.booleanValue(true))
+        .isEqualTo(new EvaluationValue(true, configuration));
+    assertThat(EvaluationValue.stringValue("text"))
+        .isEqualTo(new EvaluationValue("text", configuration));
+  }
+
+  @Test
+  void testIntegralNumbersHaveLongValues() {
+    EvaluationValue fromLong = EvaluationValue.numberValue(123_456_789_012L);
+    EvaluationValue fromBigDecimal = EvaluationValue.numberValue(new BigDecimal("123456789012"));
+
+    assertThat(fromLong.hasLongValue()).isTrue();
+    assertThat(fromLong.getLongValue()).isEqualTo(123_456_789_012L);
+    assertThat(fromLong.getNumberValue()).isEqualTo(new BigDecimal("123456789012"));
+    assertThat(fromLong.getValue()).isEqualTo(new BigDecimal("123456789012"));
+    assertThat(fromLong.getStringValue()).isEqualTo("123456789012");
+    assertThat(fromLong.getBooleanValue()).isTrue();
+    assertThat(fromLong).isEqualTo(fromBigDecimal).hasSameHashCodeAs(fromBigDecimal);
+    assertThat(fromLong.compareTo(EvaluationValue.numberValue(new BigDecimal("1e11"))))
+        .isPositive();
+    assertThat(fromLong.toString()).isEqualTo(fromBigDecimal.toString());
+    assertThat(fromBigDecimal.hasLongValue()).isTrue();
+    assertThat(EvaluationValue.numberValue(7L))
+        .isSameAs(EvaluationValue.numberValue(BigDecimal.valueOf(7)));
+    assertThat(EvaluationValue.numberValue(Long.MIN_VALUE).getNumberValue())
+        .isEqualTo(BigDecimal.valueOf(Long.MIN_VALUE));
+    assertThat(
+            new EvaluationValue(42L, ExpressionConfiguration.defaultConfiguration()).hasLongValue())
+        .isTrue();
+  }
+
+  @Test
+  void testLongValuesKeepTheirBigDecimal() {
+    EvaluationValue value = EvaluationValue.numberValue(123_456_789_012L);
+
+    BigDecimal number = value.getNumberValue();
+
+    assertThat(value.getNumberValue()).isSameAs(number);
+    assertThat(value.getValue()).isSameAs(number);
+    assertThat(value.hasLongValue()).isTrue();
+    assertThat(value.getLongValue()).isEqualTo(123_456_789_012L);
+    assertThat(value.hashCode())
+        .isEqualTo(EvaluationValue.numberValue(new BigDecimal("123456789012")).hashCode());
+  }
+
+  @Test
+  void testOtherNumbersHaveNoLongValues() {
+    assertThat(EvaluationValue.numberValue(new BigDecimal("1.0")).hasLongValue()).isFalse();
+    assertThat(EvaluationValue.numberValue(new BigDecimal("1e3")).hasLongValue()).isFalse();
+    assertThat(EvaluationValue.numberValue(new BigDecimal("1234567890123456789012")).hasLongValue())
+        .isFalse();
+    assertThat(EvaluationValue.numberValue(new BigDecimal("1.0")))
+        .isNotEqualTo(EvaluationValue.numberValue(1L));
+  }
+}
@@ -0,0 +1,104 @@
+package com.loncus.functions.basic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.loncus.BaseException;
+import com.loncus.EvaluationBudget;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SqrtFunctionTest {
+
+  private static final EvaluationBudget BUDGET =
+      EvaluationBudget.start(ExpressionConfiguration.defaultConfiguration(), 1);
+
+  @Test
+  void testIntegerSquareRoot() throws BaseException {
+    Random random = new Random(1);
+    for (int i = 0; i < 2_000; i++) {
+      BigInteger n = new BigInteger(random.nextInt(2_000) + 1, random).add(BigInteger.ONE);
+
+      assertIntegerSquareRoot(n);
+      // the neighbours of perfect squares
+      BigInteger square = n.multiply(n);
+      assertIntegerSquareRoot(square);
+      assertIntegerSquareRoot(square.subtract(BigInteger.ONE));
+      assertIntegerSquareRoot(square.add(BigInteger.ONE));
+    }
+    assertIntegerSquareRoot(BigInteger.ZERO);
+    assertIntegerSquareRoot(BigInteger.ONE.shiftLeft(62).subtract(BigInteger.ONE));
+    assertIntegerSquareRoot(BigInteger.valueOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  void testLongSquareRoot() {
+    Random random = new Random(2);
+    for (int i = 0; i < 100_000; i++) {
+      long n = random.nextLong() >>> (random.nextInt(62) + 2);
+      long root = SqrtFunction.sqrt(n);
+
+      assertThat(root * root).isLessThanOrEqualTo(n);
+      assertThat((root + 1) * (root + 1)).isGreaterThan(n);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {16, 34, 68, 200})
+  void testResultIsTruncatedToThePrecision(int precision) throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .mathContext(new MathContext(precision))
+            .stripTrailingZeros(false)
+            .build();
+
+    for (String value : new String[] {"2", "0.5", "12345.6789", "1E+21", "3E-30"}) {
+      BigDecimal x = new BigDecimal(value);
+      BigDecimal root =
+          new Expression("SQRT(x)", configuration).with("x", x).evaluate().getNumberValue();
+
+      assertThat(root.scale()).isEqualTo(precision);
+      assertThat(root.multiply(root)).isLessThanOrEqualTo(x);
+      BigDecimal next = root.add(BigDecimal.ONE.movePointLeft(precision));
+      assertThat(next.multiply(next)).isGreaterThan(x);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"144:12", "0.25:0.5", "1E+2:1E+1", "0.0001:0.01", "1:1", "0:0"})
+  void testPerfectSquaresAreExact(String valueAndRoot) throws BaseException {
+    String[] parts = valueAndRoot.split(":");
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().stripTrailingZeros(false).build();
+
+    BigDecimal root =
+        new Expression("SQRT(x)", configuration)
+            .with("x", new BigDecimal(parts[0]))
+            .evaluate()
+            .getNumberValue();
+
+    assertThat(root).isEqualByComparingTo(parts[1]);
+    assertThat(new Expression("SQRT(" + parts[0] + ")").evaluate().getNumberValue())
+        .isEqualTo(new BigDecimal(parts[1]).stripTrailingZeros());
+  }
+
+  @Test
+  void testKnownDigits() throws BaseException {
+    assertThat(new Expression("SQRT(2)").evaluate().getStringValue())
+        .isEqualTo("1.41421356237309504880168872420969807856967187537694807317667973799073");
+  }
+
+  private static void assertIntegerSquareRoot(BigInteger n) throws BaseException {
+    BigInteger root = SqrtFunction.sqrt(n, BUDGET, null);
+    BigInteger next = root.add(BigInteger.ONE);
+
+    assertThat(root.multiply(root)).isLessThanOrEqualTo(n);
+    assertThat(next.multiply(next)).isGreaterThan(n);
+  }
+}
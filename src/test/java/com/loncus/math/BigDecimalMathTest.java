@@ -0,0 +1,227 @@
+package com.loncus.math;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.FunctionPrecision;
+import com.loncus.functions.trigonometric.SinFunction;
+import com.loncus.functions.trigonometric.SinRFunction;
+import com.loncus.functions.trigonometric.TanFunction;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.AbstractMap;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BigDecimalMathTest {
+
+  private static final MathContext MATH_CONTEXT = new MathContext(50);
+
+  private static final String SIN_OF_ONE =
+      "0.841470984807896506652502321630298999622563060798371065672752";
+
+  @Test
+  void testKnownConstants() {
+    assertWithinOneUlp(
+        BigDecimalMath.exp(BigDecimal.ONE, MATH_CONTEXT),
+        "2.718281828459045235360287471352662497757247093699959574966967");
+    assertWithinOneUlp(
+        BigDecimalMath.ln(BigDecimal.valueOf(2), MATH_CONTEXT),
+        "0.693147180559945309417232121458176568075500134360255254120680");
+    assertWithinOneUlp(
+        BigDecimalMath.exp(BigDecimal.valueOf(-1), MATH_CONTEXT),
+        "0.367879441171442321595523770161460867445811131031767834507836");
+    assertWithinOneUlp(
+        BigDecimalMath.pi(MATH_CONTEXT),
+        "3.141592653589793238462643383279502884197169399375105820974945");
+  }
+
+  @Test
+  void testKnownValues() {
+    BigDecimal one = BigDecimal.ONE;
+    BigDecimal half = new BigDecimal("0.5");
+    BigDecimal two = BigDecimal.valueOf(2);
+
+    assertWithinOneUlp(BigDecimalMath.sin(one, MATH_CONTEXT), SIN_OF_ONE);
+    assertWithinOneUlp(
+        BigDecimalMath.cos(one, MATH_CONTEXT),
+        "0.540302305868139717400936607442976603732310420617922227670097");
+    assertWithinOneUlp(
+        BigDecimalMath.tan(one, MATH_CONTEXT),
+        "1.55740772465490223050697480745836017308725077238152003838395");
+    assertWithinOneUlp(
+        BigDecimalMath.atan(half, MATH_CONTEXT),
+        "0.463647609000806116214256231461214402028537054286120263810933");
+    assertWithinOneUlp(
+        BigDecimalMath.sinh(half, MATH_CONTEXT),
+        "0.521095305493747361622425626411491559105928982611480527946094");
+    assertWithinOneUlp(
+        BigDecimalMath.tanh(two, MATH_CONTEXT),
+        "0.964027580075816883946413724100923150255029976240934776048263");
+    assertWithinOneUlp(
+        BigDecimalMath.log10(two, MATH_CONTEXT),
+        "0.301029995663981195213738894724493026768189881462108541310427");
+    assertWithinOneUlp(
+        BigDecimalMath.atanInDegrees(two, MATH_CONTEXT),
+        "63.4349488229220106484278062795467053287957857003547789720140");
+    // the reduction by a large multiple of pi/2
+    assertWithinOneUlp(
+        BigDecimalMath.sin(BigDecimal.valueOf(1_000_000), MATH_CONTEXT),
+        "-0.349993502171292952117652486780771469061406605328716273857059");
+  }
+
+  @Test
+  void testExpAndLnAreInverse() {
+    Random random = new Random(3);
+    for (int i = 0; i < 200; i++) {
+      BigDecimal x = BigDecimal.valueOf(random.nextLong() >>> 1, random.nextInt(60) - 20);
+
+      assertWithinOneUlp(
+          BigDecimalMath.exp(BigDecimalMath.ln(x, new MathContext(70)), MATH_CONTEXT),
+          x.toString());
+    }
+    BigDecimal closeToOne = new BigDecimal("1.000000000000000000000000000001");
+    assertWithinOneUlp(
+        BigDecimalMath.ln(closeToOne, MATH_CONTEXT),
+        "9.99999999999999999999999999999500000000000000000000000000000333333E-31");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UP", "DOWN", "HALF_EVEN"})
+  void testExactResults(String roundingModeName) {
+    MathContext mathContext = new MathContext(34, RoundingMode.valueOf(roundingModeName));
+
+    assertThat(BigDecimalMath.sinOfDegrees(BigDecimal.valueOf(180), mathContext))
+        .isEqualByComparingTo("0");
+    assertThat(BigDecimalMath.sinOfDegrees(BigDecimal.valueOf(-210), mathContext))
+        .isEqualByComparingTo("0.5");
+    assertThat(BigDecimalMath.cosOfDegrees(BigDecimal.valueOf(90), mathContext))
+        .isEqualByComparingTo("0");
+    assertThat(BigDecimalMath.cosOfDegrees(BigDecimal.valueOf(60), mathContext))
+        .isEqualByComparingTo("0.5");
+    assertThat(BigDecimalMath.tanOfDegrees(BigDecimal.valueOf(45), mathContext))
+        .isEqualByComparingTo("1");
+    assertThat(BigDecimalMath.tanOfDegrees(BigDecimal.valueOf(135), mathContext))
+        .isEqualByComparingTo("-1");
+    assertThat(BigDecimalMath.atanInDegrees(BigDecimal.ONE, mathContext))
+        .isEqualByComparingTo("45");
+    assertThat(BigDecimalMath.log10(BigDecimal.valueOf(1000), mathContext))
+        .isEqualByComparingTo("3");
+    assertThat(BigDecimalMath.log10(new BigDecimal("0.01"), mathContext))
+        .isEqualByComparingTo("-2");
+    assertThat(BigDecimalMath.pow(BigDecimal.valueOf(4), new BigDecimal("0.5"), mathContext))
+        .isEqualByComparingTo("2");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UP", "DOWN", "CEILING", "FLOOR", "HALF_UP", "HALF_DOWN", "HALF_EVEN"})
+  void testResultIsCorrectlyRounded(String roundingModeName) {
+    MathContext mathContext = new MathContext(34, RoundingMode.valueOf(roundingModeName));
+    MathContext reference = new MathContext(70);
+    Random random = new Random(11);
+    for (int i = 0; i < 50; i++) {
+      BigDecimal x =
+          BigDecimal.valueOf(random.nextLong() >> random.nextInt(63), random.nextInt(40));
+      BigDecimal positive = x.abs().add(BigDecimal.ONE.movePointLeft(40));
+
+      assertCorrectlyRounded(BigDecimalMath::exp, x.movePointLeft(10), mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::ln, positive, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::log10, positive, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::sin, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::cos, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::tan, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::atan, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::sinOfDegrees, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::atanInDegrees, x, mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::sinh, x.movePointLeft(10), mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::cosh, x.movePointLeft(10), mathContext, reference);
+      assertCorrectlyRounded(BigDecimalMath::tanh, x.movePointLeft(10), mathContext, reference);
+    }
+    // tiny arguments, whose results are just above or below a number with the precision
+    BigDecimal tiny = new BigDecimal("2.7E-27");
+    assertCorrectlyRounded(BigDecimalMath::exp, tiny, mathContext, reference);
+    assertCorrectlyRounded(BigDecimalMath::exp, tiny.negate(), mathContext, reference);
+    assertCorrectlyRounded(BigDecimalMath::sin, tiny, mathContext, reference);
+    assertCorrectlyRounded(BigDecimalMath::cosh, tiny, mathContext, reference);
+  }
+
+  @Test
+  void testErrors() {
+    assertThatThrownBy(() -> BigDecimalMath.tanOfDegrees(BigDecimal.valueOf(90), MATH_CONTEXT))
+        .isInstanceOf(ArithmeticException.class)
+        .hasMessage("Tangent of an odd multiple of 90 degrees");
+    assertThatThrownBy(() -> BigDecimalMath.ln(BigDecimal.ZERO, MATH_CONTEXT))
+        .isInstanceOf(ArithmeticException.class)
+        .hasMessage("Logarithm of a number that is not positive");
+    assertThatThrownBy(() -> BigDecimalMath.exp(new BigDecimal("1e10"), MATH_CONTEXT))
+        .isInstanceOf(ArithmeticException.class)
+        .hasMessage("Exponential function result is out of range");
+    assertThatThrownBy(() -> BigDecimalMath.sin(new BigDecimal("1e1000000"), MATH_CONTEXT))
+        .isInstanceOf(ArithmeticException.class)
+        .hasMessage("Angle is out of range");
+  }
+
+  @Test
+  void testUnlimitedPrecision() {
+    assertThat(BigDecimalMath.sin(BigDecimal.ONE, MathContext.UNLIMITED))
+        .isEqualTo(new BigDecimal(SIN_OF_ONE).round(MathContext.DECIMAL128));
+  }
+
+  @Test
+  void testFunctionPrecision() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder()
+            .mathContext(MATH_CONTEXT)
+            .build()
+            .withAdditionalFunctions(
+                new AbstractMap.SimpleEntry<>("SIN", new SinFunction()),
+                new AbstractMap.SimpleEntry<>("SINR", new SinRFunction()),
+                new AbstractMap.SimpleEntry<>("TAN", new TanFunction()));
+    ExpressionConfiguration mathContextConfiguration =
+        configuration.toBuilder().functionPrecision(FunctionPrecision.MATH_CONTEXT).build();
+
+    assertThat(new Expression("SIN(30)", configuration).evaluate().getNumberValue())
+        .isNotEqualByComparingTo("0.5");
+    assertThat(new Expression("SIN(30)", mathContextConfiguration).evaluate().getNumberValue())
+        .isEqualByComparingTo("0.5");
+    assertThat(new Expression("SINR(1)", mathContextConfiguration).evaluate().getNumberValue())
+        .isEqualByComparingTo(new BigDecimal(SIN_OF_ONE).round(MATH_CONTEXT));
+    assertThatThrownBy(() -> new Expression("TAN(90)", mathContextConfiguration).evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Tangent of an odd multiple of 90 degrees");
+  }
+
+  /**
+   * Checks that a result is the reference with more digits rounded to the math context, for all
+   * references that are not exact, whose double rounding could be wrong.
+   */
+  private static void assertCorrectlyRounded(
+      BiFunction<BigDecimal, MathContext, BigDecimal> function,
+      BigDecimal x,
+      MathContext mathContext,
+      MathContext reference) {
+    BigDecimal expected;
+    try {
+      expected = function.apply(x, reference);
+    } catch (ArithmeticException e) {
+      return;
+    }
+    if (expected.stripTrailingZeros().precision() >= reference.getPrecision() - 10) {
+      assertThat(function.apply(x, mathContext))
+          .as("%s", x)
+          .isEqualByComparingTo(expected.round(mathContext));
+    }
+  }
+
+  private static void assertWithinOneUlp(BigDecimal actual, String expected) {
+    assertThat(actual.subtract(new BigDecimal(expected)).abs()).isLessThanOrEqualTo(actual.ulp());
+  }
+}
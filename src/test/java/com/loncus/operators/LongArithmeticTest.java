@@ -0,0 +1,133 @@
+package com.loncus.operators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.BaseException;
+import com.loncus.CompiledExpression;
+import com.loncus.EvaluationException;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LongArithmeticTest {
+
+  private static final MathContext MATH_CONTEXT =
+      ExpressionConfiguration.defaultConfiguration().getMathContext();
+
+  @ParameterizedTest
+  @ValueSource(strings = {"+", "-", "*", "%", "<", "<=", ">", ">=", "=", "<>"})
+  void testSameResultAsBigDecimal(String operator) throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a " + operator + " b");
+
+    Random random = new Random(operator.hashCode());
+    for (int i = 0; i < 10_000; i++) {
+      long a = randomValue(random);
+      long b = randomValue(random);
+      if (b == 0 && operator.equals("%")) {
+        continue;
+      }
+      EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", a).and("b", b));
+
+      assertThat(result).isEqualTo(expected(operator, a, b));
+      if (result.hasLongValue()) {
+        assertThat(result.getLongValue()).isEqualTo(result.getNumberValue().longValueExact());
+      }
+    }
+  }
+
+  @Test
+  void testOverflowPromotesToBigDecimal() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a * b + a");
+
+    EvaluationValue result =
+        compiled.evaluate(compiled.newBindings().with("a", Long.MAX_VALUE).and("b", 4));
+
+    assertThat(result.hasLongValue()).isFalse();
+    assertThat(result.getNumberValue())
+        .isEqualTo(BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(5)));
+  }
+
+  @Test
+  void testFractionsAndDivisionUseBigDecimal() throws BaseException {
+    CompiledExpression compiled = CompiledExpression.compile("a / b + 0.25");
+
+    EvaluationValue result = compiled.evaluate(compiled.newBindings().with("a", 7).and("b", 2));
+
+    assertThat(result.hasLongValue()).isFalse();
+    assertThat(result.getNumberValue()).isEqualByComparingTo("3.75");
+    assertThatThrownBy(() -> compiled.evaluate(compiled.newBindings().with("a", 7).and("b", 0)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    CompiledExpression remainder = CompiledExpression.compile("a % b");
+    assertThatThrownBy(() -> remainder.evaluate(remainder.newBindings().with("a", 7).and("b", 0)))
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+  }
+
+  @Test
+  void testSmallPrecisionRoundsLikeBigDecimal() throws BaseException {
+    CompiledExpression compiled =
+        CompiledExpression.compile(
+            "a * b + a",
+            ExpressionConfiguration.builder().mathContext(MathContext.DECIMAL32).build());
+
+    EvaluationValue result =
+        compiled.evaluate(compiled.newBindings().with("a", 12_345_678).and("b", 3));
+
+    assertThat(result.getNumberValue()).isEqualTo(new BigDecimal("4.938271E+7"));
+  }
+
+  /** Random values of all magnitudes, including the smallest and largest values. */
+  private static long randomValue(Random random) {
+    switch (random.nextInt(5)) {
+      case 0:
+        return random.nextLong();
+      case 1:
+        return random.nextBoolean() ? Long.MAX_VALUE : Long.MIN_VALUE;
+      case 2:
+        return random.nextInt(7) - 3;
+      default:
+        return random.nextLong() >> random.nextInt(64);
+    }
+  }
+
+  private static EvaluationValue expected(String operator, long a, long b) {
+    BigDecimal left = BigDecimal.valueOf(a);
+    BigDecimal right = BigDecimal.valueOf(b);
+    switch (operator) {
+      case "+":
+        return number(left, right, BigDecimal::add);
+      case "-":
+        return number(left, right, BigDecimal::subtract);
+      case "*":
+        return number(left, right, (x, y) -> x.multiply(y, MATH_CONTEXT));
+      case "%":
+        return number(left, right, (x, y) -> x.remainder(y, MATH_CONTEXT));
+      case "<":
+        return EvaluationValue.booleanValue(left.compareTo(right) < 0);
+      case "<=":
+        return EvaluationValue.booleanValue(left.compareTo(right) <= 0);
+      case ">":
+        return EvaluationValue.booleanValue(left.compareTo(right) > 0);
+      case ">=":
+        return EvaluationValue.booleanValue(left.compareTo(right) >= 0);
+      case "=":
+        return EvaluationValue.booleanValue(left.equals(right));
+      default:
+        return EvaluationValue.booleanValue(!left.equals(right));
+    }
+  }
+
+  private static EvaluationValue number(
+      BigDecimal left, BigDecimal right, BinaryOperator<BigDecimal> operation) {
+    // the result of the expression has no trailing zeros
+    return EvaluationValue.numberValue(operation.apply(left, right).stripTrailingZeros());
+  }
+}
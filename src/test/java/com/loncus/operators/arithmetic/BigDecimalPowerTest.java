@@ -0,0 +1,150 @@
+package com.loncus.operators.arithmetic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.loncus.BaseException;
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.data.EvaluationValue;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BigDecimalPowerTest {
+
+  @Test
+  void testSquareRootsMatchSqrtFunction() throws BaseException {
+    Random random = new Random(5);
+    for (int i = 0; i < 200; i++) {
+      BigDecimal x = BigDecimal.valueOf(random.nextInt(1_000_000_000) + 1, random.nextInt(12));
+
+      BigDecimal power = new Expression("x ^ 0.5").with("x", x).evaluate().getNumberValue();
+      BigDecimal root = new Expression("SQRT(x)").with("x", x).evaluate().getNumberValue();
+
+      // the root is truncated to the precision in decimal places
+      assertThat(power.subtract(root).abs()).isLessThanOrEqualTo(power.ulp().max(root.ulp()));
+    }
+  }
+
+  @Test
+  void testSameAsDoublePowers() throws BaseException {
+    Random random = new Random(7);
+    for (int i = 0; i < 1_000; i++) {
+      double x = random.nextDouble() * 1000;
+      double y = random.nextDouble() * 20 - 10;
+      BigDecimal power =
+          new Expression("x ^ y")
+              .with("x", BigDecimal.valueOf(x))
+              .and("y", BigDecimal.valueOf(y))
+              .evaluate()
+              .getNumberValue();
+
+      assertThat(power.doubleValue() / Math.pow(x, y)).isCloseTo(1, within(1e-13));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {16, 34, 68})
+  void testResultIsCorrectlyRounded(int precision) throws BaseException {
+    MathContext mathContext = new MathContext(precision);
+    MathContext reference = new MathContext(precision + 40);
+    Random random = new Random(precision);
+    for (int i = 0; i < 200; i++) {
+      BigDecimal x = BigDecimal.valueOf(random.nextInt(100_000) + 1, random.nextInt(4));
+      BigDecimal y = BigDecimal.valueOf(random.nextInt(20_000) - 10_000, random.nextInt(4) + 1);
+
+      assertThat(pow(x, y, mathContext))
+          .isEqualByComparingTo(pow(x, y, reference).round(mathContext));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "4 ^ 0.5:2",
+        "0.25 ^ 1.5:0.125",
+        "2 ^ -2:0.25",
+        "1.5 ^ 10:57.6650390625",
+        "(-2) ^ 3:-8",
+        "(-2) ^ 2.0:4",
+        "2 ^ 62:4611686018427387904",
+        "2 ^ 63:9223372036854775808",
+        "3 ^ 40:12157665459056928801",
+        "1 ^ 123456789012345678901234567890:1",
+        "0 ^ 0.5:0",
+        "7 ^ 0:1",
+        "0.5 ^ 3:0.125",
+        "1.0000001 ^ 10000000000:1.9699726129304605663092499948461492718403216895148466367436133910303E+434"
+      })
+  void testPowers(String expressionAndResult) throws BaseException {
+    String[] parts = expressionAndResult.split(":");
+
+    EvaluationValue result = new Expression(parts[0]).evaluate();
+
+    assertThat(result.getNumberValue()).isEqualByComparingTo(parts[1]);
+  }
+
+  @Test
+  void testIntegerPowersAreLongs() throws BaseException {
+    EvaluationValue result = new Expression("a ^ b").with("a", 3).and("b", 39).evaluate();
+
+    assertThat(result.hasLongValue()).isTrue();
+    assertThat(result.getLongValue()).isEqualTo(4_052_555_153_018_976_267L);
+    assertThat(new Expression("a ^ b").with("a", -2).and("b", 61).evaluate().getLongValue())
+        .isEqualTo(-(1L << 61));
+  }
+
+  @Test
+  void testPowersOfMinimumLong() throws BaseException {
+    BigDecimal minimum = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    assertThat(new Expression("a ^ 2").with("a", Long.MIN_VALUE).evaluate().getNumberValue())
+        .isEqualByComparingTo(minimum.pow(2));
+    assertThat(new Expression("a ^ 3").with("a", Long.MIN_VALUE).evaluate().getNumberValue())
+        .isEqualByComparingTo(minimum.pow(3));
+  }
+
+  @Test
+  void testErrors() {
+    assertThatThrownBy(() -> new Expression("0 ^ -1").evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Division by zero");
+    assertThatThrownBy(() -> new Expression("(-8) ^ 0.5").evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Fractional power of a negative number");
+    assertThatThrownBy(() -> new Expression("2 ^ 10000000000").evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Power result is out of range");
+    assertThatThrownBy(() -> new Expression("0.5 ^ 1e20").evaluate())
+        .isInstanceOf(EvaluationException.class)
+        .hasMessage("Power result is out of range");
+  }
+
+  @Test
+  void testUnlimitedPrecision() throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().mathContext(MathContext.UNLIMITED).build();
+
+    assertThat(new Expression("3 ^ 50", configuration).evaluate().getStringValue())
+        .isEqualTo("717897987691852588770249");
+    assertThat(new Expression("2 ^ 0.5", configuration).evaluate().getNumberValue())
+        .isEqualTo(new BigDecimal("1.414213562373095048801688724209698"));
+  }
+
+  private static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mathContext)
+      throws BaseException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().mathContext(mathContext).build();
+    return new Expression("x ^ y", configuration)
+        .with("x", x)
+        .and("y", y)
+        .evaluate()
+        .getNumberValue();
+  }
+}
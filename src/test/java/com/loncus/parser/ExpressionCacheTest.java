@@ -0,0 +1,130 @@
+package com.loncus.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ExpressionCacheTest {
+
+  @Test
+  void testSameExpressionIsParsedOnce() throws ParseException {
+    ExpressionCache cache = new ExpressionCache(10);
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+
+    ASTNode first = cache.getAbstractSyntaxTree("a+b*2", configuration);
+    ASTNode second = cache.getAbstractSyntaxTree("a+b*2", configuration);
+
+    assertThat(second).isSameAs(first);
+    assertThat(cache.getStatistics().getHitCount()).isEqualTo(1);
+    assertThat(cache.getStatistics().getMissCount()).isEqualTo(1);
+    assertThat(cache.getStatistics().getHitRate()).isEqualTo(0.5);
+  }
+
+  @Test
+  void testConfigurationIsPartOfKey() throws ParseException {
+    ExpressionCache cache = new ExpressionCache(10);
+
+    ASTNode first =
+        cache.getAbstractSyntaxTree("1+1", ExpressionConfiguration.defaultConfiguration());
+    ASTNode second =
+        cache.getAbstractSyntaxTree("1+1", ExpressionConfiguration.defaultConfiguration());
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  void testLeastRecentlyUsedIsEvicted() throws ParseException {
+    ExpressionCache cache = new ExpressionCache(10);
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+
+    ASTNode hot = cache.getAbstractSyntaxTree("x*2", configuration);
+    for (int i = 0; i < 20; i++) {
+      cache.getAbstractSyntaxTree("x*2", configuration);
+      cache.getAbstractSyntaxTree("x+" + i, configuration);
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(10);
+    assertThat(cache.getStatistics().getEvictionCount()).isGreaterThanOrEqualTo(11);
+    assertThat(cache.getAbstractSyntaxTree("x*2", configuration)).isSameAs(hot);
+  }
+
+  @Test
+  void testParseErrorsAreNotCached() {
+    ExpressionCache cache = new ExpressionCache(10);
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+
+    assertThatThrownBy(() -> cache.getAbstractSyntaxTree("2#3", configuration))
+        .isInstanceOf(ParseException.class)
+        .hasMessage("Undefined operator '#'");
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void testCachedTreeIsImmutable() throws ParseException {
+    ExpressionCache cache = new ExpressionCache(10);
+    ASTNode node =
+        cache.getAbstractSyntaxTree("1+2", ExpressionConfiguration.defaultConfiguration());
+
+    assertThatThrownBy(() -> node.getParameters().set(0, node))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void testExpressionUsesConfiguredCache() throws ParseException, EvaluationException {
+    ExpressionCache cache = new ExpressionCache(10);
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().expressionCache(cache).build();
+
+    Expression expression1 = new Expression("a*b", configuration).with("a", 2).and("b", 3);
+    Expression expression2 = new Expression("a*b", configuration).with("a", 4).and("b", 5);
+
+    assertThat(expression1.evaluate().getStringValue()).isEqualTo("6");
+    assertThat(expression2.evaluate().getStringValue()).isEqualTo("20");
+    assertThat(expression2.getAbstractSyntaxTree()).isSameAs(expression1.getAbstractSyntaxTree());
+    assertThat(cache.getStatistics().getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testConcurrentReaders() throws Exception {
+    ExpressionCache cache = new ExpressionCache(50);
+    ExpressionConfiguration configuration = ExpressionConfiguration.defaultConfiguration();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 1_000; i++) {
+                    String expression = "a+" + (i % 100);
+                    ASTNode node = cache.getAbstractSyntaxTree(expression, configuration);
+                    assertThat(node.getParameters().get(1).getToken().getValue())
+                        .isEqualTo(String.valueOf(i % 100));
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    ExpressionCache.Statistics statistics = cache.getStatistics();
+    assertThat(statistics.getHitCount() + statistics.getMissCount()).isEqualTo(8_000);
+    assertThat(statistics.getSize()).isLessThanOrEqualTo(50);
+  }
+}
@@ -0,0 +1,163 @@
+package com.loncus.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.loncus.EvaluationException;
+import com.loncus.Expression;
+import com.loncus.config.ExpressionConfiguration;
+import com.loncus.config.ExpressionConfiguration.ParserType;
+import com.loncus.operators.OperatorIfc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PrecedenceClimbingParserTest {
+
+  private static final ExpressionConfiguration CONFIGURATION =
+      ExpressionConfiguration.defaultConfiguration();
+
+  private static final ExpressionConfiguration POWER_HIGHER_CONFIGURATION =
+      ExpressionConfiguration.builder()
+          .powerOfPrecedence(OperatorIfc.OPERATOR_PRECEDENCE_POWER_HIGHER)
+          .build();
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "1",
+        "a",
+        "\"text\"",
+        "1 + 2 * 3",
+        "1 * 2 + 3",
+        "1 - 2 - 3",
+        "2 ^ 3 ^ 2",
+        "-2 ^ 2",
+        "2 ^ (-2)",
+        "--a",
+        "-a * -b",
+        "+a - -b",
+        "!a && !b || c",
+        "a == b != c",
+        "a > 1 && b <= 2 || !(c >= 3)",
+        "((1 + 2)) * ((3))",
+        "(a + b) * (a - b) / (a * b + 1)",
+        "MAX(1)",
+        "MAX(1, 2, 3)",
+        "MAX(1 + 2, -3 * 4)",
+        "MAX(1, (2), ((3)))",
+        "IF(a > b, MAX(a, b, 100) * 2, MIN(a, b) / 3)",
+        "SQRT(a * a + b * b) + ABS(a - b) + FLOOR(a / 3)",
+        "SUM(MAX(1, 2), MIN(3, 4))",
+        "a[1]",
+        "a[1][2]",
+        "a[b[1] + 1] * 2",
+        "-a[1]",
+        "MAX(a, b)[1]",
+        "(a + b)[1]",
+        "0x1F + 1e3 - 1.5E-2",
+        "{x}",
+      })
+  void testSameTreesAsShuntingYard(String expression) throws ParseException {
+    assertSameTree(expression, CONFIGURATION);
+    assertSameTree(expression, POWER_HIGHER_CONFIGURATION);
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "",
+        "  ",
+        "()",
+        "1 2",
+        "(1 2)",
+        "1 +",
+        "* 2",
+        "- * 2",
+        "() + 1",
+        "1 + ()",
+        "() + ()",
+        "-()",
+        "MAX()",
+        "ABS(1, 2)",
+        "(1 + 2",
+        "1 + 2)",
+        "a[1",
+        "a]",
+        "1 + * 2",
+        "1 + 2 +",
+        "1 + 2 *",
+        "a || b ==",
+        "1 + -",
+        "1 * --",
+        "* -",
+        "1e",
+        "\"text",
+        "1 ? 2",
+        "1 + (2 * )",
+        "(2 3) + 1e",
+        "UNKNOWN(1)",
+      })
+  void testSameErrorsAsShuntingYard(String expression) {
+    assertSameError(expression, CONFIGURATION);
+    assertSameError(expression, POWER_HIGHER_CONFIGURATION);
+  }
+
+  @Test
+  void testMissingArrayIndex() {
+    assertThatThrownBy(() -> parse("a[()]", CONFIGURATION))
+        .isInstanceOf(ParseException.class)
+        .hasMessage("Missing operand for array index");
+  }
+
+  @Test
+  void testEvaluateWithPrecedenceClimbing() throws ParseException, EvaluationException {
+    ExpressionConfiguration configuration =
+        ExpressionConfiguration.builder().parserType(ParserType.PRECEDENCE_CLIMBING).build();
+
+    Expression expression =
+        new Expression("IF(a > 1, MAX(a, 2) ^ 2, -a)", configuration).with("a", 3);
+
+    assertThat(expression.evaluate().getStringValue()).isEqualTo("9");
+  }
+
+  private static void assertSameTree(String expression, ExpressionConfiguration configuration)
+      throws ParseException {
+    assertThat(parse(expression, configuration))
+        .as(expression)
+        .isEqualTo(parseWithShuntingYard(expression, configuration));
+  }
+
+  private static void assertSameError(String expression, ExpressionConfiguration configuration) {
+    ParseException expected = null;
+    try {
+      parseWithShuntingYard(expression, configuration);
+    } catch (ParseException e) {
+      expected = e;
+    }
+    assertThat(expected).as(expression).isNotNull();
+
+    ParseException actual = null;
+    try {
+      parse(expression, configuration);
+    } catch (ParseException e) {
+      actual = e;
+    }
+    assertThat(actual).as(expression).isNotNull();
+    assertThat(actual.getMessage()).as(expression).isEqualTo(expected.getMessage());
+    assertThat(actual.getStartPosition()).as(expression).isEqualTo(expected.getStartPosition());
+    assertThat(actual.getEndPosition()).as(expression).isEqualTo(expected.getEndPosition());
+  }
+
+  private static ASTNode parse(String expression, ExpressionConfiguration configuration)
+      throws ParseException {
+    return new PrecedenceClimbingParser(expression, configuration).toAbstractSyntaxTree();
+  }
+
+  private static ASTNode parseWithShuntingYard(
+      String expression, ExpressionConfiguration configuration) throws ParseException {
+    Tokenizer tokenizer = new Tokenizer(expression, configuration);
+    return new ShuntingYardConverter(expression, tokenizer.parse(), configuration)
+        .toAbstractSyntaxTree();
+  }
+}